@@ -0,0 +1,140 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+
+/**
+ * The dependency graph of the calls in a {@link CallChain call chain}, built
+ * from {@link Call#getDependsOn() Call.dependsOn}. The graph is validated on
+ * creation: unknown dependencies and cycles are rejected.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class CallGraph {
+
+	private final Map<String, Call> calls;
+	private final Map<String, List<String>> dependencies;
+	private final List<Call> order;
+
+	private CallGraph(Map<String, Call> calls, Map<String, List<String>> dependencies, List<Call> order) {
+		this.calls = calls;
+		this.dependencies = dependencies;
+		this.order = order;
+	}
+
+	/**
+	 * Build the graph of the given chain's calls.
+	 * 
+	 * @param chain The call chain.
+	 * @return The validated graph.
+	 * @throws MosquitoException If a call depends on a call that isn't in the
+	 *                           chain, or if calls depend on each other in a cycle.
+	 */
+	public static CallGraph of(CallChain chain) {
+		Map<String, Call> calls = new TreeMap<>();
+		if (null != chain.getCalls()) {
+			chain.getCalls()
+					.values()
+					.forEach(call -> calls.put(call.getKey(), call));
+		}
+
+		Map<String, List<String>> dependencies = new HashMap<>();
+		Map<String, List<String>> dependents = new HashMap<>();
+		Map<String, Integer> inDegree = new HashMap<>();
+		for (Call call : calls.values()) {
+			List<String> deps = null == call.getDependsOn() ? List.of()
+					: List.copyOf(new LinkedHashSet<>(call.getDependsOn()));
+			for (String dep : deps) {
+				if (!calls.containsKey(dep)) {
+					throw new MosquitoException(
+							"Call '" + call.getKey() + "' depends on unknown call '" + dep + "' in chain " + chain.getKey());
+				}
+				dependents.computeIfAbsent(dep, k -> new ArrayList<>())
+						.add(call.getKey());
+			}
+
+			dependencies.put(call.getKey(), deps);
+			inDegree.put(call.getKey(), deps.size());
+		}
+
+		// Kahn's algorithm, taking ready calls in key order to keep runs predictable
+		PriorityQueue<String> ready = new PriorityQueue<>();
+		inDegree.forEach((key, degree) -> {
+			if (degree == 0) {
+				ready.add(key);
+			}
+		});
+
+		List<Call> order = new ArrayList<>(calls.size());
+		while (!ready.isEmpty()) {
+			String key = ready.poll();
+			order.add(calls.get(key));
+
+			for (String dependent : dependents.getOrDefault(key, List.of())) {
+				if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+
+		if (order.size() < calls.size()) {
+			Set<String> cyclic = inDegree.entrySet()
+					.stream()
+					.filter(e -> e.getValue() > 0)
+					.map(Map.Entry::getKey)
+					.sorted()
+					.collect(Collectors.toCollection(LinkedHashSet::new));
+			throw new MosquitoException(
+					"Call dependencies form a cycle in chain " + chain.getKey() + ", unresolved calls: " + cyclic);
+		}
+
+		return new CallGraph(Collections.unmodifiableMap(calls), dependencies, Collections.unmodifiableList(order));
+	}
+
+	/**
+	 * The calls in an order where each call comes after all its dependencies.
+	 */
+	public List<Call> getOrder() {
+		return order;
+	}
+
+	public Call getCall(String key) {
+		return this.calls.get(key);
+	}
+
+	/**
+	 * The keys of the calls that the given call depends on directly.
+	 */
+	public List<String> getDependencies(String key) {
+		return this.dependencies.getOrDefault(key, List.of());
+	}
+
+	public int size() {
+		return this.calls.size();
+	}
+}
@@ -58,6 +58,11 @@ public class CallResult implements Result {
 	private List<AssertionResult> assertionResults;
 
 	private Instant startDate;
+	/**
+	 * When the call would have started had its chain started on schedule. Earlier
+	 * than the start date only in fixed-rate load runs that fell behind.
+	 */
+	private Instant intendedStartDate;
 	private Instant endDate;
 
 	@Override
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import com.eussence.mosquito.api.qa.AssertionResult;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * A result of a test at various levels.
@@ -33,6 +34,11 @@ public interface Result {
 
 	List<AssertionResult> getAssertionResults();
 
+	/**
+	 * The results this result is made of, derived from its own fields, and
+	 * therefore not written to JSON.
+	 */
+	@JsonIgnore
 	Map<String, Result> getChildResults();
 
 	Instant getStartDate();
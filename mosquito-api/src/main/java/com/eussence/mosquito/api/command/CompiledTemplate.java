@@ -0,0 +1,59 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.command;
+
+import java.util.Objects;
+
+import com.eussence.mosquito.api.MapObject;
+
+/**
+ * A template or expression that has been prepared once and can be evaluated
+ * repeatedly against different contexts.
+ * 
+ * @author Ernest Kiwele
+ */
+@FunctionalInterface
+public interface CompiledTemplate {
+
+	Object eval(MapObject context);
+
+	/**
+	 * Prepare the given template with the resolver. Resolvers that are also
+	 * {@link TemplateCompiler template compilers} compile it once; other
+	 * resolvers evaluate the template text on each call.
+	 * 
+	 * @param resolver The resolver for the template's language.
+	 * @param template The template text.
+	 * @return The compiled template.
+	 */
+	static CompiledTemplate of(Resolver resolver, String template) {
+		Objects.requireNonNull(resolver, "Resolver may not be null");
+
+		if (resolver instanceof TemplateCompiler) {
+			return ((TemplateCompiler) resolver).compile(template);
+		}
+
+		return context -> resolver.eval(context, template);
+	}
+
+	/**
+	 * A compiled template that always returns the given value, ignoring the
+	 * context.
+	 */
+	static CompiledTemplate constant(Object value) {
+		return context -> value;
+	}
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import com.eussence.mosquito.api.MapObject;
+
+/**
+ * <p>
+ * A compiled template for the common case of templates that only reference
+ * context variables or dotted paths, such as <code>${host}/users/${id}</code>
+ * or <code>user.address.city</code>. These are rendered by direct lookups on
+ * the context, without running a script.
+ * </p>
+ *
+ * <p>
+ * Templates using anything else (method calls, operators, escapes) are not
+ * accepted by the factory methods. When a referenced variable is missing from
+ * the context, or a path crosses a <code>null</code> value, evaluation is
+ * delegated to a fallback template compiled by the language's resolver on first
+ * use, so results and errors stay those of the full language.
+ * </p>
+ *
+ * @author Ernest Kiwele
+ */
+public final class SimpleTemplate implements CompiledTemplate {
+
+	private static final Set<String> KEYWORDS = Set.of("true", "false", "null", "this", "super", "new", "it");
+	private static final Object MISSING = new Object();
+
+	private final Object[] parts;
+	private final boolean expression;
+	private final int literalLength;
+	private final Supplier<CompiledTemplate> fallbackCompiler;
+	private volatile CompiledTemplate fallback;
+
+	private SimpleTemplate(List<Object> parts, boolean expression, Supplier<CompiledTemplate> fallbackCompiler) {
+		this.parts = parts.toArray();
+		this.expression = expression;
+		this.literalLength = parts.stream()
+				.filter(String.class::isInstance)
+				.mapToInt(p -> ((String) p).length())
+				.sum();
+		this.fallbackCompiler = Objects.requireNonNull(fallbackCompiler, "Fallback compiler may not be null");
+	}
+
+	/**
+	 * Parse a string interpolation such as <code>${host}/users/$id</code>.
+	 *
+	 * @param template         The interpolated text, without quotes.
+	 * @param fallbackCompiler Compiles the full-language form of the template when
+	 *                         needed.
+	 * @return The compiled template, or an empty optional if the template uses
+	 *         more than variable and path references.
+	 */
+	public static Optional<CompiledTemplate> interpolation(String template,
+			Supplier<CompiledTemplate> fallbackCompiler) {
+		if (null == template || template.indexOf('\\') >= 0) {
+			return Optional.empty();
+		}
+
+		List<Object> parts = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int i = 0;
+		while (i < template.length()) {
+			char c = template.charAt(i);
+			if (c != '$') {
+				literal.append(c);
+				i++;
+				continue;
+			}
+
+			String[] path;
+			if (i + 1 < template.length() && template.charAt(i + 1) == '{') {
+				int end = template.indexOf('}', i + 2);
+				path = end < 0 ? null : parsePath(template.substring(i + 2, end));
+				i = end + 1;
+			} else {
+				int end = scanPath(template, i + 1);
+				path = end == i + 1 ? null : parsePath(template.substring(i + 1, end));
+				i = end;
+			}
+
+			if (null == path) {
+				return Optional.empty();
+			}
+
+			if (literal.length() > 0) {
+				parts.add(literal.toString());
+				literal.setLength(0);
+			}
+			parts.add(path);
+		}
+
+		if (literal.length() > 0) {
+			parts.add(literal.toString());
+		}
+
+		return Optional.of(new SimpleTemplate(parts, false, fallbackCompiler));
+	}
+
+	/**
+	 * Parse an expression that is a single variable or dotted path, such as
+	 * <code>payload.user</code>. The resolved value is returned as-is.
+	 *
+	 * @param expression       The expression text.
+	 * @param fallbackCompiler Compiles the full-language form of the expression
+	 *                         when needed.
+	 * @return The compiled expression, or an empty optional if the expression is
+	 *         not a plain path.
+	 */
+	public static Optional<CompiledTemplate> expression(String expression,
+			Supplier<CompiledTemplate> fallbackCompiler) {
+		String[] path = null == expression ? null : parsePath(expression);
+
+		return null == path ? Optional.empty()
+				: Optional.of(new SimpleTemplate(List.of((Object) path), true, fallbackCompiler));
+	}
+
+	@Override
+	public Object eval(MapObject context) {
+		if (this.expression) {
+			Object value = resolve((String[]) this.parts[0], context);
+			return value == MISSING ? this.fallback()
+					.eval(context) : value;
+		}
+
+		StringBuilder result = new StringBuilder(this.literalLength + 16 * this.parts.length);
+		for (Object part : this.parts) {
+			if (part instanceof String) {
+				result.append((String) part);
+			} else {
+				Object value = resolve((String[]) part, context);
+				if (value == MISSING) {
+					return this.fallback()
+							.eval(context);
+				}
+				result.append(InvokerHelper.toString(value));
+			}
+		}
+
+		return result.toString();
+	}
+
+	private CompiledTemplate fallback() {
+		CompiledTemplate f = this.fallback;
+		if (null == f) {
+			synchronized (this) {
+				f = this.fallback;
+				if (null == f) {
+					f = Objects.requireNonNull(this.fallbackCompiler.get(), "Fallback compiler returned null");
+					this.fallback = f;
+				}
+			}
+		}
+
+		return f;
+	}
+
+	private static Object resolve(String[] path, Map<String, Object> context) {
+		if (null == context || !context.containsKey(path[0])) {
+			return MISSING;
+		}
+
+		Object value = context.get(path[0]);
+		for (int i = 1; i < path.length; i++) {
+			if (null == value) {
+				return MISSING;
+			}
+
+			value = value instanceof Map ? ((Map<?, ?>) value).get(path[i]) : InvokerHelper.getProperty(value, path[i]);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Find the end of a <code>$a.b.c</code> reference, following the rules of
+	 * Groovy's short-form interpolation: a trailing dot is literal text.
+	 */
+	private static int scanPath(String s, int start) {
+		int i = scanIdentifier(s, start);
+		if (i == start) {
+			return start;
+		}
+
+		while (i + 1 < s.length() && s.charAt(i) == '.') {
+			int next = scanIdentifier(s, i + 1);
+			if (next == i + 1) {
+				break;
+			}
+			i = next;
+		}
+
+		return i;
+	}
+
+	private static int scanIdentifier(String s, int start) {
+		if (start >= s.length() || !isIdentifierStart(s.charAt(start))) {
+			return start;
+		}
+
+		int i = start + 1;
+		while (i < s.length() && isIdentifierPart(s.charAt(i))) {
+			i++;
+		}
+
+		return i;
+	}
+
+	private static String[] parsePath(String text) {
+		String[] path = text.trim()
+				.split("\\.", -1);
+		for (String segment : path) {
+			if (scanIdentifier(segment, 0) != segment.length() || segment.isEmpty()) {
+				return null;
+			}
+		}
+
+		return KEYWORDS.contains(path[0]) ? null : path;
+	}
+
+	private static boolean isIdentifierStart(char c) {
+		return Character.isLetter(c) || c == '_';
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.command;
+
+/**
+ * A capability of resolvers that can parse a template once and return a
+ * reusable evaluator for it.
+ * 
+ * @author Ernest Kiwele
+ */
+public interface TemplateCompiler {
+
+	/**
+	 * Compile the given template. Compilation errors are raised here rather than on
+	 * evaluation.
+	 * 
+	 * @param template The template or expression text.
+	 * @return An evaluator that is safe to call concurrently with different
+	 *         contexts.
+	 */
+	CompiledTemplate compile(String template);
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+
+/**
+ * A reader of comma-separated values (RFC 4180). The first record holds the
+ * column names, which become the keys of each following record. Quoted fields
+ * may contain commas, doubled quotes and line breaks. Values are read as
+ * strings.
+ * 
+ * @author Ernest Kiwele
+ */
+public class CsvDatasetReader implements DatasetReader {
+
+	private static final CsvDatasetReader instance = new CsvDatasetReader();
+
+	private CsvDatasetReader() {
+	}
+
+	public static CsvDatasetReader instance() {
+		return instance;
+	}
+
+	@Override
+	public Stream<Map<String, Object>> read(Reader reader) {
+		return StreamSupport.stream(new RecordSpliterator(reader), false);
+	}
+
+	private static final class RecordSpliterator extends Spliterators.AbstractSpliterator<Map<String, Object>> {
+
+		private final Reader reader;
+		private final StringBuilder field = new StringBuilder();
+		private List<String> header;
+		private long line = 1;
+		private int pending = -2;
+
+		private RecordSpliterator(Reader reader) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.reader = reader;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Map<String, Object>> action) {
+			if (null == this.header) {
+				this.header = this.nextRecord();
+				if (null == this.header) {
+					return false;
+				}
+				if (!this.header.isEmpty() && this.header.get(0)
+						.startsWith("\uFEFF")) {
+					this.header.set(0, this.header.get(0)
+							.substring(1));
+				}
+			}
+
+			List<String> values = this.nextRecord();
+			while (null != values && values.size() == 1 && values.get(0)
+					.isEmpty()) {
+				values = this.nextRecord();
+			}
+
+			if (null == values) {
+				return false;
+			}
+
+			Map<String, Object> record = new LinkedHashMap<>();
+			for (int i = 0; i < this.header.size(); i++) {
+				record.put(this.header.get(i), i < values.size() ? values.get(i) : null);
+			}
+
+			action.accept(record);
+			return true;
+		}
+
+		private int read() throws IOException {
+			if (this.pending != -2) {
+				int c = this.pending;
+				this.pending = -2;
+				return c;
+			}
+
+			return this.reader.read();
+		}
+
+		/**
+		 * Read the fields of the next record, or null at the end of the input.
+		 */
+		private List<String> nextRecord() {
+			try {
+				int c = this.read();
+				if (c == -1) {
+					return null;
+				}
+
+				List<String> fields = new ArrayList<>();
+				boolean quoted = false;
+				this.field.setLength(0);
+
+				while (true) {
+					if (quoted) {
+						if (c == -1) {
+							throw new MosquitoException("Unterminated quoted field at line " + this.line);
+						} else if (c == '"') {
+							int next = this.read();
+							if (next == '"') {
+								this.field.append('"');
+							} else {
+								quoted = false;
+								c = next;
+								continue;
+							}
+						} else {
+							if (c == '\n') {
+								this.line++;
+							}
+							this.field.append((char) c);
+						}
+					} else if (c == '"' && this.field.length() == 0) {
+						quoted = true;
+					} else if (c == ',') {
+						fields.add(this.field.toString());
+						this.field.setLength(0);
+					} else if (c == '\r' || c == '\n' || c == -1) {
+						fields.add(this.field.toString());
+						if (c == '\r') {
+							int next = this.read();
+							if (next != '\n') {
+								this.pending = next;
+							}
+						}
+						this.line++;
+						return fields;
+					} else {
+						this.field.append((char) c);
+					}
+
+					c = this.read();
+				}
+			} catch (IOException e) {
+				throw new MosquitoException("Failed to read CSV record at line " + this.line + ": " + e.getMessage(), e);
+			}
+		}
+	}
+}
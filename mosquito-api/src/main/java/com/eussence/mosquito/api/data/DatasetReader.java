@@ -0,0 +1,146 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.eussence.mosquito.api.exception.CheckedExecutable;
+import com.eussence.mosquito.api.exception.MosquitoException;
+
+/**
+ * <p>
+ * Reads the records of a {@link Dataset dataset} as a lazy stream. Records are
+ * parsed one at a time as the stream is consumed, so datasets of any size are
+ * read with bounded memory, at the pace of the consumer.
+ * </p>
+ * 
+ * <p>
+ * Streams returned by readers hold the underlying resource open and must be
+ * closed, for example with try-with-resources.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public interface DatasetReader {
+
+	String CSV = "text/csv";
+	String JSON_LINES = "application/x-ndjson";
+
+	/**
+	 * Stream the records read from the given source. Closing the returned stream
+	 * closes the reader.
+	 * 
+	 * @param reader The source of the dataset's content.
+	 * @return A lazy stream of records.
+	 */
+	Stream<Map<String, Object>> read(Reader reader);
+
+	/**
+	 * Find the reader for the given media type or file extension.
+	 * 
+	 * @param format A media type, such as <code>text/csv</code>, or a file
+	 *               extension, such as <code>jsonl</code>.
+	 * @return The reader for the format.
+	 * @throws MosquitoException If the format isn't supported.
+	 */
+	static DatasetReader forFormat(String format) {
+		String f = StringUtils.substringBefore(StringUtils.trimToEmpty(format), ";")
+				.trim()
+				.toLowerCase(Locale.ROOT);
+
+		switch (f) {
+		case CSV:
+		case "application/csv":
+		case "csv":
+			return CsvDatasetReader.instance();
+		case JSON_LINES:
+		case "application/jsonl":
+		case "application/x-jsonlines":
+		case "application/jsonlines":
+		case "jsonl":
+		case "ndjson":
+			return JsonLinesDatasetReader.instance();
+		default:
+			throw new MosquitoException("Unsupported dataset format: " + format);
+		}
+	}
+
+	/**
+	 * Open the dataset's URI and stream its records. The format is taken from the
+	 * dataset's media type, or from the extension of its URI. URIs without a
+	 * scheme are read as local file paths.
+	 * 
+	 * @param dataset The dataset to read.
+	 * @return A lazy stream of records, which must be closed.
+	 */
+	static Stream<Map<String, Object>> open(Dataset dataset) {
+		Objects.requireNonNull(dataset, "Dataset may not be null");
+		if (StringUtils.isBlank(dataset.getUri())) {
+			throw new MosquitoException("Dataset " + dataset.getId() + " has no URI");
+		}
+
+		DatasetReader reader = forFormat(StringUtils.isNotBlank(dataset.getMediaType()) ? dataset.getMediaType()
+				: StringUtils.substringAfterLast(StringUtils.substringBefore(dataset.getUri(), "?"), "."));
+
+		InputStream in = CheckedExecutable.wrap(() -> {
+			String location = dataset.getUri();
+			if (!location.contains(":/") || location.indexOf(':') == 1) {
+				return Files.newInputStream(Paths.get(location));
+			}
+
+			URI uri = URI.create(location);
+			if ("file".equalsIgnoreCase(uri.getScheme())) {
+				return Files.newInputStream(Path.of(uri));
+			}
+
+			return uri.toURL()
+					.openStream();
+		});
+
+		BufferedReader source = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		try {
+			return reader.read(source)
+					.onClose(() -> close(source));
+		} catch (RuntimeException ex) {
+			close(source);
+			throw ex;
+		}
+	}
+
+	private static void close(Reader reader) {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.utils.JsonMapper;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * A reader of JSON Lines datasets, with one JSON object per line. Blank lines
+ * are skipped.
+ * 
+ * @author Ernest Kiwele
+ */
+public class JsonLinesDatasetReader implements DatasetReader {
+
+	private static final JsonLinesDatasetReader instance = new JsonLinesDatasetReader();
+
+	private final ObjectReader objectReader = JsonMapper.getObjectMapper()
+			.readerFor(Map.class);
+
+	private JsonLinesDatasetReader() {
+	}
+
+	public static JsonLinesDatasetReader instance() {
+		return instance;
+	}
+
+	@Override
+	public Stream<Map<String, Object>> read(Reader reader) {
+		MappingIterator<Map<String, Object>> records;
+		try {
+			records = this.objectReader.readValues(reader);
+		} catch (IOException e) {
+			throw new MosquitoException("Failed to read JSON Lines dataset: " + e.getMessage(), e);
+		}
+
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+				Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						records.close();
+					} catch (IOException e) {
+						throw new MosquitoException(e);
+					}
+				});
+	}
+}
@@ -17,16 +17,41 @@ package com.eussence.mosquito.api.execution;
 
 import java.time.Instant;
 
-import groovy.transform.builder.Builder;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
+ * An event in the lifecycle of an execution, published to the event consumers
+ * of the execution's scheduling config.
  * 
  * @author Ernest Kiwele
  */
 @Builder
 @Data
+@AllArgsConstructor
+@NoArgsConstructor
 public class ExecutionEvent {
-	private String type;
+	private ExecutionEventType type;
+	@Builder.Default
 	private Instant eventDate = Instant.now();
+
+	private String executionId;
+	/**
+	 * The key of the call the event is about, for call events.
+	 */
+	private String callKey;
+	/**
+	 * The response status, for received responses; 0 if the request failed.
+	 */
+	private int status;
+	/**
+	 * The call's latency in microseconds, for received responses.
+	 */
+	private long latencyMicros;
+	/**
+	 * The error or expectation message, for failures.
+	 */
+	private String message;
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.execution;
+
+/**
+ * The types of {@link ExecutionEvent execution events}.
+ * 
+ * @author Ernest Kiwele
+ */
+public enum ExecutionEventType {
+
+	/**
+	 * A call chain started executing.
+	 */
+	EXECUTION_STARTED,
+
+	/**
+	 * A call's request was sent.
+	 */
+	CALL_SENT,
+
+	/**
+	 * A call's response was received, or its request failed.
+	 */
+	RESPONSE_RECEIVED,
+
+	/**
+	 * An assertion of a call did not succeed.
+	 */
+	ASSERTION_FAILED,
+
+	/**
+	 * A call chain finished executing.
+	 */
+	EXECUTION_FINISHED;
+}
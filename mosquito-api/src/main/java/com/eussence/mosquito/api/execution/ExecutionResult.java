@@ -56,6 +56,39 @@ public class ExecutionResult implements Result {
 	private MapObject details;
 
 	private CallChainResult callChainResults;
+
+	/**
+	 * Counters of load runs, which execute the same chain or request repeatedly.
+	 * Failed iterations are those whose requests failed or whose assertions did
+	 * not succeed.
+	 */
+	private long iterationsStarted;
+	private long iterationsCompleted;
+	private long iterationsFailed;
+
+	/**
+	 * Latencies by call key, when metrics are collected. The histograms of runs
+	 * of the same calls can be merged.
+	 */
+	private Map<String, LatencyHistogram> latencies;
+	/**
+	 * Latencies by call key measured from the calls' intended start times rather
+	 * than from when they were sent. In fixed-rate load runs, these include the
+	 * time requests waited while the target stalled (coordinated omission), and
+	 * are the ones to report percentiles from.
+	 */
+	private Map<String, LatencyHistogram> correctedLatencies;
+	/**
+	 * Time requests waited for rate limiters before being sent, by call key, when
+	 * metrics are collected and rate limits are set.
+	 */
+	private Map<String, LatencyHistogram> throttleWaits;
+	/**
+	 * Counters, latencies and samples of errors and responses of all the run's
+	 * calls, when metrics are collected. Unlike call chain results, its size does
+	 * not grow with the number of iterations.
+	 */
+	private ExecutionSummary summary;
 	@Builder.Default
 	private List<AssertionResult> assertionResults = new ArrayList<>();
 
@@ -0,0 +1,376 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.execution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.eussence.mosquito.api.http.Response;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * A compact summary of executions: counters, status codes and latencies by call
+ * key, a sample of the first errors, and a uniform random sample of full
+ * responses. Its size depends on the number of calls and on the sample sizes,
+ * not on the number of executions, so it can be kept for runs of any length
+ * and shipped between nodes.
+ * </p>
+ * 
+ * <p>
+ * Recording is safe from any number of threads. Summaries of runs on different
+ * threads or nodes are combined with {@link #merge(ExecutionSummary)}, in any
+ * order and grouping: counters and histograms add up, the error sample keeps
+ * the earliest errors, and the response sample stays a uniform sample of all
+ * merged executions.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class ExecutionSummary {
+
+	public static final int DEFAULT_ERROR_SAMPLES = 10;
+
+	private static final Comparator<ErrorSample> ERROR_ORDER = Comparator.comparingLong(ErrorSample::getTimeMillis)
+			.thenComparing(ErrorSample::getCallKey, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(ErrorSample::getMessage, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final int maxErrorSamples;
+	private final int maxResponseSamples;
+
+	private final LongAdder executions = new LongAdder();
+	private final LongAdder failedExecutions = new LongAdder();
+	private final Map<String, CallSummary> calls = new ConcurrentHashMap<>();
+
+	private final List<ErrorSample> errors = new ArrayList<>();
+	private final List<Response> responseSamples = new ArrayList<>();
+	private long responsesSeen;
+
+	public ExecutionSummary() {
+		this(DEFAULT_ERROR_SAMPLES, 0);
+	}
+
+	/**
+	 * @param maxErrorSamples    The number of errors to keep.
+	 * @param maxResponseSamples The number of full responses to keep, picked at
+	 *                           random among all responses.
+	 */
+	public ExecutionSummary(int maxErrorSamples, int maxResponseSamples) {
+		this.maxErrorSamples = Math.max(0, maxErrorSamples);
+		this.maxResponseSamples = Math.max(0, maxResponseSamples);
+	}
+
+	@JsonCreator
+	static ExecutionSummary of(@JsonProperty("maxErrorSamples") int maxErrorSamples,
+			@JsonProperty("maxResponseSamples") int maxResponseSamples, @JsonProperty("executions") long executions,
+			@JsonProperty("failedExecutions") long failedExecutions,
+			@JsonProperty("calls") Map<String, CallSummary> calls, @JsonProperty("errors") List<ErrorSample> errors,
+			@JsonProperty("responseSamples") List<Response> responseSamples,
+			@JsonProperty("responsesSeen") long responsesSeen) {
+		ExecutionSummary summary = new ExecutionSummary(maxErrorSamples, maxResponseSamples);
+		summary.executions.add(executions);
+		summary.failedExecutions.add(failedExecutions);
+		if (null != calls) {
+			summary.calls.putAll(calls);
+		}
+		if (null != errors) {
+			summary.errors.addAll(errors);
+		}
+		if (null != responseSamples) {
+			summary.responseSamples.addAll(responseSamples);
+		}
+		summary.responsesSeen = responsesSeen;
+
+		return summary;
+	}
+
+	/**
+	 * Count an execution, such as one run of a call chain.
+	 */
+	public void recordExecution(boolean succeeded) {
+		this.executions.increment();
+		if (!succeeded) {
+			this.failedExecutions.increment();
+		}
+	}
+
+	/**
+	 * Record the response of a call.
+	 * 
+	 * @param callKey          The key of the call.
+	 * @param response         The response, failed if the request could not be
+	 *                         sent.
+	 * @param latencyNanos     The time the call took.
+	 * @param assertionsFailed Whether some of the call's assertions failed.
+	 */
+	public void recordResponse(String callKey, Response response, long latencyNanos, boolean assertionsFailed) {
+		this.call(callKey)
+				.record(response, latencyNanos, assertionsFailed);
+
+		if (response.isFailed()) {
+			this.recordError(callKey, response.getStatus(), response.getErrorMessage());
+		} else if (assertionsFailed) {
+			this.recordError(callKey, response.getStatus(), "Assertions failed");
+		}
+
+		if (this.maxResponseSamples > 0) {
+			synchronized (this.responseSamples) {
+				this.responsesSeen++;
+				if (this.responseSamples.size() < this.maxResponseSamples) {
+					this.responseSamples.add(response);
+				} else {
+					long slot = ThreadLocalRandom.current()
+							.nextLong(this.responsesSeen);
+					if (slot < this.maxResponseSamples) {
+						this.responseSamples.set((int) slot, response);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Record a call that failed before a response could be received, such as one
+	 * whose request could not be created.
+	 */
+	public void recordError(String callKey, int status, String message) {
+		if (this.maxErrorSamples == 0) {
+			return;
+		}
+
+		this.addErrors(List.of(new ErrorSample(callKey, status, message, System.currentTimeMillis())));
+	}
+
+	private CallSummary call(String callKey) {
+		return this.calls.computeIfAbsent(null == callKey ? "" : callKey, key -> new CallSummary());
+	}
+
+	private void addErrors(List<ErrorSample> samples) {
+		synchronized (this.errors) {
+			this.errors.addAll(samples);
+			this.errors.sort(ERROR_ORDER);
+			while (this.errors.size() > this.maxErrorSamples) {
+				this.errors.remove(this.errors.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * Add the executions summarized by another summary to this one. The samples
+	 * keep the sizes of this summary.
+	 */
+	public void merge(ExecutionSummary other) {
+		this.executions.add(other.getExecutions());
+		this.failedExecutions.add(other.getFailedExecutions());
+		other.calls.forEach((key, call) -> this.call(key)
+				.merge(call));
+		this.addErrors(other.getErrors());
+
+		List<Response> otherSamples;
+		long otherSeen;
+		synchronized (other.responseSamples) {
+			otherSamples = new ArrayList<>(other.responseSamples);
+			otherSeen = other.responsesSeen;
+		}
+		synchronized (this.responseSamples) {
+			this.mergeSamples(otherSamples, otherSeen);
+		}
+	}
+
+	/**
+	 * Draw a sample of both samples without replacement, taking each item from
+	 * either side in proportion to the number of responses it was drawn from.
+	 */
+	private void mergeSamples(List<Response> otherSamples, long otherSeen) {
+		List<Response> mine = new ArrayList<>(this.responseSamples);
+		List<Response> theirs = new ArrayList<>(otherSamples);
+		long mineSeen = this.responsesSeen;
+		long theirSeen = otherSeen;
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		this.responseSamples.clear();
+		while (this.responseSamples.size() < this.maxResponseSamples && !(mine.isEmpty() && theirs.isEmpty())) {
+			boolean fromMine = theirs.isEmpty()
+					|| (!mine.isEmpty() && random.nextDouble() * (mineSeen + theirSeen) < mineSeen);
+			List<Response> side = fromMine ? mine : theirs;
+			this.responseSamples.add(side.remove(random.nextInt(side.size())));
+			if (fromMine) {
+				mineSeen = Math.max(1, mineSeen - 1);
+			} else {
+				theirSeen = Math.max(1, theirSeen - 1);
+			}
+		}
+
+		this.responsesSeen += otherSeen;
+	}
+
+	public int getMaxErrorSamples() {
+		return maxErrorSamples;
+	}
+
+	public int getMaxResponseSamples() {
+		return maxResponseSamples;
+	}
+
+	public long getExecutions() {
+		return this.executions.sum();
+	}
+
+	public long getFailedExecutions() {
+		return this.failedExecutions.sum();
+	}
+
+	public Map<String, CallSummary> getCalls() {
+		return new TreeMap<>(this.calls);
+	}
+
+	public List<ErrorSample> getErrors() {
+		synchronized (this.errors) {
+			return new ArrayList<>(this.errors);
+		}
+	}
+
+	public List<Response> getResponseSamples() {
+		synchronized (this.responseSamples) {
+			return new ArrayList<>(this.responseSamples);
+		}
+	}
+
+	public long getResponsesSeen() {
+		synchronized (this.responseSamples) {
+			return this.responsesSeen;
+		}
+	}
+
+	/**
+	 * The counters and latencies of one call.
+	 */
+	public static class CallSummary {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder assertionFailures = new LongAdder();
+		private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+		private final LatencyHistogram latency;
+
+		public CallSummary() {
+			this(new LatencyHistogram());
+		}
+
+		private CallSummary(LatencyHistogram latency) {
+			this.latency = latency;
+		}
+
+		@JsonCreator
+		static CallSummary of(@JsonProperty("count") long count, @JsonProperty("failures") long failures,
+				@JsonProperty("assertionFailures") long assertionFailures,
+				@JsonProperty("statuses") Map<Integer, Long> statuses,
+				@JsonProperty("latency") LatencyHistogram latency) {
+			CallSummary call = new CallSummary(null == latency ? new LatencyHistogram() : latency);
+			call.count.add(count);
+			call.failures.add(failures);
+			call.assertionFailures.add(assertionFailures);
+			if (null != statuses) {
+				statuses.forEach(call::addStatus);
+			}
+
+			return call;
+		}
+
+		private void record(Response response, long latencyNanos, boolean assertionsFailed) {
+			this.count.increment();
+			if (response.isFailed()) {
+				this.failures.increment();
+				this.latency.recordError();
+				return;
+			}
+
+			this.latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+			this.addStatus(response.getStatus(), 1L);
+			if (assertionsFailed) {
+				this.assertionFailures.increment();
+			}
+		}
+
+		private void addStatus(Integer status, Long n) {
+			this.statuses.computeIfAbsent(status, s -> new LongAdder())
+					.add(n);
+		}
+
+		private void merge(CallSummary other) {
+			this.count.add(other.getCount());
+			this.failures.add(other.getFailures());
+			this.assertionFailures.add(other.getAssertionFailures());
+			other.getStatuses()
+					.forEach(this::addStatus);
+			this.latency.merge(other.latency);
+		}
+
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		/**
+		 * Calls whose request could not be sent or whose response was not received.
+		 */
+		public long getFailures() {
+			return this.failures.sum();
+		}
+
+		public long getAssertionFailures() {
+			return this.assertionFailures.sum();
+		}
+
+		/**
+		 * Responses by status code.
+		 */
+		public SortedMap<Integer, Long> getStatuses() {
+			SortedMap<Integer, Long> counts = new TreeMap<>();
+			this.statuses.forEach((status, n) -> counts.put(status, n.sum()));
+
+			return counts;
+		}
+
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+	}
+
+	/**
+	 * A failed call: an error, or a response whose assertions failed.
+	 */
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class ErrorSample {
+		private String callKey;
+		private int status;
+		private String message;
+		private long timeMillis;
+	}
+}
@@ -0,0 +1,304 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.execution;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
+
+/**
+ * <p>
+ * A high-dynamic-range histogram of latencies, in microseconds. Values below
+ * 2048 are counted exactly, and larger values in buckets no wider than 1/1024th
+ * of their value, so percentiles are accurate to about 0.1% over the whole range
+ * of a long. Buckets are allocated as values of their magnitude are recorded.
+ * </p>
+ * 
+ * <p>
+ * Recording is lock-free and safe from any number of threads. Histograms of the
+ * same operation on different threads or nodes can be
+ * {@link #merge(LatencyHistogram) merged}, keeping their exact minimum and
+ * maximum.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 10;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int SEGMENTS = 64 - SUB_BUCKET_BITS;
+
+	private final AtomicReferenceArray<AtomicLongArray> segments = new AtomicReferenceArray<>(SEGMENTS);
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+	private final LongAccumulator startMillis = new LongAccumulator(Math::min, Long.MAX_VALUE);
+	private final LongAccumulator endMillis = new LongAccumulator(Math::max, 0);
+
+	public LatencyHistogram() {
+	}
+
+	@JsonCreator
+	static LatencyHistogram of(@JsonProperty("buckets") SortedMap<Long, Long> buckets,
+			@JsonProperty("errorCount") long errorCount, @JsonProperty("totalValue") long totalValue,
+			@JsonProperty("startMillis") long startMillis, @JsonProperty("endMillis") long endMillis,
+			@JsonProperty("minValue") Long minValue, @JsonProperty("maxValue") Long maxValue) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		if (null != buckets && !buckets.isEmpty()) {
+			buckets.forEach((value, n) -> histogram.add(value, n));
+			histogram.min.accumulate(null == minValue ? buckets.firstKey() : minValue);
+			histogram.max.accumulate(null == maxValue ? buckets.lastKey() : maxValue);
+		}
+		histogram.errors.add(errorCount);
+		histogram.total.add(totalValue);
+		histogram.startMillis.accumulate(0 == startMillis ? Long.MAX_VALUE : startMillis);
+		histogram.endMillis.accumulate(endMillis);
+
+		return histogram;
+	}
+
+	/**
+	 * Record a latency, ending now.
+	 * 
+	 * @param value The latency in the given unit.
+	 * @param unit  The unit of the value.
+	 */
+	public void record(long value, TimeUnit unit) {
+		this.recordValue(unit.toMicros(value));
+	}
+
+	/**
+	 * Record a latency in microseconds, ending now.
+	 */
+	public void recordValue(long micros) {
+		long now = System.currentTimeMillis();
+		long value = Math.max(0, micros);
+
+		this.add(value, 1);
+		this.min.accumulate(value);
+		this.max.accumulate(value);
+		this.total.add(value);
+		this.startMillis.accumulate(now - value / 1000);
+		this.endMillis.accumulate(now);
+	}
+
+	/**
+	 * Count a failed operation. Failures are counted apart from latencies.
+	 */
+	public void recordError() {
+		this.errors.increment();
+	}
+
+	private void add(long value, long n) {
+		int segment = segment(value);
+		AtomicLongArray counts = this.segments.get(segment);
+		if (null == counts) {
+			this.segments.compareAndSet(segment, null,
+					new AtomicLongArray(0 == segment ? 2 * SUB_BUCKETS : SUB_BUCKETS));
+			counts = this.segments.get(segment);
+		}
+
+		counts.addAndGet(offset(value, segment), n);
+		this.count.add(n);
+	}
+
+	/**
+	 * Add the values recorded by another histogram to this one.
+	 */
+	public void merge(LatencyHistogram other) {
+		for (int s = 0; s < SEGMENTS; s++) {
+			AtomicLongArray counts = other.segments.get(s);
+			if (null == counts) {
+				continue;
+			}
+
+			for (int i = 0; i < counts.length(); i++) {
+				long n = counts.get(i);
+				if (n > 0) {
+					this.add(lowestValue(s, i), n);
+				}
+			}
+		}
+
+		this.min.accumulate(other.min.get());
+		this.max.accumulate(other.max.get());
+		this.total.add(other.total.sum());
+		this.errors.add(other.errors.sum());
+		this.startMillis.accumulate(other.startMillis.get());
+		this.endMillis.accumulate(other.endMillis.get());
+	}
+
+	/**
+	 * The value below or at which the given percentage of recorded values fall,
+	 * within the precision of the histogram.
+	 * 
+	 * @param percentile The percentile, from 0 to 100.
+	 * @return The value in microseconds, 0 if nothing was recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long recorded = this.getCount();
+		if (recorded == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * recorded));
+		long seen = 0;
+		for (int s = 0; s < SEGMENTS; s++) {
+			AtomicLongArray counts = this.segments.get(s);
+			if (null == counts) {
+				continue;
+			}
+
+			for (int i = 0; i < counts.length(); i++) {
+				seen += counts.get(i);
+				if (seen >= rank) {
+					return Math.min(highestValue(s, i), this.getMaxValue());
+				}
+			}
+		}
+
+		return this.getMaxValue();
+	}
+
+	@JsonProperty(access = Access.READ_ONLY)
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	public long getErrorCount() {
+		return this.errors.sum();
+	}
+
+	public long getTotalValue() {
+		return this.total.sum();
+	}
+
+	public long getMinValue() {
+		return this.getCount() == 0 ? 0 : this.min.get();
+	}
+
+	public long getMaxValue() {
+		return this.max.get();
+	}
+
+	@JsonProperty(access = Access.READ_ONLY)
+	public double getMean() {
+		long n = this.getCount();
+		return n == 0 ? 0 : (double) this.getTotalValue() / n;
+	}
+
+	/**
+	 * The time the earliest recorded operation started, in epoch milliseconds.
+	 */
+	public long getStartMillis() {
+		long start = this.startMillis.get();
+		return start == Long.MAX_VALUE ? 0 : start;
+	}
+
+	/**
+	 * The time the latest recorded operation ended, in epoch milliseconds.
+	 */
+	public long getEndMillis() {
+		return this.endMillis.get();
+	}
+
+	/**
+	 * Recorded operations per second, between the start of the first one and the
+	 * end of the last one.
+	 */
+	@JsonProperty(access = Access.READ_ONLY)
+	public double getThroughput() {
+		long n = this.getCount();
+		return n == 0 ? 0 : n * 1000d / Math.max(1, this.getEndMillis() - this.getStartMillis());
+	}
+
+	/**
+	 * The usual percentiles: p50, p90, p99, p99.9 and max.
+	 */
+	@JsonProperty(access = Access.READ_ONLY)
+	public Map<String, Long> getPercentiles() {
+		Map<String, Long> percentiles = new LinkedHashMap<>();
+		percentiles.put("p50", this.getValueAtPercentile(50));
+		percentiles.put("p90", this.getValueAtPercentile(90));
+		percentiles.put("p99", this.getValueAtPercentile(99));
+		percentiles.put("p99.9", this.getValueAtPercentile(99.9));
+		percentiles.put("max", this.getMaxValue());
+
+		return percentiles;
+	}
+
+	/**
+	 * The non-empty buckets, by the lowest value they hold.
+	 */
+	public SortedMap<Long, Long> getBuckets() {
+		SortedMap<Long, Long> buckets = new TreeMap<>();
+		for (int s = 0; s < SEGMENTS; s++) {
+			AtomicLongArray counts = this.segments.get(s);
+			if (null == counts) {
+				continue;
+			}
+
+			for (int i = 0; i < counts.length(); i++) {
+				long n = counts.get(i);
+				if (n > 0) {
+					buckets.put(lowestValue(s, i), n);
+				}
+			}
+		}
+
+		return buckets;
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram(count=" + this.getCount() + ", errors=" + this.getErrorCount() + ", percentiles="
+				+ this.getPercentiles() + ")";
+	}
+
+	/*
+	 * Segment 0 holds values below 2048 exactly. Segment s > 0 holds values in
+	 * [1024 << s, 2048 << s), in 1024 buckets of width 1 << s.
+	 */
+	private static int segment(long value) {
+		return value < 2 * SUB_BUCKETS ? 0 : 64 - SUB_BUCKET_BITS - 1 - Long.numberOfLeadingZeros(value);
+	}
+
+	private static int offset(long value, int segment) {
+		return 0 == segment ? (int) value : (int) (value >>> segment) - SUB_BUCKETS;
+	}
+
+	private static long lowestValue(int segment, int offset) {
+		return 0 == segment ? offset : (long) (offset + SUB_BUCKETS) << segment;
+	}
+
+	private static long highestValue(int segment, int offset) {
+		return 0 == segment ? offset : ((long) (offset + SUB_BUCKETS + 1) << segment) - 1;
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.http;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How drivers read response bodies. By default bodies are buffered and parsed;
+ * the other modes read bodies as they arrive, so that large responses are not
+ * held on the heap. In these modes, the response's length is the number of
+ * bytes read, and its digest is the hash of the whole body.
+ * 
+ * @author Ernest Kiwele
+ */
+@Builder(toBuilder = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BodyHandling {
+
+	public static final BodyHandling BUFFER = BodyHandling.builder()
+			.mode(Mode.BUFFER)
+			.build();
+
+	public enum Mode {
+		/**
+		 * Read the whole body into memory.
+		 */
+		BUFFER,
+		/**
+		 * Count and hash the body, keeping nothing.
+		 */
+		DISCARD,
+		/**
+		 * Keep only the first {@link BodyHandling#maxBytes maxBytes} bytes.
+		 */
+		CAP,
+		/**
+		 * Keep bodies in memory up to {@link BodyHandling#maxBytes maxBytes} bytes,
+		 * and write larger ones to a temporary file, whose path is the body's entity.
+		 * Files are not deleted by Mosquito, except in load runs, which delete each
+		 * file once its response has been asserted and recorded.
+		 */
+		FILE,
+		/**
+		 * Hand each chunk to the {@link BodyHandling#consumer consumer}, keeping
+		 * nothing.
+		 */
+		CONSUMER;
+	}
+
+	@Builder.Default
+	private Mode mode = Mode.BUFFER;
+
+	/**
+	 * The number of bytes kept in memory in the CAP and FILE modes.
+	 */
+	@Builder.Default
+	private long maxBytes = 64 * 1024;
+
+	/**
+	 * The directory of FILE mode's files, the default temporary directory if null.
+	 */
+	private Path directory;
+
+	/**
+	 * The message digest algorithm hashing streamed bodies, none if null.
+	 */
+	@Builder.Default
+	private String digestAlgorithm = "SHA-256";
+
+	/**
+	 * The consumer of CONSUMER mode's chunks. It is called on the driver's
+	 * threads, in order, and must not keep the buffers.
+	 */
+	@JsonIgnore
+	private Consumer<ByteBuffer> consumer;
+
+	public static BodyHandling discard() {
+		return BodyHandling.builder()
+				.mode(Mode.DISCARD)
+				.build();
+	}
+
+	public static BodyHandling cap(long maxBytes) {
+		return BodyHandling.builder()
+				.mode(Mode.CAP)
+				.maxBytes(maxBytes)
+				.build();
+	}
+
+	public static BodyHandling file(long threshold) {
+		return BodyHandling.builder()
+				.mode(Mode.FILE)
+				.maxBytes(threshold)
+				.build();
+	}
+
+	public static BodyHandling consumer(Consumer<ByteBuffer> consumer) {
+		return BodyHandling.builder()
+				.mode(Mode.CONSUMER)
+				.consumer(consumer)
+				.build();
+	}
+
+	/**
+	 * Whether bodies are buffered whole, for which drivers use their own reading.
+	 */
+	@JsonIgnore
+	public boolean isBuffered() {
+		return this.mode == null || this.mode == Mode.BUFFER;
+	}
+}
@@ -33,7 +33,8 @@ import lombok.Setter;
 @NoArgsConstructor
 public class ConnectionConfig {
 
-	private boolean validateHostNames;
+	@Builder.Default
+	private boolean validateHostNames = true;
 	@Builder.Default
 	private long connectionTimeout = 10000L;
 	private long readTimeout;
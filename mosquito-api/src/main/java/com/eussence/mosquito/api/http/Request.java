@@ -71,8 +71,16 @@ public final class Request {
 	private String dataSetRecordId;
 	private Map<String, Object> dataSetRecord;
 
+	/**
+	 * The connection settings, following redirects by default as drivers do.
+	 */
 	@Builder.Default
-	private ConnectionConfig connectionConfig = new ConnectionConfig(true, 60000L, 180000L, false);
+	private ConnectionConfig connectionConfig = new ConnectionConfig(true, 60000L, 180000L, true);
+
+	/**
+	 * How the response body is read; bodies are buffered if null.
+	 */
+	private BodyHandling bodyHandling;
 
 	// readers
 
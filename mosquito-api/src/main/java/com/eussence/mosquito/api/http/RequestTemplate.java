@@ -94,6 +94,11 @@ public class RequestTemplate {
 				.toRequest(this, resolverFactory, contextSupplier);
 	}
 
+	public RequestTemplatePlan compile(Function<CommandLanguage, Resolver> resolverFactory) {
+		return RequestTemplateMapper.instance()
+				.compile(this, resolverFactory);
+	}
+
 	public Request toRequest() {
 		return RequestTemplateMapper.instance()
 				.toRequest(this);
@@ -15,17 +15,19 @@
 
 package com.eussence.mosquito.api.http;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.eussence.mosquito.api.MapObject;
 import com.eussence.mosquito.api.command.CommandLanguage;
+import com.eussence.mosquito.api.command.CompiledTemplate;
 import com.eussence.mosquito.api.command.Resolver;
+import com.eussence.mosquito.api.command.SimpleTemplate;
 import com.eussence.mosquito.api.utils.Templates;
 
 /**
@@ -96,68 +98,87 @@ public class RequestTemplateMapper {
 	/**
 	 * Process the template and return the resulting request.
 	 * 
-	 * @param template         The template to process
-	 * @param resolverFactory  The factory that will provide the {@link Resolver
-	 *                         resolver} to process expressions in the language of
-	 *                         this template.
-	 * @param contextSuppliert A supplier for the template processing context.
+	 * @param template        The template to process
+	 * @param resolverFactory The factory that will provide the {@link Resolver
+	 *                        resolver} to process expressions in the language of
+	 *                        this template.
+	 * @param contextSupplier A supplier for the template processing context. It is
+	 *                        called once per request.
 	 * @return A request resulting from the execution of this template.
 	 */
 	public Request toRequest(RequestTemplate template, Function<CommandLanguage, Resolver> resolverFactory,
-			Supplier<MapObject> contextSuppliert) {
+			Supplier<MapObject> contextSupplier) {
+		return this.compile(template, resolverFactory)
+				.render(contextSupplier.get());
+	}
+
+	/**
+	 * Compile the template into a reusable plan. Values that contain no
+	 * expressions are resolved here, and expressions are compiled once, so that
+	 * the returned plan can render many requests cheaply. Groovy templates that
+	 * only reference variables or dotted paths are rendered as
+	 * {@link SimpleTemplate simple templates}, without running scripts.
+	 * 
+	 * @param template        The template to compile
+	 * @param resolverFactory The factory that will provide the {@link Resolver
+	 *                        resolver} for the language of this template.
+	 * @return An immutable plan for rendering requests from the template.
+	 */
+	public RequestTemplatePlan compile(RequestTemplate template, Function<CommandLanguage, Resolver> resolverFactory) {
 		Resolver r = Objects.requireNonNull(resolverFactory.apply(template.getLang()),
 				"Resolver factory returned null for language: " + template.getLang());
-		var requestBuilder = Request.builder();
-		requestBuilder.uri(Templates
-				.castString(r.eval(contextSupplier.get(), Templates.multilineQuote(template.getUriTemplate()))));
-		requestBuilder.headers(template.getHeaderTemplates()
-				.entrySet()
-				.stream()
-				.map(e -> Map.entry(e.getKey(),
-						StringUtils.contains(e.getValue(), "$")
-								? Templates.castString(
-										r.eval(contextSupplier.get(), Templates.multilineQuote(e.getValue())))
-								: e.getValue()))
-				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
-		requestBuilder.parameters(template.getParameterTemplates()
-				.entrySet()
-				.stream()
-				.map(e -> Map.entry(e.getKey(),
-						StringUtils.contains(e.getValue(), "$")
-								? Templates.castString(
-										r.eval(contextSupplier.get(), Templates.multilineQuote(e.getValue())))
-								: e.getValue()))
-				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
-		requestBuilder.method(template.getMethod());
-		if (template.getMethod()
-				.isBodied()) {
-			Body.BodyBuilder bodyBuilder = Body.builder()
-					.multipart(template.isMultipart());
-			if (template.isMultipart()) {
-				if (null != template.getPartFiles()) {
-					bodyBuilder.parts(template.getPartFiles()
-							.stream()
-							.map(BodyPart::fromFile)
-							.collect(Collectors.toList()));
-				}
-			} else {
-				bodyBuilder.entity(r.eval(contextSupplier.get(), template.getEntityTemplate()))
-						.mediaType(template.getMediaType());
-			}
-			requestBuilder.body(bodyBuilder.build());
+		// Plain variable and path references are rendered without the resolver,
+		// following Groovy's interpolation rules
+		boolean simple = CommandLanguage.GROOVY == template.getLang();
+
+		CompiledTemplate entity = null;
+		if (null != template.getMethod() && template.getMethod()
+				.isBodied() && !template.isMultipart()) {
+			entity = null == template.getEntityTemplate() ? CompiledTemplate.constant(null)
+					: this.compileExpression(r, simple, template.getEntityTemplate());
+		}
+
+		CompiledTemplate authCredentials = StringUtils.isNotBlank(template.getAuthCredentialsTemplate())
+				? this.compileExpression(r, simple, template.getAuthCredentialsTemplate())
+				: null;
+
+		return new RequestTemplatePlan(template, this.compileInterpolation(r, simple, template.getUriTemplate()),
+				this.compileValues(r, simple, template.getHeaderTemplates()),
+				this.compileValues(r, simple, template.getParameterTemplates()), entity, authCredentials);
+	}
+
+	private Map<String, CompiledTemplate> compileValues(Resolver r, boolean simple, Map<String, String> templates) {
+		Map<String, CompiledTemplate> compiled = new LinkedHashMap<>();
+		if (null != templates) {
+			templates.forEach((name, value) -> compiled.put(name,
+					StringUtils.contains(value, "$") ? this.compileQuoted(r, simple, value)
+							: CompiledTemplate.constant(value)));
 		}
 
-		requestBuilder.authType(template.getAuthType());
-		if (StringUtils.isNotBlank(template.getAuthCredentialsTemplate())) {
-			requestBuilder.authData(AuthData.builder()
-					.credentials(((String) r.eval(contextSupplier.get(), template.getAuthCredentialsTemplate()))
-							.toCharArray())
-					.headerName(template.getAuthHeaderName())
-					.build());
+		return compiled;
+	}
+
+	private CompiledTemplate compileInterpolation(Resolver r, boolean simple, String template) {
+		// Backslashes are escapes inside a quoted template, so only text free of both
+		// expressions and escapes is taken literally
+		if (null == template || !StringUtils.containsAny(template, '$', '\\')) {
+			return CompiledTemplate.constant(template);
 		}
 
-		requestBuilder.dataSet(template.getDataSet());
+		return this.compileQuoted(r, simple, template);
+	}
+
+	private CompiledTemplate compileQuoted(Resolver r, boolean simple, String template) {
+		Supplier<CompiledTemplate> full = () -> CompiledTemplate.of(r, Templates.multilineQuote(template));
+
+		return simple ? SimpleTemplate.interpolation(template, full)
+				.orElseGet(full) : full.get();
+	}
+
+	private CompiledTemplate compileExpression(Resolver r, boolean simple, String expression) {
+		Supplier<CompiledTemplate> full = () -> CompiledTemplate.of(r, expression);
 
-		return requestBuilder.build();
+		return simple ? SimpleTemplate.expression(expression, full)
+				.orElseGet(full) : full.get();
 	}
 }
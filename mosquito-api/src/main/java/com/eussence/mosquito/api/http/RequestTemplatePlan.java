@@ -0,0 +1,141 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.http;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.eussence.mosquito.api.AuthType;
+import com.eussence.mosquito.api.MapObject;
+import com.eussence.mosquito.api.command.CompiledTemplate;
+import com.eussence.mosquito.api.utils.Templates;
+
+/**
+ * An immutable, pre-processed form of a {@link RequestTemplate request
+ * template}. Constant parts of the template are resolved when the plan is
+ * created and dynamic parts are compiled, so rendering a request only evaluates
+ * the dynamic parts against the given context.
+ * 
+ * Plans are created with
+ * {@link RequestTemplateMapper#compile(RequestTemplate, java.util.function.Function)
+ * RequestTemplateMapper.compile()} and can be shared across threads.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class RequestTemplatePlan {
+
+	private final String key;
+	private final CompiledTemplate uri;
+	private final Map<String, CompiledTemplate> headers;
+	private final Map<String, CompiledTemplate> parameters;
+	private final HttpMethod method;
+
+	private final boolean multipart;
+	private final List<String> partFiles;
+	private final CompiledTemplate entity;
+	private final String mediaType;
+
+	private final AuthType authType;
+	private final CompiledTemplate authCredentials;
+	private final String authHeaderName;
+
+	private final String dataSet;
+
+	RequestTemplatePlan(RequestTemplate template, CompiledTemplate uri, Map<String, CompiledTemplate> headers,
+			Map<String, CompiledTemplate> parameters, CompiledTemplate entity, CompiledTemplate authCredentials) {
+		this.key = template.getKey();
+		this.uri = uri;
+		this.headers = Collections.unmodifiableMap(headers);
+		this.parameters = Collections.unmodifiableMap(parameters);
+		this.method = template.getMethod();
+
+		this.multipart = template.isMultipart();
+		this.partFiles = null == template.getPartFiles() ? List.of() : List.copyOf(template.getPartFiles());
+		this.entity = entity;
+		this.mediaType = template.getMediaType();
+
+		this.authType = template.getAuthType();
+		this.authCredentials = authCredentials;
+		this.authHeaderName = template.getAuthHeaderName();
+
+		this.dataSet = template.getDataSet();
+	}
+
+	/**
+	 * Render a request from this plan. The context is used as-is for all dynamic
+	 * parts of the template.
+	 * 
+	 * @param context The context holding variables referenced by the template.
+	 * @return A new request object.
+	 */
+	public Request render(MapObject context) {
+		var requestBuilder = Request.builder();
+
+		requestBuilder.uri(Templates.castString(this.uri.eval(context)));
+		requestBuilder.headers(this.renderAll(this.headers, context));
+		requestBuilder.parameters(this.renderAll(this.parameters, context));
+		requestBuilder.method(this.method);
+
+		if (this.method.isBodied()) {
+			Body.BodyBuilder bodyBuilder = Body.builder()
+					.multipart(this.multipart);
+			if (this.multipart) {
+				bodyBuilder.parts(this.partFiles.stream()
+						.map(BodyPart::fromFile)
+						.collect(Collectors.toList()));
+			} else {
+				bodyBuilder.entity(this.entity.eval(context))
+						.mediaType(this.mediaType);
+			}
+			requestBuilder.body(bodyBuilder.build());
+		}
+
+		requestBuilder.authType(this.authType);
+		if (null != this.authCredentials) {
+			requestBuilder.authData(AuthData.builder()
+					.credentials(Templates.castString(this.authCredentials.eval(context))
+							.toCharArray())
+					.headerName(this.authHeaderName)
+					.build());
+		}
+
+		requestBuilder.dataSet(this.dataSet);
+
+		return requestBuilder.build();
+	}
+
+	private Map<String, String> renderAll(Map<String, CompiledTemplate> templates, MapObject context) {
+		Map<String, String> values = new HashMap<>();
+		templates.forEach((name, template) -> values.put(name, Templates.castString(template.eval(context))));
+
+		return values;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public HttpMethod getMethod() {
+		return method;
+	}
+
+	public String getDataSet() {
+		return dataSet;
+	}
+}
@@ -60,6 +60,21 @@ public class Response {
 
 	private long duration;
 
+	/**
+	 * The hex-encoded digest of a streamed body.
+	 */
+	private String digest;
+
+	/**
+	 * Whether the body was cut to the capped size.
+	 */
+	private boolean truncated;
+
+	/**
+	 * The file a large body was written to.
+	 */
+	private String bodyFile;
+
 	private String errorMessage;
 
 	@JsonIgnore
@@ -21,7 +21,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * An assertion is a check that verifies conditions on completion.
+ * An assertion is a check that verifies conditions on completion. The
+ * condition is either a scripted <code>booleanExpression</code> or a
+ * declarative {@link ResponseCheck check}, which takes precedence.
  * 
  * @author Ernest Kiwele
  */
@@ -34,4 +36,16 @@ public class Assertion {
 	private String description;
 	private String booleanExpression;
 	private String messageTemplate;
+	private ResponseCheck check;
+
+	public Assertion(String id, String description, String booleanExpression, String messageTemplate) {
+		this(id, description, booleanExpression, messageTemplate, null);
+	}
+
+	public static Assertion of(String id, ResponseCheck check) {
+		return Assertion.builder()
+				.id(id)
+				.check(check)
+				.build();
+	}
 }
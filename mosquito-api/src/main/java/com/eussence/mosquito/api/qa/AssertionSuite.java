@@ -0,0 +1,182 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.qa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import com.eussence.mosquito.api.MapObject;
+import com.eussence.mosquito.api.command.CompiledTemplate;
+import com.eussence.mosquito.api.command.Resolver;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+
+/**
+ * The assertions of a call, compiled once and evaluated together against each
+ * response. All scripted assertions of one evaluation share a single binding
+ * holding the <code>request</code> and <code>response</code> variables, while
+ * {@link ResponseCheck declarative checks} are evaluated directly.
+ *
+ * @author Ernest Kiwele
+ */
+public final class AssertionSuite {
+
+	private static final AssertionSuite EMPTY = new AssertionSuite(List.of());
+
+	private final List<CompiledAssertion> assertions;
+	private final boolean scripted;
+
+	private AssertionSuite(List<CompiledAssertion> assertions) {
+		this.assertions = Collections.unmodifiableList(assertions);
+		this.scripted = assertions.stream()
+				.anyMatch(a -> null != a.condition || null != a.message);
+	}
+
+	/**
+	 * Compile the given assertions with the resolver. An assertion whose expression
+	 * does not compile is kept, and reported as an error each time the suite is
+	 * evaluated.
+	 *
+	 * @param assertions The assertions to compile, possibly null.
+	 * @param resolver   The resolver for the assertions' language. Only needed if
+	 *                   some assertions are scripted.
+	 * @return A reusable, thread-safe suite.
+	 */
+	public static AssertionSuite compile(List<Assertion> assertions, Resolver resolver) {
+		if (null == assertions || assertions.isEmpty()) {
+			return EMPTY;
+		}
+
+		List<CompiledAssertion> compiled = new ArrayList<>(assertions.size());
+		for (Assertion assertion : assertions) {
+			CompiledTemplate condition = null == assertion.getCheck()
+					? compile(resolver, assertion.getBooleanExpression())
+					: null;
+			CompiledTemplate message = StringUtils.isBlank(assertion.getMessageTemplate()) ? null
+					: compile(resolver, assertion.getMessageTemplate());
+
+			compiled.add(new CompiledAssertion(assertion, condition, message));
+		}
+
+		return new AssertionSuite(compiled);
+	}
+
+	private static CompiledTemplate compile(Resolver resolver, String expression) {
+		Objects.requireNonNull(resolver, "Resolver may not be null for scripted assertions");
+
+		try {
+			return CompiledTemplate.of(resolver, expression);
+		} catch (RuntimeException ex) {
+			return context -> {
+				throw ex;
+			};
+		}
+	}
+
+	/**
+	 * Evaluate all assertions against a response. Nothing is evaluated for failed
+	 * responses, for which each assertion yields an unsuccessful result.
+	 *
+	 * @param request  The request that was sent.
+	 * @param response The response to check.
+	 * @return One result per assertion, in declaration order.
+	 */
+	public List<AssertionResult> evaluate(Request request, Response response) {
+		List<AssertionResult> results = new ArrayList<>(this.assertions.size());
+		if (this.assertions.isEmpty()) {
+			return results;
+		}
+
+		if (response.isFailed()) {
+			for (CompiledAssertion assertion : this.assertions) {
+				results.add(assertion.result()
+						.build());
+			}
+
+			return results;
+		}
+
+		CheckTarget target = new CheckTarget(request, response);
+		MapObject binding = !this.scripted ? null
+				: MapObject.instance()
+						.add("request", request)
+						.add("response", response);
+
+		for (CompiledAssertion assertion : this.assertions) {
+			results.add(assertion.evaluate(target, binding));
+		}
+
+		return results;
+	}
+
+	public int size() {
+		return this.assertions.size();
+	}
+
+	private static final class CompiledAssertion {
+		private final Assertion assertion;
+		private final CompiledTemplate condition;
+		private final CompiledTemplate message;
+
+		private CompiledAssertion(Assertion assertion, CompiledTemplate condition, CompiledTemplate message) {
+			this.assertion = assertion;
+			this.condition = condition;
+			this.message = message;
+		}
+
+		private AssertionResult.AssertionResultBuilder result() {
+			return AssertionResult.builder()
+					.id(this.assertion.getId())
+					.assertion(this.assertion);
+		}
+
+		private AssertionResult evaluate(CheckTarget target, MapObject binding) {
+			var resultBuilder = this.result();
+
+			try {
+				String failure = null;
+				boolean succeeded;
+				if (null == this.condition) {
+					failure = this.assertion.getCheck()
+							.check(target);
+					succeeded = null == failure;
+				} else {
+					succeeded = Boolean.parseBoolean(String.valueOf(this.condition.eval(binding)));
+				}
+				resultBuilder = resultBuilder.succeeded(succeeded)
+						.error(false);
+
+				if (!succeeded) {
+					resultBuilder = resultBuilder.expectationMessage(
+							null != this.message ? String.valueOf(this.message.eval(binding)) : failure);
+				}
+			} catch (Exception ex) {
+				resultBuilder = resultBuilder.expectationMessage("[Execution error: " + ex.getMessage() + "]")
+						.succeeded(false)
+						.error(true)
+						.errorMessage(ex.getMessage())
+						.stackTrace(ExceptionUtils.getStackTrace(ex));
+			}
+
+			return resultBuilder.build();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.qa;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checks that the size of the response body, in bytes, is within an inclusive
+ * range. A negative bound is not checked.
+ * 
+ * @author Ernest Kiwele
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BodySizeCheck implements ResponseCheck {
+
+	@Builder.Default
+	private long min = -1;
+	@Builder.Default
+	private long max = -1;
+
+	public static BodySizeCheck between(long min, long max) {
+		return new BodySizeCheck(min, max);
+	}
+
+	public static BodySizeCheck atMost(long max) {
+		return new BodySizeCheck(-1, max);
+	}
+
+	@Override
+	public String check(CheckTarget target) {
+		long size = target.bodySize();
+		if ((this.min < 0 || size >= this.min) && (this.max < 0 || size <= this.max)) {
+			return null;
+		}
+
+		return "Expected body size in [" + (this.min < 0 ? "0" : this.min) + ", "
+				+ (this.max < 0 ? "*" : this.max) + "] bytes but was " + size;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.qa;
+
+import java.util.List;
+import java.util.Map;
+
+import com.eussence.mosquito.api.http.Body;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.api.utils.JsonMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+/**
+ * The request/response pair seen by {@link ResponseCheck response checks}. The
+ * response body is parsed at most once, however many checks read it.
+ * 
+ * @author Ernest Kiwele
+ */
+public final class CheckTarget {
+
+	private final Request request;
+	private final Response response;
+	private JsonNode json;
+
+	public CheckTarget(Request request, Response response) {
+		this.request = request;
+		this.response = response;
+	}
+
+	public Request getRequest() {
+		return request;
+	}
+
+	public Response getResponse() {
+		return response;
+	}
+
+	/**
+	 * Get the values of a header, matching its name case-insensitively.
+	 * 
+	 * @param name The header name.
+	 * @return The header's values, empty if the header is absent.
+	 */
+	public List<String> header(String name) {
+		Map<String, List<String>> headers = this.response.getHeaders();
+		if (null == headers) {
+			return List.of();
+		}
+
+		List<String> values = headers.get(name);
+		if (null != values) {
+			return values;
+		}
+
+		return headers.entrySet()
+				.stream()
+				.filter(e -> name.equalsIgnoreCase(e.getKey()))
+				.map(Map.Entry::getValue)
+				.findFirst()
+				.orElse(List.of());
+	}
+
+	/**
+	 * The response body as a JSON tree, parsed on first use. An empty body yields a
+	 * missing node.
+	 */
+	public JsonNode json() {
+		if (null == this.json) {
+			Body body = this.response.getBody();
+			if (null == body || null == body.getEntity()) {
+				this.json = MissingNode.getInstance();
+			} else if (body.getEntity() instanceof String || body.getEntity() instanceof byte[]) {
+				byte[] bytes = body.bytes();
+				this.json = bytes.length == 0 ? MissingNode.getInstance() : JsonMapper.fromJson(bytes, JsonNode.class);
+			} else {
+				this.json = JsonMapper.getObjectMapper()
+						.valueToTree(body.getEntity());
+			}
+		}
+
+		return this.json;
+	}
+
+	/**
+	 * The size of the response body in bytes, falling back to the reported length
+	 * when the body was not kept.
+	 */
+	public long bodySize() {
+		Body body = this.response.getBody();
+		if (null != body && null != body.getEntity()) {
+			return body.bytes().length;
+		}
+
+		return this.response.getLength();
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.qa;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Checks a response header. With a <code>value</code>, one of the header's
+ * values must equal it; with a <code>pattern</code>, one of them must match the
+ * regular expression; with neither, the header must be present.
+ * 
+ * @author Ernest Kiwele
+ */
+@Data
+@NoArgsConstructor
+public class HeaderCheck implements ResponseCheck {
+
+	private String name;
+	private String value;
+	private String pattern;
+
+	@JsonIgnore
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private transient volatile Pattern compiledPattern;
+
+	@Builder
+	public HeaderCheck(String name, String value, String pattern) {
+		this.name = name;
+		this.value = value;
+		this.pattern = pattern;
+	}
+
+	public static HeaderCheck present(String name) {
+		return HeaderCheck.builder()
+				.name(name)
+				.build();
+	}
+
+	public static HeaderCheck equalTo(String name, String value) {
+		return HeaderCheck.builder()
+				.name(name)
+				.value(value)
+				.build();
+	}
+
+	public static HeaderCheck matching(String name, String pattern) {
+		return HeaderCheck.builder()
+				.name(name)
+				.pattern(pattern)
+				.build();
+	}
+
+	@Override
+	public String check(CheckTarget target) {
+		List<String> values = target.header(this.name);
+		if (values.isEmpty()) {
+			return "Expected header " + this.name + " to be present";
+		}
+
+		if (null != this.value && !values.contains(this.value)) {
+			return "Expected header " + this.name + " to be " + this.value + " but was " + values;
+		}
+
+		if (null != this.pattern) {
+			Pattern p = this.compiledPattern();
+			if (values.stream()
+					.noneMatch(v -> p.matcher(v)
+							.matches())) {
+				return "Expected header " + this.name + " to match " + this.pattern + " but was " + values;
+			}
+		}
+
+		return null;
+	}
+
+	private Pattern compiledPattern() {
+		Pattern p = this.compiledPattern;
+		if (null == p || !p.pattern()
+				.equals(this.pattern)) {
+			p = Pattern.compile(this.pattern);
+			this.compiledPattern = p;
+		}
+
+		return p;
+	}
+}
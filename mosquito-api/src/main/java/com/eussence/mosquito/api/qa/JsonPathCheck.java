@@ -0,0 +1,254 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.qa;
+
+import java.math.BigDecimal;
+import java.util.regex.Pattern;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.utils.JsonMapper;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * <p>
+ * Checks a value in a JSON response body. The <code>path</code> is either a
+ * JSON pointer (<code>/items/0/id</code>) or a dotted path, optionally rooted at
+ * <code>$</code> and with array indexes (<code>$.items[0].id</code>).
+ * </p>
+ * 
+ * <p>
+ * Numbers are compared by value, so <code>1</code> equals <code>1.0</code>.
+ * Strings compare against the node's text.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+@Data
+@NoArgsConstructor
+public class JsonPathCheck implements ResponseCheck {
+
+	public enum Operator {
+		EXISTS, NOT_EXISTS, NULL, NOT_NULL, EQUALS, NOT_EQUALS, MATCHES, CONTAINS, GREATER_THAN, GREATER_OR_EQUAL,
+		LESS_THAN, LESS_OR_EQUAL;
+	}
+
+	private String path;
+	private Operator operator = Operator.EXISTS;
+	private Object value;
+
+	@JsonIgnore
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private transient volatile Compiled compiled;
+
+	@Builder
+	public JsonPathCheck(String path, Operator operator, Object value) {
+		this.path = path;
+		this.operator = null == operator ? Operator.EXISTS : operator;
+		this.value = value;
+	}
+
+	public static JsonPathCheck exists(String path) {
+		return new JsonPathCheck(path, Operator.EXISTS, null);
+	}
+
+	public static JsonPathCheck notNull(String path) {
+		return new JsonPathCheck(path, Operator.NOT_NULL, null);
+	}
+
+	public static JsonPathCheck equalTo(String path, Object value) {
+		return new JsonPathCheck(path, Operator.EQUALS, value);
+	}
+
+	@Override
+	public String check(CheckTarget target) {
+		Compiled c = this.compiled();
+		JsonNode node = target.json()
+				.at(c.pointer);
+
+		return this.test(node, c) ? null
+				: "Expected " + this.path + " " + this.describe() + " but was "
+						+ (node.isMissingNode() ? "missing" : node.toString());
+	}
+
+	private boolean test(JsonNode node, Compiled c) {
+		switch (this.operator) {
+		case EXISTS:
+			return !node.isMissingNode();
+		case NOT_EXISTS:
+			return node.isMissingNode();
+		case NULL:
+			return node.isNull();
+		case NOT_NULL:
+			return !node.isMissingNode() && !node.isNull();
+		case EQUALS:
+			return this.matches(node, c);
+		case NOT_EQUALS:
+			return !node.isMissingNode() && !this.matches(node, c);
+		case MATCHES:
+			return node.isValueNode() && c.pattern.matcher(node.asText())
+					.matches();
+		case CONTAINS:
+			if (node.isArray()) {
+				for (JsonNode element : node) {
+					if (this.matches(element, c)) {
+						return true;
+					}
+				}
+				return false;
+			}
+			return node.isTextual() && node.asText()
+					.contains(String.valueOf(this.value));
+		default:
+			if (!node.isNumber() || null == c.number) {
+				return false;
+			}
+
+			int cmp = node.decimalValue()
+					.compareTo(c.number);
+			return this.operator == Operator.GREATER_THAN ? cmp > 0
+					: this.operator == Operator.GREATER_OR_EQUAL ? cmp >= 0
+							: this.operator == Operator.LESS_THAN ? cmp < 0 : cmp <= 0;
+		}
+	}
+
+	private boolean matches(JsonNode node, Compiled c) {
+		if (node.isMissingNode()) {
+			return false;
+		}
+		if (node.isNumber() && null != c.number) {
+			return node.decimalValue()
+					.compareTo(c.number) == 0;
+		}
+		if (node.isTextual() && this.value instanceof CharSequence) {
+			return node.asText()
+					.equals(this.value.toString());
+		}
+
+		return node.equals(c.expected);
+	}
+
+	private String describe() {
+		switch (this.operator) {
+		case EXISTS:
+			return "to exist";
+		case NOT_EXISTS:
+			return "not to exist";
+		case NULL:
+			return "to be null";
+		case NOT_NULL:
+			return "not to be null";
+		default:
+			return this.operator.name()
+					.toLowerCase()
+					.replace('_', ' ') + " " + this.value;
+		}
+	}
+
+	private Compiled compiled() {
+		Compiled c = this.compiled;
+		if (null == c || !c.isFor(this)) {
+			c = new Compiled(this);
+			this.compiled = c;
+		}
+
+		return c;
+	}
+
+	/**
+	 * Convert a dotted path to a JSON pointer. Pointers are returned as-is.
+	 */
+	static String toPointer(String path) {
+		if (null == path || path.isEmpty() || path.equals("$")) {
+			return "";
+		}
+		if (path.startsWith("/")) {
+			return path;
+		}
+
+		String p = path.startsWith("$") ? path.substring(1) : path;
+		StringBuilder pointer = new StringBuilder();
+		for (String segment : p.split("\\.")) {
+			if (segment.isEmpty()) {
+				continue;
+			}
+
+			int bracket = segment.indexOf('[');
+			String name = bracket < 0 ? segment : segment.substring(0, bracket);
+			if (!name.isEmpty()) {
+				pointer.append('/')
+						.append(name.replace("~", "~0")
+								.replace("/", "~1"));
+			}
+
+			while (bracket >= 0) {
+				int close = segment.indexOf(']', bracket);
+				if (close < 0) {
+					throw new MosquitoException("Invalid JSON path: " + path);
+				}
+				pointer.append('/')
+						.append(segment, bracket + 1, close);
+				bracket = segment.indexOf('[', close);
+			}
+		}
+
+		return pointer.toString();
+	}
+
+	private static final class Compiled {
+		private final String path;
+		private final Object value;
+		private final JsonPointer pointer;
+		private final JsonNode expected;
+		private final BigDecimal number;
+		private final Pattern pattern;
+
+		private Compiled(JsonPathCheck check) {
+			this.path = check.path;
+			this.value = check.value;
+			this.pointer = JsonPointer.compile(toPointer(check.path));
+			this.expected = JsonMapper.getObjectMapper()
+					.valueToTree(check.value);
+			this.number = this.expected.isNumber() ? this.expected.decimalValue() : number(this.expected);
+			this.pattern = check.operator == Operator.MATCHES ? Pattern.compile(String.valueOf(check.value)) : null;
+		}
+
+		private static BigDecimal number(JsonNode node) {
+			if (!node.isTextual()) {
+				return null;
+			}
+
+			try {
+				return new BigDecimal(node.asText());
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		private boolean isFor(JsonPathCheck check) {
+			return this.path == check.path && this.value == check.value
+					&& (check.operator != Operator.MATCHES || null != this.pattern);
+		}
+	}
+}
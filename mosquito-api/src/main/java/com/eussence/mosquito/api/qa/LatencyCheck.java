@@ -0,0 +1,48 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.qa;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checks that the response was received within a number of milliseconds.
+ * 
+ * @author Ernest Kiwele
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LatencyCheck implements ResponseCheck {
+
+	private long maxMillis;
+
+	public static LatencyCheck within(long maxMillis) {
+		return new LatencyCheck(maxMillis);
+	}
+
+	@Override
+	public String check(CheckTarget target) {
+		long duration = target.getResponse()
+				.getDuration();
+
+		return duration <= this.maxMillis ? null
+				: "Expected response within " + this.maxMillis + "ms but took " + duration + "ms";
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.qa;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * A declarative check of a response, evaluated directly rather than through a
+ * script {@link com.eussence.mosquito.api.command.Resolver resolver}. Checks
+ * are stateless apart from their configuration and can be evaluated
+ * concurrently, including on I/O threads.
+ * 
+ * @author Ernest Kiwele
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonSubTypes({ @JsonSubTypes.Type(value = StatusCheck.class, name = "status"),
+		@JsonSubTypes.Type(value = HeaderCheck.class, name = "header"),
+		@JsonSubTypes.Type(value = JsonPathCheck.class, name = "json"),
+		@JsonSubTypes.Type(value = LatencyCheck.class, name = "latency"),
+		@JsonSubTypes.Type(value = BodySizeCheck.class, name = "bodySize") })
+public interface ResponseCheck {
+
+	/**
+	 * Run the check.
+	 * 
+	 * @param target The response being checked.
+	 * @return <code>null</code> if the check passed, otherwise a message
+	 *         describing the expectation that was not met.
+	 */
+	String check(CheckTarget target);
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.qa;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checks that the response status is within an inclusive range. Without an
+ * upper bound, the status must equal the lower one.
+ * 
+ * @author Ernest Kiwele
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatusCheck implements ResponseCheck {
+
+	private int from;
+	private Integer to;
+
+	public static StatusCheck of(int status) {
+		return new StatusCheck(status, status);
+	}
+
+	public static StatusCheck range(int from, int to) {
+		return new StatusCheck(from, to);
+	}
+
+	public static StatusCheck successful() {
+		return range(200, 299);
+	}
+
+	@Override
+	public String check(CheckTarget target) {
+		int status = target.getResponse()
+				.getStatus();
+		int to = null == this.to ? this.from : this.to;
+		if (status >= this.from && status <= to) {
+			return null;
+		}
+
+		return (this.from == to ? "Expected status " + this.from
+				: "Expected status in [" + this.from + ", " + to + "]") + " but was " + status;
+	}
+}
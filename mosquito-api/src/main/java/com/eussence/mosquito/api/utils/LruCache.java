@@ -0,0 +1,106 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread-safe map that drops its least recently used entry once more
+ * than its capacity are kept. Entries are held in an access-ordered map under
+ * the cache's lock, so values should be cheap to create, or be holders that
+ * create their contents lazily.
+ * 
+ * @author Ernest Kiwele
+ */
+public class LruCache<K, V> {
+
+	private final int capacity;
+	private final Map<K, V> entries;
+	private long evictions;
+
+	public LruCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+		}
+
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				if (this.size() > LruCache.this.capacity) {
+					LruCache.this.evictions++;
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * The value of the key, marked as the most recently used, or null.
+	 */
+	public synchronized V get(K key) {
+		return this.entries.get(key);
+	}
+
+	/**
+	 * Add the value unless the key has one.
+	 * 
+	 * @return The key's existing value, marked as the most recently used, or null
+	 *         if the given value was added.
+	 */
+	public synchronized V putIfAbsent(K key, V value) {
+		V existing = this.entries.get(key);
+		if (null == existing) {
+			this.entries.put(key, value);
+		}
+
+		return existing;
+	}
+
+	/**
+	 * The value of the key, created with the function, under the cache's lock, if
+	 * the key has none.
+	 */
+	public synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+		return this.entries.computeIfAbsent(key, function);
+	}
+
+	public synchronized boolean remove(K key, V value) {
+		return this.entries.remove(key, value);
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+}
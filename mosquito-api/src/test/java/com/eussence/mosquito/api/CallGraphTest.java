@@ -0,0 +1,60 @@
+package com.eussence.mosquito.api;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+
+public class CallGraphTest {
+
+	private Call call(String key, String... dependsOn) {
+		return Call.builder()
+				.key(key)
+				.dependsOn(List.of(dependsOn))
+				.build();
+	}
+
+	private CallChain chain(Call... calls) {
+		var chain = CallChain.builder()
+				.key("chain")
+				.build();
+		for (Call call : calls) {
+			chain.getCalls()
+					.put(call.getKey(), call);
+		}
+
+		return chain;
+	}
+
+	@Test
+	void testOrder() {
+		var graph = CallGraph.of(this.chain(this.call("user", "login"), this.call("orders", "login", "user"),
+				this.call("login"), this.call("avatar", "user"), this.call("health")));
+
+		Assertions.assertEquals(List.of("health", "login", "user", "avatar", "orders"), graph.getOrder()
+				.stream()
+				.map(Call::getKey)
+				.collect(Collectors.toList()));
+		Assertions.assertEquals(List.of("login", "user"), graph.getDependencies("orders"));
+		Assertions.assertEquals(List.of(), graph.getDependencies("health"));
+		Assertions.assertEquals(5, graph.size());
+	}
+
+	@Test
+	void testInvalidGraphs() {
+		var unknown = Assertions.assertThrows(MosquitoException.class,
+				() -> CallGraph.of(this.chain(this.call("a", "b"))));
+		Assertions.assertTrue(unknown.getMessage()
+				.contains("unknown call 'b'"));
+
+		var cycle = Assertions.assertThrows(MosquitoException.class, () -> CallGraph
+				.of(this.chain(this.call("a", "c"), this.call("b", "a"), this.call("c", "b"), this.call("d"))));
+		Assertions.assertTrue(cycle.getMessage()
+				.endsWith("[a, b, c]"));
+
+		Assertions.assertThrows(MosquitoException.class, () -> CallGraph.of(this.chain(this.call("a", "a"))));
+	}
+}
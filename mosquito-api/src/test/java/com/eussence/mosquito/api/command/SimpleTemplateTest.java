@@ -0,0 +1,96 @@
+package com.eussence.mosquito.api.command;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.MapObject;
+
+public class SimpleTemplateTest {
+
+	private final AtomicInteger fallbacks = new AtomicInteger();
+	private final Supplier<CompiledTemplate> fallback = () -> {
+		this.fallbacks.incrementAndGet();
+		return CompiledTemplate.constant("fallback");
+	};
+
+	@Test
+	void testInterpolation() {
+		var template = SimpleTemplate.interpolation("${host}/users/$user.id/${ user.name }.", this.fallback)
+				.orElseThrow();
+
+		var context = MapObject.instance()
+				.add("host", "http://localhost")
+				.add("user", Map.of("id", 12, "name", "bob"));
+		Assertions.assertEquals("http://localhost/users/12/bob.", template.eval(context));
+		Assertions.assertEquals("null", SimpleTemplate.interpolation("$x", this.fallback)
+				.orElseThrow()
+				.eval(MapObject.instance()
+						.add("x", null)));
+		Assertions.assertEquals("[1, 2]", SimpleTemplate.interpolation("$x", this.fallback)
+				.orElseThrow()
+				.eval(MapObject.instance()
+						.add("x", List.of(1, 2))));
+		Assertions.assertEquals(0, this.fallbacks.get());
+	}
+
+	@Test
+	void testBeanProperties() {
+		var template = SimpleTemplate.expression("holder.key", this.fallback)
+				.orElseThrow();
+
+		Assertions.assertEquals("k", template.eval(MapObject.instance()
+				.add("holder", new Holder("k"))));
+	}
+
+	@Test
+	void testUnsupportedTemplates() {
+		Assertions.assertTrue(SimpleTemplate.interpolation("${id + 1}", this.fallback)
+				.isEmpty());
+		Assertions.assertTrue(SimpleTemplate.interpolation("${id.trim()}", this.fallback)
+				.isEmpty());
+		Assertions.assertTrue(SimpleTemplate.interpolation("\\${id}", this.fallback)
+				.isEmpty());
+		Assertions.assertTrue(SimpleTemplate.interpolation("cost: $5", this.fallback)
+				.isEmpty());
+		Assertions.assertTrue(SimpleTemplate.interpolation("${id", this.fallback)
+				.isEmpty());
+		Assertions.assertTrue(SimpleTemplate.expression("[:]", this.fallback)
+				.isEmpty());
+		Assertions.assertTrue(SimpleTemplate.expression("true", this.fallback)
+				.isEmpty());
+		Assertions.assertEquals(0, this.fallbacks.get());
+	}
+
+	@Test
+	void testFallback() {
+		var template = SimpleTemplate.interpolation("${a.b}/$c", this.fallback)
+				.orElseThrow();
+
+		Assertions.assertEquals("fallback", template.eval(MapObject.instance()
+				.add("a", null)
+				.add("c", 1)));
+		Assertions.assertEquals("fallback", template.eval(MapObject.instance()
+				.add("a", Map.of("b", 1))));
+		Assertions.assertEquals("1/2", template.eval(MapObject.instance()
+				.add("a", Map.of("b", 1))
+				.add("c", 2)));
+		Assertions.assertEquals(1, this.fallbacks.get());
+	}
+
+	public static class Holder {
+		private final String key;
+
+		public Holder(String key) {
+			this.key = key;
+		}
+
+		public String getKey() {
+			return key;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.eussence.mosquito.api.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+
+public class DatasetReaderTest {
+
+	@Test
+	void testCsv() {
+		var records = CsvDatasetReader.instance()
+				.read(new StringReader("\uFEFFid,name,notes\r\n1,bob,\"likes \"\"quotes\"\", commas\"\n\n2,alice,\"two\nlines\"\n3,carl"))
+				.collect(Collectors.toList());
+
+		Assertions.assertEquals(3, records.size());
+		Assertions.assertEquals(Map.of("id", "1", "name", "bob", "notes", "likes \"quotes\", commas"), records.get(0));
+		Assertions.assertEquals("two\nlines", records.get(1)
+				.get("notes"));
+		Assertions.assertNull(records.get(2)
+				.get("notes"));
+		Assertions.assertEquals(List.of("id", "name", "notes"), List.copyOf(records.get(0)
+				.keySet()));
+
+		Assertions.assertThrows(MosquitoException.class, () -> CsvDatasetReader.instance()
+				.read(new StringReader("a\n\"open"))
+				.count());
+	}
+
+	@Test
+	void testJsonLines() {
+		var records = JsonLinesDatasetReader.instance()
+				.read(new StringReader("{\"id\": 1, \"tags\": [\"a\"]}\n\n{\"id\": 2}\n"))
+				.collect(Collectors.toList());
+
+		Assertions.assertEquals(2, records.size());
+		Assertions.assertEquals(1, records.get(0)
+				.get("id"));
+		Assertions.assertEquals(List.of("a"), records.get(0)
+				.get("tags"));
+	}
+
+	@Test
+	void testLazyRead() {
+		var read = new AtomicBoolean();
+		var source = new StringReader("id\n1\n2\n") {
+			@Override
+			public int read() throws IOException {
+				read.set(true);
+				return super.read();
+			}
+		};
+
+		var records = CsvDatasetReader.instance()
+				.read(source);
+		Assertions.assertFalse(read.get());
+		Assertions.assertEquals(Map.of("id", "1"), records.findFirst()
+				.orElseThrow());
+	}
+
+	@Test
+	void testOpen() throws IOException {
+		var file = Files.createTempFile("dataset", ".jsonl");
+		Files.writeString(file, "{\"id\": 1}\n{\"id\": 2}\n");
+
+		try (var records = DatasetReader.open(Dataset.builder()
+				.id("ds")
+				.uri(file.toString())
+				.build())) {
+			Assertions.assertEquals(2, records.count());
+		}
+
+		try (var records = DatasetReader.open(Dataset.builder()
+				.id("ds")
+				.uri(file.toUri()
+						.toString())
+				.mediaType("application/x-ndjson; charset=utf-8")
+				.build())) {
+			Assertions.assertEquals(1, records.findFirst()
+					.orElseThrow()
+					.get("id"));
+		}
+
+		Assertions.assertThrows(MosquitoException.class, () -> DatasetReader.forFormat("application/xml"));
+		Assertions.assertThrows(MosquitoException.class, () -> DatasetReader.open(Dataset.builder()
+				.id("ds")
+				.build()));
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.execution;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.api.utils.JsonMapper;
+
+public class ExecutionSummaryTest {
+
+	private static Response response(int status) {
+		return Response.builder()
+				.status(status)
+				.build();
+	}
+
+	@Test
+	void testRecord() {
+		var summary = new ExecutionSummary(2, 0);
+		summary.recordResponse("login", response(200), TimeUnit.MILLISECONDS.toNanos(5), false);
+		summary.recordResponse("login", response(401), TimeUnit.MILLISECONDS.toNanos(2), true);
+		summary.recordResponse("login", new Response(new IOException("Connection reset")), 0, false);
+		summary.recordResponse("orders", response(200), TimeUnit.MILLISECONDS.toNanos(9), false);
+		summary.recordExecution(true);
+		summary.recordExecution(false);
+
+		Assertions.assertEquals(2, summary.getExecutions());
+		Assertions.assertEquals(1, summary.getFailedExecutions());
+
+		var login = summary.getCalls()
+				.get("login");
+		Assertions.assertEquals(3, login.getCount());
+		Assertions.assertEquals(1, login.getFailures());
+		Assertions.assertEquals(1, login.getAssertionFailures());
+		Assertions.assertEquals(Map.of(200, 1L, 401, 1L), login.getStatuses());
+		Assertions.assertEquals(2, login.getLatency()
+				.getCount());
+		Assertions.assertEquals(1, login.getLatency()
+				.getErrorCount());
+
+		Assertions.assertEquals(2, summary.getErrors()
+				.size());
+		Assertions.assertTrue(summary.getResponseSamples()
+				.isEmpty());
+	}
+
+	@Test
+	void testConcurrentMerge() {
+		var summaries = new ArrayList<ExecutionSummary>();
+		var tasks = new ArrayList<CompletableFuture<Void>>();
+		for (int t = 0; t < 4; t++) {
+			var summary = new ExecutionSummary(5, 8);
+			summaries.add(summary);
+			for (int w = 0; w < 2; w++) {
+				tasks.add(CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < 5_000; i++) {
+						summary.recordResponse("call", response(i % 10 == 0 ? 500 : 200), i, i % 10 == 0);
+						summary.recordExecution(i % 10 != 0);
+					}
+				}));
+			}
+		}
+		tasks.forEach(CompletableFuture::join);
+
+		var left = new ExecutionSummary(5, 8);
+		left.merge(summaries.get(0));
+		left.merge(summaries.get(1));
+		var right = new ExecutionSummary(5, 8);
+		right.merge(summaries.get(2));
+		right.merge(summaries.get(3));
+		left.merge(right);
+
+		Assertions.assertEquals(40_000, left.getExecutions());
+		Assertions.assertEquals(4_000, left.getFailedExecutions());
+		Assertions.assertEquals(Map.of(200, 36_000L, 500, 4_000L), left.getCalls()
+				.get("call")
+				.getStatuses());
+		Assertions.assertEquals(5, left.getErrors()
+				.size());
+		Assertions.assertEquals(8, left.getResponseSamples()
+				.size());
+		Assertions.assertEquals(40_000, left.getResponsesSeen());
+	}
+
+	@Test
+	void testErrorsKeepEarliest() {
+		var first = new ExecutionSummary(2, 0);
+		var second = new ExecutionSummary(2, 0);
+		second.recordError("b", 500, "second");
+		first.recordError("a", 500, "first");
+
+		var ab = new ExecutionSummary(2, 0);
+		ab.merge(first);
+		ab.merge(second);
+		var ba = new ExecutionSummary(2, 0);
+		ba.merge(second);
+		ba.merge(first);
+
+		Assertions.assertEquals(ab.getErrors(), ba.getErrors());
+		Assertions.assertEquals(2, ab.getErrors()
+				.size());
+
+		var capped = new ExecutionSummary(1, 0);
+		capped.merge(ab);
+		Assertions.assertEquals(List.of(ab.getErrors()
+				.get(0)), capped.getErrors());
+	}
+
+	@Test
+	void testJson() {
+		var summary = new ExecutionSummary(3, 2);
+		summary.recordResponse("call", response(200), 1000, false);
+		summary.recordResponse("call", response(503), 2000, true);
+		summary.recordExecution(false);
+
+		String json = JsonMapper.json(summary);
+		var read = JsonMapper.fromJson(json, ExecutionSummary.class);
+
+		Assertions.assertEquals(1, read.getExecutions());
+		Assertions.assertEquals(1, read.getFailedExecutions());
+		Assertions.assertEquals(summary.getCalls()
+				.get("call")
+				.getStatuses(),
+				read.getCalls()
+						.get("call")
+						.getStatuses());
+		Assertions.assertEquals(summary.getCalls()
+				.get("call")
+				.getLatency()
+				.getBuckets(),
+				read.getCalls()
+						.get("call")
+						.getLatency()
+						.getBuckets());
+		Assertions.assertEquals(summary.getErrors(), read.getErrors());
+		Assertions.assertEquals(2, read.getResponseSamples()
+				.size());
+		Assertions.assertEquals(2, read.getResponsesSeen());
+		Assertions.assertEquals(3, read.getMaxErrorSamples());
+	}
+}
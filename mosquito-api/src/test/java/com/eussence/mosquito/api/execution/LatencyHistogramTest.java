@@ -0,0 +1,147 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.api.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.utils.JsonMapper;
+
+public class LatencyHistogramTest {
+
+	@Test
+	void testPercentiles() {
+		var histogram = new LatencyHistogram();
+		Assertions.assertEquals(0, histogram.getValueAtPercentile(99));
+
+		for (int i = 1; i <= 1000; i++) {
+			histogram.recordValue(i);
+		}
+		histogram.record(1, TimeUnit.SECONDS);
+		histogram.recordError();
+
+		Assertions.assertEquals(1001, histogram.getCount());
+		Assertions.assertEquals(1, histogram.getErrorCount());
+		Assertions.assertEquals(1, histogram.getMinValue());
+		Assertions.assertEquals(1_000_000, histogram.getMaxValue());
+		Assertions.assertEquals(501, histogram.getValueAtPercentile(50));
+		Assertions.assertEquals(991, histogram.getValueAtPercentile(99));
+		Assertions.assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+		Assertions.assertEquals(List.of("p50", "p90", "p99", "p99.9", "max"), new ArrayList<>(histogram.getPercentiles()
+				.keySet()));
+	}
+
+	@Test
+	void testPrecision() {
+		for (long value : new long[] { 2047, 2048, 123_456, 98_765_432_100L, Long.MAX_VALUE / 3 }) {
+			var histogram = new LatencyHistogram();
+			histogram.recordValue(value);
+			histogram.recordValue(0);
+
+			Assertions.assertEquals(0, histogram.getValueAtPercentile(50));
+			Assertions.assertEquals(value, histogram.getValueAtPercentile(100));
+
+			long lowest = histogram.getBuckets()
+					.lastKey();
+			Assertions.assertTrue(lowest <= value && value - lowest <= value / 1024, value + " in " + lowest);
+		}
+	}
+
+	@Test
+	void testConcurrentRecordAndMerge() {
+		var histograms = new ArrayList<LatencyHistogram>();
+		var tasks = new ArrayList<CompletableFuture<Void>>();
+		for (int t = 0; t < 4; t++) {
+			var histogram = new LatencyHistogram();
+			histograms.add(histogram);
+			for (int w = 0; w < 2; w++) {
+				tasks.add(CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < 10_000; i++) {
+						histogram.recordValue(i % 5000);
+					}
+				}));
+			}
+		}
+		tasks.forEach(CompletableFuture::join);
+
+		var merged = new LatencyHistogram();
+		histograms.forEach(merged::merge);
+
+		Assertions.assertEquals(80_000, merged.getCount());
+		Assertions.assertEquals(histograms.get(0)
+				.getValueAtPercentile(90), merged.getValueAtPercentile(90));
+		Assertions.assertEquals(4 * histograms.get(0)
+				.getTotalValue(), merged.getTotalValue());
+	}
+
+	@Test
+	void testMergeKeepsMinAndMax() {
+		var first = new LatencyHistogram();
+		first.recordValue(123_457);
+		var second = new LatencyHistogram();
+		second.recordValue(2049);
+		second.recordValue(98_765_432_101L);
+
+		var merged = new LatencyHistogram();
+		merged.merge(first);
+		merged.merge(second);
+		merged.merge(new LatencyHistogram());
+
+		Assertions.assertEquals(3, merged.getCount());
+		Assertions.assertEquals(2049, merged.getMinValue());
+		Assertions.assertEquals(98_765_432_101L, merged.getMaxValue());
+		Assertions.assertEquals(98_765_432_101L, merged.getValueAtPercentile(100));
+	}
+
+	@Test
+	void testJson() {
+		var histogram = new LatencyHistogram();
+		histogram.recordValue(12);
+		histogram.recordValue(40_000);
+		histogram.recordError();
+
+		String json = JsonMapper.json(histogram);
+		Assertions.assertTrue(json.contains("\"percentiles\""), json);
+
+		var read = JsonMapper.fromJson(json, LatencyHistogram.class);
+		Assertions.assertEquals(histogram.getBuckets(), read.getBuckets());
+		Assertions.assertEquals(histogram.getPercentiles(), read.getPercentiles());
+		Assertions.assertEquals(1, read.getErrorCount());
+		Assertions.assertEquals(histogram.getStartMillis(), read.getStartMillis());
+		Assertions.assertEquals(histogram.getEndMillis(), read.getEndMillis());
+	}
+
+	@Test
+	void testJsonKeepsMinAndMax() {
+		var histogram = new LatencyHistogram();
+		histogram.recordValue(2049);
+		histogram.recordValue(123_457);
+
+		var read = JsonMapper.fromJson(JsonMapper.json(histogram), LatencyHistogram.class);
+		Assertions.assertEquals(2049, read.getMinValue());
+		Assertions.assertEquals(123_457, read.getMaxValue());
+		Assertions.assertEquals(histogram.getPercentiles(), read.getPercentiles());
+
+		var merged = new LatencyHistogram();
+		merged.merge(read);
+		Assertions.assertEquals(123_457, merged.getMaxValue());
+	}
+}
@@ -5,6 +5,7 @@ import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ws.rs.core.MediaType;
 
@@ -16,7 +17,9 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 import com.eussence.mosquito.api.MapObject;
+import com.eussence.mosquito.api.command.CompiledTemplate;
 import com.eussence.mosquito.api.command.Resolver;
+import com.eussence.mosquito.api.command.TemplateCompiler;
 
 public class RequestTemplateMapperTest {
 
@@ -45,8 +48,9 @@ public class RequestTemplateMapperTest {
 				.from("abcdef")
 				.build();
 
+		// URIs without expressions are taken literally
 		var request = template.toRequest();
-		Assertions.assertEquals("efghijk", request.getUri());
+		Assertions.assertEquals("abcdef", request.getUri());
 
 		request = template.toBuilder()
 				.uri("$efghijk")
@@ -95,4 +99,90 @@ public class RequestTemplateMapperTest {
 				.stream()
 				.anyMatch(f -> MediaType.APPLICATION_JSON.equals(f.getMediaType())));
 	}
+
+	@Test
+	void testToRequestUsesSuppliedContext() {
+		var other = MapObject.instance()
+				.add("id", 1);
+		Mockito.when(this.resolver.eval(Mockito.eq(other), Mockito.anyString()))
+				.thenReturn("other");
+
+		var request = RequestTemplateMapper.instance()
+				.toRequest(RequestTemplate.builder()
+						.get()
+						.uri("$id")
+						.build(), l -> this.resolver, () -> other);
+		Assertions.assertEquals("1", request.getUri());
+
+		request = RequestTemplateMapper.instance()
+				.toRequest(RequestTemplate.builder()
+						.get()
+						.uri("${id + 1}")
+						.build(), l -> this.resolver, () -> other);
+		Assertions.assertEquals("other", request.getUri());
+	}
+
+	@Test
+	void testCompiledPlanIsReusable() {
+		var compilations = new AtomicInteger();
+		var compiler = Mockito.mock(Resolver.class, Mockito.withSettings()
+				.extraInterfaces(TemplateCompiler.class));
+		Mockito.when(((TemplateCompiler) compiler).compile(Mockito.anyString()))
+				.thenAnswer(context -> {
+					compilations.incrementAndGet();
+					return (CompiledTemplate) c -> c.get("id");
+				});
+
+		var plan = RequestTemplate.builder()
+				.get()
+				.uri("${id.trim()}")
+				.header("static", "value")
+				.header("dynamic", "${id.trim()}")
+				.build()
+				.compile(l -> compiler);
+
+		for (int i = 0; i < 3; i++) {
+			var request = plan.render(MapObject.instance()
+					.add("id", "id-" + i));
+			Assertions.assertEquals("id-" + i, request.getUri());
+			Assertions.assertEquals("id-" + i, request.getHeaders()
+					.get("dynamic"));
+			Assertions.assertEquals("value", request.getHeaders()
+					.get("static"));
+		}
+
+		Assertions.assertEquals(2, compilations.get());
+		Mockito.verify(compiler, Mockito.never())
+				.eval(Mockito.any(MapObject.class), Mockito.anyString());
+	}
+
+	@Test
+	void testSimpleTemplatesSkipResolver() {
+		var compiler = Mockito.mock(Resolver.class, Mockito.withSettings()
+				.extraInterfaces(TemplateCompiler.class));
+
+		var plan = RequestTemplate.builder()
+				.post()
+				.uri("${host}/users/$user.id")
+				.header("X-Tenant", "${user.tenant}")
+				.param("q", "$query")
+				.entityTemplate("user")
+				.build()
+				.compile(l -> compiler);
+
+		var user = Map.of("id", 7, "tenant", "acme");
+		var request = plan.render(MapObject.instance()
+				.add("host", "http://localhost")
+				.add("user", user)
+				.add("query", "all"));
+
+		Assertions.assertEquals("http://localhost/users/7", request.getUri());
+		Assertions.assertEquals("acme", request.getHeaders()
+				.get("X-Tenant"));
+		Assertions.assertEquals("all", request.getParameters()
+				.get("q"));
+		Assertions.assertSame(user, request.getBody()
+				.getEntity());
+		Mockito.verifyNoInteractions(compiler);
+	}
 }
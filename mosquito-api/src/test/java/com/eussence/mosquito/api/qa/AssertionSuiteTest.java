@@ -0,0 +1,96 @@
+package com.eussence.mosquito.api.qa;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.eussence.mosquito.api.MapObject;
+import com.eussence.mosquito.api.command.CompiledTemplate;
+import com.eussence.mosquito.api.command.Resolver;
+import com.eussence.mosquito.api.command.TemplateCompiler;
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+
+public class AssertionSuiteTest {
+
+	private final Set<MapObject> bindings = new HashSet<>();
+	private final Resolver resolver = Mockito.mock(Resolver.class, Mockito.withSettings()
+			.extraInterfaces(TemplateCompiler.class));
+
+	private CompiledTemplate compiled(String expression) {
+		switch (expression) {
+		case "ok":
+			return c -> {
+				this.bindings.add(c);
+				return ((Response) c.get("response")).getStatus() == 200;
+			};
+		case "message":
+			return c -> "status was " + ((Response) c.get("response")).getStatus();
+		case "boom":
+			return c -> {
+				throw new IllegalStateException("boom");
+			};
+		default:
+			throw new MosquitoException("Invalid template: " + expression);
+		}
+	}
+
+	@Test
+	void testEvaluate() {
+		Mockito.when(((TemplateCompiler) this.resolver).compile(Mockito.anyString()))
+				.thenAnswer(i -> this.compiled(i.getArgument(0)));
+
+		var suite = AssertionSuite.compile(List.of(new Assertion("a", null, "ok", "message"),
+				new Assertion("b", null, "ok", null), new Assertion("c", null, "boom", null),
+				new Assertion("d", null, "rubbish", null)), this.resolver);
+		Assertions.assertEquals(4, suite.size());
+
+		for (int status : new int[] { 200, 404 }) {
+			var results = suite.evaluate(Request.builder()
+					.build(),
+					Response.builder()
+							.status(status)
+							.build());
+
+			Assertions.assertEquals(200 == status, results.get(0)
+					.isSucceeded());
+			Assertions.assertEquals(200 == status ? null : "status was 404", results.get(0)
+					.getExpectationMessage());
+			Assertions.assertEquals(200 == status, results.get(1)
+					.isSucceeded());
+			Assertions.assertTrue(results.get(2)
+					.isError());
+			Assertions.assertEquals("Invalid template: rubbish", results.get(3)
+					.getErrorMessage());
+		}
+
+		// Compiled once, one binding per response
+		Mockito.verify((TemplateCompiler) this.resolver, Mockito.times(5))
+				.compile(Mockito.anyString());
+		Mockito.verify(this.resolver, Mockito.never())
+				.eval(Mockito.any(MapObject.class), Mockito.anyString());
+		Assertions.assertEquals(2, this.bindings.size());
+	}
+
+	@Test
+	void testFailedResponse() {
+		Mockito.when(((TemplateCompiler) this.resolver).compile(Mockito.anyString()))
+				.thenAnswer(i -> this.compiled(i.getArgument(0)));
+
+		var results = AssertionSuite.compile(List.of(new Assertion("a", null, "ok", null)), this.resolver)
+				.evaluate(Request.builder()
+						.build(), new Response(new IllegalStateException()));
+
+		Assertions.assertFalse(results.get(0)
+				.isSucceeded());
+		Assertions.assertTrue(this.bindings.isEmpty());
+		Assertions.assertTrue(AssertionSuite.compile(null, null)
+				.evaluate(null, null)
+				.isEmpty());
+	}
+}
@@ -0,0 +1,133 @@
+package com.eussence.mosquito.api.qa;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.http.Body;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.api.qa.JsonPathCheck.Operator;
+import com.eussence.mosquito.api.utils.JsonMapper;
+
+public class ResponseCheckTest {
+
+	private final Response response = Response.builder()
+			.status(201)
+			.duration(35)
+			.headers(Map.of("Content-Type", List.of("application/json; charset=utf-8")))
+			.body(Body.builder()
+					.entity("{\"id\": 12, \"name\": \"bob\", \"score\": 4.5, \"tags\": [\"a\", \"b\"], \"parent\": null}")
+					.build())
+			.build();
+	private final CheckTarget target = new CheckTarget(Request.builder()
+			.build(), this.response);
+
+	@Test
+	void testStatus() {
+		Assertions.assertNull(StatusCheck.successful()
+				.check(this.target));
+		Assertions.assertEquals("Expected status 200 but was 201", StatusCheck.of(200)
+				.check(this.target));
+		Assertions.assertNotNull(StatusCheck.range(400, 499)
+				.check(this.target));
+	}
+
+	@Test
+	void testHeader() {
+		Assertions.assertNull(HeaderCheck.present("content-type")
+				.check(this.target));
+		Assertions.assertNull(HeaderCheck.matching("Content-Type", "application/json.*")
+				.check(this.target));
+		Assertions.assertNotNull(HeaderCheck.equalTo("Content-Type", "text/plain")
+				.check(this.target));
+		Assertions.assertNotNull(HeaderCheck.present("Location")
+				.check(this.target));
+	}
+
+	@Test
+	void testJsonPath() {
+		Assertions.assertNull(JsonPathCheck.equalTo("/id", 12)
+				.check(this.target));
+		Assertions.assertNull(JsonPathCheck.equalTo("$.id", 12.0)
+				.check(this.target));
+		Assertions.assertNull(JsonPathCheck.equalTo("name", "bob")
+				.check(this.target));
+		Assertions.assertNull(JsonPathCheck.equalTo("tags[1]", "b")
+				.check(this.target));
+		Assertions.assertNull(new JsonPathCheck("tags", Operator.CONTAINS, "a").check(this.target));
+		Assertions.assertNull(new JsonPathCheck("score", Operator.GREATER_THAN, 4).check(this.target));
+		Assertions.assertNull(new JsonPathCheck("parent", Operator.NULL, null).check(this.target));
+		Assertions.assertNull(new JsonPathCheck("name", Operator.MATCHES, "b.b").check(this.target));
+		Assertions.assertEquals("Expected parent not to be null but was null", JsonPathCheck.notNull("parent")
+				.check(this.target));
+		Assertions.assertEquals("Expected missing to exist but was missing", JsonPathCheck.exists("missing")
+				.check(this.target));
+		Assertions.assertEquals("/a/0/b~1c", JsonPathCheck.toPointer("$.a[0].b/c"));
+	}
+
+	@Test
+	void testLatencyAndSize() {
+		Assertions.assertNull(LatencyCheck.within(50)
+				.check(this.target));
+		Assertions.assertEquals("Expected response within 10ms but took 35ms", LatencyCheck.within(10)
+				.check(this.target));
+		Assertions.assertNull(BodySizeCheck.atMost(1024)
+				.check(this.target));
+		Assertions.assertNotNull(BodySizeCheck.between(1, 10)
+				.check(this.target));
+	}
+
+	@Test
+	void testSuiteWithoutResolver() {
+		var results = AssertionSuite.compile(List.of(Assertion.of("status", StatusCheck.of(201)),
+				Assertion.of("id", JsonPathCheck.equalTo("id", 13)), Assertion.of("json", JsonPathCheck.exists("x"))),
+				null)
+				.evaluate(Request.builder()
+						.build(),
+						Response.builder()
+								.status(201)
+								.body(Body.builder()
+										.entity("not json")
+										.build())
+								.build());
+
+		Assertions.assertTrue(results.get(0)
+				.isSucceeded());
+		Assertions.assertTrue(results.get(1)
+				.isError());
+		Assertions.assertTrue(results.get(2)
+				.isError());
+
+		results = AssertionSuite.compile(List.of(Assertion.of("id", JsonPathCheck.equalTo("id", 13))), null)
+				.evaluate(Request.builder()
+						.build(), this.response);
+		Assertions.assertFalse(results.get(0)
+				.isSucceeded());
+		Assertions.assertFalse(results.get(0)
+				.isError());
+		Assertions.assertEquals("Expected id equals 13 but was 12", results.get(0)
+				.getExpectationMessage());
+	}
+
+	@Test
+	void testJson() {
+		var assertion = Assertion.of("a", HeaderCheck.matching("ETag", "\\w+"));
+
+		var read = JsonMapper.fromJson(JsonMapper.json(assertion), Assertion.class);
+		Assertions.assertEquals(assertion, read);
+		Assertions.assertTrue(JsonMapper.json(assertion)
+				.contains("\"type\":\"header\""));
+		Assertions.assertNull(JsonMapper.fromJson("{\"type\": \"status\", \"from\": 201}", ResponseCheck.class)
+				.check(this.target));
+		Assertions.assertNull(StatusCheck.builder()
+				.from(201)
+				.build()
+				.check(this.target));
+		Assertions.assertEquals(new JsonPathCheck("/id", Operator.LESS_THAN, 3),
+				JsonMapper.fromJson("{\"type\": \"json\", \"path\": \"/id\", \"operator\": \"LESS_THAN\", \"value\": 3}",
+						ResponseCheck.class));
+	}
+}
@@ -0,0 +1,34 @@
+package com.eussence.mosquito.api.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LruCacheTest {
+
+	@Test
+	void testLeastRecentlyUsedIsEvicted() {
+		LruCache<String, Integer> cache = new LruCache<>(2);
+		Assertions.assertNull(cache.putIfAbsent("a", 1));
+		Assertions.assertEquals(2, (int) cache.computeIfAbsent("b", k -> 2));
+
+		// Reading "a" leaves "b" as the least recently used
+		Assertions.assertEquals(1, (int) cache.get("a"));
+		Assertions.assertEquals(1, (int) cache.putIfAbsent("a", 10));
+		Assertions.assertEquals(3, (int) cache.computeIfAbsent("c", k -> 3));
+
+		Assertions.assertEquals(2, cache.size());
+		Assertions.assertEquals(1, cache.getEvictions());
+		Assertions.assertNull(cache.get("b"));
+		Assertions.assertEquals(1, (int) cache.get("a"));
+
+		Assertions.assertFalse(cache.remove("a", 10));
+		Assertions.assertTrue(cache.remove("a", 1));
+		cache.clear();
+		Assertions.assertEquals(0, cache.size());
+	}
+
+	@Test
+	void testCapacityMustBePositive() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new LruCache<>(0));
+	}
+}
@@ -17,21 +17,27 @@ package com.eussence.mosquito.command.internal;
 
 import java.util.AbstractMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.runtime.InvokerHelper;
 
 import com.eussence.mosquito.api.CallChain;
 import com.eussence.mosquito.api.MapObject;
 import com.eussence.mosquito.api.command.CommandLanguage;
+import com.eussence.mosquito.api.command.CompiledTemplate;
 import com.eussence.mosquito.api.command.Resolver;
+import com.eussence.mosquito.api.command.TemplateCompiler;
 import com.eussence.mosquito.api.data.Dataset;
 import com.eussence.mosquito.api.data.Environment;
 import com.eussence.mosquito.api.exception.MosquitoException;
 
 import groovy.lang.Binding;
-import groovy.lang.GroovyShell;
+import groovy.lang.GroovyClassLoader;
 import groovy.lang.Script;
 
 /**
@@ -39,10 +45,16 @@ import groovy.lang.Script;
  * 
  * @author Ernest Kiwele
  */
-public class GroovyResolver implements Resolver {
+public class GroovyResolver implements Resolver, TemplateCompiler {
+
+	public static final String SCRIPT_CACHE_SIZE_PROPERTY = "mosquito.script.cache.size";
 
 	private static final GroovyResolver instance = new GroovyResolver();
 
+	private final CompilerConfiguration compilerConfiguration = createCompilerConfiguration();
+	private final ScriptCache<Class<? extends Script>> scriptCache = new ScriptCache<>(scriptCacheCapacity());
+	private final AtomicLong scriptCounter = new AtomicLong();
+
 	private GroovyResolver() {
 	}
 
@@ -73,13 +85,9 @@ public class GroovyResolver implements Resolver {
 			context.putAll(environment.getVars());
 
 			this.setOnContext(context);
-			GroovyShell groovyShell = new GroovyShell(this.getCompilerConfiguration());
-			Script script = groovyShell.parse(template);
-
-			Binding binding = new Binding(context);
-			script.setBinding(binding);
 
-			return script.run();
+			return this.script(template, context)
+					.run();
 		} catch (CompilationFailedException e) {
 			throw new MosquitoException("Invalid template: " + e.getMessage(), e);
 		}
@@ -89,16 +97,29 @@ public class GroovyResolver implements Resolver {
 	public Object eval(MapObject context, String template) {
 		try {
 			this.setOnContext(context);
-			GroovyShell groovyShell = new GroovyShell(this.getCompilerConfiguration());
-			Script script = groovyShell.parse(template);
 
-			Binding binding = new Binding(context);
-			script.setBinding(binding);
+			return this.script(template, context)
+					.run();
+		} catch (CompilationFailedException e) {
+			throw new MosquitoException("Invalid template: " + e.getMessage(), e);
+		}
+	}
 
-			return script.run();
+	@Override
+	public CompiledTemplate compile(String template) {
+		Class<? extends Script> scriptClass;
+		try {
+			scriptClass = this.scriptCache.get(CommandLanguage.GROOVY, template, this::compileClass);
 		} catch (CompilationFailedException e) {
 			throw new MosquitoException("Invalid template: " + e.getMessage(), e);
 		}
+
+		return context -> {
+			this.setOnContext(context);
+
+			return InvokerHelper.createScript(scriptClass, new Binding(context))
+					.run();
+		};
 	}
 
 	@Override
@@ -116,13 +137,9 @@ public class GroovyResolver implements Resolver {
 
 		try {
 			this.setOnContext(context);
-			GroovyShell groovyShell = new GroovyShell(this.getCompilerConfiguration());
-			Script script = groovyShell.parse(scriptText);
 
-			Binding binding = new Binding(context);
-			script.setBinding(binding);
-
-			script.run();
+			this.script(scriptText, context)
+					.run();
 		} catch (CompilationFailedException e) {
 			throw new MosquitoException("Invalid template: " + e.getMessage(), e);
 		}
@@ -130,7 +147,38 @@ public class GroovyResolver implements Resolver {
 		return context;
 	}
 
-	private CompilerConfiguration getCompilerConfiguration() {
+	/**
+	 * Get the cache of compiled script classes used by this resolver, mainly to
+	 * read its hit/miss counters.
+	 */
+	public ScriptCache<Class<? extends Script>> getScriptCache() {
+		return scriptCache;
+	}
+
+	/**
+	 * Create a runnable script instance for the given source. The compiled class is
+	 * shared through the script cache, but each call gets its own script object
+	 * and binding, so concurrent evaluations never share state.
+	 */
+	private Script script(String source, MapObject context) {
+		Class<? extends Script> scriptClass = this.scriptCache.get(CommandLanguage.GROOVY, source, this::compileClass);
+
+		return InvokerHelper.createScript(scriptClass, new Binding(context));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Class<? extends Script> compileClass(String source) {
+		ClassLoader parent = Optional.ofNullable(Thread.currentThread()
+				.getContextClassLoader())
+				.orElseGet(MosquitoScriptContext.class::getClassLoader);
+
+		// One loader per script class so that evicted classes can be unloaded
+		GroovyClassLoader loader = new GroovyClassLoader(parent, this.compilerConfiguration);
+		return (Class<? extends Script>) loader.parseClass(source,
+				"MosquitoScript" + this.scriptCounter.incrementAndGet() + ".groovy");
+	}
+
+	private static CompilerConfiguration createCompilerConfiguration() {
 
 		CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
 		compilerConfiguration.setScriptBaseClass(MosquitoScriptContext.class.getName());
@@ -138,6 +186,12 @@ public class GroovyResolver implements Resolver {
 		return compilerConfiguration;
 	}
 
+	private static int scriptCacheCapacity() {
+		String size = System.getProperty(SCRIPT_CACHE_SIZE_PROPERTY);
+
+		return StringUtils.isNumeric(size) ? Math.max(1, Integer.parseInt(size)) : ScriptCache.DEFAULT_CAPACITY;
+	}
+
 	private void setOnContext(MapObject map) {
 		map.put("__context", map);
 		map.put("resolver", this);
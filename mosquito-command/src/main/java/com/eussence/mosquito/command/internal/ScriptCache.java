@@ -0,0 +1,152 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.command.internal;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.eussence.mosquito.api.command.CommandLanguage;
+import com.eussence.mosquito.api.utils.LruCache;
+
+/**
+ * A bounded, thread-safe cache of compiled script classes keyed by language and
+ * source text. Entries are evicted in least-recently-used order once the
+ * capacity is exceeded, which lets the class loaders of evicted scripts be
+ * collected. Scripts are compiled outside of the cache's lock.
+ *
+ * @author Ernest Kiwele
+ */
+public class ScriptCache<T> {
+
+	public static final int DEFAULT_CAPACITY = 512;
+
+	private final LruCache<Key, Holder<T>> entries;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public ScriptCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Script cache capacity must be positive: " + capacity);
+		}
+
+		this.entries = new LruCache<>(capacity);
+	}
+
+	/**
+	 * Return the compiled form of the given source, compiling it with the supplied
+	 * compiler on a cache miss. Concurrent lookups of the same source compile it
+	 * only once; failed compilations are not cached.
+	 *
+	 * @param lang     The language of the source text.
+	 * @param source   The script or template text.
+	 * @param compiler The function that compiles the source on a miss.
+	 * @return The cached or newly compiled script.
+	 */
+	public T get(CommandLanguage lang, String source, Function<String, T> compiler) {
+		Key key = new Key(lang, Objects.requireNonNull(source, "Script source may not be null"));
+
+		Holder<T> created = new Holder<>();
+		Holder<T> holder = this.entries.putIfAbsent(key, created);
+		if (null == holder) {
+			this.misses.increment();
+			holder = created;
+		} else {
+			this.hits.increment();
+		}
+
+		try {
+			return holder.value(source, compiler);
+		} catch (RuntimeException ex) {
+			this.entries.remove(key, holder);
+			throw ex;
+		}
+	}
+
+	public void clear() {
+		this.entries.clear();
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	public int getCapacity() {
+		return this.entries.getCapacity();
+	}
+
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	public long getEvictions() {
+		return this.entries.getEvictions();
+	}
+
+	private static final class Key {
+		private final CommandLanguage lang;
+		private final String source;
+		private final int hash;
+
+		private Key(CommandLanguage lang, String source) {
+			this.lang = lang;
+			this.source = source;
+			this.hash = Objects.hash(lang, source);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) o;
+			return this.lang == other.lang && this.source.equals(other.source);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private static final class Holder<T> {
+		private volatile T value;
+
+		private T value(String source, Function<String, T> compiler) {
+			T v = this.value;
+			if (null == v) {
+				synchronized (this) {
+					v = this.value;
+					if (null == v) {
+						v = Objects.requireNonNull(compiler.apply(source), "Script compiler returned null");
+						this.value = v;
+					}
+				}
+			}
+
+			return v;
+		}
+	}
+}
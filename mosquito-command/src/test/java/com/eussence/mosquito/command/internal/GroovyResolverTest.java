@@ -85,4 +85,32 @@ public class GroovyResolverTest {
 		Assertions.assertThrows(MosquitoException.class,
 				() -> this.resolver.exec(this.outerContext.add("one", 1), "result -.-one + 33"));
 	}
+
+	@Test
+	void testCompiledScriptsAreReused() {
+		var cache = this.resolver.getScriptCache();
+		long misses = cache.getMisses();
+		long hits = cache.getHits();
+
+		Assertions.assertEquals(3, this.resolver.eval(MapObject.instance()
+				.add("one", 1), "one + 2 // reuse"));
+		Assertions.assertEquals(12, this.resolver.eval(MapObject.instance()
+				.add("one", 10), "one + 2 // reuse"));
+
+		Assertions.assertEquals(misses + 1, cache.getMisses());
+		Assertions.assertEquals(hits + 1, cache.getHits());
+	}
+
+	@Test
+	void testCompile() {
+		var compiled = this.resolver.compile("\"${host}/users/${id}\".toString()");
+
+		Assertions.assertEquals("h/users/1", compiled.eval(MapObject.instance()
+				.add("host", "h")
+				.add("id", 1)));
+		Assertions.assertEquals("g/users/2", compiled.eval(MapObject.instance()
+				.add("host", "g")
+				.add("id", 2)));
+		Assertions.assertThrows(MosquitoException.class, () -> this.resolver.compile("one + 1rubbish"));
+	}
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.command.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.command.CommandLanguage;
+
+/**
+ * 
+ * @author Ernest Kiwele
+ *
+ */
+public class ScriptCacheTest {
+
+	@Test
+	void testHitsAndMisses() {
+		var cache = new ScriptCache<String>(10);
+		var compilations = new AtomicInteger();
+
+		Assertions.assertEquals("A", cache.get(CommandLanguage.GROOVY, "a", s -> {
+			compilations.incrementAndGet();
+			return s.toUpperCase();
+		}));
+		Assertions.assertEquals("A", cache.get(CommandLanguage.GROOVY, "a", s -> {
+			compilations.incrementAndGet();
+			return s.toUpperCase();
+		}));
+
+		Assertions.assertEquals(1, compilations.get());
+		Assertions.assertEquals(1, cache.getHits());
+		Assertions.assertEquals(1, cache.getMisses());
+
+		// Same text in a different language is a different entry
+		cache.get(CommandLanguage.JAVASCRIPT, "a", String::toUpperCase);
+		Assertions.assertEquals(2, cache.getMisses());
+		Assertions.assertEquals(2, cache.size());
+	}
+
+	@Test
+	void testEviction() {
+		var cache = new ScriptCache<String>(2);
+
+		cache.get(CommandLanguage.GROOVY, "a", String::toUpperCase);
+		cache.get(CommandLanguage.GROOVY, "b", String::toUpperCase);
+		cache.get(CommandLanguage.GROOVY, "a", String::toUpperCase);
+		cache.get(CommandLanguage.GROOVY, "c", String::toUpperCase);
+
+		Assertions.assertEquals(2, cache.size());
+		Assertions.assertEquals(1, cache.getEvictions());
+
+		// "b" was the least recently used entry
+		cache.get(CommandLanguage.GROOVY, "a", String::toUpperCase);
+		Assertions.assertEquals(2, cache.getHits());
+		cache.get(CommandLanguage.GROOVY, "b", String::toUpperCase);
+		Assertions.assertEquals(4, cache.getMisses());
+	}
+
+	@Test
+	void testFailedCompilationIsNotCached() {
+		var cache = new ScriptCache<String>(2);
+
+		Assertions.assertThrows(IllegalStateException.class, () -> cache.get(CommandLanguage.GROOVY, "a", s -> {
+			throw new IllegalStateException("bad script");
+		}));
+		Assertions.assertEquals(0, cache.size());
+		Assertions.assertEquals("A", cache.get(CommandLanguage.GROOVY, "a", String::toUpperCase));
+	}
+
+	@Test
+	void testInvalidCapacity() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ScriptCache<String>(0));
+	}
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A bounded pool of worker threads for running requests. At most
+ * <code>concurrency</code> tasks run at a time, and at most
+ * <code>queueCapacity</code> more wait in the queue. Tasks submitted while the
+ * queue is full are handled according to the {@link RejectionPolicy rejection
+ * policy}.
+ * </p>
+ * 
+ * <p>
+ * Tasks that submit work to the engine are {@link #dispatch(Supplier)
+ * dispatched} each to a thread of its own, as they run for as long as the
+ * requests they submit; they never wait behind the tasks of another run
+ * sharing the engine.
+ * The work that follows responses runs on the engine's
+ * {@link #completions() completion threads}, and threads of other factories,
+ * such as those of virtual users, can be {@link #startThread(ThreadFactory,
+ * Runnable) started} under the engine so that they are interrupted with it. Idle threads time out, so an
+ * unused engine holds no threads. Engines are owned by a scheduler, which shuts
+ * them down with it.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class ExecutionEngine {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private static final AtomicInteger engineCounter = new AtomicInteger();
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	private final int queueCapacity;
+	private final RejectionPolicy rejectionPolicy;
+	private final ThreadPoolExecutor executor;
+	private final ExecutorService dispatcher;
+	private final ExecutorService completionPool;
+	private final Executor completions;
+	private final LongAdder rejected = new LongAdder();
+	private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+	public ExecutionEngine(int concurrency, int queueCapacity, RejectionPolicy rejectionPolicy) {
+		if (concurrency < 1 || queueCapacity < 1) {
+			throw new IllegalArgumentException(
+					"Concurrency and queue capacity must be positive: " + concurrency + ", " + queueCapacity);
+		}
+
+		int id = engineCounter.incrementAndGet();
+		this.queueCapacity = queueCapacity;
+		this.rejectionPolicy = null == rejectionPolicy ? RejectionPolicy.BLOCK : rejectionPolicy;
+		this.executor = new ThreadPoolExecutor(concurrency, concurrency, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory("mosquito-exec-" + id + "-"),
+				this.rejectionHandler());
+		this.executor.allowCoreThreadTimeOut(true);
+
+		this.dispatcher = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new SynchronousQueue<>(), threadFactory("mosquito-dispatch-" + id + "-"));
+
+		ThreadPoolExecutor completionPool = new ThreadPoolExecutor(concurrency, concurrency, KEEP_ALIVE_SECONDS,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory("mosquito-complete-" + id + "-"));
+		completionPool.allowCoreThreadTimeOut(true);
+		this.completionPool = completionPool;
+		this.completions = task -> {
+			try {
+				completionPool.execute(task);
+			} catch (RejectedExecutionException ex) {
+				task.run();
+			}
+		};
+	}
+
+	/**
+	 * Run the task on a worker thread.
+	 * 
+	 * @param task The task to run.
+	 * @return A future completed with the task's result, or exceptionally if the
+	 *         task failed or was rejected.
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			this.executor.execute(() -> {
+				try {
+					future.complete(task.get());
+				} catch (Throwable t) {
+					future.completeExceptionally(t);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			future.completeExceptionally(ex);
+		}
+
+		return future;
+	}
+
+	/**
+	 * Run a task that submits work to this engine. Such tasks run on a thread of
+	 * their own so that, with the {@link RejectionPolicy#BLOCK BLOCK} policy,
+	 * they can wait for queue space without holding a worker, and so that
+	 * tasks pacing or feeding a run start at once however many other runs use
+	 * the engine. Threads are reused once their task completes.
+	 */
+	public <T> CompletableFuture<T> dispatch(Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, this.dispatcher);
+	}
+
+	/**
+	 * The executor for the work that follows a response: recording it, running
+	 * its assertions and rendering the requests that depend on it. That work
+	 * runs on up to <code>concurrency</code> threads of its own, so that it
+	 * neither holds the HTTP driver's I/O threads nor waits for queue space; its
+	 * backlog is bounded by the requests in flight. Once the engine is shut down,
+	 * it runs on the completing thread.
+	 */
+	public Executor completions() {
+		return this.completions;
+	}
+
+	/**
+	 * Start a long-lived thread from the factory, such as a virtual user's, which
+	 * is interrupted when the engine is shut down.
+	 * 
+	 * @throws RejectedExecutionException If the engine is shut down.
+	 */
+	public Thread startThread(ThreadFactory factory, Runnable task) {
+		if (this.isShutdown()) {
+			throw new RejectedExecutionException("Execution engine is shut down");
+		}
+
+		Thread thread = factory.newThread(() -> {
+			try {
+				task.run();
+			} finally {
+				this.threads.remove(Thread.currentThread());
+			}
+		});
+		this.threads.add(thread);
+		thread.start();
+		if (this.isShutdown()) {
+			thread.interrupt();
+		}
+
+		return thread;
+	}
+
+	public int getConcurrency() {
+		return this.executor.getMaximumPoolSize();
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public RejectionPolicy getRejectionPolicy() {
+		return rejectionPolicy;
+	}
+
+	/**
+	 * The number of tasks waiting for a worker.
+	 */
+	public int getQueueDepth() {
+		return this.executor.getQueue()
+				.size();
+	}
+
+	/**
+	 * The approximate number of tasks being run.
+	 */
+	public int getActiveCount() {
+		return this.executor.getActiveCount();
+	}
+
+	public long getCompletedCount() {
+		return this.executor.getCompletedTaskCount();
+	}
+
+	public long getRejectedCount() {
+		return this.rejected.sum();
+	}
+
+	public boolean isShutdown() {
+		return this.executor.isShutdown();
+	}
+
+	/**
+	 * Stop accepting tasks. Queued and running tasks are completed, and the
+	 * threads started under the engine are interrupted.
+	 */
+	public void shutdown() {
+		this.dispatcher.shutdown();
+		this.executor.shutdown();
+		this.completionPool.shutdown();
+		this.threads.forEach(Thread::interrupt);
+	}
+
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		return this.executor.awaitTermination(timeout, unit)
+				&& this.dispatcher.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+				&& this.completionPool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	private RejectedExecutionHandler rejectionHandler() {
+		return (task, pool) -> {
+			if (pool.isShutdown()) {
+				this.rejected.increment();
+				throw new RejectedExecutionException("Execution engine is shut down");
+			}
+
+			switch (this.rejectionPolicy) {
+			case CALLER_RUNS:
+				task.run();
+				break;
+			case BLOCK:
+				try {
+					BlockingQueue<Runnable> queue = pool.getQueue();
+					queue.put(task);
+				} catch (InterruptedException e) {
+					Thread.currentThread()
+							.interrupt();
+					this.rejected.increment();
+					throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+				}
+				break;
+			default:
+				this.rejected.increment();
+				throw new RejectedExecutionException("Execution queue is full (" + this.queueCapacity + " tasks)");
+			}
+		};
+	}
+
+	private static ThreadFactory threadFactory(String prefix) {
+		AtomicInteger counter = new AtomicInteger();
+
+		return r -> {
+			Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import com.eussence.mosquito.api.execution.ExecutionEvent;
+
+/**
+ * <p>
+ * Delivers execution events to consumers without making the threads that
+ * publish them wait for the consumers. Events are put in a bounded, lock-free
+ * ring buffer and handed to the consumers, in publication order, by a drain
+ * task. The task is started on a shared pool of daemon threads when events are
+ * published to an idle stream, and ends once the buffer is empty, so idle
+ * streams hold no thread. When consumers fall behind and the buffer fills up,
+ * new events are handled according to the {@link OverflowPolicy overflow
+ * policy}.
+ * </p>
+ * 
+ * <p>
+ * The buffer follows the bounded multi-producer queue design of D. Vyukov: each
+ * slot has a sequence number telling producers and the consumer whether the
+ * slot is free for the current lap, so that a slot is claimed with a single
+ * compare-and-set.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class ExecutionEventStream implements AutoCloseable {
+
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	private static final ExecutorService drainers = drainers();
+
+	private final List<Consumer<ExecutionEvent>> consumers;
+	private final OverflowPolicy overflowPolicy;
+
+	private final int mask;
+	private final AtomicReferenceArray<ExecutionEvent> events;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong head = new AtomicLong();
+
+	private final LongAdder published = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private final CountDownLatch terminated = new CountDownLatch(1);
+	private volatile boolean closed;
+
+	/**
+	 * Create a stream.
+	 * 
+	 * @param consumers      The consumers receiving all events.
+	 * @param capacity       The number of events the buffer holds, rounded up to a
+	 *                       power of two.
+	 * @param overflowPolicy What to do with events published while the buffer is
+	 *                       full.
+	 */
+	public ExecutionEventStream(Collection<Consumer<ExecutionEvent>> consumers, int capacity,
+			OverflowPolicy overflowPolicy) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Event buffer capacity must be positive: " + capacity);
+		}
+
+		int size = Integer.highestOneBit(capacity);
+		size = size < capacity ? size << 1 : size;
+
+		this.consumers = new CopyOnWriteArrayList<>(consumers);
+		this.overflowPolicy = null == overflowPolicy ? OverflowPolicy.DROP_OLDEST : overflowPolicy;
+		this.mask = size - 1;
+		this.events = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			this.sequences.set(i, i);
+		}
+	}
+
+	private static ExecutorService drainers() {
+		AtomicInteger counter = new AtomicInteger();
+
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 30, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+			Thread thread = new Thread(r, "mosquito-events-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Add a consumer, receiving the events delivered from now on.
+	 */
+	public void addConsumer(Consumer<ExecutionEvent> consumer) {
+		this.consumers.add(consumer);
+	}
+
+	/**
+	 * Buffer an event for delivery. This only waits with the
+	 * {@link OverflowPolicy#BLOCK BLOCK} policy, while the buffer is full.
+	 * 
+	 * @return false if the event was dropped.
+	 */
+	public boolean publish(ExecutionEvent event) {
+		if (this.closed) {
+			this.dropped.increment();
+			return false;
+		}
+
+		while (!this.offer(event)) {
+			switch (this.overflowPolicy) {
+			case DROP_NEWEST:
+				this.dropped.increment();
+				return false;
+			case DROP_OLDEST:
+				if (null != this.poll()) {
+					this.dropped.increment();
+				}
+				break;
+			default:
+				if (this.closed || Thread.currentThread()
+						.isInterrupted()) {
+					this.dropped.increment();
+					return false;
+				}
+				LockSupport.parkNanos(FULL_PARK_NANOS);
+			}
+		}
+
+		this.published.increment();
+		this.startDraining();
+		return true;
+	}
+
+	private boolean offer(ExecutionEvent event) {
+		for (;;) {
+			long position = this.tail.get();
+			int index = (int) position & this.mask;
+			long lap = this.sequences.get(index) - position;
+
+			if (lap == 0) {
+				if (this.tail.compareAndSet(position, position + 1)) {
+					this.events.lazySet(index, event);
+					this.sequences.lazySet(index, position + 1);
+					return true;
+				}
+			} else if (lap < 0) {
+				return false;
+			}
+		}
+	}
+
+	private ExecutionEvent poll() {
+		for (;;) {
+			long position = this.head.get();
+			int index = (int) position & this.mask;
+			long lap = this.sequences.get(index) - (position + 1);
+
+			if (lap == 0) {
+				if (this.head.compareAndSet(position, position + 1)) {
+					ExecutionEvent event = this.events.getAndSet(index, null);
+					this.sequences.lazySet(index, position + this.mask + 1);
+					return event;
+				}
+			} else if (lap < 0) {
+				return null;
+			}
+		}
+	}
+
+	private void startDraining() {
+		if (this.draining.compareAndSet(false, true)) {
+			drainers.execute(this::drain);
+		}
+	}
+
+	/**
+	 * Deliver events until the buffer is empty. Events published after the last
+	 * poll but before the draining flag is cleared start no task of their own,
+	 * so the buffer is checked again once the flag is cleared.
+	 */
+	private void drain() {
+		do {
+			for (ExecutionEvent event = this.poll(); null != event; event = this.poll()) {
+				this.deliver(event);
+			}
+			this.draining.set(false);
+		} while (this.getBacklog() > 0 && this.draining.compareAndSet(false, true));
+
+		if (this.closed && this.getBacklog() == 0) {
+			this.terminated.countDown();
+		}
+	}
+
+	private void deliver(ExecutionEvent event) {
+		for (Consumer<ExecutionEvent> consumer : this.consumers) {
+			try {
+				consumer.accept(event);
+			} catch (RuntimeException ex) {
+				this.failed.increment();
+			}
+		}
+	}
+
+	/**
+	 * The number of events waiting for delivery.
+	 */
+	public int getBacklog() {
+		return (int) Math.max(0, this.tail.get() - this.head.get());
+	}
+
+	public int getCapacity() {
+		return this.mask + 1;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	public long getPublishedCount() {
+		return this.published.sum();
+	}
+
+	public long getDroppedCount() {
+		return this.dropped.sum();
+	}
+
+	/**
+	 * The number of deliveries that failed with an exception from a consumer.
+	 */
+	public long getFailedDeliveryCount() {
+		return this.failed.sum();
+	}
+
+	/**
+	 * Stop accepting events. Buffered events are still delivered, but events
+	 * published while the stream is being closed may be dropped.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		this.startDraining();
+	}
+
+	/**
+	 * Wait for the buffered events to be delivered after the stream is closed.
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return this.terminated.await(timeout, unit);
+	}
+}
@@ -27,6 +27,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.apache.commons.lang3.StringUtils;
+
 import com.eussence.mosquito.api.MapObject;
 import com.eussence.mosquito.api.command.CommandLanguage;
 import com.eussence.mosquito.api.command.Resolver;
@@ -36,6 +38,8 @@ import com.eussence.mosquito.command.internal.GroovyResolver;
 import com.eussence.mosquito.command.wrapper.Ether;
 import com.eussence.mosquito.core.api.data.CacheProxy;
 import com.eussence.mosquito.core.api.data.ContextInterface;
+import com.eussence.mosquito.core.internal.execution.ClusteredScheduler;
+import com.eussence.mosquito.core.internal.execution.NodeAgent;
 import com.eussence.mosquito.core.internal.execution.StandaloneScheduler;
 import com.eussence.mosquito.core.internal.execution.data.ClusteredCacheProxy;
 import com.eussence.mosquito.core.internal.execution.data.ConfigManager;
@@ -63,6 +67,8 @@ public class Mosquito {
 
 	private Vertx vertx;
 	private boolean distributed;
+	private boolean sharedVertx;
+	private NodeAgent nodeAgent;
 
 	@Builder.Default
 	private Map<String, Object> config = new HashMap<>();
@@ -77,6 +83,11 @@ public class Mosquito {
 			? GroovyResolver.getInstance()
 			: null;
 
+	/**
+	 * Create and start a standalone runtime. Each call creates a new runtime with
+	 * its own Vert.x instance and scheduler, so callers should create one and
+	 * reuse it, and {@link #shutdown() shut it down} when done.
+	 */
 	public static Mosquito instance() {
 		return Mosquito.builder()
 				.distributed(false)
@@ -87,22 +98,59 @@ public class Mosquito {
 	}
 
 	public void shutdown() {
-		this.vertx.close();
+		if (null != this.nodeAgent) {
+			this.nodeAgent.stop();
+		}
+		if (null != this.scheduler) {
+			this.scheduler.shutdown();
+		}
+		if (null != this.vertx && !this.sharedVertx) {
+			this.vertx.close();
+		}
 	}
 
+	/**
+	 * Create and start a runtime that joins a cluster, through a clustered Vert.x
+	 * instance bound to the given address. The runtime's scheduler splits load
+	 * runs across the cluster's nodes, of which this runtime is one.
+	 * 
+	 * @param address The host to bind the event bus to, or null for the default.
+	 */
 	public static Mosquito distributedMosquito(String address) {
 		return Mosquito.builder()
 				.distributed(true)
 				.clusterAddress(address)
-				.build();
+				.config(ConfigManager.getInstance()
+						.loadConfig())
+				.build()
+				.init();
+	}
+
+	/**
+	 * Create and start a runtime that joins the cluster of an existing Vert.x
+	 * instance, which is not closed with the runtime. Runtimes sharing a
+	 * non-clustered instance form a cluster within one JVM.
+	 */
+	public static Mosquito distributedMosquito(Vertx vertx) {
+		return Mosquito.builder()
+				.distributed(true)
+				.vertx(vertx)
+				.sharedVertx(true)
+				.config(ConfigManager.getInstance()
+						.loadConfig())
+				.build()
+				.init();
 	}
 
 	private Mosquito init() {
 		if (this.distributed) {
 			this.initDistributed();
+			StandaloneScheduler local = StandaloneScheduler.forRuntime(this);
+			this.nodeAgent = NodeAgent.start(this.vertx, local);
+			this.scheduler = ClusteredScheduler.create(this.vertx, local);
 		} else {
 			this.initStandalone();
-			this.scheduler = StandaloneScheduler.getInstance();
+			this.scheduler = StandaloneScheduler.forRuntime(this);
 		}
 
 		return this;
@@ -117,11 +165,22 @@ public class Mosquito {
 	}
 
 	private void initDistributed() {
+		if (null != this.vertx) {
+			this.cacheProxy = this.vertx.isClustered() ? ClusteredCacheProxy.init(this.vertx)
+					: LocalCacheProxy.init(this.vertx);
+			this.initLogQueue();
+			return;
+		}
+
 		CompletableFuture<Vertx> f = new CompletableFuture<>();
 
 		VertxOptions options = new VertxOptions();
 		options.getEventBusOptions()
 				.setClustered(true);
+		if (StringUtils.isNotBlank(this.clusterAddress)) {
+			options.getEventBusOptions()
+					.setHost(this.clusterAddress);
+		}
 
 		Vertx.clusteredVertx(options, res -> {
 			if (res.succeeded()) {
@@ -140,6 +199,10 @@ public class Mosquito {
 				.thenAccept(v -> this.cacheProxy = ClusteredCacheProxy.init(v))
 				.join();
 
+		this.initLogQueue();
+	}
+
+	private void initLogQueue() {
 		// TODO: change to a distributed queue
 		this.logQueue = new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
 		this.mosquitoLogger = (source, type, message) -> this.logQueue
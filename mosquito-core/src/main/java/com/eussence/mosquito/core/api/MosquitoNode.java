@@ -15,6 +15,10 @@
 
 package com.eussence.mosquito.core.api;
 
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -31,6 +35,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class MosquitoNode {
+	private static final double MIN_HEADROOM = 0.1;
+
+	private String id;
 	private String hostName;
 	private String ipV4;
 	private String osName;
@@ -41,4 +48,81 @@ public class MosquitoNode {
 
 	private long systemMemory;
 	private long cpuCores;
+
+	/**
+	 * The system load average divided by the number of cores, which exceeds 1
+	 * when the machine is saturated. Negative when the platform doesn't report it.
+	 */
+	private double cpuLoad;
+	/**
+	 * The number of requests being sent by the node.
+	 */
+	private long inFlightRequests;
+	/**
+	 * The number of shards of clustered runs being run by the node.
+	 */
+	private int activeShards;
+	/**
+	 * When the load figures were last updated, in epoch milliseconds.
+	 */
+	private long updatedMillis;
+
+	/**
+	 * The relative share of work the node should take: its cores, scaled down by
+	 * its current CPU load. Saturated nodes keep a small share, so that they are
+	 * given work again once their load drops.
+	 */
+	public double capacity() {
+		double headroom = this.cpuLoad < 0 ? 1 : Math.max(MIN_HEADROOM, 1 - this.cpuLoad);
+		return Math.max(1, this.cpuCores) * headroom;
+	}
+
+	/**
+	 * Update the node's load figures with the current CPU load of this machine.
+	 */
+	public MosquitoNode refresh(long inFlightRequests, int activeShards) {
+		double loadAverage = ManagementFactory.getOperatingSystemMXBean()
+				.getSystemLoadAverage();
+		this.cpuLoad = loadAverage < 0 ? -1 : loadAverage / Math.max(1, this.cpuCores);
+		this.inFlightRequests = inFlightRequests;
+		this.activeShards = activeShards;
+		this.updatedMillis = System.currentTimeMillis();
+
+		return this;
+	}
+
+	/**
+	 * Describe the machine this JVM runs on. The memory is the maximum heap the
+	 * JVM may use, and the cores are those available to it.
+	 * 
+	 * @param id The id of the node in the cluster.
+	 */
+	public static MosquitoNode local(String id) {
+		String hostName;
+		String address;
+		try {
+			InetAddress localHost = InetAddress.getLocalHost();
+			hostName = localHost.getHostName();
+			address = localHost.getHostAddress();
+		} catch (UnknownHostException e) {
+			hostName = "localhost";
+			address = InetAddress.getLoopbackAddress()
+					.getHostAddress();
+		}
+
+		return MosquitoNode.builder()
+				.id(id)
+				.hostName(hostName)
+				.ipV4(address)
+				.osName(System.getProperty("os.name"))
+				.osVersion(System.getProperty("os.version"))
+				.javaVersion(System.getProperty("java.version"))
+				.javaVendor(System.getProperty("java.vendor"))
+				.systemMemory(Runtime.getRuntime()
+						.maxMemory())
+				.cpuCores(Runtime.getRuntime()
+						.availableProcessors())
+				.build()
+				.refresh(0, 0);
+	}
 }
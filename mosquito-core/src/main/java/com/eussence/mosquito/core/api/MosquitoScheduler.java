@@ -51,6 +51,34 @@ public interface MosquitoScheduler {
 	CompletableFuture<ExecutionResult> submitAsync(CallChain callChain, Ether contextEther,
 			SchedulingConfig scheduleConfig);
 
+	/**
+	 * Run the call chain repeatedly as a load test. With a positive
+	 * {@link SchedulingConfig#getRatePerSecond() rate}, iterations start on a fixed
+	 * schedule for the configured duration (or number of iterations); otherwise
+	 * <code>iterations</code> iterations are run, <code>nodeThreadCount</code> at
+	 * a time when the config is parallel.
+	 * 
+	 * @return A future completed with the iteration counters once all iterations
+	 *         have completed.
+	 */
+	CompletableFuture<ExecutionResult> load(CallChain callChain, Ether contextEther, SchedulingConfig scheduleConfig);
+
+	/**
+	 * Send requests from the template repeatedly as a load test, following the
+	 * same rules as {@link #load(CallChain, Ether, SchedulingConfig) chain load
+	 * runs}. Templates bound to a dataset take one record per iteration, starting
+	 * over at the end of the dataset.
+	 */
+	CompletableFuture<ExecutionResult> load(RequestTemplate requestTemplate, Ether contextEther,
+			SchedulingConfig scheduleConfig);
+
+	/**
+	 * Release the threads and other resources held by this scheduler. A scheduler
+	 * that is used again after being shut down recreates them.
+	 */
+	default void shutdown() {
+	}
+
 	static Function<CommandLanguage, Resolver> defaultResolverFactory() {
 		return lang -> lang == CommandLanguage.GROOVY ? GroovyResolver.getInstance() : null;
 	}
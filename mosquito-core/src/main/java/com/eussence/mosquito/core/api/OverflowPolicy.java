@@ -0,0 +1,42 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+/**
+ * What an {@link ExecutionEventStream event stream} does with an event
+ * published while its buffer is full.
+ * 
+ * @author Ernest Kiwele
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Discard the new event.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * Discard the oldest buffered event to make room for the new one, so that
+	 * consumers see the most recent events.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Wait for room in the buffer. This slows request threads down to the pace of
+	 * the consumers.
+	 */
+	BLOCK;
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A cap on the rate of requests sent to a host or for a call.
+ * 
+ * @author Ernest Kiwele
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RateLimit {
+
+	/**
+	 * The sustained number of requests allowed per second.
+	 */
+	private double permitsPerSecond;
+
+	/**
+	 * The number of requests that may be sent at once after a quiet period,
+	 * before requests are spaced out at the sustained rate.
+	 */
+	@Builder.Default
+	private int burst = 1;
+
+	public static RateLimit of(double permitsPerSecond, int burst) {
+		return new RateLimit(permitsPerSecond, burst);
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * A token bucket, implemented as the equivalent generic cell rate algorithm:
+ * the bucket only keeps the theoretical time at which the next request would
+ * be sent at the sustained rate, and lets requests through up to
+ * <code>burst - 1</code> intervals ahead of it.
+ * </p>
+ * 
+ * <p>
+ * Permits are reserved, never refused: a caller is told how long to wait before
+ * sending, and its slot is taken meanwhile. Reservation is a single
+ * compare-and-set, so limiters can be shared by any number of threads.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class RateLimiter {
+
+	private final RateLimit limit;
+	private final long intervalNanos;
+	private final long toleranceNanos;
+	private final AtomicLong theoreticalArrival;
+
+	public RateLimiter(RateLimit limit) {
+		if (limit.getPermitsPerSecond() <= 0 || limit.getBurst() < 1) {
+			throw new IllegalArgumentException("Rate limits must have a positive rate and burst: " + limit);
+		}
+
+		this.limit = limit;
+		this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limit.getPermitsPerSecond()));
+		this.toleranceNanos = (limit.getBurst() - 1) * this.intervalNanos;
+		this.theoreticalArrival = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * Reserve a permit.
+	 * 
+	 * @return The number of nanoseconds to wait before using the permit.
+	 */
+	public long reserve() {
+		for (;;) {
+			long now = System.nanoTime();
+			long arrival = this.theoreticalArrival.get();
+			long next = now - arrival > 0 ? now : arrival;
+
+			if (this.theoreticalArrival.compareAndSet(arrival, next + this.intervalNanos)) {
+				return Math.max(0, next - this.toleranceNanos - now);
+			}
+		}
+	}
+
+	/**
+	 * Reserve a permit, without blocking the calling thread. Waiting callers
+	 * continue on the common pool.
+	 * 
+	 * @return A future completed with the number of nanoseconds waited once the
+	 *         permit can be used.
+	 */
+	public CompletableFuture<Long> acquire() {
+		return this.acquire(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Reserve a permit, without blocking the calling thread.
+	 * 
+	 * @param executor The executor waiting callers continue on.
+	 * @return A future completed with the number of nanoseconds waited once the
+	 *         permit can be used.
+	 */
+	public CompletableFuture<Long> acquire(Executor executor) {
+		return delay(this.reserve(), executor);
+	}
+
+	/**
+	 * A future completed with the given value once that many nanoseconds have
+	 * passed, on the given executor. No thread waits meanwhile, and the JDK's
+	 * single delay thread only hands the completion over.
+	 */
+	static CompletableFuture<Long> delay(long nanos, Executor executor) {
+		if (nanos <= 0) {
+			return CompletableFuture.completedFuture(0L);
+		}
+
+		return CompletableFuture.supplyAsync(() -> nanos,
+				CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS, executor));
+	}
+
+	public RateLimit getLimit() {
+		return limit;
+	}
+}
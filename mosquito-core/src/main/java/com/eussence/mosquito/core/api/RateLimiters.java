@@ -0,0 +1,155 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
+
+import com.eussence.mosquito.api.http.Request;
+
+/**
+ * The rate limiters of one run, created from the limits of its
+ * {@link SchedulingConfig scheduling config} as hosts and calls are first seen.
+ * A request waits for the limiter of its host and for that of its call.
+ * Requests waiting without blocking continue on the run's executor.
+ * 
+ * @author Ernest Kiwele
+ */
+public class RateLimiters {
+
+	/**
+	 * The host key of a limit applying to each host without a limit of its own.
+	 * Every host gets its own limiter.
+	 */
+	public static final String ANY_HOST = "*";
+
+	private final Map<String, RateLimit> hostLimits;
+	private final Map<String, RateLimit> callLimits;
+
+	private final Map<String, RateLimiter> hostLimiters = new ConcurrentHashMap<>();
+	private final Map<String, RateLimiter> callLimiters = new ConcurrentHashMap<>();
+	private final Executor executor;
+
+	public RateLimiters(Map<String, RateLimit> hostLimits, Map<String, RateLimit> callLimits) {
+		this(hostLimits, callLimits, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param executor The executor requests continue on once they may be sent.
+	 */
+	public RateLimiters(Map<String, RateLimit> hostLimits, Map<String, RateLimit> callLimits, Executor executor) {
+		this.hostLimits = null == hostLimits ? Map.of() : Map.copyOf(hostLimits);
+		this.callLimits = null == callLimits ? Map.of() : Map.copyOf(callLimits);
+		this.executor = executor;
+	}
+
+	/**
+	 * The limiters for the config's limits, or null if it has none.
+	 */
+	public static RateLimiters of(SchedulingConfig config) {
+		return of(config, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * The limiters for the config's limits, or null if it has none.
+	 * 
+	 * @param executor The executor requests continue on once they may be sent,
+	 *                 such as the run's engine's completion threads.
+	 */
+	public static RateLimiters of(SchedulingConfig config, Executor executor) {
+		RateLimiters limiters = new RateLimiters(config.getHostRateLimits(), config.getCallRateLimits(), executor);
+
+		return limiters.hostLimits.isEmpty() && limiters.callLimits.isEmpty() ? null : limiters;
+	}
+
+	/**
+	 * Reserve permits for the request.
+	 * 
+	 * @param key     The key of the call or template the request is for, possibly
+	 *                null.
+	 * @param request The request to send.
+	 * @return The number of nanoseconds to wait before sending the request.
+	 */
+	public long reserve(String key, Request request) {
+		long wait = 0;
+
+		String host = host(request);
+		if (null != host) {
+			RateLimit limit = this.hostLimits.getOrDefault(host, this.hostLimits.get(ANY_HOST));
+			if (null != limit) {
+				wait = this.hostLimiters.computeIfAbsent(host, h -> new RateLimiter(limit))
+						.reserve();
+			}
+		}
+
+		RateLimit limit = null == key ? null : this.callLimits.get(key);
+		if (null != limit) {
+			wait = Math.max(wait, this.callLimiters.computeIfAbsent(key, k -> new RateLimiter(limit))
+					.reserve());
+		}
+
+		return wait;
+	}
+
+	/**
+	 * Reserve permits for the request without blocking the calling thread.
+	 * 
+	 * @return A future completed with the number of nanoseconds waited once the
+	 *         request may be sent.
+	 */
+	public CompletableFuture<Long> acquire(String key, Request request) {
+		return RateLimiter.delay(this.reserve(key, request), this.executor);
+	}
+
+	/**
+	 * Reserve permits for the request, parking the calling thread until it may be
+	 * sent. Only for threads that would otherwise wait for the response anyway.
+	 * 
+	 * @return The number of nanoseconds waited.
+	 */
+	public long acquireBlocking(String key, Request request) {
+		long wait = this.reserve(key, request);
+		long deadline = System.nanoTime() + wait;
+
+		for (long left = wait; left > 0; left = deadline - System.nanoTime()) {
+			LockSupport.parkNanos(this, left);
+			if (Thread.currentThread()
+					.isInterrupted()) {
+				break;
+			}
+		}
+
+		return wait;
+	}
+
+	private static String host(Request request) {
+		if (null == request.getUri()) {
+			return null;
+		}
+
+		try {
+			return URI.create(request.getUri())
+					.getHost();
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+/**
+ * What an {@link ExecutionEngine execution engine} does with a task submitted
+ * while its queue is full.
+ * 
+ * @author Ernest Kiwele
+ */
+public enum RejectionPolicy {
+
+	/**
+	 * Wait for space in the queue. This slows submitters down to the pace of
+	 * execution.
+	 */
+	BLOCK,
+
+	/**
+	 * Run the task on the submitting thread.
+	 */
+	CALLER_RUNS,
+
+	/**
+	 * Fail the task's future with an exception.
+	 */
+	ABORT;
+}
@@ -0,0 +1,391 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import com.eussence.mosquito.api.MapObject;
+import com.eussence.mosquito.api.execution.LatencyHistogram;
+import com.eussence.mosquito.api.http.HttpMethod;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+
+/**
+ * The retries and hedges of one run, following the {@link RetryPolicy retry
+ * policy} of its {@link SchedulingConfig scheduling config}. The latencies that
+ * hedges are timed by, and the retry budget, are shared by all the run's
+ * requests. Retries and hedges wait for the run's rate limiters, like first
+ * attempts, which the caller sends once the limiters allow. Backoffs and hedge
+ * delays end on the run's executor.
+ * 
+ * @author Ernest Kiwele
+ */
+public class RequestRetrier {
+
+	private static final long BUDGET_SCALE = 1000;
+
+	private final RetryPolicy policy;
+	private final RateLimiters limiters;
+	private final Executor executor;
+	private final long budgetDeposit;
+	private final long budgetMax;
+	private final AtomicLong budget;
+	private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder hedges = new LongAdder();
+	private final LongAdder hedgesWon = new LongAdder();
+	private final LongAdder budgetExhausted = new LongAdder();
+
+	public RequestRetrier(RetryPolicy policy) {
+		this(policy, null);
+	}
+
+	/**
+	 * @param limiters The limiters retries and hedges wait for, possibly null.
+	 */
+	public RequestRetrier(RetryPolicy policy, RateLimiters limiters) {
+		this(policy, limiters, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param limiters The limiters retries and hedges wait for, possibly null.
+	 * @param executor The executor retries and hedges are sent from once their
+	 *                 delay has passed.
+	 */
+	public RequestRetrier(RetryPolicy policy, RateLimiters limiters, Executor executor) {
+		this.policy = policy;
+		this.limiters = limiters;
+		this.executor = executor;
+		this.budgetDeposit = Math.max(0, Math.round(policy.getBudgetRatio() * BUDGET_SCALE));
+		this.budgetMax = Math.max(1, policy.getBudgetReserve()) * BUDGET_SCALE;
+		this.budget = new AtomicLong(this.budgetMax);
+	}
+
+	/**
+	 * The retrier for the config's retry policy, or null if it has none.
+	 * 
+	 * @param limiters The run's rate limiters, possibly null.
+	 */
+	public static RequestRetrier of(SchedulingConfig config, RateLimiters limiters) {
+		return of(config, limiters, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * The retrier for the config's retry policy, or null if it has none.
+	 * 
+	 * @param limiters The run's rate limiters, possibly null.
+	 * @param executor The executor retries and hedges are sent from, such as the
+	 *                 run's engine's completion threads.
+	 */
+	public static RequestRetrier of(SchedulingConfig config, RateLimiters limiters, Executor executor) {
+		return null == config.getRetryPolicy() ? null
+				: new RequestRetrier(config.getRetryPolicy(), limiters, executor);
+	}
+
+	/**
+	 * Send the request, retrying and hedging it as the policy allows.
+	 * 
+	 * @param key    The key of the call or template the request is for, by which
+	 *               latencies are tracked for hedging.
+	 * @param sender Sends one attempt of the request, without blocking.
+	 * @return The response of the last attempt, or of the first hedge to return
+	 *         a successful response.
+	 */
+	public CompletableFuture<Response> send(String key, Request request,
+			Function<Request, CompletableFuture<Response>> sender) {
+		this.deposit();
+
+		return this.attempt(key, request, sender, this.isRepeatable(request), 1);
+	}
+
+	private CompletableFuture<Response> attempt(String key, Request request,
+			Function<Request, CompletableFuture<Response>> sender, boolean repeatable, int attempt) {
+		CompletableFuture<Response> sent = repeatable && this.policy.isHedging() ? this.hedged(key, request, sender)
+				: this.timed(key, request, sender);
+
+		return sent.thenCompose(response -> {
+			if (!repeatable || attempt >= this.policy.getMaxAttempts() || !this.isRetryable(response)
+					|| !this.withdraw()) {
+				return CompletableFuture.completedFuture(response);
+			}
+
+			this.retries.increment();
+			return RateLimiter.delay(this.backoffNanos(attempt, response), this.executor)
+					.thenCompose(waited -> this.permit(key, request))
+					.thenCompose(permitted -> this.attempt(key, request, sender, true, attempt + 1));
+		});
+	}
+
+	/**
+	 * Send the request, and a hedge each time the hedge delay passes without a
+	 * response, up to the policy's number of hedges. The first successful
+	 * response wins; failures only win once no attempt is left outstanding.
+	 * Losing attempts are left to complete, as drivers cannot cancel them.
+	 */
+	private CompletableFuture<Response> hedged(String key, Request request,
+			Function<Request, CompletableFuture<Response>> sender) {
+		CompletableFuture<Response> first = new CompletableFuture<>();
+		AtomicInteger outstanding = new AtomicInteger(1);
+		AtomicBoolean won = new AtomicBoolean();
+		long delayNanos = this.hedgeDelayNanos(key);
+
+		for (int hedge = 1; delayNanos > 0 && hedge <= this.policy.getMaxHedges(); hedge++) {
+			RateLimiter.delay(delayNanos * hedge, this.executor)
+					.thenRun(() -> {
+						if (first.isDone() || !this.withdraw()) {
+							return;
+						}
+
+						this.hedges.increment();
+						outstanding.incrementAndGet();
+						this.permit(key, request)
+								.thenCompose(permitted -> this.timed(key, request, sender))
+								.thenAccept(response -> this.complete(first, outstanding, won, response, true));
+					});
+		}
+
+		this.timed(key, request, sender)
+				.thenAccept(response -> this.complete(first, outstanding, won, response, false));
+
+		return first;
+	}
+
+	/**
+	 * Complete the hedged request with the response if it wins. Winning hedges are
+	 * counted before the request completes, so that its dependents see them.
+	 */
+	private void complete(CompletableFuture<Response> first, AtomicInteger outstanding, AtomicBoolean won,
+			Response response, boolean hedge) {
+		boolean last = outstanding.decrementAndGet() == 0;
+		if ((!response.isFailed() || last) && won.compareAndSet(false, true)) {
+			if (hedge) {
+				this.hedgesWon.increment();
+			}
+			first.complete(response);
+		}
+	}
+
+	/**
+	 * Wait for the rate limiters, if any, before a retry or hedge.
+	 */
+	private CompletableFuture<Long> permit(String key, Request request) {
+		return null == this.limiters ? CompletableFuture.completedFuture(0L) : this.limiters.acquire(key, request);
+	}
+
+	/**
+	 * Send one attempt, measuring the latency of successful ones.
+	 */
+	private CompletableFuture<Response> timed(String key, Request request,
+			Function<Request, CompletableFuture<Response>> sender) {
+		long startNanos = System.nanoTime();
+		CompletableFuture<Response> sent;
+		try {
+			sent = sender.apply(request);
+		} catch (RuntimeException ex) {
+			sent = CompletableFuture.failedFuture(ex);
+		}
+
+		return sent.exceptionally(Response::new)
+				.thenApply(response -> {
+					if (!response.isFailed()) {
+						this.latency(key)
+								.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+					}
+
+					return response;
+				});
+	}
+
+	/**
+	 * Send the request on the calling thread, which waits for the responses and
+	 * backoffs. Requests are retried but not hedged.
+	 */
+	public Response sendBlocking(String key, Request request, Function<Request, Response> sender) {
+		this.deposit();
+		boolean repeatable = this.isRepeatable(request);
+
+		for (int attempt = 1;; attempt++) {
+			Response response;
+			try {
+				response = sender.apply(request);
+			} catch (RuntimeException ex) {
+				response = new Response(ex);
+			}
+
+			if (!repeatable || attempt >= this.policy.getMaxAttempts() || !this.isRetryable(response)
+					|| !this.withdraw()) {
+				return response;
+			}
+
+			this.retries.increment();
+			long deadline = System.nanoTime() + this.backoffNanos(attempt, response);
+			for (long left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime()) {
+				LockSupport.parkNanos(this, left);
+				if (Thread.currentThread()
+						.isInterrupted()) {
+					return response;
+				}
+			}
+			if (null != this.limiters) {
+				this.limiters.acquireBlocking(key, request);
+			}
+		}
+	}
+
+	private boolean isRepeatable(Request request) {
+		HttpMethod method = request.getMethod();
+
+		return this.policy.isRetryNonIdempotent() || null == method || method == HttpMethod.PUT || !method.isBodied();
+	}
+
+	private boolean isRetryable(Response response) {
+		if (!response.isFailed()) {
+			return null != this.policy.getRetryableStatuses() && this.policy.getRetryableStatuses()
+					.contains(response.getStatus());
+		}
+
+		if (null == this.policy.getRetryableExceptions() || this.policy.getRetryableExceptions()
+				.isEmpty() || null == response.getException()) {
+			return true;
+		}
+
+		return ExceptionUtils.getThrowableList(response.getException())
+				.stream()
+				.anyMatch(cause -> this.policy.getRetryableExceptions()
+						.stream()
+						.anyMatch(type -> type.isInstance(cause)));
+	}
+
+	/**
+	 * The backoff before the given attempt's retry: exponential with jitter, and
+	 * at least the response's <code>Retry-After</code> seconds, up to the
+	 * maximum backoff.
+	 */
+	long backoffNanos(int attempt, Response response) {
+		long max = null == this.policy.getMaxBackoff() ? Long.MAX_VALUE
+				: this.policy.getMaxBackoff()
+						.toNanos();
+		double backoff = null == this.policy.getInitialBackoff() ? 0
+				: this.policy.getInitialBackoff()
+						.toNanos() * Math.pow(Math.max(1, this.policy.getBackoffMultiplier()), attempt - 1.0);
+		double jitter = Math.min(1, Math.max(0, this.policy.getJitter()));
+		long nanos = (long) Math.min(max, backoff * (1 - jitter * ThreadLocalRandom.current()
+				.nextDouble()));
+
+		return Math.min(max, Math.max(nanos, retryAfterNanos(response)));
+	}
+
+	private static long retryAfterNanos(Response response) {
+		if (null == response.getHeaders()) {
+			return 0;
+		}
+
+		return response.getHeaders()
+				.entrySet()
+				.stream()
+				.filter(header -> "Retry-After".equalsIgnoreCase(header.getKey()))
+				.map(Map.Entry::getValue)
+				.filter(values -> null != values && !values.isEmpty())
+				.map(values -> values.get(0))
+				.mapToLong(RequestRetrier::parseSeconds)
+				.findFirst()
+				.orElse(0);
+	}
+
+	private static long parseSeconds(String seconds) {
+		try {
+			return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(seconds.trim())));
+		} catch (NumberFormatException ex) {
+			return 0;
+		}
+	}
+
+	/**
+	 * The time after which the call's request is hedged, or 0 if it is not
+	 * hedged yet.
+	 */
+	private long hedgeDelayNanos(String key) {
+		if (null != this.policy.getHedgeDelay()) {
+			return this.policy.getHedgeDelay()
+					.toNanos();
+		}
+
+		LatencyHistogram latency = this.latency(key);
+		if (latency.getCount() < Math.max(1, this.policy.getHedgeMinSamples())) {
+			return 0;
+		}
+
+		return TimeUnit.MICROSECONDS.toNanos(latency.getValueAtPercentile(this.policy.getHedgePercentile()));
+	}
+
+	private LatencyHistogram latency(String key) {
+		return this.latencies.computeIfAbsent(null == key ? "" : key, k -> new LatencyHistogram());
+	}
+
+	private void deposit() {
+		this.requests.increment();
+		this.budget.accumulateAndGet(this.budgetDeposit, (balance, deposit) -> Math.min(this.budgetMax,
+				balance + deposit));
+	}
+
+	/**
+	 * Take one retry or hedge from the budget.
+	 */
+	private boolean withdraw() {
+		for (;;) {
+			long balance = this.budget.get();
+			if (balance < BUDGET_SCALE) {
+				this.budgetExhausted.increment();
+				return false;
+			}
+			if (this.budget.compareAndSet(balance, balance - BUDGET_SCALE)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * The counters of requests, retries and hedges, for result details.
+	 */
+	public MapObject stats() {
+		return MapObject.instance()
+				.add("requests", this.requests.sum())
+				.add("retries", this.retries.sum())
+				.add("hedges", this.hedges.sum())
+				.add("hedgesWon", this.hedgesWon.sum())
+				.add("budgetExhausted", this.budgetExhausted.sum());
+	}
+
+	public RetryPolicy getPolicy() {
+		return policy;
+	}
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.utils.JsonMapper;
+
+/**
+ * <p>
+ * An append-only file of results, written as JSON Lines as the results
+ * complete, so that runs of any length keep only their aggregates in memory.
+ * The sink is opened for each run writing to the {@link SchedulingConfig
+ * config's} result file, which it replaces.
+ * </p>
+ * 
+ * <p>
+ * Results are read back lazily, one line at a time, through
+ * {@link #read(Class)} or {@link #asCollection(Class)}. Writing is safe from
+ * any number of threads.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class ResultSink implements Closeable {
+
+	private final Path file;
+	private final Writer writer;
+	private long count;
+	private boolean closed;
+
+	private ResultSink(Path file, Writer writer) {
+		this.file = file;
+		this.writer = writer;
+	}
+
+	/**
+	 * Create the file, replacing any previous one, and its missing parent
+	 * directories.
+	 */
+	public static ResultSink open(Path file) {
+		try {
+			Path parent = file.toAbsolutePath()
+					.getParent();
+			if (null != parent) {
+				Files.createDirectories(parent);
+			}
+
+			return new ResultSink(file, Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+		} catch (IOException ex) {
+			throw new MosquitoException("Failed to open result file " + file + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * The sink for the config's result file, or null if it has none.
+	 */
+	public static ResultSink of(SchedulingConfig config) {
+		return null == config.getResultFile() ? null : open(config.getResultFile());
+	}
+
+	/**
+	 * Append a result as one line of JSON.
+	 */
+	public void write(Object result) {
+		String line = JsonMapper.json(result);
+
+		synchronized (this) {
+			if (this.closed) {
+				throw new MosquitoException("Result file " + this.file + " is closed");
+			}
+
+			try {
+				this.writer.write(line);
+				this.writer.write('\n');
+				this.count++;
+			} catch (IOException ex) {
+				throw new MosquitoException("Failed to write to result file " + this.file + ": " + ex.getMessage(),
+						ex);
+			}
+		}
+	}
+
+	public synchronized void flush() {
+		if (this.closed) {
+			return;
+		}
+
+		try {
+			this.writer.flush();
+		} catch (IOException ex) {
+			throw new MosquitoException("Failed to write to result file " + this.file + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Read the results written so far, lazily. The stream holds the file open
+	 * until it is closed.
+	 */
+	public <T> Stream<T> read(Class<T> type) {
+		this.flush();
+
+		try {
+			return Files.lines(this.file, StandardCharsets.UTF_8)
+					.map(line -> JsonMapper.fromJson(line, type));
+		} catch (IOException ex) {
+			throw new MosquitoException("Failed to read result file " + this.file + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * A view of the results written so far, read from the file each time it is
+	 * iterated. An iteration holds the file open until it reaches the end.
+	 */
+	public <T> Collection<T> asCollection(Class<T> type) {
+		this.flush();
+		long size = this.getCount();
+
+		return new AbstractCollection<>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new LineIterator<>(file, type, size);
+			}
+
+			@Override
+			public int size() {
+				return (int) Math.min(Integer.MAX_VALUE, size);
+			}
+		};
+	}
+
+	/**
+	 * The number of results written.
+	 */
+	public synchronized long getCount() {
+		return this.count;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.closed) {
+			return;
+		}
+
+		this.closed = true;
+		try {
+			this.writer.close();
+		} catch (IOException ex) {
+			throw new MosquitoException("Failed to close result file " + this.file + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Reads the first results of a file, one line at a time.
+	 */
+	private static final class LineIterator<T> implements Iterator<T> {
+		private final Path file;
+		private final Class<T> type;
+		private long left;
+		private BufferedReader reader;
+
+		private LineIterator(Path file, Class<T> type, long size) {
+			this.file = file;
+			this.type = type;
+			this.left = size;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.left > 0;
+		}
+
+		@Override
+		public T next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			try {
+				if (null == this.reader) {
+					this.reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8);
+				}
+
+				String line = this.reader.readLine();
+				this.left = null == line ? 0 : this.left - 1;
+				if (this.left == 0) {
+					this.reader.close();
+				}
+				if (null == line) {
+					throw new NoSuchElementException("Result file " + this.file + " ended early");
+				}
+
+				return JsonMapper.fromJson(line, this.type);
+			} catch (IOException ex) {
+				throw new MosquitoException("Failed to read result file " + this.file + ": " + ex.getMessage(), ex);
+			}
+		}
+	}
+}
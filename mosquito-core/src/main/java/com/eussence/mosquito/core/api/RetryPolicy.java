@@ -0,0 +1,108 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * How failed or slow requests are sent again. A request is retried, after an
+ * exponential backoff with jitter, when it fails with one of the retryable
+ * exceptions or gets one of the retryable status codes. With a hedge
+ * percentile or delay, a duplicate request is sent when no response has come
+ * back after that time, and the first response wins.
+ * </p>
+ * 
+ * <p>
+ * Retries and hedges are paid for from a budget shared by all requests of a
+ * run: each request adds <code>budgetRatio</code> to it, up to
+ * <code>budgetReserve</code>, and each retry or hedge takes one from it. When
+ * the target fails, retries therefore add at most that ratio to the load.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RetryPolicy {
+
+	/**
+	 * The number of times a request may be sent, including the first.
+	 */
+	@Builder.Default
+	private int maxAttempts = 3;
+	@Builder.Default
+	private Duration initialBackoff = Duration.ofMillis(100);
+	@Builder.Default
+	private Duration maxBackoff = Duration.ofSeconds(5);
+	@Builder.Default
+	private double backoffMultiplier = 2;
+	/**
+	 * The fraction of each backoff that is random: a backoff of <code>d</code>
+	 * lasts between <code>d * (1 - jitter)</code> and <code>d</code>.
+	 */
+	@Builder.Default
+	private double jitter = 0.5;
+
+	@Builder.Default
+	private Set<Integer> retryableStatuses = Set.of(429, 502, 503, 504);
+	/**
+	 * Exceptions, or causes of exceptions, for which failed requests are retried.
+	 * Any failure is retried when empty.
+	 */
+	@Builder.Default
+	private Set<Class<? extends Throwable>> retryableExceptions = Set.of(IOException.class);
+	/**
+	 * Whether requests with methods that are not idempotent, such as POST, are
+	 * retried and hedged too.
+	 */
+	private boolean retryNonIdempotent;
+
+	@Builder.Default
+	private double budgetRatio = 0.1;
+	@Builder.Default
+	private int budgetReserve = 10;
+
+	/**
+	 * The latency percentile of the call after which a hedge is sent, such as 95.
+	 * Hedging is disabled when neither this nor <code>hedgeDelay</code> is set.
+	 */
+	private double hedgePercentile;
+	/**
+	 * A fixed time after which a hedge is sent, instead of a percentile.
+	 */
+	private Duration hedgeDelay;
+	@Builder.Default
+	private int maxHedges = 1;
+	/**
+	 * The number of responses to measure before hedging by percentile.
+	 */
+	@Builder.Default
+	private int hedgeMinSamples = 20;
+
+	public boolean isHedging() {
+		return this.maxHedges > 0 && (this.hedgePercentile > 0 || null != this.hedgeDelay);
+	}
+}
@@ -15,11 +15,17 @@
 
 package com.eussence.mosquito.core.api;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import com.eussence.mosquito.api.execution.ExecutionEvent;
+import com.eussence.mosquito.api.execution.ExecutionSummary;
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.http.driver.StandardHttpDriverFactory;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -29,11 +35,13 @@ import lombok.NoArgsConstructor;
 /**
  * A set of parameters used to configure the scheduling of request execution.
  * This class defines such attributes as the number of calls the make or the
- * parallelism to aim for.
+ * parallelism to aim for. The node thread count, queue capacity and rejection
+ * policy select the {@link ExecutionEngine execution engine} a run uses; runs
+ * with the same settings share one.
  * 
  * @author Ernest Kiwele
  */
-@Builder
+@Builder(toBuilder = true)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -47,16 +55,96 @@ public class SchedulingConfig {
 			.nodeSelector(DEFAULT_NODE_SELECTOR)
 			.build();
 
+	/**
+	 * The id of the HTTP driver sending requests, such as
+	 * {@link StandardHttpDriverFactory#OKHTTP_DRIVER_ID the OkHttp driver} (the
+	 * default when available), {@link StandardHttpDriverFactory#STANDARD_DRIVER_ID
+	 * the java.net.http driver} (the default otherwise) or
+	 * {@link StandardHttpDriverFactory#VERTX_DRIVER_ID the Vert.x driver}, which runs on the runtime's Vert.x instance.
+	 */
 	private String httpDriverId;
+
+	/**
+	 * How response bodies are read, for requests that don't set it. Load runs
+	 * against large payloads can discard, cap or spill bodies to disk instead of
+	 * buffering them.
+	 */
+	private BodyHandling bodyHandling;
 	private boolean parallel;
 	@Builder.Default
 	private int nodeThreadCount = 5;
+	@Builder.Default
+	private int queueCapacity = ExecutionEngine.DEFAULT_QUEUE_CAPACITY;
+	@Builder.Default
+	private RejectionPolicy rejectionPolicy = RejectionPolicy.BLOCK;
 
 	@Builder.Default
 	private int iterations = 1;
+
+	/**
+	 * The target number of iterations started per second in load runs. When
+	 * positive, iterations are started at this rate whatever the response times
+	 * (an open model), for the configured duration or number of iterations.
+	 */
+	private double ratePerSecond;
+	/**
+	 * The maximum length of a load run. Runs stop starting iterations after this
+	 * time, even if fewer than <code>iterations</code> have been started.
+	 */
+	private Duration duration;
+	/**
+	 * The number of virtual users of load runs. When positive, each user runs its
+	 * own loop of iterations on a dedicated thread (a virtual thread where the
+	 * runtime supports them), keeping its context from one iteration to the next.
+	 */
+	private int virtualUsers;
+	/**
+	 * The pause of a virtual user between two iterations.
+	 */
+	private Duration thinkTime;
+	/**
+	 * Rate limits by host name, enforced before requests are handed to the HTTP
+	 * driver. The {@link RateLimiters#ANY_HOST} key sets a limit for each host
+	 * without one of its own.
+	 */
+	private Map<String, RateLimit> hostRateLimits;
+	/**
+	 * Rate limits by call key, applying to the calls of chains and to load runs of
+	 * request templates, by template key.
+	 */
+	private Map<String, RateLimit> callRateLimits;
+	/**
+	 * How failed and slow requests are retried and hedged. Requests are sent once
+	 * when not set.
+	 */
+	private RetryPolicy retryPolicy;
 	private Predicate<MosquitoNode> nodeSelector;
 
 	private boolean collectMetrics;
+	/**
+	 * The number of errors, and of full responses picked at random, kept in the
+	 * {@link ExecutionSummary summary} of runs collecting metrics.
+	 */
+	@Builder.Default
+	private int errorSampleSize = ExecutionSummary.DEFAULT_ERROR_SAMPLES;
+	private int responseSampleSize;
+	/**
+	 * A file results are written to as they complete, instead of being kept in
+	 * memory: the responses of batches of requests, the call chain results of
+	 * load run iterations, and the responses of template load runs. Batch
+	 * responses are then read back from the file as they are iterated. Nodes of
+	 * clustered load runs do not write results.
+	 */
+	private Path resultFile;
+	/**
+	 * Consumers of the executions' lifecycle events. Events are delivered off the
+	 * request threads, through a buffer of <code>eventBufferSize</code> events
+	 * whose overflow is handled according to <code>eventOverflowPolicy</code>.
+	 */
 	private Collection<Consumer<ExecutionEvent>> eventConsumers;
+	@Builder.Default
+	private int eventBufferSize = ExecutionEventStream.DEFAULT_CAPACITY;
+	@Builder.Default
+	private OverflowPolicy eventOverflowPolicy = OverflowPolicy.DROP_OLDEST;
 	private boolean runAssertions;
 }
@@ -18,29 +18,41 @@ package com.eussence.mosquito.core.api.execution.standalone;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 import com.eussence.mosquito.api.Call;
 import com.eussence.mosquito.api.CallChain;
 import com.eussence.mosquito.api.CallChainResult;
+import com.eussence.mosquito.api.CallGraph;
 import com.eussence.mosquito.api.CallResult;
 import com.eussence.mosquito.api.MapObject;
 import com.eussence.mosquito.api.command.CommandLanguage;
 import com.eussence.mosquito.api.command.Resolver;
 import com.eussence.mosquito.api.execution.ExecutionEvent;
+import com.eussence.mosquito.api.execution.ExecutionEventType;
 import com.eussence.mosquito.api.execution.ExecutionResult;
 import com.eussence.mosquito.api.execution.ExecutionSchedule;
+import com.eussence.mosquito.api.execution.ExecutionSummary;
+import com.eussence.mosquito.api.execution.LatencyHistogram;
 import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.RequestTemplatePlan;
 import com.eussence.mosquito.api.http.Response;
-import com.eussence.mosquito.api.qa.Assertion;
 import com.eussence.mosquito.api.qa.AssertionResult;
+import com.eussence.mosquito.api.qa.AssertionSuite;
+import com.eussence.mosquito.core.api.ExecutionEventStream;
+import com.eussence.mosquito.core.api.RateLimiters;
+import com.eussence.mosquito.core.api.RequestRetrier;
 import com.eussence.mosquito.http.api.HttpDriver;
 
 import lombok.AllArgsConstructor;
@@ -64,11 +76,73 @@ public class StandaloneSchedule {
 	protected boolean collectMetrics;
 	@Builder.Default
 	protected Collection<Consumer<ExecutionEvent>> eventConsumers = new ArrayList<>();
+	/**
+	 * The stream lifecycle events are published to, if any. Nothing is published
+	 * without one, and event objects are then not even created.
+	 */
+	protected volatile ExecutionEventStream eventStream;
 	protected Function<CommandLanguage, Resolver> resolverFactory;
 	protected HttpDriver client;
+	/**
+	 * When set, requests are sent with the driver's blocking method on this
+	 * executor instead of with its asynchronous method.
+	 */
+	protected Executor callExecutor;
+	/**
+	 * Runs the work that follows each response, such as assertions and the
+	 * rendering of dependent calls, off the HTTP driver's threads. That work runs
+	 * on the thread completing the response when not set.
+	 */
+	protected Executor completionExecutor;
+	@Builder.Default
+	protected Map<String, RequestTemplatePlan> requestPlans = new ConcurrentHashMap<>();
+	@Builder.Default
+	protected Map<String, AssertionSuite> assertionSuites = new ConcurrentHashMap<>();
+	/**
+	 * Latencies of the calls sent by this schedule, by call key. Only recorded
+	 * when metrics are collected.
+	 */
+	@Builder.Default
+	protected Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+	/**
+	 * Latencies of the same calls measured from the time they were intended to
+	 * start, which includes the time a late chain waited before starting.
+	 */
+	@Builder.Default
+	protected Map<String, LatencyHistogram> correctedLatencies = new ConcurrentHashMap<>();
+	/**
+	 * Time calls waited for rate limiters, by call key.
+	 */
+	@Builder.Default
+	protected Map<String, LatencyHistogram> throttleWaits = new ConcurrentHashMap<>();
+	/**
+	 * The summary of the calls and executions of this schedule, recorded when
+	 * metrics are collected.
+	 */
+	@Builder.Default
+	protected ExecutionSummary summary = new ExecutionSummary();
+	/**
+	 * Limiters every request waits for before being sent, if any.
+	 */
+	protected RateLimiters rateLimiters;
+	/**
+	 * Retries and hedges requests, if set.
+	 */
+	protected RequestRetrier retrier;
 
-	public void registerEventConsumer(Consumer<ExecutionEvent> listener) {
+	/**
+	 * Add a consumer of the schedule's events, receiving the events published
+	 * from now on. A schedule without an event stream gets one with the default
+	 * buffer.
+	 */
+	public synchronized void registerEventConsumer(Consumer<ExecutionEvent> listener) {
 		this.eventConsumers.add(listener);
+		if (null == this.eventStream) {
+			this.eventStream = new ExecutionEventStream(this.eventConsumers, ExecutionEventStream.DEFAULT_CAPACITY,
+					null);
+		} else {
+			this.eventStream.addConsumer(listener);
+		}
 	}
 
 	protected Resolver resolver(CommandLanguage lang) {
@@ -78,110 +152,338 @@ public class StandaloneSchedule {
 
 	protected Request getRequestForCall(Call call, CommandLanguage lang, MapObject context) {
 
-		return call.getRequestTemplate()
-				.toRequest(resolverFactory, () -> context);
+		return this.requestPlans.computeIfAbsent(call.getKey(), key -> call.getRequestTemplate()
+				.compile(this.resolverFactory))
+				.render(context);
+	}
+
+	protected LatencyHistogram latencies(Call call) {
+		return this.latencies.computeIfAbsent(call.getKey(), key -> new LatencyHistogram());
 	}
 
-	protected AssertionResult runAssertion(Call call, Assertion assertion, Request request, Response response,
+	protected LatencyHistogram correctedLatencies(Call call) {
+		return this.correctedLatencies.computeIfAbsent(call.getKey(), key -> new LatencyHistogram());
+	}
+
+	protected AssertionSuite assertionSuite(Call call, Resolver resolver) {
+		return this.assertionSuites.computeIfAbsent(call.getKey(),
+				key -> AssertionSuite.compile(call.getAssertions(), resolver));
+	}
+
+	protected Map<String, AssertionResult> runAssertions(Call call, Request request, Response response,
 			MapObject context, Resolver resolver) {
 
-		var resultBuilder = AssertionResult.builder()
-				.id(assertion.getId())
-				.assertion(assertion);
+		return this.assertionSuite(call, resolver)
+				.evaluate(request, response)
+				.stream()
+				.collect(Collectors.toMap(AssertionResult::getId, Function.identity(), (ar1, ar2) -> ar1));
+	}
 
-		if (response.isFailed()) {
-			return resultBuilder.build();
-		}
+	/**
+	 * Render and send the call's request, then record its response in the context
+	 * and run its assertions. The request is rendered from a snapshot of the
+	 * context, as other calls of the chain may be completing concurrently. The
+	 * request then waits for the rate limiters, if any, without holding a thread.
+	 * 
+	 * @param executionId The id of the execution, for events.
+	 * @param delayNanos  How late the chain started, added to the call's latency
+	 *                    to get its latency from its intended start.
+	 */
+	protected CompletableFuture<CallResult> executeCall(Call call, CallChain callChain, MapObject context,
+			Resolver resolver, String executionId, long delayNanos) {
 
+		Request request;
 		try {
-			MapObject c = MapObject.instance()
-					.add("request", request)
-					.add("response", response);
-			boolean succeeded = Boolean
-					.parseBoolean(String.valueOf(resolver.eval(c, assertion.getBooleanExpression())));
-			resultBuilder = resultBuilder.succeeded(succeeded)
-					.error(false);
-
-			if (!succeeded && StringUtils.isNotBlank(assertion.getMessageTemplate())) {
-				resultBuilder = resultBuilder
-						.expectationMessage(String.valueOf(resolver.eval(c, assertion.getMessageTemplate())));
+			request = this.getRequestForCall(call, callChain.getExpressionLanguage(), this.snapshot(context));
+		} catch (RuntimeException ex) {
+			if (this.collectMetrics) {
+				this.latencies(call)
+						.recordError();
+				this.correctedLatencies(call)
+						.recordError();
+				this.summary.recordResponse(call.getKey(), new Response(ex), 0, false);
 			}
-		} catch (Exception ex) {
-			resultBuilder = resultBuilder.expectationMessage("[Execution error: " + ex.getMessage() + "]")
-					.succeeded(false)
-					.error(true)
-					.errorMessage(ex.getMessage())
-					.stackTrace(ExceptionUtils.getStackTrace(ex));
+
+			return CompletableFuture.completedFuture(
+					this.notExecuted(call, "Failed to create request: " + ExceptionUtils.getMessage(ex)));
 		}
 
-		return resultBuilder.build();
-	}
+		if (null == this.rateLimiters) {
+			return this.send(call, request, context, resolver, executionId, delayNanos);
+		}
 
-	protected Map<String, AssertionResult> runAssertions(Call call, Request request, Response response,
-			MapObject context, Resolver resolver) {
+		return this.rateLimiters.acquire(call.getKey(), request)
+				.thenCompose(waitedNanos -> {
+					if (this.collectMetrics) {
+						this.throttleWaits.computeIfAbsent(call.getKey(), key -> new LatencyHistogram())
+								.record(waitedNanos, TimeUnit.NANOSECONDS);
+					}
 
-		return call.getAssertions()
-				.stream()
-				.map(ass -> this.runAssertion(call, ass, request, response, context, resolver))
-				.collect(Collectors.toMap(AssertionResult::getId, Function.identity(), (ar1, ar2) -> ar1));
+					return this.send(call, request, context, resolver, executionId, delayNanos + waitedNanos);
+				});
 	}
 
-	protected CallResult executeCall(Call call, CallChain callChain, MapObject context, Resolver resolver) {
+	/**
+	 * Send the call's rendered request, along with its retries and hedges, if
+	 * any. The call's latency spans all of them.
+	 * 
+	 * @param delayNanos How late the request is sent, including the chain's delay
+	 *                   and the time waited for rate limiters.
+	 */
+	private CompletableFuture<CallResult> send(Call call, Request request, MapObject context, Resolver resolver,
+			String executionId, long delayNanos) {
 
-		Request request = this.getRequestForCall(call, callChain.getExpressionLanguage(), context);
+		if (null != this.eventStream) {
+			this.publish(ExecutionEvent.builder()
+					.type(ExecutionEventType.CALL_SENT)
+					.executionId(executionId)
+					.callKey(call.getKey()));
+		}
 
 		var start = Instant.now();
-		Response response = this.client.http(request);
-		var end = Instant.now();
+		long startNanos = System.nanoTime();
+		CompletableFuture<Response> sent = null == this.retrier ? this.dispatch(request)
+				: this.retrier.send(call.getKey(), request, this::dispatch);
+
+		return sent.exceptionally(Response::new)
+				.thenApplyAsync(response -> {
+					var end = Instant.now();
+					long nanos = System.nanoTime() - startNanos;
+					if (this.collectMetrics) {
+						this.recordLatency(this.latencies(call), response, nanos);
+						this.recordLatency(this.correctedLatencies(call), response, nanos + delayNanos);
+					}
+					if (null != this.eventStream) {
+						this.publish(ExecutionEvent.builder()
+								.type(ExecutionEventType.RESPONSE_RECEIVED)
+								.executionId(executionId)
+								.callKey(call.getKey())
+								.status(response.getStatus())
+								.latencyMicros(TimeUnit.NANOSECONDS.toMicros(nanos))
+								.message(response.isFailed() ? response.getErrorMessage() : null));
+					}
+
+					synchronized (context) {
+						context.add(call.getKey(), response);
+					}
+
+					var resultBuilder = CallResult.builder()
+							.startDate(start)
+							.intendedStartDate(start.minusNanos(delayNanos))
+							.endDate(end)
+							.key(call.getKey())
+							.executed(true)
+							.request(request)
+							.response(response)
+							.assertionsExecuted(runAssertions);
 
-		context.add(call.getKey(), response);
+					boolean assertionsFailed = false;
+					if (!response.isFailed() && this.runAssertions) {
+						List<AssertionResult> assertionResults = new ArrayList<>(
+								this.runAssertions(call, request, response, context, resolver).values());
+						resultBuilder = resultBuilder.assertions(call.getAssertions())
+								.assertionResults(assertionResults);
+						assertionsFailed = !assertionResults.stream()
+								.allMatch(AssertionResult::isSucceeded);
+
+						if (null != this.eventStream) {
+							assertionResults.stream()
+									.filter(result -> !result.isSucceeded())
+									.forEach(result -> this.publish(ExecutionEvent.builder()
+											.type(ExecutionEventType.ASSERTION_FAILED)
+											.executionId(executionId)
+											.callKey(call.getKey())
+											.message(result.isError() ? result.getErrorMessage()
+													: result.getExpectationMessage())));
+						}
+					}
+
+					if (this.collectMetrics) {
+						this.summary.recordResponse(call.getKey(), response, nanos, assertionsFailed);
+					}
+
+					return resultBuilder.build();
+				}, this.completions());
+	}
 
-		var resultBuilder = CallResult.builder()
-				.startDate(start)
-				.endDate(end)
+	/**
+	 * Send one attempt of a request.
+	 */
+	private CompletableFuture<Response> dispatch(Request request) {
+		return null == this.callExecutor ? this.client.asyncHttp(request)
+				: CompletableFuture.supplyAsync(() -> this.client.http(request), this.callExecutor);
+	}
+
+	private Executor completions() {
+		return null == this.completionExecutor ? Runnable::run : this.completionExecutor;
+	}
+
+	protected void publish(ExecutionEvent.ExecutionEventBuilder event) {
+		this.eventStream.publish(event.build());
+	}
+
+	/**
+	 * Close the event stream, if any. Events already published are still
+	 * delivered.
+	 */
+	public void closeEventStream() {
+		if (null != this.eventStream) {
+			this.eventStream.close();
+		}
+	}
+
+	private void recordLatency(LatencyHistogram histogram, Response response, long nanos) {
+		if (response.isFailed()) {
+			histogram.recordError();
+		} else {
+			histogram.record(nanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	protected CallResult notExecuted(Call call, String reason) {
+		CallResult result = CallResult.builder()
 				.key(call.getKey())
-				.executed(true)
-				.request(request)
-				.response(response)
-				.assertionsExecuted(runAssertions);
-
-		if (!response.isFailed() && this.runAssertions) {
-			resultBuilder = resultBuilder.assertions(call.getAssertions())
-					.assertionResults(this.runAssertions(call, request, response, context, resolver)
-							.values()
-							.stream()
-							.collect(Collectors.toList()));
+				.executed(false)
+				.build();
+		result.get_meta()
+				.add("error", reason);
+
+		return result;
+	}
+
+	private MapObject snapshot(MapObject context) {
+		MapObject snapshot = MapObject.instance();
+		synchronized (context) {
+			snapshot.putAll(context);
 		}
 
-		return resultBuilder.build();
+		return snapshot;
 	}
 
-	protected CallChainResult executeCallChain(CallChain callChain, MapObject context) {
+	/**
+	 * Execute the calls of the chain following their dependencies. Each call
+	 * starts as soon as all the calls it depends on have completed, so independent
+	 * calls run concurrently. Calls depending on a call that could not be executed
+	 * are not executed either. Responses are handled, and dependent calls
+	 * rendered, on the completion executor if set.
+	 */
+	protected CompletableFuture<CallChainResult> executeCallChain(CallChain callChain, MapObject context,
+			String executionId, long delayNanos) {
 
+		CallGraph graph = CallGraph.of(callChain);
 		Resolver resolver = this.resolver(callChain.getExpressionLanguage());
-		return CallChainResult.builder()
-				.key(callChain.getKey())
-				.startDate(Instant.now())
-				.callResults(callChain.getCalls()
-						.values()
-						.stream()
-						.sorted(Comparator.comparing(Call::getKey, String::compareTo))
-						.map(call -> this.executeCall(call, callChain, context, resolver))
-						.collect(Collectors.toMap(CallResult::getKey, Function.identity(), (cr1, cr2) -> cr1)))
-				.endDate(Instant.now())
-				.build();
+		if (this.runAssertions) {
+			graph.getOrder()
+					.forEach(call -> this.assertionSuite(call, resolver));
+		}
+
+		var startDate = Instant.now();
+		Map<String, CompletableFuture<CallResult>> results = new HashMap<>();
+		for (Call call : graph.getOrder()) {
+			List<CompletableFuture<CallResult>> dependencies = graph.getDependencies(call.getKey())
+					.stream()
+					.map(results::get)
+					.collect(Collectors.toList());
+
+			results.put(call.getKey(), CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+					.thenComposeAsync(done -> dependencies.stream()
+							.map(CompletableFuture::join)
+							.filter(dependency -> !dependency.isExecuted())
+							.findFirst()
+							.map(dependency -> CompletableFuture.completedFuture(
+									this.notExecuted(call, "Dependency not executed: " + dependency.getKey())))
+							.orElseGet(() -> this.executeCall(call, callChain, context, resolver, executionId,
+									delayNanos)), this.completions()));
+		}
+
+		return CompletableFuture.allOf(results.values()
+				.toArray(new CompletableFuture<?>[0]))
+				.thenApply(done -> {
+					Map<String, CallResult> callResults = graph.getOrder()
+							.stream()
+							.map(call -> results.get(call.getKey())
+									.join())
+							.collect(Collectors.toMap(CallResult::getKey, Function.identity(), (cr1, cr2) -> cr1));
+
+					return CallChainResult.builder()
+							.key(callChain.getKey())
+							.startDate(startDate)
+							.callResults(callResults)
+							.succeeded(callResults.values()
+									.stream()
+									.allMatch(r -> r.isExecuted() && !r.getResponse()
+											.isFailed()))
+							.endDate(Instant.now())
+							.build();
+				});
 	}
 
 	public ExecutionResult execute(ExecutionSchedule schedule) {
+		return this.executeAsync(schedule)
+				.join();
+	}
 
-		return ExecutionResult.builder()
-				.startDate(Instant.now())
-				.id(schedule.getId())
-				.assertionsRun(this.runAssertions)
-				.metricsCollected(this.collectMetrics)
-				.datasets(schedule.getDatasets())
-				.callChainResults(this.executeCallChain(schedule.getCallChain(), schedule.getContext()))
-				.endDate(Instant.now())
-				.build();
+	/**
+	 * Execute the schedule's call chain without blocking the calling thread.
+	 * 
+	 * @param schedule The schedule to execute.
+	 * @return A future completed with the result once all calls have completed.
+	 */
+	public CompletableFuture<ExecutionResult> executeAsync(ExecutionSchedule schedule) {
+		return this.executeAsync(schedule, System.nanoTime());
+	}
+
+	/**
+	 * Execute the schedule's call chain, which was intended to start at the given
+	 * time. If it starts late, the delay is included in the calls' corrected
+	 * latencies, so that a target that stalls a fixed-rate load run is not
+	 * measured only by the few calls it let through.
+	 * 
+	 * @param schedule           The schedule to execute.
+	 * @param intendedStartNanos The {@link System#nanoTime() nano time} at which
+	 *                           the chain should have started.
+	 * @return A future completed with the result once all calls have completed.
+	 */
+	public CompletableFuture<ExecutionResult> executeAsync(ExecutionSchedule schedule, long intendedStartNanos) {
+		var startDate = Instant.now();
+		long delayNanos = Math.max(0, System.nanoTime() - intendedStartNanos);
+		if (null != this.eventStream) {
+			this.publish(ExecutionEvent.builder()
+					.type(ExecutionEventType.EXECUTION_STARTED)
+					.executionId(schedule.getId()));
+		}
+
+		return this.executeCallChain(schedule.getCallChain(),
+				null == schedule.getContext() ? MapObject.instance() : schedule.getContext(), schedule.getId(),
+				delayNanos)
+				.thenApply(chainResult -> {
+					if (this.collectMetrics) {
+						this.summary.recordExecution(chainResult.isSuccessful());
+					}
+
+					return chainResult;
+				})
+				.thenApply(chainResult -> ExecutionResult.builder()
+						.startDate(startDate)
+						.id(schedule.getId())
+						.assertionsRun(this.runAssertions)
+						.metricsCollected(this.collectMetrics)
+						.datasets(schedule.getDatasets())
+						.callChainResults(chainResult)
+						.latencies(this.collectMetrics ? this.latencies : null)
+						.correctedLatencies(this.collectMetrics ? this.correctedLatencies : null)
+						.throttleWaits(this.collectMetrics && null != this.rateLimiters ? this.throttleWaits : null)
+						.summary(this.collectMetrics ? this.summary : null)
+						.endDate(Instant.now())
+						.build())
+				.whenComplete((result, error) -> {
+					if (null != this.eventStream) {
+						this.publish(ExecutionEvent.builder()
+								.type(ExecutionEventType.EXECUTION_FINISHED)
+								.executionId(schedule.getId())
+								.message(null != error ? ExceptionUtils.getMessage(error)
+										: result.isSuccessful() ? null : "Execution did not succeed"));
+					}
+				});
 	}
 }
@@ -16,13 +16,14 @@
 package com.eussence.mosquito.core.internal.execution;
 
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -30,8 +31,10 @@ import com.eussence.mosquito.api.CallChain;
 import com.eussence.mosquito.api.command.CommandLanguage;
 import com.eussence.mosquito.api.command.Resolver;
 import com.eussence.mosquito.api.data.Dataset;
+import com.eussence.mosquito.api.data.DatasetReader;
 import com.eussence.mosquito.api.exception.MosquitoException;
 import com.eussence.mosquito.api.execution.ExecutionResult;
+import com.eussence.mosquito.api.http.BodyHandling;
 import com.eussence.mosquito.api.http.Request;
 import com.eussence.mosquito.api.http.RequestTemplate;
 import com.eussence.mosquito.api.http.Response;
@@ -43,6 +46,8 @@ import com.eussence.mosquito.http.api.HttpDriver;
 import com.eussence.mosquito.http.driver.HttpDriverFactoryLocator;
 import com.eussence.mosquito.http.driver.StandardHttpDriverFactory;
 
+import io.vertx.core.Vertx;
+
 /**
  * A collection of reusable scheduler methods/operations/data.
  * 
@@ -51,31 +56,68 @@ import com.eussence.mosquito.http.driver.StandardHttpDriverFactory;
 public abstract class AbstractMosquitoScheduler implements MosquitoScheduler {
 
 	private Map<String, HttpDriver> drivers = new ConcurrentHashMap<>();
+	private final AtomicLong inFlightRequests = new AtomicLong();
 
 	protected Function<CommandLanguage, Resolver> resolverFactory = lang -> lang == CommandLanguage.GROOVY
 			? GroovyResolver.getInstance()
 			: null;
 
 	protected HttpDriver getDriver(String id) {
-		return this.drivers.computeIfAbsent(id, n -> HttpDriverFactoryLocator.getInstance()
+		return this.drivers.computeIfAbsent(id, n -> new InFlightHttpDriver(HttpDriverFactoryLocator.getInstance()
 				.findById(n)
 				.orElseThrow(MosquitoException.supplier("No driver found by name '" + n + "'"))
-				.getDriver());
+				.getDriver(this.getVertx()), this.inFlightRequests));
+	}
+
+	/**
+	 * The driver selected by the config, applying its body handling.
+	 */
+	protected HttpDriver getDriver(SchedulingConfig scheduleConfig) {
+		HttpDriver driver = this.getDriver(this.getDriverOrDefault(scheduleConfig.getHttpDriverId()));
+		BodyHandling bodyHandling = scheduleConfig.getBodyHandling();
+
+		return null == bodyHandling || bodyHandling.isBuffered() ? driver
+				: new BodyHandlingHttpDriver(driver, bodyHandling);
+	}
+
+	/**
+	 * The Vert.x instance that drivers based on Vert.x run on, if any.
+	 */
+	protected Vertx getVertx() {
+		return null;
 	}
 
+	/**
+	 * The number of requests this scheduler's drivers are sending.
+	 */
+	public long getInFlightRequests() {
+		return this.inFlightRequests.get();
+	}
+
+	/**
+	 * The given driver id, or the default one: the OkHttp driver when it is on the
+	 * class path, the java.net.http driver otherwise.
+	 */
 	protected String getDriverOrDefault(String n) {
-		return StringUtils.firstNonBlank(n, StandardHttpDriverFactory.OKHTTP_DRIVER_ID);
+		return StringUtils.firstNonBlank(n, DefaultDriver.ID);
+	}
+
+	private static final class DefaultDriver {
+		private static final String ID = HttpDriverFactoryLocator.getInstance()
+				.findById(StandardHttpDriverFactory.OKHTTP_DRIVER_ID)
+				.isPresent() ? StandardHttpDriverFactory.OKHTTP_DRIVER_ID
+						: StandardHttpDriverFactory.STANDARD_DRIVER_ID;
 	}
 
 	@Override
 	public Response submit(Request request, SchedulingConfig scheduleConfig) {
-		return this.getDriver(this.getDriverOrDefault(scheduleConfig.getHttpDriverId()))
+		return this.getDriver(scheduleConfig)
 				.http(request);
 	}
 
 	@Override
 	public CompletableFuture<Response> submitAsync(Request request, SchedulingConfig scheduleConfig) {
-		return this.getDriver(this.getDriverOrDefault(scheduleConfig.getHttpDriverId()))
+		return this.getDriver(scheduleConfig)
 				.asyncHttp(request);
 	}
 
@@ -117,9 +159,16 @@ public abstract class AbstractMosquitoScheduler implements MosquitoScheduler {
 		return this.scheduleAsync(requests, callChain, scheduleConfig);
 	}
 
-	protected List<Map<String, Object>> getDataSet(Dataset dateSet) {
-		// TODO: Implement resolution of data set content:
-		return List.of();
+	/**
+	 * Open the records of the dataset as a lazy stream. Records are read as the
+	 * stream is consumed and the stream must be closed once done with.
+	 */
+	protected Stream<Map<String, Object>> getDataSet(Dataset dataSet) {
+		if (null == dataSet) {
+			return Stream.empty();
+		}
+
+		return DatasetReader.open(dataSet);
 	}
 
 	protected abstract Collection<Response> schedule(Iterable<Request> requests, SchedulingConfig scheduleConfig);
@@ -127,11 +176,11 @@ public abstract class AbstractMosquitoScheduler implements MosquitoScheduler {
 	protected abstract CompletableFuture<Collection<Response>> scheduleAsync(Iterable<Request> requests,
 			SchedulingConfig scheduleConfig);
 
-	protected abstract ExecutionResult schedule(Map<String, List<Request>> requests, CallChain chain,
+	protected abstract ExecutionResult schedule(Map<String, Iterable<Request>> requests, CallChain chain,
 			SchedulingConfig scheduleConfig);
 
-	protected abstract CompletableFuture<ExecutionResult> scheduleAsync(Map<String, List<Request>> requests,
+	protected abstract CompletableFuture<ExecutionResult> scheduleAsync(Map<String, Iterable<Request>> requests,
 			CallChain chain, SchedulingConfig scheduleConfig);
 
-	protected abstract List<Request> resolveRequestTemplate(RequestTemplate template, Ether contextEther);
+	protected abstract Iterable<Request> resolveRequestTemplate(RequestTemplate template, Ether contextEther);
 }
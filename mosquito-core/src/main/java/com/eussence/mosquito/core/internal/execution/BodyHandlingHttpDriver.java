@@ -0,0 +1,57 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.HttpDriver;
+
+/**
+ * A driver applying a run's body handling to requests that don't set their
+ * own.
+ * 
+ * @author Ernest Kiwele
+ */
+class BodyHandlingHttpDriver implements HttpDriver {
+
+	private final HttpDriver driver;
+	private final BodyHandling bodyHandling;
+
+	BodyHandlingHttpDriver(HttpDriver driver, BodyHandling bodyHandling) {
+		this.driver = driver;
+		this.bodyHandling = bodyHandling;
+	}
+
+	private Request apply(Request request) {
+		return null != request.getBodyHandling() ? request
+				: request.toBuilder()
+						.bodyHandling(this.bodyHandling)
+						.build();
+	}
+
+	@Override
+	public Response http(Request request) {
+		return this.driver.http(this.apply(request));
+	}
+
+	@Override
+	public CompletableFuture<Response> asyncHttp(Request request) {
+		return this.driver.asyncHttp(this.apply(request));
+	}
+}
@@ -0,0 +1,750 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.eussence.mosquito.api.CallChain;
+import com.eussence.mosquito.api.MapObject;
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.execution.ExecutionResult;
+import com.eussence.mosquito.api.execution.ExecutionSummary;
+import com.eussence.mosquito.api.execution.LatencyHistogram;
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.RequestTemplate;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.api.utils.JsonMapper;
+import com.eussence.mosquito.command.wrapper.Ether;
+import com.eussence.mosquito.core.api.MosquitoNode;
+import com.eussence.mosquito.core.api.RateLimit;
+import com.eussence.mosquito.core.api.ResultSink;
+import com.eussence.mosquito.core.api.SchedulingConfig;
+import com.eussence.mosquito.core.internal.execution.cluster.ShardAssignment;
+import com.eussence.mosquito.core.internal.execution.cluster.ShardResult;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+
+/**
+ * <p>
+ * A scheduler that splits runs across the nodes of a cluster, over the Vert.x
+ * event bus. The nodes are those registered by a {@link NodeAgent} and accepted
+ * by the config's node selector, and each runs its share with its own
+ * standalone scheduler. Shares are weighted by each node's
+ * {@link MosquitoNode#capacity() capacity}, its cores scaled down by its CPU
+ * load:
+ * </p>
+ * <ul>
+ * <li>Load runs with a fixed number of iterations and no rate are handed out in
+ * batches, about {@value #ROUNDS} per node. Each node is given its next batch
+ * when it reports the previous one, sized from the load it reports, so that
+ * faster nodes take more of the run and saturated nodes less.</li>
+ * <li>Other load runs are split once, by virtual users, or by rate for runs
+ * with a duration.</li>
+ * <li>Requests of templates bound to a dataset are split evenly by records, the
+ * records being read by each node.</li>
+ * </ul>
+ * <p>
+ * Rate limits are divided between the nodes in proportion to their shares.
+ * Retry budgets are kept by each node for its own requests.
+ * </p>
+ * <p>
+ * Nodes send back compact partial results for load runs, counters, histograms
+ * and {@link ExecutionSummary summaries}, which are merged into one result as
+ * they arrive and then dropped. Other runs, such as
+ * single call chain executions, are run locally. Event consumers are not
+ * called for shards run on other nodes.
+ * </p>
+ * <p>
+ * While a run is pending, the descriptors of the nodes owing it results are
+ * checked every {@link NodeAgent#REFRESH_MILLIS} milliseconds, and the run
+ * fails as soon as one of them goes stale or leaves the node map, rather than
+ * when it times out.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class ClusteredScheduler extends AbstractMosquitoScheduler {
+
+	/**
+	 * The time nodes are given to report, in addition to the run's duration.
+	 */
+	public static final Duration DEFAULT_TIMEOUT = Duration.ofHours(1);
+	/**
+	 * The number of batches each node is given, on average, in rebalanced runs.
+	 */
+	public static final int ROUNDS = 4;
+	private static final String RESULT_ADDRESS_PREFIX = "com.eussence.mosquito.results.";
+
+	private final Vertx vertx;
+	private final StandaloneScheduler local;
+	private Duration timeout = DEFAULT_TIMEOUT;
+
+	private ClusteredScheduler(Vertx vertx, StandaloneScheduler local) {
+		this.vertx = vertx;
+		this.local = local;
+		this.resolverFactory = local.resolverFactory;
+	}
+
+	/**
+	 * Create a scheduler coordinating runs from the given Vert.x instance.
+	 * 
+	 * @param vertx The Vert.x instance whose event bus the cluster shares.
+	 * @param local The scheduler for runs that aren't split.
+	 */
+	public static ClusteredScheduler create(Vertx vertx, StandaloneScheduler local) {
+		return new ClusteredScheduler(vertx, local);
+	}
+
+	@Override
+	protected Vertx getVertx() {
+		return this.vertx;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * List the nodes of the cluster accepted by the config's node selector, by
+	 * id. Stale descriptors are removed from the node map and left out.
+	 */
+	public CompletableFuture<List<MosquitoNode>> nodes(SchedulingConfig scheduleConfig) {
+		Predicate<MosquitoNode> selector = null == scheduleConfig.getNodeSelector()
+				? SchedulingConfig.DEFAULT_NODE_SELECTOR
+				: scheduleConfig.getNodeSelector();
+
+		CompletableFuture<List<MosquitoNode>> nodes = new CompletableFuture<>();
+		NodeAgent.nodeMap(this.vertx)
+				.thenAccept(map -> map.entries(entries -> {
+					if (entries.failed()) {
+						nodes.completeExceptionally(entries.cause());
+						return;
+					}
+
+					long staleBefore = System.currentTimeMillis() - NodeAgent.STALE_MILLIS;
+					Map<String, MosquitoNode> live = new LinkedHashMap<>();
+					entries.result()
+							.forEach((id, json) -> {
+								MosquitoNode node = JsonMapper.fromJson(json, MosquitoNode.class);
+								if (node.getUpdatedMillis() < staleBefore) {
+									map.removeIfPresent(id, json, removed -> {
+									});
+								} else {
+									live.put(id, node);
+								}
+							});
+
+					nodes.complete(live.values()
+							.stream()
+							.filter(selector)
+							.sorted(Comparator.comparing(MosquitoNode::getId))
+							.collect(Collectors.toList()));
+				}))
+				.exceptionally(ex -> {
+					nodes.completeExceptionally(ex);
+					return null;
+				});
+
+		return nodes;
+	}
+
+	@Override
+	public Collection<Response> submit(RequestTemplate requestTemplate, Ether contextEther,
+			SchedulingConfig scheduleConfig) {
+		return this.submitAsync(requestTemplate, contextEther, scheduleConfig)
+				.join();
+	}
+
+	/**
+	 * Send the requests of the template. Templates bound to a dataset are split
+	 * across all selected nodes, and their responses are grouped by node. With a
+	 * result file, the responses are written to it as nodes send them.
+	 */
+	@Override
+	public CompletableFuture<Collection<Response>> submitAsync(RequestTemplate requestTemplate, Ether contextEther,
+			SchedulingConfig scheduleConfig) {
+		if (StringUtils.isBlank(requestTemplate.getDataSet())) {
+			return super.submitAsync(requestTemplate, contextEther, scheduleConfig);
+		}
+
+		if (null != scheduleConfig.getResultFile()) {
+			ResultSink sink = ResultSink.open(scheduleConfig.getResultFile());
+
+			return this.run(ShardAssignment.withContext(contextEther)
+					.requestTemplate(requestTemplate), scheduleConfig, false, shard -> shard.getResponses()
+							.forEach(sink::write))
+					.whenComplete((shards, error) -> sink.close())
+					.thenApply(shards -> sink.asCollection(Response.class));
+		}
+
+		return this.run(ShardAssignment.withContext(contextEther)
+				.requestTemplate(requestTemplate), scheduleConfig, false, null)
+				.thenApply(shards -> shards.stream()
+						.flatMap(shard -> shard.getResponses()
+								.stream())
+						.collect(Collectors.toList()));
+	}
+
+	@Override
+	public CompletableFuture<ExecutionResult> load(CallChain callChain, Ether contextEther,
+			SchedulingConfig scheduleConfig) {
+		LoadMerger merger = new LoadMerger(callChain.getKey(), scheduleConfig);
+
+		return this.run(ShardAssignment.withContext(contextEther)
+				.load(true)
+				.callChain(callChain), scheduleConfig, true, merger::add)
+				.thenApply(shards -> merger.result());
+	}
+
+	@Override
+	public CompletableFuture<ExecutionResult> load(RequestTemplate requestTemplate, Ether contextEther,
+			SchedulingConfig scheduleConfig) {
+		LoadMerger merger = new LoadMerger(StringUtils.defaultIfBlank(requestTemplate.getKey(), "request"),
+				scheduleConfig);
+
+		return this.run(ShardAssignment.withContext(contextEther)
+				.load(true)
+				.requestTemplate(requestTemplate), scheduleConfig, true, merger::add)
+				.thenApply(shards -> merger.result());
+	}
+
+	/**
+	 * The number of parts a load run can be split into: its users, its
+	 * iterations, or any number for fixed-rate runs with a duration, which are
+	 * split by rate.
+	 */
+	private static int loadUnits(SchedulingConfig scheduleConfig) {
+		if (scheduleConfig.getVirtualUsers() > 0) {
+			return scheduleConfig.getVirtualUsers();
+		}
+
+		return scheduleConfig.getRatePerSecond() > 0 && null != scheduleConfig.getDuration() ? Integer.MAX_VALUE
+				: scheduleConfig.getIterations();
+	}
+
+	/**
+	 * Whether the run is split into batches handed out as nodes report, rather
+	 * than into one shard per node: runs of a number of iterations, without rate
+	 * or duration.
+	 */
+	private static boolean isRebalanced(SchedulingConfig scheduleConfig) {
+		return scheduleConfig.getVirtualUsers() <= 0 && null == scheduleConfig.getDuration()
+				&& scheduleConfig.getRatePerSecond() <= 0;
+	}
+
+	/**
+	 * Run the assignment on the selected nodes, and collect their results by
+	 * shard and batch. Given a consumer, such as the merger of a load run,
+	 * results are handed to it as they arrive instead of being collected.
+	 */
+	private CompletableFuture<List<ShardResult>> run(ShardAssignment.ShardAssignmentBuilder assignment,
+			SchedulingConfig scheduleConfig, boolean load, Consumer<ShardResult> consumer) {
+		return this.nodes(scheduleConfig)
+				.thenCompose(nodes -> {
+					if (nodes.isEmpty()) {
+						throw new MosquitoException("No cluster node matches the node selector");
+					}
+
+					ClusterRun run = new ClusterRun(assignment, scheduleConfig, consumer);
+					if (!load) {
+						run.start(nodes, shard -> shardConfig(scheduleConfig, 1d / nodes.size(), 1));
+					} else if (isRebalanced(scheduleConfig)) {
+						run.rebalance(nodes, scheduleConfig.getIterations());
+					} else {
+						run.split(nodes, loadUnits(scheduleConfig));
+					}
+
+					return run.done;
+				});
+	}
+
+	/**
+	 * The config of one shard: its share of the iterations or users, and the
+	 * given fraction of the rate and of the rate limits. The node selector, event
+	 * consumers and result file stay on the coordinator, and so does a body
+	 * consumer: shards streaming bodies to a consumer discard them instead, still
+	 * counting and digesting them.
+	 */
+	static SchedulingConfig shardConfig(SchedulingConfig scheduleConfig, double fraction, int units) {
+		var builder = scheduleConfig.toBuilder()
+				.nodeSelector(null)
+				.eventConsumers(null)
+				.resultFile(null)
+				.ratePerSecond(scheduleConfig.getRatePerSecond() * fraction)
+				.hostRateLimits(shareLimits(scheduleConfig.getHostRateLimits(), fraction))
+				.callRateLimits(shareLimits(scheduleConfig.getCallRateLimits(), fraction));
+
+		BodyHandling bodyHandling = scheduleConfig.getBodyHandling();
+		if (null != bodyHandling && bodyHandling.getMode() == BodyHandling.Mode.CONSUMER) {
+			builder.bodyHandling(bodyHandling.toBuilder()
+					.mode(BodyHandling.Mode.DISCARD)
+					.consumer(null)
+					.build());
+		}
+
+		if (scheduleConfig.getVirtualUsers() > 0) {
+			builder.virtualUsers(units);
+		} else {
+			builder.iterations(units);
+		}
+
+		return builder.build();
+	}
+
+	private static Map<String, RateLimit> shareLimits(Map<String, RateLimit> limits, double fraction) {
+		if (null == limits) {
+			return null;
+		}
+
+		Map<String, RateLimit> shares = new LinkedHashMap<>();
+		limits.forEach((key, limit) -> shares.put(key, RateLimit.of(limit.getPermitsPerSecond() * fraction,
+				Math.max(1, (int) Math.ceil(limit.getBurst() * fraction)))));
+
+		return shares;
+	}
+
+	/**
+	 * Divide a total in proportion to the weights, by largest remainder.
+	 */
+	static int[] apportion(int total, double[] weights) {
+		double sum = Arrays.stream(weights)
+				.sum();
+		int[] shares = new int[weights.length];
+		Integer[] byRemainder = new Integer[weights.length];
+		double[] remainders = new double[weights.length];
+		int assigned = 0;
+
+		for (int i = 0; i < weights.length; i++) {
+			double exact = sum > 0 ? total * weights[i] / sum : (double) total / weights.length;
+			shares[i] = (int) exact;
+			remainders[i] = exact - shares[i];
+			byRemainder[i] = i;
+			assigned += shares[i];
+		}
+
+		Arrays.sort(byRemainder, Comparator.comparingDouble((Integer i) -> remainders[i])
+				.reversed());
+		for (int k = 0; assigned < total; k = (k + 1) % weights.length) {
+			shares[byRemainder[k]]++;
+			assigned++;
+		}
+
+		return shares;
+	}
+
+	private static double[] capacities(List<MosquitoNode> nodes) {
+		return nodes.stream()
+				.mapToDouble(MosquitoNode::capacity)
+				.toArray();
+	}
+
+	/**
+	 * The shards and batches of one clustered run, and the consumer of their
+	 * results.
+	 */
+	private final class ClusterRun {
+		private final String runId = UUID.randomUUID()
+				.toString();
+		private final String resultAddress = RESULT_ADDRESS_PREFIX + this.runId;
+		private final ShardAssignment.ShardAssignmentBuilder assignment;
+		private final SchedulingConfig scheduleConfig;
+		private final CompletableFuture<List<ShardResult>> done = new CompletableFuture<>();
+		private final List<ShardResult> results = new ArrayList<>();
+		private final Consumer<ShardResult> consumer;
+
+		private List<MosquitoNode> nodes;
+		private double[] capacities;
+		/**
+		 * The number of batches each shard's node is yet to report.
+		 */
+		private int[] outstanding;
+		private int pending;
+		private int batches;
+		private long remaining;
+		/**
+		 * The number of iterations handed out to the whole cluster per round.
+		 */
+		private long round;
+
+		private ClusterRun(ShardAssignment.ShardAssignmentBuilder assignment, SchedulingConfig scheduleConfig,
+				Consumer<ShardResult> consumer) {
+			this.assignment = assignment;
+			this.scheduleConfig = scheduleConfig;
+			this.consumer = consumer;
+		}
+
+		/**
+		 * Split the units (users or iterations) of the run once between the nodes
+		 * by capacity, leaving out nodes whose share is empty.
+		 */
+		private void split(List<MosquitoNode> candidates, int units) {
+			double[] weights = capacities(candidates);
+			int[] shares = units == Integer.MAX_VALUE ? null : apportion(units, weights);
+
+			List<MosquitoNode> selected = new ArrayList<>();
+			List<Integer> selectedShares = new ArrayList<>();
+			for (int i = 0; i < candidates.size(); i++) {
+				if (null == shares || shares[i] > 0 || (i == candidates.size() - 1 && selected.isEmpty())) {
+					selected.add(candidates.get(i));
+					selectedShares.add(null == shares ? this.scheduleConfig.getIterations() : shares[i]);
+				}
+			}
+
+			double[] selectedWeights = capacities(selected);
+			double total = Arrays.stream(selectedWeights)
+					.sum();
+			this.start(selected, shard -> shardConfig(this.scheduleConfig, selectedWeights[shard] / total,
+					selectedShares.get(shard)));
+		}
+
+		/**
+		 * Hand out the iterations in batches, starting with one batch for each of
+		 * the nodes with the most capacity, as many as there are batches.
+		 */
+		private void rebalance(List<MosquitoNode> candidates, int iterations) {
+			this.remaining = Math.max(0, iterations);
+			this.round = Math.max(1, (long) Math.ceil((double) this.remaining / ROUNDS));
+
+			long count = Math.max(1, Math.min(candidates.size(), this.remaining / this.minimumBatch()));
+			List<MosquitoNode> selected = candidates.stream()
+					.sorted(Comparator.comparingDouble(MosquitoNode::capacity)
+							.reversed())
+					.limit(count)
+					.sorted(Comparator.comparing(MosquitoNode::getId))
+					.collect(Collectors.toList());
+
+			this.start(selected, this::nextBatch);
+		}
+
+		private void start(List<MosquitoNode> selected, IntFunction<SchedulingConfig> configs) {
+			this.nodes = selected;
+			this.capacities = capacities(selected);
+			this.outstanding = new int[selected.size()];
+
+			MessageConsumer<String> consumer = vertx.eventBus()
+					.consumer(this.resultAddress,
+							message -> this.onResult(JsonMapper.fromJson(message.body(), ShardResult.class)));
+
+			Duration deadline = null == this.scheduleConfig.getDuration() ? timeout
+					: timeout.plus(this.scheduleConfig.getDuration());
+			long timer = vertx.setTimer(Math.max(1, deadline.toMillis()), t -> this.done.completeExceptionally(
+					new MosquitoException("Clustered run " + this.runId + " timed out waiting for nodes")));
+			long watch = vertx.setPeriodic(NodeAgent.REFRESH_MILLIS, t -> this.watchNodes());
+			this.done.whenComplete((r, error) -> {
+				vertx.cancelTimer(timer);
+				vertx.cancelTimer(watch);
+				consumer.unregister();
+			});
+
+			consumer.completionHandler(registered -> {
+				if (registered.failed()) {
+					this.done.completeExceptionally(registered.cause());
+					return;
+				}
+
+				synchronized (this) {
+					for (int shard = 0; shard < this.nodes.size(); shard++) {
+						this.send(shard, configs.apply(shard));
+					}
+					this.completeIfDone();
+				}
+			});
+		}
+
+		/**
+		 * Read the node map, failing the run if a node owing results has left it or
+		 * stopped refreshing its descriptor. Failures to read the map are left to the
+		 * next check.
+		 */
+		private void watchNodes() {
+			NodeAgent.nodeMap(vertx)
+					.thenAccept(map -> map.entries(entries -> {
+						if (entries.succeeded()) {
+							this.checkNodes(entries.result());
+						}
+					}));
+		}
+
+		private synchronized void checkNodes(Map<String, String> descriptors) {
+			long staleBefore = System.currentTimeMillis() - NodeAgent.STALE_MILLIS;
+			for (int shard = 0; shard < this.nodes.size(); shard++) {
+				if (this.outstanding[shard] == 0) {
+					continue;
+				}
+
+				String nodeId = this.nodes.get(shard)
+						.getId();
+				String json = descriptors.get(nodeId);
+				if (null == json || JsonMapper.fromJson(json, MosquitoNode.class)
+						.getUpdatedMillis() < staleBefore) {
+					this.done.completeExceptionally(new MosquitoException("Node " + nodeId
+							+ " left the cluster before reporting its shard of run " + this.runId));
+					return;
+				}
+			}
+		}
+
+		private long minimumBatch() {
+			return this.scheduleConfig.isParallel() ? Math.max(1, this.scheduleConfig.getNodeThreadCount()) : 1;
+		}
+
+		/**
+		 * The config of the node's next batch, sized by its share of the cluster's
+		 * capacity. Null once all iterations have been handed out.
+		 */
+		private SchedulingConfig nextBatch(int shard) {
+			if (this.remaining <= 0) {
+				return null;
+			}
+
+			double fraction = this.capacities[shard] / Arrays.stream(this.capacities)
+					.sum();
+			long size = Math.min(this.remaining, Math.max(this.minimumBatch(), Math.round(this.round * fraction)));
+			this.remaining -= size;
+
+			return shardConfig(this.scheduleConfig, fraction, (int) size);
+		}
+
+		private void send(int shard, SchedulingConfig config) {
+			if (null == config) {
+				return;
+			}
+
+			String nodeId = this.nodes.get(shard)
+					.getId();
+			String body = JsonMapper.json(this.assignment.runId(this.runId)
+					.resultAddress(this.resultAddress)
+					.shard(shard)
+					.shardCount(this.nodes.size())
+					.batch(this.batches++)
+					.config(config)
+					.build());
+			this.pending++;
+			this.outstanding[shard]++;
+
+			vertx.eventBus()
+					.request(NodeAgent.address(nodeId), body, reply -> {
+						if (reply.failed()) {
+							this.done.completeExceptionally(new MosquitoException("Node " + nodeId
+									+ " did not accept its shard: " + reply.cause()
+											.getMessage(),
+									reply.cause()));
+						}
+					});
+		}
+
+		private synchronized void onResult(ShardResult result) {
+			if (null != result.getError()) {
+				this.done.completeExceptionally(
+						new MosquitoException("Node " + result.getNodeId() + " failed: " + result.getError()));
+				return;
+			}
+
+			if (null == this.consumer) {
+				this.results.add(result);
+			} else {
+				try {
+					this.consumer.accept(result);
+				} catch (RuntimeException ex) {
+					this.done.completeExceptionally(ex);
+					return;
+				}
+			}
+			this.pending--;
+			this.outstanding[result.getShard()]--;
+
+			if (this.remaining > 0) {
+				if (null != result.getNode()) {
+					this.capacities[result.getShard()] = result.getNode()
+							.capacity();
+				}
+				this.send(result.getShard(), this.nextBatch(result.getShard()));
+			} else {
+				this.completeIfDone();
+			}
+		}
+
+		private void completeIfDone() {
+			if (this.pending == 0) {
+				this.results.sort(Comparator.comparingInt(ShardResult::getShard)
+						.thenComparingInt(ShardResult::getBatch));
+				this.done.complete(this.results);
+			}
+		}
+	}
+
+	/**
+	 * Merges the results of a load run's shards as they arrive, adding each node's
+	 * counters and last reported load to the details. Only the merged counters,
+	 * histograms and summary are kept, whatever the number of batches.
+	 */
+	private static final class LoadMerger {
+		private final SchedulingConfig scheduleConfig;
+		private final ExecutionResult merged;
+		private final MapObject details = MapObject.instance();
+		private final Map<String, MapObject> nodes = new TreeMap<>();
+
+		private LoadMerger(String id, SchedulingConfig scheduleConfig) {
+			this.scheduleConfig = scheduleConfig;
+			this.merged = ExecutionResult.builder()
+					.id(id)
+					.assertionsRun(scheduleConfig.isRunAssertions())
+					.metricsCollected(scheduleConfig.isCollectMetrics())
+					.build();
+			if (scheduleConfig.isCollectMetrics()) {
+				this.merged.setSummary(new ExecutionSummary(scheduleConfig.getErrorSampleSize(),
+						scheduleConfig.getResponseSampleSize()));
+			}
+		}
+
+		private void add(ShardResult shard) {
+			ExecutionResult result = shard.getResult();
+			ExecutionResult merged = this.merged;
+			merged.setIterationsStarted(merged.getIterationsStarted() + result.getIterationsStarted());
+			merged.setIterationsCompleted(merged.getIterationsCompleted() + result.getIterationsCompleted());
+			merged.setIterationsFailed(merged.getIterationsFailed() + result.getIterationsFailed());
+			merged.setStartDate(earliest(merged.getStartDate(), result.getStartDate()));
+			merged.setEndDate(null == merged.getEndDate() || (null != result.getEndDate() && result.getEndDate()
+					.isAfter(merged.getEndDate())) ? result.getEndDate() : merged.getEndDate());
+			merged.setLatencies(mergeHistograms(merged.getLatencies(), result.getLatencies()));
+			merged.setCorrectedLatencies(mergeHistograms(merged.getCorrectedLatencies(), result.getCorrectedLatencies()));
+			merged.setThrottleWaits(mergeHistograms(merged.getThrottleWaits(), result.getThrottleWaits()));
+			if (null != merged.getSummary() && null != result.getSummary()) {
+				merged.getSummary()
+						.merge(result.getSummary());
+			}
+
+			if (null != result.getDetails() && !this.details.containsKey("model")) {
+				this.details.add("model", result.getDetails()
+						.get("model"));
+			}
+			if (null != result.getDetails() && result.getDetails()
+					.get("retries") instanceof Map) {
+				MapObject retries = (MapObject) this.details.computeIfAbsent("retries", k -> MapObject.instance());
+				((Map<?, ?>) result.getDetails()
+						.get("retries")).forEach((counter, n) -> retries.add(String.valueOf(counter),
+								((Number) retries.getOrDefault(counter, 0L)).longValue() + ((Number) n).longValue()));
+			}
+
+			MapObject node = this.nodes.computeIfAbsent(shard.getNodeId(), n -> MapObject.instance()
+					.add("node", n)
+					.add("batches", 0)
+					.add("iterationsStarted", 0L)
+					.add("iterationsCompleted", 0L)
+					.add("iterationsFailed", 0L));
+			node.add("batches", (int) node.get("batches") + 1)
+					.add("iterationsStarted", (long) node.get("iterationsStarted") + result.getIterationsStarted())
+					.add("iterationsCompleted", (long) node.get("iterationsCompleted") + result.getIterationsCompleted())
+					.add("iterationsFailed", (long) node.get("iterationsFailed") + result.getIterationsFailed());
+			if (null != shard.getNode()) {
+				node.add("cpuCores", shard.getNode()
+						.getCpuCores())
+						.add("cpuLoad", shard.getNode()
+								.getCpuLoad());
+			}
+		}
+
+		private ExecutionResult result() {
+			if (this.scheduleConfig.getRatePerSecond() > 0) {
+				this.details.add("ratePerSecond", this.scheduleConfig.getRatePerSecond());
+			}
+			if (null != this.merged.getStartDate() && null != this.merged.getEndDate()) {
+				this.details.add("durationMillis", Duration.between(this.merged.getStartDate(), this.merged.getEndDate())
+						.toMillis());
+			}
+			this.merged.setDetails(this.details.add("nodes", new ArrayList<>(this.nodes.values())));
+
+			return this.merged;
+		}
+	}
+
+	private static Instant earliest(Instant a, Instant b) {
+		if (null == a) {
+			return b;
+		}
+
+		return null == b || a.isBefore(b) ? a : b;
+	}
+
+	private static Map<String, LatencyHistogram> mergeHistograms(Map<String, LatencyHistogram> into,
+			Map<String, LatencyHistogram> from) {
+		if (null == from) {
+			return into;
+		}
+
+		Map<String, LatencyHistogram> merged = null == into ? new LinkedHashMap<>() : into;
+		from.forEach((key, histogram) -> merged.computeIfAbsent(key, k -> new LatencyHistogram())
+				.merge(histogram));
+
+		return merged;
+	}
+
+	@Override
+	protected Collection<Response> schedule(Iterable<Request> requests, SchedulingConfig scheduleConfig) {
+		return this.local.schedule(requests, scheduleConfig);
+	}
+
+	@Override
+	protected CompletableFuture<Collection<Response>> scheduleAsync(Iterable<Request> requests,
+			SchedulingConfig scheduleConfig) {
+		return this.local.scheduleAsync(requests, scheduleConfig);
+	}
+
+	@Override
+	protected ExecutionResult schedule(Map<String, Iterable<Request>> requests, CallChain chain,
+			SchedulingConfig scheduleConfig) {
+		return this.local.schedule(requests, chain, scheduleConfig);
+	}
+
+	@Override
+	protected CompletableFuture<ExecutionResult> scheduleAsync(Map<String, Iterable<Request>> requests,
+			CallChain chain, SchedulingConfig scheduleConfig) {
+		return this.local.scheduleAsync(requests, chain, scheduleConfig);
+	}
+
+	@Override
+	protected Iterable<Request> resolveRequestTemplate(RequestTemplate template, Ether contextEther) {
+		return this.local.resolveRequestTemplate(template, contextEther);
+	}
+
+	@Override
+	public void shutdown() {
+		this.local.shutdown();
+	}
+}
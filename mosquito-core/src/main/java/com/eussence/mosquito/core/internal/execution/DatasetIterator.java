@@ -0,0 +1,84 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * An iterator of values, such as requests, created from the records of a
+ * dataset stream, one record at a time. The stream is closed when the last
+ * record has been read, when creating a value fails, or when the iterator is
+ * closed early.
+ * 
+ * @author Ernest Kiwele
+ */
+class DatasetIterator<T> implements Iterator<T> {
+
+	private final Stream<Map<String, Object>> records;
+	private final Iterator<Map<String, Object>> iterator;
+	private final Function<Map<String, Object>, T> factory;
+	private boolean closed;
+
+	DatasetIterator(Stream<Map<String, Object>> records, Function<Map<String, Object>, T> factory) {
+		this.records = records;
+		this.iterator = records.iterator();
+		this.factory = factory;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.closed) {
+			return false;
+		}
+
+		try {
+			if (this.iterator.hasNext()) {
+				return true;
+			}
+		} catch (RuntimeException ex) {
+			this.close();
+			throw ex;
+		}
+
+		this.close();
+		return false;
+	}
+
+	@Override
+	public T next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		try {
+			return this.factory.apply(this.iterator.next());
+		} catch (RuntimeException ex) {
+			this.close();
+			throw ex;
+		}
+	}
+
+	void close() {
+		if (!this.closed) {
+			this.closed = true;
+			this.records.close();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.HttpDriver;
+
+/**
+ * A driver counting the requests being sent through it, which is how nodes
+ * report their in-flight requests.
+ * 
+ * @author Ernest Kiwele
+ */
+class InFlightHttpDriver implements HttpDriver {
+
+	private final HttpDriver driver;
+	private final AtomicLong inFlight;
+
+	InFlightHttpDriver(HttpDriver driver, AtomicLong inFlight) {
+		this.driver = driver;
+		this.inFlight = inFlight;
+	}
+
+	@Override
+	public Response http(Request request) {
+		this.inFlight.incrementAndGet();
+		try {
+			return this.driver.http(request);
+		} finally {
+			this.inFlight.decrementAndGet();
+		}
+	}
+
+	@Override
+	public CompletableFuture<Response> asyncHttp(Request request) {
+		this.inFlight.incrementAndGet();
+		try {
+			return this.driver.asyncHttp(request)
+					.whenComplete((response, error) -> this.inFlight.decrementAndGet());
+		} catch (RuntimeException ex) {
+			this.inFlight.decrementAndGet();
+			throw ex;
+		}
+	}
+}
@@ -0,0 +1,326 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+import com.eussence.mosquito.api.MapObject;
+import com.eussence.mosquito.api.execution.ExecutionResult;
+import com.eussence.mosquito.core.api.ExecutionEngine;
+import com.eussence.mosquito.core.api.SchedulingConfig;
+
+/**
+ * <p>
+ * Runs an iteration (a call chain, a request) repeatedly, following one of two
+ * models:
+ * </p>
+ * <ul>
+ * <li>Open model, when the config has a positive rate: iteration
+ * <code>i</code> is started at <code>start + i / rate</code>, whether or not
+ * earlier iterations have completed. Start times are computed from the
+ * iteration index rather than from the previous start, so a late start does not
+ * delay the rest of the schedule. The run lasts for the configured duration, or
+ * <code>iterations</code> iterations without one.</li>
+ * <li>Closed model otherwise: <code>iterations</code> iterations are run by a
+ * fixed number of workers (<code>nodeThreadCount</code> for parallel configs,
+ * one otherwise), each starting its next iteration when the previous one
+ * completes. The duration, if set, stops the run early.</li>
+ * </ul>
+ * <p>
+ * {@link #runUsers(String, IntFunction) Virtual-user runs} are closed-model
+ * runs in which each worker is a user with its own iterations and state.
+ * </p>
+ * <p>
+ * Runs stop starting iterations once the engine is shut down, which also
+ * interrupts the threads of virtual users.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+class LoadGenerator {
+
+	/**
+	 * One iteration of a load run.
+	 */
+	@FunctionalInterface
+	interface Iteration {
+
+		/**
+		 * Start the iteration.
+		 * 
+		 * @param index          The iteration's index, from 0.
+		 * @param intendedStartNanos The {@link System#nanoTime() nano time} at which
+		 *                       the iteration was scheduled to start.
+		 * @return A future completed with whether the iteration succeeded.
+		 */
+		CompletableFuture<Boolean> run(long index, long intendedStartNanos);
+	}
+
+	private final ExecutionEngine engine;
+	private final SchedulingConfig config;
+
+	private final LongAdder started = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	LoadGenerator(ExecutionEngine engine, SchedulingConfig config) {
+		this.engine = engine;
+		this.config = config;
+	}
+
+	/**
+	 * Start the run.
+	 * 
+	 * @param id        The id of the result.
+	 * @param iteration The iteration to repeat.
+	 * @return A future completed once every started iteration has completed.
+	 */
+	CompletableFuture<ExecutionResult> run(String id, Iteration iteration) {
+		Instant startDate = Instant.now();
+		long startNanos = System.nanoTime();
+		long endNanos = this.endNanos(startNanos);
+		boolean open = this.config.getRatePerSecond() > 0;
+
+		CompletableFuture<Void> done = open ? this.runOpen(iteration, startNanos, endNanos)
+				: this.runClosed(iteration, endNanos);
+
+		MapObject details = MapObject.instance()
+				.add("model", open ? "open" : "closed");
+		if (open) {
+			details.add("ratePerSecond", this.config.getRatePerSecond());
+		}
+
+		return this.result(id, startDate, details, done);
+	}
+
+	/**
+	 * Start the configured number of virtual users, each on its own thread (a
+	 * virtual thread where available) started under the engine. A user runs its
+	 * iterations one after the other, pausing for the think time between two
+	 * iterations, until the duration is over or, without a duration, for
+	 * <code>iterations</code> iterations, or until its thread is interrupted.
+	 * 
+	 * @param id    The id of the result.
+	 * @param users Creates the iteration of each user, given the user's index.
+	 *              Iterations are run on the user's thread, and may block it.
+	 * @return A future completed once all users have completed.
+	 */
+	CompletableFuture<ExecutionResult> runUsers(String id, IntFunction<Iteration> users) {
+		Instant startDate = Instant.now();
+		long endNanos = this.endNanos(System.nanoTime());
+		long count = null == this.config.getDuration() ? Math.max(0, this.config.getIterations()) : Long.MAX_VALUE;
+		long thinkNanos = null == this.config.getThinkTime() ? 0 : this.config.getThinkTime()
+				.toNanos();
+		int userCount = Math.max(1, this.config.getVirtualUsers());
+		ThreadFactory threads = VirtualThreads.factory("mosquito-user-" + id + "-");
+
+		List<CompletableFuture<Void>> running = new ArrayList<>(userCount);
+		for (int u = 0; u < userCount; u++) {
+			Iteration iteration = users.apply(u);
+			CompletableFuture<Void> user = new CompletableFuture<>();
+			running.add(user);
+
+			try {
+				this.engine.startThread(threads, () -> {
+					try {
+						for (long i = 0; i < count && System.nanoTime() < endNanos && !this.isStopped(); i++) {
+							if (i > 0 && thinkNanos > 0
+									&& !this.waitUntil(Math.min(System.nanoTime() + thinkNanos, endNanos))) {
+								break;
+							}
+
+							if (!this.await(this.start(iteration, i, System.nanoTime()))) {
+								break;
+							}
+						}
+					} finally {
+						user.complete(null);
+					}
+				});
+			} catch (RejectedExecutionException ex) {
+				user.complete(null);
+			}
+		}
+
+		MapObject details = MapObject.instance()
+				.add("model", "virtualUsers")
+				.add("virtualUsers", userCount)
+				.add("virtualThreads", VirtualThreads.isAvailable());
+
+		return this.result(id, startDate, details,
+				CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])));
+	}
+
+	private long endNanos(long startNanos) {
+		return null == this.config.getDuration() ? Long.MAX_VALUE
+				: startNanos + this.config.getDuration()
+						.toNanos();
+	}
+
+	private CompletableFuture<ExecutionResult> result(String id, Instant startDate, MapObject details,
+			CompletableFuture<Void> done) {
+		return done.thenApply(v -> {
+			Instant endDate = Instant.now();
+			details.add("durationMillis", Duration.between(startDate, endDate)
+					.toMillis());
+
+			return ExecutionResult.builder()
+					.id(id)
+					.startDate(startDate)
+					.endDate(endDate)
+					.assertionsRun(this.config.isRunAssertions())
+					.metricsCollected(this.config.isCollectMetrics())
+					.iterationsStarted(this.started.sum())
+					.iterationsCompleted(this.completed.sum())
+					.iterationsFailed(this.failed.sum())
+					.details(details)
+					.build();
+		});
+	}
+
+	private CompletableFuture<Void> runOpen(Iteration iteration, long startNanos, long endNanos) {
+		double rate = this.config.getRatePerSecond();
+		long count = null == this.config.getDuration() ? Math.max(0, this.config.getIterations()) : Long.MAX_VALUE;
+
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		// One pending count for the pacer itself, released when it stops
+		AtomicLong pending = new AtomicLong(1);
+		Runnable release = () -> {
+			if (pending.decrementAndGet() == 0) {
+				done.complete(null);
+			}
+		};
+
+		this.engine.dispatch(() -> {
+			try {
+				for (long i = 0; i < count; i++) {
+					long intended = startNanos + (long) (i * 1_000_000_000d / rate);
+					if (intended >= endNanos || this.engine.isShutdown() || !this.waitUntil(intended)) {
+						break;
+					}
+
+					pending.incrementAndGet();
+					this.start(iteration, i, intended)
+							.whenComplete((ok, error) -> release.run());
+				}
+			} finally {
+				release.run();
+			}
+
+			return null;
+		});
+
+		return done;
+	}
+
+	private CompletableFuture<Void> runClosed(Iteration iteration, long endNanos) {
+		long count = Math.max(0, this.config.getIterations());
+		int workers = this.config.isParallel() ? Math.max(1, this.config.getNodeThreadCount()) : 1;
+		AtomicLong next = new AtomicLong();
+
+		List<CompletableFuture<Object>> running = new ArrayList<>(workers);
+		for (int w = 0; w < workers; w++) {
+			running.add(this.engine.dispatch(() -> {
+				for (long i = next.getAndIncrement(); i < count && System.nanoTime() < endNanos
+						&& !this.engine.isShutdown(); i = next.getAndIncrement()) {
+					this.start(iteration, i, System.nanoTime())
+							.join();
+				}
+
+				return null;
+			}));
+		}
+
+		return CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0]));
+	}
+
+	private CompletableFuture<Boolean> start(Iteration iteration, long index, long intendedStartNanos) {
+		this.started.increment();
+
+		CompletableFuture<Boolean> result;
+		try {
+			result = iteration.run(index, intendedStartNanos);
+		} catch (RuntimeException ex) {
+			result = CompletableFuture.failedFuture(ex);
+		}
+
+		return result.handle((ok, error) -> {
+			this.completed.increment();
+			if (null != error || !Boolean.TRUE.equals(ok)) {
+				this.failed.increment();
+			}
+
+			return null != error ? Boolean.FALSE : ok;
+		});
+	}
+
+	/**
+	 * Whether the current user should stop: its thread was interrupted, or the
+	 * engine shut down.
+	 */
+	private boolean isStopped() {
+		return this.engine.isShutdown() || Thread.currentThread()
+				.isInterrupted();
+	}
+
+	/**
+	 * Wait for the iteration to complete.
+	 * 
+	 * @return false if the thread was interrupted meanwhile.
+	 */
+	private boolean await(CompletableFuture<Boolean> iteration) {
+		try {
+			iteration.get();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Park the current thread until the given nano time.
+	 * 
+	 * @return false if the thread was interrupted.
+	 */
+	private boolean waitUntil(long nanoTime) {
+		long wait;
+		while ((wait = nanoTime - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(wait);
+			if (Thread.interrupted()) {
+				Thread.currentThread()
+						.interrupt();
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.utils.JsonMapper;
+import com.eussence.mosquito.command.wrapper.Ether;
+import com.eussence.mosquito.core.api.MosquitoNode;
+import com.eussence.mosquito.core.api.SchedulingConfig;
+import com.eussence.mosquito.core.internal.execution.cluster.ShardAssignment;
+import com.eussence.mosquito.core.internal.execution.cluster.ShardResult;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.shareddata.AsyncMap;
+
+/**
+ * Runs the shards of clustered runs assigned to this node. The agent listens on
+ * the node's own event bus address, and publishes the node's descriptor in the
+ * {@link #NODE_MAP node map} from which coordinators select nodes. The
+ * descriptor's load figures are updated every {@link #REFRESH_MILLIS}
+ * milliseconds, and sent along with each shard's result. Descriptors not
+ * updated for {@link #STALE_MILLIS} milliseconds are taken to be of nodes that
+ * left without removing them, and are dropped by coordinators, which also fail
+ * the runs such nodes owe results, so node clocks should be kept in sync.
+ * Shards are run by a standalone scheduler, on its execution engine, and their
+ * results are sent to the address given by the coordinator.
+ * 
+ * @author Ernest Kiwele
+ */
+public class NodeAgent {
+
+	public static final String NODE_MAP = "com.eussence.mosquito.map.nodes";
+	public static final long REFRESH_MILLIS = 1000;
+	public static final long STALE_MILLIS = 5 * REFRESH_MILLIS;
+	private static final String NODE_ADDRESS_PREFIX = "com.eussence.mosquito.node.";
+
+	private final Vertx vertx;
+	private final StandaloneScheduler scheduler;
+	private final MosquitoNode node;
+	private final AtomicInteger activeShards = new AtomicInteger();
+	private MessageConsumer<String> consumer;
+	private long refreshTimer = -1;
+
+	private NodeAgent(Vertx vertx, StandaloneScheduler scheduler, MosquitoNode node) {
+		this.vertx = vertx;
+		this.scheduler = scheduler;
+		this.node = node;
+	}
+
+	/**
+	 * Start an agent for the local machine, and wait until it is registered.
+	 * 
+	 * @param vertx     The Vert.x instance whose event bus the cluster shares.
+	 * @param scheduler The scheduler running the node's shards.
+	 */
+	public static NodeAgent start(Vertx vertx, StandaloneScheduler scheduler) {
+		NodeAgent agent = new NodeAgent(vertx, scheduler, MosquitoNode.local(UUID.randomUUID()
+				.toString()));
+		agent.register()
+				.join();
+
+		return agent;
+	}
+
+	static String address(String nodeId) {
+		return NODE_ADDRESS_PREFIX + nodeId;
+	}
+
+	public MosquitoNode getNode() {
+		return node;
+	}
+
+	private CompletableFuture<Void> register() {
+		CompletableFuture<Void> registered = new CompletableFuture<>();
+		this.consumer = this.vertx.eventBus()
+				.consumer(address(this.node.getId()), this::onAssignment);
+		this.consumer.completionHandler(res -> {
+			if (res.failed()) {
+				registered.completeExceptionally(res.cause());
+				return;
+			}
+
+			nodeMap(this.vertx).thenAccept(map -> map.put(this.node.getId(), this.describe(), put -> {
+				complete(registered, put);
+				if (put.succeeded()) {
+					this.refreshTimer = this.vertx.setPeriodic(REFRESH_MILLIS, t -> this.publish());
+				}
+			}))
+					.exceptionally(ex -> {
+						registered.completeExceptionally(ex);
+						return null;
+					});
+		});
+
+		return registered;
+	}
+
+	/**
+	 * Remove the node from the cluster. Shards already running are run to
+	 * completion, though their coordinators fail the runs they belong to once
+	 * the node has left.
+	 */
+	public void stop() {
+		this.vertx.cancelTimer(this.refreshTimer);
+
+		CompletableFuture<Void> removed = new CompletableFuture<>();
+		nodeMap(this.vertx).thenAccept(map -> map.remove(this.node.getId(), res -> {
+			this.consumer.unregister(unregistered -> complete(removed, unregistered));
+		}))
+				.exceptionally(ex -> {
+					removed.completeExceptionally(ex);
+					return null;
+				});
+
+		removed.join();
+	}
+
+	private void publish() {
+		nodeMap(this.vertx).thenAccept(map -> map.put(this.node.getId(), this.describe(), put -> {
+		}));
+	}
+
+	/**
+	 * Refresh the node's load figures and serialize its descriptor.
+	 */
+	private synchronized String describe() {
+		return JsonMapper.json(this.node.refresh(this.scheduler.getInFlightRequests(), this.activeShards.get()));
+	}
+
+	private synchronized String describe(ShardResult result) {
+		result.setNode(this.node.refresh(this.scheduler.getInFlightRequests(), this.activeShards.get()));
+		return JsonMapper.json(result);
+	}
+
+	static CompletableFuture<AsyncMap<String, String>> nodeMap(Vertx vertx) {
+		CompletableFuture<AsyncMap<String, String>> f = new CompletableFuture<>();
+		vertx.sharedData()
+				.<String, String>getAsyncMap(NODE_MAP, res -> {
+					if (res.succeeded()) {
+						f.complete(res.result());
+					} else {
+						f.completeExceptionally(res.cause());
+					}
+				});
+
+		return f;
+	}
+
+	private static void complete(CompletableFuture<Void> f, AsyncResult<?> res) {
+		if (res.succeeded()) {
+			f.complete(null);
+		} else {
+			f.completeExceptionally(res.cause());
+		}
+	}
+
+	/**
+	 * Accept the shard, then run it off the event loop and send its result, or
+	 * the error that stopped it, to the coordinator.
+	 */
+	private void onAssignment(Message<String> message) {
+		ShardAssignment assignment;
+		try {
+			assignment = JsonMapper.fromJson(message.body(), ShardAssignment.class);
+		} catch (RuntimeException ex) {
+			message.fail(0, "Invalid shard assignment: " + ex.getMessage());
+			return;
+		}
+
+		message.reply(this.node.getId());
+		this.activeShards.incrementAndGet();
+
+		CompletableFuture<ShardResult> shard;
+		try {
+			shard = this.scheduler.executionEngine(assignment.getConfig())
+					.dispatch(() -> this.execute(assignment))
+					.thenCompose(Function.identity());
+		} catch (RuntimeException ex) {
+			shard = CompletableFuture.failedFuture(ex);
+		}
+
+		shard.exceptionally(ex -> ShardResult.builder()
+				.error(ExceptionUtils.getMessage(ex instanceof CompletionException ? ex.getCause() : ex))
+				.build())
+				.thenAccept(result -> {
+					result.setRunId(assignment.getRunId());
+					result.setNodeId(this.node.getId());
+					result.setShard(assignment.getShard());
+					result.setBatch(assignment.getBatch());
+					this.activeShards.decrementAndGet();
+
+					this.vertx.eventBus()
+							.send(assignment.getResultAddress(), this.describe(result));
+				});
+	}
+
+	private CompletableFuture<ShardResult> execute(ShardAssignment assignment) {
+		Ether ether = assignment.toEther();
+		SchedulingConfig config = assignment.getConfig();
+
+		if (null != assignment.getCallChain()) {
+			return this.scheduler.load(assignment.getCallChain(), ether, config)
+					.thenApply(result -> ShardResult.builder()
+							.result(result)
+							.build());
+		}
+
+		if (null == assignment.getRequestTemplate()) {
+			throw new MosquitoException("Shard assignment has neither a call chain nor a request template");
+		}
+
+		if (assignment.isLoad()) {
+			return this.scheduler.load(assignment.getRequestTemplate(), ether, config, assignment.getShard(),
+					assignment.getShardCount())
+					.thenApply(result -> ShardResult.builder()
+							.result(result)
+							.build());
+		}
+
+		return this.scheduler.scheduleAsync(this.scheduler.resolveRequestTemplate(assignment.getRequestTemplate(),
+				ether, assignment.getShard(), assignment.getShardCount()), config)
+				.thenApply(responses -> ShardResult.builder()
+						.responses(new ArrayList<>(responses))
+						.build());
+	}
+}
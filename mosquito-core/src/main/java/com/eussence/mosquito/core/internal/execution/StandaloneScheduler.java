@@ -15,29 +15,60 @@
 
 package com.eussence.mosquito.core.internal.execution;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.eussence.mosquito.api.CallChain;
+import com.eussence.mosquito.api.MapObject;
+import com.eussence.mosquito.api.data.Dataset;
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.execution.ExecutionEvent;
 import com.eussence.mosquito.api.execution.ExecutionResult;
 import com.eussence.mosquito.api.execution.ExecutionSchedule;
+import com.eussence.mosquito.api.execution.ExecutionSummary;
+import com.eussence.mosquito.api.execution.LatencyHistogram;
 import com.eussence.mosquito.api.http.Request;
 import com.eussence.mosquito.api.http.RequestTemplate;
+import com.eussence.mosquito.api.http.RequestTemplatePlan;
 import com.eussence.mosquito.api.http.Response;
 import com.eussence.mosquito.command.wrapper.Ether;
+import com.eussence.mosquito.core.api.ExecutionEngine;
+import com.eussence.mosquito.core.api.ExecutionEventStream;
 import com.eussence.mosquito.core.api.Mosquito;
+import com.eussence.mosquito.core.api.RateLimiters;
+import com.eussence.mosquito.core.api.RejectionPolicy;
+import com.eussence.mosquito.core.api.RequestRetrier;
+import com.eussence.mosquito.core.api.ResultSink;
 import com.eussence.mosquito.core.api.SchedulingConfig;
 import com.eussence.mosquito.core.api.execution.standalone.StandaloneSchedule;
 import com.eussence.mosquito.http.api.HttpDriver;
 
+import io.vertx.core.Vertx;
+
 /**
  * A scheduler designed to run calls off the local machine using only resources
  * available on one node.
@@ -46,85 +77,720 @@ import com.eussence.mosquito.http.api.HttpDriver;
  */
 public class StandaloneScheduler extends AbstractMosquitoScheduler {
 
-	private static final StandaloneScheduler instance = new StandaloneScheduler();
+	private static final StandaloneScheduler instance = new StandaloneScheduler(null);
+
+	private final Mosquito runtime;
+	private final Map<List<Object>, ExecutionEngine> executionEngines = new HashMap<>();
+
+	private StandaloneScheduler(Mosquito runtime) {
+		this.runtime = runtime;
+		if (null != runtime && null != runtime.getResolverFactory()) {
+			this.resolverFactory = runtime.getResolverFactory();
+		}
+	}
 
+	/**
+	 * Get the shared scheduler that isn't bound to a runtime, which uses the
+	 * default resolver factory.
+	 */
 	public static StandaloneScheduler getInstance() {
 		return instance;
 	}
 
+	/**
+	 * Create a scheduler for the given runtime. The scheduler takes its resolver
+	 * factory from the runtime, once, and is shut down with it.
+	 */
+	public static StandaloneScheduler forRuntime(Mosquito runtime) {
+		return new StandaloneScheduler(runtime);
+	}
+
+	public Mosquito getRuntime() {
+		return runtime;
+	}
+
+	@Override
+	protected Vertx getVertx() {
+		return null == this.runtime ? null : this.runtime.getVertx();
+	}
+
 	@Override
 	protected Collection<Response> schedule(Iterable<Request> requests, SchedulingConfig scheduleConfig) {
-		return StreamSupport.stream(requests.spliterator(), scheduleConfig.isParallel())
-				.map(it -> this.getDriver(this.getDriverOrDefault(scheduleConfig.getHttpDriverId()))
-						.http(it))
-				.collect(Collectors.toList());
+		if (scheduleConfig.isParallel()) {
+			return this.scheduleAsync(requests, scheduleConfig)
+					.join();
+		}
+
+		HttpDriver driver = this.getDriver(scheduleConfig);
+		RateLimiters limiters = RateLimiters.of(scheduleConfig);
+		RequestRetrier retrier = RequestRetrier.of(scheduleConfig, limiters);
+		return collect(stream(requests).map(request -> this.http(driver, limiters, retrier, request)),
+				ResultSink.of(scheduleConfig));
+	}
+
+	/**
+	 * Collect the responses, or write them to the sink and return them as read
+	 * back from its file. The stream is closed, even if sending a request fails.
+	 */
+	private static Collection<Response> collect(Stream<Response> responses, ResultSink sink) {
+		if (null == sink) {
+			try (responses) {
+				return responses.collect(Collectors.toList());
+			}
+		}
+
+		try (sink; responses) {
+			responses.forEach(sink::write);
+		}
+
+		return sink.asCollection(Response.class);
+	}
+
+	/**
+	 * Stream the requests, closing their dataset when the stream is closed.
+	 */
+	private static Stream<Request> stream(Iterable<Request> requests) {
+		Iterator<Request> iterator = requests.iterator();
+
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+				.onClose(() -> close(iterator));
+	}
+
+	/**
+	 * Close the dataset read by the iterator, if any, when it is abandoned before
+	 * its last request.
+	 */
+	private static void close(Iterator<Request> iterator) {
+		if (iterator instanceof DatasetIterator) {
+			((DatasetIterator<Request>) iterator).close();
+		}
 	}
 
+	/**
+	 * Send the request once the rate limiters allow it, waiting on the calling
+	 * thread, and retry it if the retrier is set.
+	 */
+	private Response http(HttpDriver driver, RateLimiters limiters, RequestRetrier retrier, Request request) {
+		if (null != limiters) {
+			limiters.acquireBlocking(null, request);
+		}
+
+		return null == retrier ? driver.http(request) : retrier.sendBlocking(null, request, driver::http);
+	}
+
+	/**
+	 * Run the requests on the execution engine. Parallel runs send each request
+	 * as a separate task, so at most <code>nodeThreadCount</code> requests are in
+	 * flight; requests are read from the iterable only as the engine's queue
+	 * accepts them, and as the rate limiters allow. Other runs send the requests
+	 * one after the other in a single task. With a result file, responses are
+	 * written to it as they complete rather than held until all have.
+	 */
 	@Override
 	protected CompletableFuture<Collection<Response>> scheduleAsync(Iterable<Request> requests,
 			SchedulingConfig scheduleConfig) {
-		HttpDriver driver = this.getDriver(this.getDriverOrDefault(scheduleConfig.getHttpDriverId()));
+		HttpDriver driver = this.getDriver(scheduleConfig);
+		ExecutionEngine engine = this.executionEngine(scheduleConfig);
+		RateLimiters limiters = RateLimiters.of(scheduleConfig);
+		RequestRetrier retrier = RequestRetrier.of(scheduleConfig, limiters);
 
-		ExecutorService es;
-		if (scheduleConfig.isParallel()) {
-			es = Executors.newFixedThreadPool(Math.max(scheduleConfig.getNodeThreadCount(), 5));
-			return CompletableFuture.supplyAsync(() -> StreamSupport.stream(requests.spliterator(), false)
-					.map(req -> CompletableFuture.supplyAsync(() -> driver.asyncHttp(req), es))
-					.map(CompletableFuture::join)
-					.collect(Collectors.toList())
-					.stream()
-					.map(CompletableFuture::join)
-					.collect(Collectors.toList()));
+		if (!scheduleConfig.isParallel()) {
+			return engine.submit(() -> collect(stream(requests)
+					.map(request -> this.http(driver, limiters, retrier, request)), ResultSink.of(scheduleConfig)));
 		}
 
-		return CompletableFuture.supplyAsync(() -> StreamSupport.stream(requests.spliterator(), false)
-				.map(req -> CompletableFuture.supplyAsync(() -> driver.asyncHttp(req)))
-				.map(CompletableFuture::join)
-				.collect(Collectors.toList())
-				.stream()
-				.map(CompletableFuture::join)
-				.collect(Collectors.toList()));
+		if (null != scheduleConfig.getResultFile()) {
+			return this.scheduleToSink(requests, driver, engine, limiters, retrier,
+					ResultSink.open(scheduleConfig.getResultFile()));
+		}
+
+		return engine.dispatch(() -> {
+			List<CompletableFuture<Response>> responses = new ArrayList<>();
+			Iterator<Request> iterator = requests.iterator();
+			try {
+				while (iterator.hasNext()) {
+					Request request = iterator.next();
+					if (null != limiters) {
+						limiters.acquireBlocking(null, request);
+					}
+					responses.add(engine.submit(() -> this.http(driver, null, retrier, request))
+							.exceptionally(Response::new));
+				}
+			} finally {
+				close(iterator);
+			}
+
+			return responses;
+		})
+				.thenCompose(responses -> CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0]))
+						.thenApply(done -> responses.stream()
+								.map(CompletableFuture::join)
+								.collect(Collectors.toList())));
+	}
+
+	/**
+	 * Send the requests in parallel, writing each response to the sink as it
+	 * completes. Only the number of requests in flight is tracked.
+	 */
+	private CompletableFuture<Collection<Response>> scheduleToSink(Iterable<Request> requests, HttpDriver driver,
+			ExecutionEngine engine, RateLimiters limiters, RequestRetrier retrier, ResultSink sink) {
+		CompletableFuture<Collection<Response>> written = new CompletableFuture<>();
+		AtomicLong pending = new AtomicLong(1);
+		Runnable completed = () -> {
+			if (pending.decrementAndGet() == 0) {
+				sink.close();
+				written.complete(sink.asCollection(Response.class));
+			}
+		};
+
+		engine.dispatch(() -> {
+			Iterator<Request> iterator = requests.iterator();
+			try {
+				while (iterator.hasNext()) {
+					Request request = iterator.next();
+					if (null != limiters) {
+						limiters.acquireBlocking(null, request);
+					}
+					pending.incrementAndGet();
+					engine.submit(() -> this.http(driver, null, retrier, request))
+							.exceptionally(Response::new)
+							.thenAccept(response -> {
+								try {
+									sink.write(response);
+								} catch (RuntimeException ex) {
+									written.completeExceptionally(ex);
+								} finally {
+									completed.run();
+								}
+							});
+				}
+			} finally {
+				close(iterator);
+			}
+
+			return null;
+		})
+				.whenComplete((dispatched, error) -> {
+					if (null != error) {
+						written.completeExceptionally(error);
+					}
+					completed.run();
+				});
+
+		return written;
 	}
 
 	@Override
-	protected ExecutionResult schedule(Map<String, List<Request>> requests, CallChain chain,
+	protected ExecutionResult schedule(Map<String, Iterable<Request>> requests, CallChain chain,
 			SchedulingConfig scheduleConfig) {
+		StandaloneSchedule schedule = this.standaloneSchedule(chain, scheduleConfig);
+		try {
+			return schedule.execute(ExecutionSchedule.builder()
+					.callChain(chain)
+					.build());
+		} finally {
+			schedule.closeEventStream();
+		}
+	}
+
+	/**
+	 * Create a schedule for the chain. The schedule has an event stream if the
+	 * config has event consumers, which must be closed once done with the
+	 * schedule.
+	 */
+	private StandaloneSchedule standaloneSchedule(CallChain chain, SchedulingConfig scheduleConfig) {
+		Collection<Consumer<ExecutionEvent>> consumers = null == scheduleConfig.getEventConsumers()
+				? new ArrayList<>()
+				: new ArrayList<>(scheduleConfig.getEventConsumers());
+		ExecutionEventStream eventStream = consumers.isEmpty() ? null
+				: new ExecutionEventStream(consumers,
+						scheduleConfig.getEventBufferSize() > 0 ? scheduleConfig.getEventBufferSize()
+								: ExecutionEventStream.DEFAULT_CAPACITY,
+						scheduleConfig.getEventOverflowPolicy());
+
+		Executor completions = this.executionEngine(scheduleConfig)
+				.completions();
+		RateLimiters limiters = RateLimiters.of(scheduleConfig, completions);
+
 		return StandaloneSchedule.builder()
-				.client(this.getDriver(scheduleConfig.getHttpDriverId()))
+				.client(this.getDriver(scheduleConfig))
+				.completionExecutor(completions)
 				.collectMetrics(scheduleConfig.isCollectMetrics())
-				.eventConsumers(scheduleConfig.getEventConsumers())
+				.eventConsumers(consumers)
+				.eventStream(eventStream)
+				.rateLimiters(limiters)
+				.retrier(RequestRetrier.of(scheduleConfig, limiters, completions))
 				.executionId(chain.getKey())
-				.resolverFactory(Mosquito.instance()
-						.getResolverFactory())
+				.resolverFactory(this.resolverFactory)
 				.runAssertions(scheduleConfig.isRunAssertions())
-				.build()
-				.execute(ExecutionSchedule.builder()
-						.callChain(chain)
-						.datasets(this.getDataSet(chain.getDataSet()))
-						.build());
+				.summary(summary(scheduleConfig))
+				.build();
+	}
+
+	@Override
+	protected CompletableFuture<ExecutionResult> scheduleAsync(Map<String, Iterable<Request>> requests, CallChain chain,
+			SchedulingConfig scheduleConfig) {
+		return this.executionEngine(scheduleConfig)
+				.dispatch(() -> this.schedule(requests, chain, scheduleConfig));
+	}
+
+	/**
+	 * Run the chain once per iteration, each time with a fresh copy of the ether's
+	 * fields, to which the iteration's index is added as <code>iteration</code>.
+	 * Assertions are compiled once and shared by all iterations.
+	 * 
+	 * <p>
+	 * With virtual users, each user instead keeps one context for all its
+	 * iterations, holding its index as <code>user</code>, so values captured from
+	 * responses are available to the user's next iterations. Users wait for their
+	 * responses on their own thread, and so do the calls of their chains when
+	 * virtual threads are available.
+	 * </p>
+	 * 
+	 * <p>
+	 * With a result file, the call chain result of each iteration is written to
+	 * it as the iteration completes.
+	 * </p>
+	 */
+	@Override
+	public CompletableFuture<ExecutionResult> load(CallChain callChain, Ether contextEther,
+			SchedulingConfig scheduleConfig) {
+		MapObject context = contextEther.putAllFields();
+		StandaloneSchedule schedule = this.standaloneSchedule(callChain, scheduleConfig);
+		LoadGenerator generator = new LoadGenerator(this.executionEngine(scheduleConfig), scheduleConfig);
+		ResultSink sink = ResultSink.of(scheduleConfig);
+
+		if (scheduleConfig.getVirtualUsers() <= 0) {
+			return generator.run(callChain.getKey(), (index, intendedStartNanos) -> {
+				MapObject iterationContext = MapObject.instance();
+				iterationContext.putAll(context);
+				iterationContext.add("iteration", index);
+
+				return this.executeIteration(schedule, callChain, iterationContext, index, intendedStartNanos, sink);
+			})
+					.thenApply(result -> withResults(this.withMetrics(result, schedule, scheduleConfig), sink))
+					.whenComplete((result, error) -> {
+						schedule.closeEventStream();
+						closeSink(sink);
+					});
+		}
+
+		ExecutorService callExecutor = VirtualThreads.isAvailable()
+				? VirtualThreads.perTaskExecutor("mosquito-call-" + callChain.getKey() + "-")
+				: null;
+		schedule.setCallExecutor(callExecutor);
+
+		return generator.runUsers(callChain.getKey(), user -> {
+			MapObject userContext = MapObject.instance();
+			userContext.putAll(context);
+			userContext.add("user", user);
+
+			return (index, intendedStartNanos) -> {
+				userContext.add("iteration", index);
+
+				return this.executeIteration(schedule, callChain, userContext, index, intendedStartNanos, sink);
+			};
+		})
+				.thenApply(result -> withResults(this.withMetrics(result, schedule, scheduleConfig), sink))
+				.whenComplete((result, error) -> {
+					schedule.closeEventStream();
+					closeSink(sink);
+					if (null != callExecutor) {
+						callExecutor.shutdown();
+					}
+				});
+	}
+
+	private static ExecutionSummary summary(SchedulingConfig scheduleConfig) {
+		return new ExecutionSummary(scheduleConfig.getErrorSampleSize(), scheduleConfig.getResponseSampleSize());
+	}
+
+	/**
+	 * Add the retrier's counters, if any, to the result's details.
+	 */
+	private static ExecutionResult withRetries(ExecutionResult result, RequestRetrier retrier) {
+		if (null != retrier) {
+			MapObject details = null == result.getDetails() ? MapObject.instance() : result.getDetails();
+			result.setDetails(details.add("retries", retrier.stats()));
+		}
+
+		return result;
+	}
+
+	private ExecutionResult withMetrics(ExecutionResult result, StandaloneSchedule schedule,
+			SchedulingConfig scheduleConfig) {
+		if (scheduleConfig.isCollectMetrics()) {
+			result.setLatencies(schedule.getLatencies());
+			result.setCorrectedLatencies(schedule.getCorrectedLatencies());
+			result.setSummary(schedule.getSummary());
+			if (null != schedule.getRateLimiters()) {
+				result.setThrottleWaits(schedule.getThrottleWaits());
+			}
+		}
+		withRetries(result, schedule.getRetrier());
+
+		return result;
 	}
 
+	private CompletableFuture<Boolean> executeIteration(StandaloneSchedule schedule, CallChain callChain,
+			MapObject context, long index, long intendedStartNanos, ResultSink sink) {
+		return schedule.executeAsync(ExecutionSchedule.builder()
+				.id(callChain.getKey() + "-" + index)
+				.callChain(callChain)
+				.context(context)
+				.build(), intendedStartNanos)
+				.thenApply(result -> {
+					if (null != sink) {
+						sink.write(result.getCallChainResults());
+					}
+					if (null != result.getCallChainResults()) {
+						result.getCallChainResults()
+								.getCallResults()
+								.values()
+								.forEach(callResult -> deleteBodyFile(callResult.getResponse()));
+					}
+
+					return result.isSuccessful();
+				});
+	}
+
+	/**
+	 * Delete the file a response's body was written to, if any. Load runs keep no
+	 * responses once they have been recorded, so their files would otherwise
+	 * pile up for the length of the run.
+	 */
+	private static void deleteBodyFile(Response response) {
+		if (null != response && null != response.getBodyFile()) {
+			try {
+				Files.deleteIfExists(Path.of(response.getBodyFile()));
+			} catch (IOException | RuntimeException ex) {
+				// The file is temporary, and left to the system if it cannot be deleted.
+			}
+		}
+	}
+
+	/**
+	 * Add the result file and the number of results written to it, if any, to
+	 * the result's details.
+	 */
+	private static ExecutionResult withResults(ExecutionResult result, ResultSink sink) {
+		if (null != sink) {
+			MapObject details = null == result.getDetails() ? MapObject.instance() : result.getDetails();
+			result.setDetails(details.add("resultFile", sink.getFile()
+					.toString())
+					.add("results", sink.getCount()));
+		}
+
+		return result;
+	}
+
+	private static void closeSink(ResultSink sink) {
+		if (null != sink) {
+			sink.close();
+		}
+	}
+
+	/**
+	 * Send requests from the template repeatedly. Virtual users send their
+	 * requests with the driver's blocking method, and wait for rate limiters and
+	 * retry backoffs, on their own thread; their requests are not hedged.
+	 */
 	@Override
-	protected CompletableFuture<ExecutionResult> scheduleAsync(Map<String, List<Request>> requests, CallChain chain,
+	public CompletableFuture<ExecutionResult> load(RequestTemplate requestTemplate, Ether contextEther,
 			SchedulingConfig scheduleConfig) {
-		return CompletableFuture.supplyAsync(() -> this.schedule(requests, chain, scheduleConfig));
+		return this.load(requestTemplate, contextEther, scheduleConfig, 0, 1);
+	}
+
+	/**
+	 * Send requests from the template repeatedly, taking only the records of the
+	 * given shard from its dataset. Each iteration renders a fresh request, with
+	 * the iteration's index in the context as <code>iteration</code>. A shard
+	 * without records completes at once, without starting any iteration.
+	 */
+	CompletableFuture<ExecutionResult> load(RequestTemplate requestTemplate, Ether contextEther,
+			SchedulingConfig scheduleConfig, int shard, int shardCount) {
+		String key = StringUtils.defaultIfBlank(requestTemplate.getKey(), "request");
+		RequestCycle cycle = this.requestCycle(requestTemplate, contextEther, shard, shardCount);
+		if (shardCount > 1 && cycle.isEmpty()) {
+			Instant now = Instant.now();
+			return CompletableFuture.completedFuture(ExecutionResult.builder()
+					.id(key)
+					.startDate(now)
+					.endDate(now)
+					.build());
+		}
+
+		HttpDriver driver = this.getDriver(scheduleConfig);
+		LatencyHistogram latency = new LatencyHistogram();
+		LatencyHistogram correctedLatency = new LatencyHistogram();
+		LatencyHistogram throttleWait = new LatencyHistogram();
+		ExecutionSummary summary = summary(scheduleConfig);
+		ExecutionEngine engine = this.executionEngine(scheduleConfig);
+		LoadGenerator generator = new LoadGenerator(engine, scheduleConfig);
+		RateLimiters limiters = RateLimiters.of(scheduleConfig, engine.completions());
+		RequestRetrier retrier = RequestRetrier.of(scheduleConfig, limiters, engine.completions());
+		ResultSink sink = ResultSink.of(scheduleConfig);
+		boolean blocking = scheduleConfig.getVirtualUsers() > 0;
+		Executor completions = blocking ? Runnable::run : engine.completions();
+
+		BiFunction<Request, Long, CompletableFuture<Boolean>> send = (request, intendedStartNanos) -> {
+			long startNanos = System.nanoTime();
+			CompletableFuture<Response> sent;
+			if (null == retrier) {
+				sent = blocking ? CompletableFuture.completedFuture(driver.http(request)) : driver.asyncHttp(request);
+			} else {
+				sent = blocking ? CompletableFuture.completedFuture(retrier.sendBlocking(key, request, driver::http))
+						: retrier.send(key, request, driver::asyncHttp);
+			}
+
+			return sent.exceptionally(Response::new)
+					.thenApplyAsync(response -> {
+						if (scheduleConfig.isCollectMetrics()) {
+							long endNanos = System.nanoTime();
+							summary.recordResponse(key, response, endNanos - startNanos, false);
+							summary.recordExecution(!response.isFailed());
+							if (response.isFailed()) {
+								latency.recordError();
+								correctedLatency.recordError();
+							} else {
+								latency.record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+								correctedLatency.record(endNanos - intendedStartNanos, TimeUnit.NANOSECONDS);
+							}
+						}
+						if (null != sink) {
+							sink.write(response);
+						}
+						deleteBodyFile(response);
+
+						return !response.isFailed();
+					}, completions);
+		};
+
+		LoadGenerator.Iteration iteration = (index, intendedStartNanos) -> {
+			Request request = cycle.next(index);
+			if (null == limiters) {
+				return send.apply(request, intendedStartNanos);
+			}
+
+			CompletableFuture<Long> waited = blocking
+					? CompletableFuture.completedFuture(limiters.acquireBlocking(key, request))
+					: limiters.acquire(key, request);
+
+			return waited.thenCompose(waitedNanos -> {
+				if (scheduleConfig.isCollectMetrics()) {
+					throttleWait.record(waitedNanos, TimeUnit.NANOSECONDS);
+				}
+
+				return send.apply(request, intendedStartNanos);
+			});
+		};
+
+		CompletableFuture<ExecutionResult> run;
+		try {
+			run = blocking ? generator.runUsers(key, user -> iteration) : generator.run(key, iteration);
+		} catch (RuntimeException ex) {
+			closeSink(sink);
+			cycle.close();
+			throw ex;
+		}
+
+		return run.thenApply(result -> {
+			if (scheduleConfig.isCollectMetrics()) {
+				result.setLatencies(Map.of(key, latency));
+				result.setCorrectedLatencies(Map.of(key, correctedLatency));
+				result.setSummary(summary);
+				if (null != limiters) {
+					result.setThrottleWaits(Map.of(key, throttleWait));
+				}
+			}
+
+			return withResults(withRetries(result, retrier), sink);
+		})
+				.whenComplete((result, error) -> {
+					closeSink(sink);
+					cycle.close();
+				});
+	}
+
+	/**
+	 * Get the engine running requests with the config's thread count and queue
+	 * settings, creating it if needed. Runs with the same settings share an
+	 * engine; engines are kept, holding no threads while idle, until the
+	 * scheduler is shut down.
+	 */
+	protected synchronized ExecutionEngine executionEngine(SchedulingConfig scheduleConfig) {
+		int concurrency = Math.max(1, scheduleConfig.getNodeThreadCount());
+		int queueCapacity = scheduleConfig.getQueueCapacity() > 0 ? scheduleConfig.getQueueCapacity()
+				: ExecutionEngine.DEFAULT_QUEUE_CAPACITY;
+		RejectionPolicy rejectionPolicy = null == scheduleConfig.getRejectionPolicy() ? RejectionPolicy.BLOCK
+				: scheduleConfig.getRejectionPolicy();
+
+		return this.executionEngines.computeIfAbsent(List.of(concurrency, queueCapacity, rejectionPolicy),
+				key -> new ExecutionEngine(concurrency, queueCapacity, rejectionPolicy));
+	}
+
+	/**
+	 * The engines running this scheduler's requests, for monitoring their queue
+	 * depth and active count. Empty until the first asynchronous run.
+	 */
+	public synchronized Collection<ExecutionEngine> getExecutionEngines() {
+		return List.copyOf(this.executionEngines.values());
 	}
 
 	@Override
-	protected List<Request> resolveRequestTemplate(RequestTemplate template, Ether contextEther) {
+	public synchronized void shutdown() {
+		this.executionEngines.values()
+				.forEach(ExecutionEngine::shutdown);
+		this.executionEngines.clear();
+	}
 
-		Request request = template.toRequest(resolverFactory, contextEther::putAllFields);
+	/**
+	 * Resolve the template into requests. Templates bound to a dataset yield one
+	 * request per record, rendered lazily as the returned iterable is consumed,
+	 * with the record's fields available to the template's expressions.
+	 */
+	@Override
+	protected Iterable<Request> resolveRequestTemplate(RequestTemplate template, Ether contextEther) {
+		return this.resolveRequestTemplate(template, contextEther, 0, 1);
+	}
 
-		if (StringUtils.isNotBlank(template.getDataSet())) {
-			return this.getDataSet(contextEther.getDataSets()
-					.get(template.getDataSet()))
-					.stream()
-					.map(d -> request.toBuilder()
-							.dataSetRecord(d)
-							.build())
-					.collect(Collectors.toList());
+	/**
+	 * Resolve the template into requests, keeping only the dataset records whose
+	 * index is <code>shard</code> modulo <code>shardCount</code>. Templates
+	 * without a dataset resolve to their single request in every shard.
+	 */
+	Iterable<Request> resolveRequestTemplate(RequestTemplate template, Ether contextEther, int shard,
+			int shardCount) {
+
+		if (StringUtils.isBlank(template.getDataSet())) {
+			return List.of(template.toRequest(resolverFactory, contextEther::putAllFields));
+		}
+
+		Dataset dataSet = dataSet(template, contextEther);
+		RequestTemplatePlan plan = template.compile(resolverFactory);
+		MapObject context = contextEther.putAllFields();
+
+		return () -> new DatasetIterator<>(this.records(dataSet, shard, shardCount),
+				record -> render(plan, context, record));
+	}
+
+	private static Dataset dataSet(RequestTemplate template, Ether contextEther) {
+		Dataset dataSet = contextEther.getDataSets()
+				.get(template.getDataSet());
+		if (null == dataSet) {
+			throw new MosquitoException("Unknown dataset: " + template.getDataSet());
+		}
+
+		return dataSet;
+	}
+
+	/**
+	 * Open the records of the dataset whose index is <code>shard</code> modulo
+	 * <code>shardCount</code>.
+	 */
+	private Stream<Map<String, Object>> records(Dataset dataSet, int shard, int shardCount) {
+		Stream<Map<String, Object>> records = this.getDataSet(dataSet);
+		if (shardCount > 1) {
+			AtomicLong index = new AtomicLong();
+			records = records.filter(record -> index.getAndIncrement() % shardCount == shard);
+		}
+
+		return records;
+	}
+
+	/**
+	 * Render a request for a dataset record, with the record's fields added to
+	 * the context, and the record itself as <code>record</code>.
+	 */
+	private static Request render(RequestTemplatePlan plan, MapObject context, Map<String, Object> record) {
+		MapObject recordContext = MapObject.instance();
+		recordContext.putAll(context);
+		recordContext.putAll(record);
+		recordContext.add("record", record);
+
+		Request request = plan.render(recordContext);
+		request.setDataSetRecord(record);
+
+		return request;
+	}
+
+	private RequestCycle requestCycle(RequestTemplate template, Ether contextEther, int shard, int shardCount) {
+		RequestTemplatePlan plan = template.compile(resolverFactory);
+		MapObject context = contextEther.putAllFields();
+		if (StringUtils.isBlank(template.getDataSet())) {
+			return new RequestCycle(plan, context, null);
 		}
 
-		return List.of(request);
+		Dataset dataSet = dataSet(template, contextEther);
+
+		return new RequestCycle(plan, context,
+				() -> new DatasetIterator<>(this.records(dataSet, shard, shardCount), Function.identity()));
+	}
+
+	/**
+	 * Renders the requests of a load run from a compiled template, a fresh one
+	 * per iteration. Templates bound to a dataset take the next record for each
+	 * request, starting over when the records are exhausted. Once closed, the
+	 * cycle opens no more records, so iterations still running when the run
+	 * ends cannot leave a dataset open.
+	 */
+	private static final class RequestCycle {
+		private final RequestTemplatePlan plan;
+		private final MapObject context;
+		private final Supplier<DatasetIterator<Map<String, Object>>> records;
+		private DatasetIterator<Map<String, Object>> cursor;
+		private boolean closed;
+
+		private RequestCycle(RequestTemplatePlan plan, MapObject context,
+				Supplier<DatasetIterator<Map<String, Object>>> records) {
+			this.plan = plan;
+			this.context = context;
+			this.records = records;
+		}
+
+		private Request next(long iteration) {
+			MapObject iterationContext = MapObject.instance();
+			iterationContext.putAll(this.context);
+			iterationContext.add("iteration", iteration);
+
+			return null == this.records ? this.plan.render(iterationContext)
+					: render(this.plan, iterationContext, this.nextRecord());
+		}
+
+		private synchronized Map<String, Object> nextRecord() {
+			if (this.closed) {
+				throw new MosquitoException("The load run has ended");
+			}
+			if (null == this.cursor || !this.cursor.hasNext()) {
+				this.cursor = this.records.get();
+				if (!this.cursor.hasNext()) {
+					throw new MosquitoException("Request template resolved to no requests");
+				}
+			}
+
+			return this.cursor.next();
+		}
+
+		/**
+		 * Whether the template is bound to a dataset without records.
+		 */
+		private boolean isEmpty() {
+			if (null == this.records) {
+				return false;
+			}
+
+			DatasetIterator<Map<String, Object>> probe = this.records.get();
+			boolean empty = !probe.hasNext();
+			probe.close();
+
+			return empty;
+		}
+
+		private synchronized void close() {
+			this.closed = true;
+			if (null != this.cursor) {
+				this.cursor.close();
+			}
+		}
 	}
 }
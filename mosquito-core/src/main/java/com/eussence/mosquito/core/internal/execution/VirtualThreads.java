@@ -0,0 +1,106 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates virtual threads on runtimes that support them (Java 21 and later).
+ * The API is looked up reflectively, as the project is built for Java 11; on
+ * older runtimes, daemon platform threads are created instead.
+ * 
+ * @author Ernest Kiwele
+ */
+final class VirtualThreads {
+
+	private static final Method ofVirtual;
+	private static final Method name;
+	private static final Method factory;
+	private static final Method newThreadPerTaskExecutor;
+
+	static {
+		Method[] methods = new Method[4];
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			methods[0] = Thread.class.getMethod("ofVirtual");
+			methods[1] = builder.getMethod("name", String.class, long.class);
+			methods[2] = builder.getMethod("factory");
+			methods[3] = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+			// Preview releases declare the API but refuse to use it
+			methods[0].invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			methods = new Method[4];
+		}
+
+		ofVirtual = methods[0];
+		name = methods[1];
+		factory = methods[2];
+		newThreadPerTaskExecutor = methods[3];
+	}
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Whether threads created by this class are virtual.
+	 */
+	static boolean isAvailable() {
+		return null != ofVirtual;
+	}
+
+	/**
+	 * A factory of virtual threads named with the given prefix, or of daemon
+	 * platform threads if virtual threads are not available.
+	 */
+	static ThreadFactory factory(String prefix) {
+		if (isAvailable()) {
+			try {
+				return (ThreadFactory) factory.invoke(name.invoke(ofVirtual.invoke(null), prefix, 0L));
+			} catch (ReflectiveOperationException ex) {
+				// Fall back to platform threads
+			}
+		}
+
+		AtomicInteger counter = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, prefix + counter.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * An executor starting a new virtual thread per task, or a cached pool of
+	 * platform threads if virtual threads are not available.
+	 */
+	static ExecutorService perTaskExecutor(String prefix) {
+		ThreadFactory threadFactory = factory(prefix);
+		if (isAvailable()) {
+			try {
+				return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+			} catch (ReflectiveOperationException ex) {
+				// Fall back to platform threads
+			}
+		}
+
+		return Executors.newCachedThreadPool(threadFactory);
+	}
+}
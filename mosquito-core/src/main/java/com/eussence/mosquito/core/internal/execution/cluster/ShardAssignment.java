@@ -0,0 +1,96 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution.cluster;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.eussence.mosquito.api.CallChain;
+import com.eussence.mosquito.api.data.Dataset;
+import com.eussence.mosquito.api.data.Environment;
+import com.eussence.mosquito.api.http.RequestTemplate;
+import com.eussence.mosquito.command.wrapper.Ether;
+import com.eussence.mosquito.core.api.SchedulingConfig;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The share of a clustered run assigned to one node, as sent over the event
+ * bus. Either the call chain or the request template is set. Template shards
+ * take the records of the template's dataset whose index is
+ * <code>shard</code> modulo <code>shardCount</code>. A node given several
+ * batches of the same run is given the same shard in each.
+ * 
+ * @author Ernest Kiwele
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShardAssignment {
+
+	private String runId;
+	private String resultAddress;
+	private int shard;
+	private int shardCount;
+	private int batch;
+
+	private boolean load;
+	private CallChain callChain;
+	private RequestTemplate requestTemplate;
+	private SchedulingConfig config;
+
+	private Map<String, Object> vars;
+	private Map<String, Environment> environments;
+	private String environment;
+	private Map<String, Dataset> dataSets;
+
+	/**
+	 * Start an assignment holding the parts of the ether that templates and chains
+	 * are resolved from.
+	 */
+	public static ShardAssignmentBuilder withContext(Ether ether) {
+		return ShardAssignment.builder()
+				.vars(ether.getVars())
+				.environments(ether.getEnvironments())
+				.environment(ether.get_env())
+				.dataSets(ether.getDataSets());
+	}
+
+	/**
+	 * Recreate the ether the shard runs in.
+	 */
+	public Ether toEther() {
+		Ether ether = new Ether();
+		if (null != this.vars) {
+			ether.setVars(new HashMap<>(this.vars));
+		}
+		if (null != this.environments) {
+			ether.setEnvironments(new HashMap<>(this.environments));
+		}
+		if (null != this.environment) {
+			ether.set_env(this.environment);
+		}
+		if (null != this.dataSets) {
+			ether.setDataSets(new HashMap<>(this.dataSets));
+		}
+
+		return ether;
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution.cluster;
+
+import java.util.List;
+
+import com.eussence.mosquito.api.execution.ExecutionResult;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.core.api.MosquitoNode;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of one shard of a clustered run, sent by the node that ran it to
+ * the coordinator, along with the node's current descriptor. Load shards report
+ * their counters and histograms only; shards of requests sent once report the
+ * responses. Shards that could not be run report an error instead.
+ * 
+ * @author Ernest Kiwele
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShardResult {
+
+	private String runId;
+	private String nodeId;
+	private int shard;
+	private int batch;
+	private MosquitoNode node;
+
+	private ExecutionResult result;
+	private List<Response> responses;
+	private String error;
+}
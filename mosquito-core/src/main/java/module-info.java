@@ -17,7 +17,7 @@
  * 
  * @author Ernest Kiwele
  */
-module com.eussence.mosquito.core {
+open module com.eussence.mosquito.core {
 	exports com.eussence.mosquito.core.api.data;
 	exports com.eussence.mosquito.core.api;
 
@@ -26,6 +26,7 @@ module com.eussence.mosquito.core {
 	requires com.fasterxml.jackson.core;
 	requires com.fasterxml.jackson.databind;
 	requires com.eussence.mosquito.http;
+	requires java.management;
 	requires org.apache.commons.lang3;
 	requires vertx.core;
 
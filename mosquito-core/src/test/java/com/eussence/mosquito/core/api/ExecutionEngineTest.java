@@ -0,0 +1,179 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ExecutionEngineTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private ExecutionEngine engine;
+
+	@AfterEach
+	void shutdown() throws InterruptedException {
+		this.release.countDown();
+		this.engine.shutdown();
+		Assertions.assertTrue(this.engine.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Submit a task holding the only worker, and another filling the queue.
+	 */
+	private List<CompletableFuture<String>> saturate(RejectionPolicy policy) {
+		this.engine = new ExecutionEngine(1, 1, policy);
+
+		List<CompletableFuture<String>> tasks = new ArrayList<>();
+		tasks.add(this.engine.submit(this::awaitRelease));
+		tasks.add(this.engine.submit(this::awaitRelease));
+		Assertions.assertEquals(1, this.engine.getQueueDepth());
+
+		return tasks;
+	}
+
+	private String awaitRelease() {
+		try {
+			this.release.await();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return Thread.currentThread()
+				.getName();
+	}
+
+	@Test
+	void testBlock() throws Exception {
+		List<CompletableFuture<String>> tasks = this.saturate(RejectionPolicy.BLOCK);
+
+		CompletableFuture<CompletableFuture<String>> submitted = CompletableFuture
+				.supplyAsync(() -> this.engine.submit(() -> "third"));
+		Thread.sleep(200);
+		Assertions.assertFalse(submitted.isDone(), "Submission should wait for queue space");
+
+		this.release.countDown();
+		Assertions.assertEquals("third", submitted.get(5, TimeUnit.SECONDS)
+				.get(5, TimeUnit.SECONDS));
+		for (CompletableFuture<String> task : tasks) {
+			Assertions.assertTrue(task.get(5, TimeUnit.SECONDS)
+					.startsWith("mosquito-exec-"));
+		}
+		Assertions.assertEquals(0, this.engine.getRejectedCount());
+	}
+
+	@Test
+	void testCallerRuns() throws Exception {
+		List<CompletableFuture<String>> tasks = this.saturate(RejectionPolicy.CALLER_RUNS);
+
+		CompletableFuture<String> third = this.engine.submit(() -> Thread.currentThread()
+				.getName());
+		Assertions.assertTrue(third.isDone());
+		Assertions.assertEquals(Thread.currentThread()
+				.getName(), third.get());
+
+		this.release.countDown();
+		CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]))
+				.get(5, TimeUnit.SECONDS);
+		Assertions.assertEquals(0, this.engine.getRejectedCount());
+	}
+
+	@Test
+	void testAbort() throws Exception {
+		List<CompletableFuture<String>> tasks = this.saturate(RejectionPolicy.ABORT);
+
+		CompletableFuture<String> third = this.engine.submit(() -> "third");
+		CompletionException error = Assertions.assertThrows(CompletionException.class, third::join);
+		Assertions.assertTrue(error.getCause() instanceof RejectedExecutionException);
+		Assertions.assertEquals(1, this.engine.getRejectedCount());
+
+		this.release.countDown();
+		CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]))
+				.get(5, TimeUnit.SECONDS);
+		Assertions.assertEquals("fourth", this.engine.submit(() -> "fourth")
+				.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testShutdown() {
+		this.engine = new ExecutionEngine(1, 1, RejectionPolicy.BLOCK);
+		CompletableFuture<String> running = this.engine.submit(this::awaitRelease);
+		this.engine.shutdown();
+
+		CompletionException error = Assertions.assertThrows(CompletionException.class, this.engine
+				.submit(() -> "late")::join);
+		Assertions.assertTrue(error.getCause() instanceof RejectedExecutionException);
+
+		this.release.countDown();
+		Assertions.assertTrue(running.join()
+				.startsWith("mosquito-exec-"));
+	}
+
+	@Test
+	void testDispatchedTasksDoNotQueue() throws Exception {
+		this.engine = new ExecutionEngine(2, 1, RejectionPolicy.BLOCK);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		List<CompletableFuture<String>> dispatched = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			dispatched.add(this.engine.dispatch(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					return this.awaitRelease();
+				} finally {
+					running.decrementAndGet();
+				}
+			}));
+		}
+
+		Thread.sleep(200);
+		Assertions.assertEquals(20, running.get(), "Each dispatched task should start at once");
+
+		this.release.countDown();
+		CompletableFuture.allOf(dispatched.toArray(new CompletableFuture<?>[0]))
+				.get(5, TimeUnit.SECONDS);
+		Assertions.assertEquals(20, maxRunning.get());
+	}
+
+	@Test
+	void testCompletionsRunOffTheCompletingThread() throws Exception {
+		this.engine = new ExecutionEngine(1, 1, RejectionPolicy.BLOCK);
+		CompletableFuture<String> response = new CompletableFuture<>();
+		CompletableFuture<String> handled = response.thenApplyAsync(body -> Thread.currentThread()
+				.getName(), this.engine.completions());
+
+		response.complete("body");
+		Assertions.assertTrue(handled.get(5, TimeUnit.SECONDS)
+				.startsWith("mosquito-complete-"));
+
+		this.engine.shutdown();
+		Assertions.assertEquals(Thread.currentThread()
+				.getName(), CompletableFuture.completedFuture("late")
+						.thenApplyAsync(body -> Thread.currentThread()
+								.getName(), this.engine.completions())
+						.join());
+	}
+}
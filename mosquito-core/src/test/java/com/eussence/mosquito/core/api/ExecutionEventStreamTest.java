@@ -0,0 +1,188 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.execution.ExecutionEvent;
+import com.eussence.mosquito.api.execution.ExecutionEventType;
+
+public class ExecutionEventStreamTest {
+
+	private final Queue<String> delivered = new ConcurrentLinkedQueue<>();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void release() {
+		this.release.countDown();
+	}
+
+	private static ExecutionEvent event(String key) {
+		return ExecutionEvent.builder()
+				.type(ExecutionEventType.CALL_SENT)
+				.executionId("test")
+				.callKey(key)
+				.build();
+	}
+
+	/**
+	 * A consumer holding the drain task on the first event until released.
+	 */
+	private Consumer<ExecutionEvent> blockingConsumer() {
+		return event -> {
+			this.delivered.add(event.getCallKey());
+			try {
+				this.release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread()
+						.interrupt();
+			}
+		};
+	}
+
+	/**
+	 * Publish a first event, taken by the held drain task, and fill the buffer of
+	 * two with two more.
+	 */
+	private ExecutionEventStream saturated(OverflowPolicy policy) throws InterruptedException {
+		ExecutionEventStream stream = new ExecutionEventStream(List.of(this.blockingConsumer()), 2, policy);
+		Assertions.assertTrue(stream.publish(event("e1")));
+		while (this.delivered.isEmpty()) {
+			Thread.sleep(1);
+		}
+
+		Assertions.assertTrue(stream.publish(event("e2")));
+		Assertions.assertTrue(stream.publish(event("e3")));
+		Assertions.assertEquals(2, stream.getBacklog());
+
+		return stream;
+	}
+
+	private void awaitDelivery(ExecutionEventStream stream) throws InterruptedException {
+		this.release.countDown();
+		stream.close();
+		Assertions.assertTrue(stream.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void testDeliveryInOrder() throws Exception {
+		ExecutionEventStream stream = new ExecutionEventStream(List.of(event -> this.delivered.add(event
+				.getCallKey())), ExecutionEventStream.DEFAULT_CAPACITY, null);
+		Queue<String> late = new ConcurrentLinkedQueue<>();
+
+		List<String> keys = IntStream.range(0, 1000)
+				.mapToObj(i -> "e" + i)
+				.collect(Collectors.toList());
+		keys.subList(0, 500)
+				.forEach(key -> stream.publish(event(key)));
+		while (this.delivered.size() < 500) {
+			Thread.sleep(1);
+		}
+		stream.addConsumer(event -> late.add(event.getCallKey()));
+		keys.subList(500, 1000)
+				.forEach(key -> stream.publish(event(key)));
+		this.awaitDelivery(stream);
+
+		Assertions.assertEquals(keys, List.copyOf(this.delivered));
+		Assertions.assertEquals(keys.subList(500, 1000), List.copyOf(late));
+		Assertions.assertEquals(1000, stream.getPublishedCount());
+		Assertions.assertEquals(0, stream.getDroppedCount());
+	}
+
+	@Test
+	void testDropNewest() throws Exception {
+		ExecutionEventStream stream = this.saturated(OverflowPolicy.DROP_NEWEST);
+
+		Assertions.assertFalse(stream.publish(event("e4")));
+		this.awaitDelivery(stream);
+
+		Assertions.assertEquals(List.of("e1", "e2", "e3"), List.copyOf(this.delivered));
+		Assertions.assertEquals(1, stream.getDroppedCount());
+	}
+
+	@Test
+	void testDropOldest() throws Exception {
+		ExecutionEventStream stream = this.saturated(OverflowPolicy.DROP_OLDEST);
+
+		Assertions.assertTrue(stream.publish(event("e4")));
+		this.awaitDelivery(stream);
+
+		Assertions.assertEquals(List.of("e1", "e3", "e4"), List.copyOf(this.delivered));
+		Assertions.assertEquals(1, stream.getDroppedCount());
+	}
+
+	@Test
+	void testBlock() throws Exception {
+		ExecutionEventStream stream = this.saturated(OverflowPolicy.BLOCK);
+
+		CompletableFuture<Boolean> published = CompletableFuture.supplyAsync(() -> stream.publish(event("e4")));
+		Thread.sleep(100);
+		Assertions.assertFalse(published.isDone(), "Publishing should wait for room in the buffer");
+
+		this.release.countDown();
+		Assertions.assertTrue(published.get(5, TimeUnit.SECONDS));
+		this.awaitDelivery(stream);
+
+		Assertions.assertEquals(List.of("e1", "e2", "e3", "e4"), List.copyOf(this.delivered));
+		Assertions.assertEquals(0, stream.getDroppedCount());
+	}
+
+	@Test
+	void testCloseDrainsBuffer() throws Exception {
+		ExecutionEventStream stream = new ExecutionEventStream(List.of(event -> {
+			this.delivered.add(event.getCallKey());
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread()
+						.interrupt();
+			}
+		}), 64, OverflowPolicy.BLOCK);
+
+		for (int i = 0; i < 50; i++) {
+			stream.publish(event("e" + i));
+		}
+		stream.close();
+		Assertions.assertFalse(stream.publish(event("late")));
+
+		Assertions.assertTrue(stream.awaitTermination(5, TimeUnit.SECONDS));
+		Assertions.assertEquals(50, this.delivered.size());
+		Assertions.assertEquals(0, stream.getBacklog());
+		Assertions.assertEquals(1, stream.getDroppedCount());
+	}
+
+	@Test
+	void testCloseIdleStream() throws Exception {
+		ExecutionEventStream stream = new ExecutionEventStream(List.of(event -> this.delivered.add(event
+				.getCallKey())), 16, null);
+		stream.close();
+
+		Assertions.assertTrue(stream.awaitTermination(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(this.delivered.isEmpty());
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.http.HttpMethod;
+import com.eussence.mosquito.api.http.Request;
+
+public class RateLimiterTest {
+
+	private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+	// Allowance for the time taken between two reservations
+	private static final long SLACK = TimeUnit.MILLISECONDS.toNanos(20);
+
+	private static Request get(String uri) {
+		return Request.builder()
+				.uri(uri)
+				.method(HttpMethod.GET)
+				.build();
+	}
+
+	@Test
+	void testBurst() {
+		RateLimiter limiter = new RateLimiter(RateLimit.of(10, 5));
+
+		for (int i = 0; i < 5; i++) {
+			Assertions.assertEquals(0, limiter.reserve(), "permit " + i);
+		}
+
+		long wait = limiter.reserve();
+		Assertions.assertTrue(wait > INTERVAL - SLACK && wait <= INTERVAL, "waited " + wait);
+	}
+
+	@Test
+	void testSustainedSpacing() {
+		RateLimiter limiter = new RateLimiter(RateLimit.of(10, 1));
+
+		long previous = limiter.reserve();
+		Assertions.assertEquals(0, previous);
+		for (int i = 1; i < 10; i++) {
+			long wait = limiter.reserve();
+			long spacing = wait - previous;
+			Assertions.assertTrue(spacing > INTERVAL - SLACK && spacing <= INTERVAL, "spacing " + spacing);
+			previous = wait;
+		}
+	}
+
+	@Test
+	void testBurstRefills() throws Exception {
+		RateLimiter limiter = new RateLimiter(RateLimit.of(50, 2));
+		Assertions.assertEquals(0, limiter.reserve());
+		Assertions.assertEquals(0, limiter.reserve());
+		Assertions.assertTrue(limiter.reserve() > 0);
+
+		// Quiet for longer than the whole burst takes to refill
+		Thread.sleep(100);
+		Assertions.assertEquals(0, limiter.reserve());
+		Assertions.assertEquals(0, limiter.reserve());
+	}
+
+	@Test
+	void testAcquire() throws Exception {
+		RateLimiter limiter = new RateLimiter(RateLimit.of(10, 1));
+		Assertions.assertEquals(0, limiter.acquire()
+				.get(1, TimeUnit.SECONDS));
+
+		long start = System.nanoTime();
+		long waited = limiter.acquire()
+				.get(1, TimeUnit.SECONDS);
+		Assertions.assertTrue(waited > INTERVAL - SLACK, "waited " + waited);
+		Assertions.assertTrue(System.nanoTime() - start >= waited);
+	}
+
+	@Test
+	void testAcquireContinuesOnExecutor() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "limited"));
+		try {
+			RateLimiters limiters = new RateLimiters(null, Map.of("call", RateLimit.of(10, 1)), executor);
+			limiters.reserve("call", get("http://a.example/"));
+
+			Assertions.assertEquals("limited", limiters.acquire("call", get("http://a.example/"))
+					.thenApply(waited -> Thread.currentThread()
+							.getName())
+					.get(1, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testInvalidLimits() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new RateLimiter(RateLimit.of(0, 1)));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new RateLimiter(RateLimit.of(10, 0)));
+	}
+
+	@Test
+	void testLimitersByHostAndCall() {
+		RateLimiters limiters = new RateLimiters(Map.of("a.example", RateLimit.of(10, 1), RateLimiters.ANY_HOST,
+				RateLimit.of(10, 2)), Map.of("call", RateLimit.of(10, 1)));
+
+		Assertions.assertEquals(0, limiters.reserve(null, get("http://a.example/x")));
+		Assertions.assertTrue(limiters.reserve(null, get("http://a.example/y")) > 0);
+
+		// Hosts without a limit of their own each get their own default limiter
+		Assertions.assertEquals(0, limiters.reserve(null, get("http://b.example/")));
+		Assertions.assertEquals(0, limiters.reserve(null, get("http://b.example/")));
+		Assertions.assertEquals(0, limiters.reserve(null, get("http://c.example/")));
+
+		// Requests wait for the longest of their host and call limiters
+		Assertions.assertEquals(0, limiters.reserve("call", get("http://d.example/")));
+		Assertions.assertTrue(limiters.reserve("call", get("http://d.example/")) > 0);
+
+		Assertions.assertNull(RateLimiters.of(SchedulingConfig.builder()
+				.build()));
+	}
+}
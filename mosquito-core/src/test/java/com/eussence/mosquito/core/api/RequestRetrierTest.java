@@ -0,0 +1,218 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.http.HttpMethod;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+
+public class RequestRetrierTest {
+
+	private static final Request GET = Request.builder()
+			.uri("http://localhost/items")
+			.method(HttpMethod.GET)
+			.build();
+
+	private static Response status(int status) {
+		return Response.builder()
+				.status(status)
+				.build();
+	}
+
+	private static RetryPolicy.RetryPolicyBuilder noBackoff() {
+		return RetryPolicy.builder()
+				.initialBackoff(Duration.ZERO)
+				.jitter(0);
+	}
+
+	@Test
+	void testBackoff() {
+		var retrier = new RequestRetrier(RetryPolicy.builder()
+				.initialBackoff(Duration.ofMillis(100))
+				.backoffMultiplier(2)
+				.maxBackoff(Duration.ofMillis(300))
+				.jitter(0)
+				.build());
+
+		Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), retrier.backoffNanos(1, status(503)));
+		Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(200), retrier.backoffNanos(2, status(503)));
+		Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(300), retrier.backoffNanos(3, status(503)));
+
+		var retryAfter = status(429);
+		retryAfter.setHeaders(Map.of("Retry-After", List.of("1")));
+		Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(300), retrier.backoffNanos(1, retryAfter));
+		Assertions.assertEquals(TimeUnit.SECONDS.toNanos(1), new RequestRetrier(RetryPolicy.builder()
+				.build()).backoffNanos(1, retryAfter));
+	}
+
+	@Test
+	void testRetriesAfterBackoff() {
+		var retrier = new RequestRetrier(RetryPolicy.builder()
+				.initialBackoff(Duration.ofMillis(20))
+				.jitter(0)
+				.build());
+		var calls = new AtomicInteger();
+
+		long start = System.nanoTime();
+		Response response = retrier.sendBlocking("k", GET, request -> status(calls.incrementAndGet() < 3 ? 503 : 200));
+
+		Assertions.assertEquals(200, response.getStatus());
+		Assertions.assertEquals(3, calls.get());
+		Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(60));
+		Assertions.assertEquals(2L, retrier.stats()
+				.get("retries"));
+
+		calls.set(0);
+		response = retrier.send("k", GET, request -> CompletableFuture.completedFuture(status(calls
+				.incrementAndGet() < 3 ? 503 : 200)))
+				.join();
+		Assertions.assertEquals(200, response.getStatus());
+		Assertions.assertEquals(3, calls.get());
+	}
+
+	@Test
+	void testJitter() {
+		var retrier = new RequestRetrier(RetryPolicy.builder()
+				.initialBackoff(Duration.ofMillis(100))
+				.jitter(0.5)
+				.build());
+
+		long[] backoffs = IntStream.range(0, 200)
+				.mapToLong(i -> retrier.backoffNanos(1, status(503)))
+				.toArray();
+		for (long backoff : backoffs) {
+			Assertions.assertTrue(backoff >= TimeUnit.MILLISECONDS.toNanos(50)
+					&& backoff <= TimeUnit.MILLISECONDS.toNanos(100), "Backoff out of range: " + backoff);
+		}
+		Assertions.assertTrue(IntStream.range(1, backoffs.length)
+				.anyMatch(i -> backoffs[i] != backoffs[0]), "Backoffs should vary");
+	}
+
+	@Test
+	void testBudgetExhaustion() {
+		var retrier = new RequestRetrier(noBackoff().maxAttempts(5)
+				.budgetRatio(0)
+				.budgetReserve(2)
+				.build());
+		var calls = new AtomicInteger();
+
+		Assertions.assertEquals(503, retrier.sendBlocking("k", GET, request -> {
+			calls.incrementAndGet();
+			return status(503);
+		})
+				.getStatus());
+		Assertions.assertEquals(3, calls.get());
+
+		calls.set(0);
+		retrier.send("k", GET, request -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture(status(503));
+		})
+				.join();
+		Assertions.assertEquals(1, calls.get());
+
+		var stats = retrier.stats();
+		Assertions.assertEquals(2L, stats.get("requests"));
+		Assertions.assertEquals(2L, stats.get("retries"));
+		Assertions.assertEquals(2L, stats.get("budgetExhausted"));
+	}
+
+	@Test
+	void testNonIdempotentRequestsAreNotRetried() {
+		var post = Request.builder()
+				.uri("http://localhost/items")
+				.method(HttpMethod.POST)
+				.build();
+		var calls = new AtomicInteger();
+
+		var retrier = new RequestRetrier(noBackoff().build());
+		retrier.sendBlocking("k", post, request -> {
+			calls.incrementAndGet();
+			return status(503);
+		});
+		retrier.send("k", post, request -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture(status(503));
+		})
+				.join();
+		Assertions.assertEquals(2, calls.get());
+		Assertions.assertEquals(0L, retrier.stats()
+				.get("retries"));
+
+		calls.set(0);
+		new RequestRetrier(noBackoff().retryNonIdempotent(true)
+				.build()).sendBlocking("k", post, request -> {
+					calls.incrementAndGet();
+					return status(503);
+				});
+		Assertions.assertEquals(3, calls.get());
+	}
+
+	@Test
+	void testHedgeWins() {
+		var retrier = new RequestRetrier(noBackoff().hedgeDelay(Duration.ofMillis(50))
+				.build());
+		var calls = new AtomicInteger();
+
+		Response response = retrier.send("k", GET, request -> {
+			Response sent = status(200);
+			if (calls.incrementAndGet() > 1) {
+				sent.setStatusReason("hedge");
+				return CompletableFuture.completedFuture(sent);
+			}
+
+			sent.setStatusReason("first");
+			return CompletableFuture.supplyAsync(() -> sent, CompletableFuture.delayedExecutor(2, TimeUnit.SECONDS));
+		})
+				.orTimeout(1, TimeUnit.SECONDS)
+				.join();
+
+		Assertions.assertEquals("hedge", response.getStatusReason());
+		Assertions.assertEquals(2, calls.get());
+		Assertions.assertEquals(1L, retrier.stats()
+				.get("hedges"));
+		Assertions.assertEquals(1L, retrier.stats()
+				.get("hedgesWon"));
+	}
+
+	@Test
+	void testRetriesWaitForRateLimiters() {
+		var limiters = new RateLimiters(null, Map.of("k", RateLimit.of(10, 1)));
+		var retrier = new RequestRetrier(noBackoff().build(), limiters);
+
+		limiters.acquireBlocking("k", GET);
+		long start = System.nanoTime();
+		retrier.sendBlocking("k", GET, request -> status(503));
+		Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(180));
+
+		limiters.acquireBlocking("k", GET);
+		start = System.nanoTime();
+		retrier.send("k", GET, request -> CompletableFuture.completedFuture(status(503)))
+				.join();
+		Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(180));
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.api;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.http.Response;
+
+public class ResultSinkTest {
+
+	private static Response status(int status) {
+		return Response.builder()
+				.status(status)
+				.build();
+	}
+
+	private static List<Integer> statuses(Stream<Response> responses) {
+		return responses.map(Response::getStatus)
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	void testWriteAndRead(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("results/run.jsonl");
+		try (ResultSink sink = ResultSink.open(file)) {
+			sink.write(status(200));
+			sink.write(status(404));
+			Assertions.assertEquals(2, sink.getCount());
+
+			try (Stream<Response> read = sink.read(Response.class)) {
+				Assertions.assertEquals(List.of(200, 404), statuses(read));
+			}
+		}
+
+		Assertions.assertEquals(2, Files.readAllLines(file)
+				.size());
+	}
+
+	@Test
+	void testReplacesFile(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("run.jsonl");
+		Files.writeString(file, "stale\n");
+
+		ResultSink sink = ResultSink.open(file);
+		sink.write(status(201));
+		sink.close();
+
+		Assertions.assertThrows(MosquitoException.class, () -> sink.write(status(202)));
+		Assertions.assertEquals(1, sink.getCount());
+		Assertions.assertEquals(1, Files.readAllLines(file)
+				.size());
+	}
+
+	@Test
+	void testCollectionIsReadLazily(@TempDir Path dir) throws Exception {
+		ResultSink sink = ResultSink.open(dir.resolve("run.jsonl"));
+		IntStream.range(0, 5)
+				.forEach(i -> sink.write(status(200 + i)));
+
+		Collection<Response> responses = sink.asCollection(Response.class);
+		sink.write(status(299));
+		sink.close();
+
+		// The view has the results written when it was taken, read again each time
+		Assertions.assertEquals(5, responses.size());
+		Assertions.assertEquals(List.of(200, 201, 202, 203, 204), statuses(responses.stream()));
+		Assertions.assertEquals(List.of(200, 201, 202, 203, 204), statuses(responses.stream()));
+
+		// Nothing is read until the first result is asked for
+		Iterator<Response> iterator = responses.iterator();
+		Files.delete(sink.getFile());
+		Assertions.assertTrue(iterator.hasNext());
+		Assertions.assertThrows(MosquitoException.class, iterator::next);
+	}
+
+	@Test
+	void testConcurrentWrites(@TempDir Path dir) {
+		try (ResultSink sink = ResultSink.open(dir.resolve("run.jsonl"))) {
+			CompletableFuture.allOf(IntStream.range(0, 4)
+					.mapToObj(t -> CompletableFuture.runAsync(() -> IntStream.range(0, 250)
+							.forEach(i -> sink.write(status(200)))))
+					.toArray(CompletableFuture[]::new))
+					.join();
+
+			Assertions.assertEquals(1000, sink.getCount());
+			Assertions.assertEquals(1000, sink.asCollection(Response.class)
+					.stream()
+					.filter(response -> response.getStatus() == 200)
+					.count());
+		}
+	}
+
+	@Test
+	void testOfConfig() {
+		Assertions.assertNull(ResultSink.of(SchedulingConfig.builder()
+				.build()));
+	}
+}
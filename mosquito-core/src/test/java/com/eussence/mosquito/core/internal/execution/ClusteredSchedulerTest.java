@@ -0,0 +1,357 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.eussence.mosquito.api.data.Dataset;
+import com.eussence.mosquito.api.execution.ExecutionResult;
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.api.http.RequestTemplate;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.api.utils.JsonMapper;
+import com.eussence.mosquito.command.wrapper.Ether;
+import com.eussence.mosquito.core.api.Mosquito;
+import com.eussence.mosquito.core.api.MosquitoNode;
+import com.eussence.mosquito.core.api.RateLimit;
+import com.eussence.mosquito.core.api.SchedulingConfig;
+import com.eussence.mosquito.http.driver.StandardHttpDriverFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.shareddata.AsyncMap;
+
+/**
+ * Runs three nodes in one JVM, sharing a non-clustered Vert.x instance, against
+ * a loopback server.
+ */
+public class ClusteredSchedulerTest {
+
+	private static final int NODES = 3;
+	private static final Queue<String> paths = new ConcurrentLinkedQueue<>();
+
+	@TempDir
+	static Path dir;
+
+	private static Vertx vertx;
+	private static String base;
+	private static List<Mosquito> runtimes;
+	private static ClusteredScheduler scheduler;
+
+	@BeforeAll
+	static void startCluster() throws Exception {
+		Path config = dir.resolve("mosquito.config.json");
+		Files.writeString(config, "{}");
+		System.setProperty("config.file", config.toString());
+
+		vertx = Vertx.vertx();
+
+		CompletableFuture<HttpServer> started = new CompletableFuture<>();
+		vertx.createHttpServer()
+				.requestHandler(req -> {
+					paths.add(req.path());
+					req.response()
+							.putHeader("Content-Type", "text/plain")
+							.end("ok");
+				})
+				.listen(0, ar -> {
+					if (ar.succeeded()) {
+						started.complete(ar.result());
+					} else {
+						started.completeExceptionally(ar.cause());
+					}
+				});
+
+		base = "http://localhost:" + started.join()
+				.actualPort();
+
+		runtimes = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			runtimes.add(Mosquito.distributedMosquito(vertx));
+		}
+
+		scheduler = (ClusteredScheduler) runtimes.get(0)
+				.getScheduler();
+		scheduler.setTimeout(Duration.ofSeconds(30));
+	}
+
+	@AfterAll
+	static void stopCluster() {
+		runtimes.forEach(Mosquito::shutdown);
+		vertx.close();
+		System.clearProperty("config.file");
+	}
+
+	@BeforeEach
+	void clearPaths() {
+		paths.clear();
+	}
+
+	private static SchedulingConfig.SchedulingConfigBuilder config() {
+		return SchedulingConfig.builder()
+				.httpDriverId(StandardHttpDriverFactory.STANDARD_DRIVER_ID)
+				.parallel(true)
+				.nodeThreadCount(2)
+				.collectMetrics(true);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Object>> nodeDetails(ExecutionResult result) {
+		return (List<Map<String, Object>>) result.getDetails()
+				.get("nodes");
+	}
+
+	private static long sum(List<Map<String, Object>> nodes, String counter) {
+		return nodes.stream()
+				.mapToLong(node -> (long) node.get(counter))
+				.sum();
+	}
+
+	@Test
+	void testNodes() {
+		List<MosquitoNode> nodes = scheduler.nodes(config().build())
+				.join();
+
+		Assertions.assertEquals(runtimes.stream()
+				.map(runtime -> runtime.getNodeAgent()
+						.getNode()
+						.getId())
+				.sorted()
+				.collect(Collectors.toList()), nodes.stream()
+						.map(MosquitoNode::getId)
+						.collect(Collectors.toList()));
+	}
+
+	@Test
+	void testShardConfig() {
+		SchedulingConfig config = config().iterations(10)
+				.ratePerSecond(30)
+				.callRateLimits(Map.of("call", RateLimit.of(30, 4)))
+				.nodeSelector(node -> true)
+				.build();
+
+		SchedulingConfig shard = ClusteredScheduler.shardConfig(config, 1d / NODES, 4);
+		RateLimit limit = shard.getCallRateLimits()
+				.get("call");
+		Assertions.assertEquals(4, shard.getIterations());
+		Assertions.assertEquals(10, shard.getRatePerSecond(), 1e-9);
+		Assertions.assertEquals(10, limit.getPermitsPerSecond(), 1e-9);
+		Assertions.assertEquals(2, limit.getBurst());
+		Assertions.assertNull(shard.getNodeSelector());
+
+		Assertions.assertEquals(2, ClusteredScheduler.shardConfig(config.toBuilder()
+				.virtualUsers(5)
+				.build(), 0.4, 2)
+				.getVirtualUsers());
+	}
+
+	@Test
+	void testApportion() {
+		Assertions.assertArrayEquals(new int[] { 4, 3, 3 }, ClusteredScheduler.apportion(10, new double[] { 1, 1, 1 }));
+		Assertions.assertArrayEquals(new int[] { 2, 6 }, ClusteredScheduler.apportion(8, new double[] { 1, 3 }));
+		Assertions.assertArrayEquals(new int[] { 1, 1 }, ClusteredScheduler.apportion(2, new double[] { 0, 0 }));
+	}
+
+	@Test
+	void testStaleNodesAreDropped() throws Exception {
+		MosquitoNode stale = MosquitoNode.local("stale");
+		stale.setUpdatedMillis(System.currentTimeMillis() - 2 * NodeAgent.STALE_MILLIS);
+
+		AsyncMap<String, String> map = NodeAgent.nodeMap(vertx)
+				.join();
+		CompletableFuture<Void> put = new CompletableFuture<>();
+		map.put(stale.getId(), JsonMapper.json(stale), res -> put.complete(null));
+		put.join();
+
+		List<MosquitoNode> nodes = scheduler.nodes(config().build())
+				.join();
+		Assertions.assertEquals(NODES, nodes.size());
+		Assertions.assertTrue(nodes.stream()
+				.noneMatch(node -> "stale".equals(node.getId())));
+
+		String left = "";
+		for (int i = 0; i < 50 && null != left; i++) {
+			CompletableFuture<String> get = new CompletableFuture<>();
+			map.get(stale.getId(), res -> get.complete(res.result()));
+			left = get.join();
+			if (null != left) {
+				Thread.sleep(20);
+			}
+		}
+		Assertions.assertNull(left);
+	}
+
+	@Test
+	void testRunsFailWhenNodesGoStale() throws Exception {
+		MosquitoNode dead = MosquitoNode.local("dead");
+		dead.setUpdatedMillis(System.currentTimeMillis() - NodeAgent.STALE_MILLIS + 500);
+
+		AsyncMap<String, String> map = NodeAgent.nodeMap(vertx)
+				.join();
+		CompletableFuture<Void> put = new CompletableFuture<>();
+		map.put(dead.getId(), JsonMapper.json(dead), res -> put.complete(null));
+		put.join();
+
+		// Accepts its shard, then never reports or refreshes its descriptor
+		MessageConsumer<String> node = vertx.eventBus()
+				.consumer(NodeAgent.address(dead.getId()), message -> message.reply(dead.getId()));
+		try {
+			CompletableFuture<ExecutionResult> run = scheduler.load(RequestTemplate.builder()
+					.get()
+					.uri(base + "/dead")
+					.build(), new Ether(), config().iterations(4)
+							.nodeSelector(candidate -> dead.getId()
+									.equals(candidate.getId()))
+							.build());
+
+			ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+					() -> run.get(10, TimeUnit.SECONDS));
+			Assertions.assertTrue(error.getCause()
+					.getMessage()
+					.contains("Node dead left the cluster"));
+		} finally {
+			node.unregister();
+			CompletableFuture<Void> removed = new CompletableFuture<>();
+			map.remove(dead.getId(), res -> removed.complete(null));
+			removed.join();
+		}
+	}
+
+	@Test
+	void testIterationsAreSplit() {
+		ExecutionResult result = scheduler.load(RequestTemplate.builder()
+				.get()
+				.uri(base + "/items")
+				.build(), new Ether(), config().iterations(40)
+						.build())
+				.join();
+
+		Assertions.assertEquals(40, result.getIterationsStarted());
+		Assertions.assertEquals(40, result.getIterationsCompleted());
+		Assertions.assertEquals(0, result.getIterationsFailed());
+		Assertions.assertEquals(40, paths.size());
+
+		List<Map<String, Object>> nodes = nodeDetails(result);
+		Assertions.assertEquals(NODES, nodes.size());
+		Assertions.assertEquals(40, sum(nodes, "iterationsCompleted"));
+		Assertions.assertTrue(nodes.stream()
+				.allMatch(node -> (long) node.get("iterationsCompleted") > 0));
+
+		Assertions.assertEquals(40, result.getLatencies()
+				.get("request")
+				.getCount());
+		Assertions.assertEquals(40, result.getCorrectedLatencies()
+				.get("request")
+				.getCount());
+		Assertions.assertTrue(result.getLatencies()
+				.get("request")
+				.getMinValue() <= result.getLatencies()
+						.get("request")
+						.getMaxValue());
+	}
+
+	@Test
+	void testVirtualUsersAreSplit() {
+		ExecutionResult result = scheduler.load(RequestTemplate.builder()
+				.get()
+				.uri(base + "/users")
+				.build(), new Ether(), config().virtualUsers(NODES)
+						.iterations(4)
+						.build())
+				.join();
+
+		Assertions.assertEquals("virtualUsers", result.getDetails()
+				.get("model"));
+		Assertions.assertEquals(NODES * 4, result.getIterationsCompleted());
+		Assertions.assertEquals(NODES * 4, paths.size());
+
+		// Each node runs whole users, each running all of its iterations
+		List<Map<String, Object>> nodes = nodeDetails(result);
+		Assertions.assertEquals(NODES * 4, sum(nodes, "iterationsCompleted"));
+		Assertions.assertTrue(nodes.stream()
+				.allMatch(node -> (long) node.get("iterationsCompleted") % 4 == 0));
+		Assertions.assertEquals(NODES * 4, result.getLatencies()
+				.get("request")
+				.getCount());
+	}
+
+	@Test
+	void testRecordsAreSplit() throws Exception {
+		List<String> ids = IntStream.range(0, 7)
+				.mapToObj(i -> "r" + i)
+				.collect(Collectors.toList());
+		Path records = dir.resolve("records.csv");
+		List<String> lines = new ArrayList<>(List.of("id"));
+		lines.addAll(ids);
+		Files.write(records, lines);
+
+		Ether ether = new Ether();
+		ether.getDataSets()
+				.put("records", Dataset.builder()
+						.id("records")
+						.uri(records.toString())
+						.build());
+
+		Collection<Response> responses = scheduler.submitAsync(RequestTemplate.builder()
+				.get()
+				.uri(base + "/records/${id}")
+				.dataSet("records")
+				.build(), ether, config().build())
+				.join();
+
+		Assertions.assertEquals(ids.size(), responses.size());
+		Assertions.assertTrue(responses.stream()
+				.noneMatch(Response::isFailed));
+		Assertions.assertEquals(ids.stream()
+				.map(id -> "/records/" + id)
+				.collect(Collectors.toList()), paths.stream()
+						.sorted()
+						.collect(Collectors.toList()));
+	}
+
+	@Test
+	void testConsumerBodiesAreDiscardedOnShards() {
+		SchedulingConfig shard = ClusteredScheduler.shardConfig(config().bodyHandling(BodyHandling.consumer(chunk -> {
+		}))
+				.build(), 0.5, 1);
+
+		Assertions.assertEquals(BodyHandling.Mode.DISCARD, shard.getBodyHandling()
+				.getMode());
+		Assertions.assertNull(shard.getBodyHandling()
+				.getConsumer());
+	}
+}
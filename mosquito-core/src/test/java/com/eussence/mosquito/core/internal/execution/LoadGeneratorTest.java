@@ -0,0 +1,250 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.execution.ExecutionResult;
+import com.eussence.mosquito.core.api.ExecutionEngine;
+import com.eussence.mosquito.core.api.RejectionPolicy;
+import com.eussence.mosquito.core.api.SchedulingConfig;
+
+public class LoadGeneratorTest {
+
+	private ExecutionEngine engine;
+
+	@BeforeEach
+	void startEngine() {
+		this.engine = new ExecutionEngine(4, ExecutionEngine.DEFAULT_QUEUE_CAPACITY, RejectionPolicy.BLOCK);
+	}
+
+	@AfterEach
+	void stopEngine() {
+		this.engine.shutdown();
+	}
+
+	private LoadGenerator generator(SchedulingConfig config) {
+		return new LoadGenerator(this.engine, config);
+	}
+
+	private ExecutionResult run(SchedulingConfig config, LoadGenerator.Iteration iteration) throws Exception {
+		return this.generator(config)
+				.run("load", iteration)
+				.get(10, TimeUnit.SECONDS);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+		}
+	}
+
+	@Test
+	void testClosedModel() throws Exception {
+		Queue<Long> indexes = new ConcurrentLinkedQueue<>();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		ExecutionResult result = this.run(SchedulingConfig.builder()
+				.parallel(true)
+				.nodeThreadCount(3)
+				.iterations(30)
+				.build(), (index, intended) -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					sleep(2);
+					indexes.add(index);
+					running.decrementAndGet();
+
+					return CompletableFuture.completedFuture(index % 10 != 0);
+				});
+
+		Assertions.assertEquals("closed", result.getDetails()
+				.get("model"));
+		Assertions.assertEquals(30, result.getIterationsStarted());
+		Assertions.assertEquals(30, result.getIterationsCompleted());
+		Assertions.assertEquals(3, result.getIterationsFailed());
+		Assertions.assertEquals(LongStream.range(0, 30)
+				.boxed()
+				.collect(Collectors.toSet()), Set.copyOf(indexes));
+		Assertions.assertEquals(30, indexes.size());
+		Assertions.assertTrue(maxRunning.get() <= 3, "workers: " + maxRunning.get());
+	}
+
+	@Test
+	void testClosedModelIsSequentialWithoutParallel() throws Exception {
+		List<Long> indexes = new CopyOnWriteArrayList<>();
+
+		ExecutionResult result = this.run(SchedulingConfig.builder()
+				.iterations(5)
+				.build(), (index, intended) -> {
+					indexes.add(index);
+					if (index == 4) {
+						throw new IllegalStateException("failed iteration");
+					}
+
+					return CompletableFuture.completedFuture(true);
+				});
+
+		Assertions.assertEquals(List.of(0L, 1L, 2L, 3L, 4L), indexes);
+		Assertions.assertEquals(5, result.getIterationsCompleted());
+		Assertions.assertEquals(1, result.getIterationsFailed());
+	}
+
+	@Test
+	void testOpenModel() throws Exception {
+		Map<Long, Long> intendedStarts = new ConcurrentHashMap<>();
+
+		long start = System.nanoTime();
+		ExecutionResult result = this.run(SchedulingConfig.builder()
+				.ratePerSecond(100)
+				.iterations(20)
+				.build(), (index, intended) -> {
+					intendedStarts.put(index, intended);
+
+					// Slow iterations don't hold back the next ones
+					return CompletableFuture.supplyAsync(() -> {
+						sleep(50);
+						return true;
+					});
+				});
+		long elapsed = System.nanoTime() - start;
+
+		Assertions.assertEquals("open", result.getDetails()
+				.get("model"));
+		Assertions.assertEquals(100d, result.getDetails()
+				.get("ratePerSecond"));
+		Assertions.assertEquals(20, result.getIterationsCompleted());
+		Assertions.assertEquals(20, intendedStarts.size());
+
+		long interval = TimeUnit.MILLISECONDS.toNanos(10);
+		long first = intendedStarts.get(0L);
+		intendedStarts.forEach((index, intended) -> Assertions.assertEquals(index * interval, intended - first,
+				TimeUnit.MILLISECONDS.toNanos(1)));
+		Assertions.assertTrue(elapsed >= 19 * interval, "elapsed " + elapsed);
+		Assertions.assertTrue(elapsed < TimeUnit.SECONDS.toNanos(2), "elapsed " + elapsed);
+	}
+
+	@Test
+	void testDurationCutoff() throws Exception {
+		long start = System.nanoTime();
+		ExecutionResult closed = this.run(SchedulingConfig.builder()
+				.parallel(true)
+				.nodeThreadCount(2)
+				.iterations(Integer.MAX_VALUE)
+				.duration(Duration.ofMillis(200))
+				.build(), (index, intended) -> {
+					sleep(5);
+					return CompletableFuture.completedFuture(true);
+				});
+		Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+		Assertions.assertTrue(closed.getIterationsStarted() > 0);
+		Assertions.assertTrue(closed.getIterationsStarted() < 200, "started " + closed.getIterationsStarted());
+		Assertions.assertEquals(closed.getIterationsStarted(), closed.getIterationsCompleted());
+
+		// Open runs with a duration start iterations for that long, whatever the count
+		ExecutionResult open = this.run(SchedulingConfig.builder()
+				.ratePerSecond(50)
+				.duration(Duration.ofMillis(200))
+				.build(), (index, intended) -> CompletableFuture.completedFuture(true));
+		Assertions.assertEquals(10, open.getIterationsStarted(), 1);
+	}
+
+	@Test
+	void testVirtualUsers() throws Exception {
+		Map<Integer, List<Long>> iterations = new ConcurrentHashMap<>();
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+		long start = System.nanoTime();
+		ExecutionResult result = this.generator(SchedulingConfig.builder()
+				.virtualUsers(3)
+				.iterations(4)
+				.thinkTime(Duration.ofMillis(20))
+				.build()).runUsers("users", user -> {
+					List<Long> own = iterations.computeIfAbsent(user, u -> new CopyOnWriteArrayList<>());
+					return (index, intended) -> {
+						own.add(index);
+						threads.add(Thread.currentThread());
+						return CompletableFuture.completedFuture(true);
+					};
+				})
+				.get(10, TimeUnit.SECONDS);
+		long elapsed = System.nanoTime() - start;
+
+		Assertions.assertEquals("virtualUsers", result.getDetails()
+				.get("model"));
+		Assertions.assertEquals(3, result.getDetails()
+				.get("virtualUsers"));
+		Assertions.assertEquals(12, result.getIterationsCompleted());
+		Assertions.assertEquals(Map.of(0, List.of(0L, 1L, 2L, 3L), 1, List.of(0L, 1L, 2L, 3L), 2, List.of(0L, 1L,
+				2L, 3L)), iterations);
+		Assertions.assertEquals(3, threads.size());
+		// Three think times between each user's four iterations
+		Assertions.assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(60), "elapsed " + elapsed);
+	}
+
+	@Test
+	void testVirtualUsersStopAfterDuration() throws Exception {
+		ExecutionResult result = this.generator(SchedulingConfig.builder()
+				.virtualUsers(2)
+				.iterations(1)
+				.duration(Duration.ofMillis(150))
+				.thinkTime(Duration.ofMillis(10))
+				.build()).runUsers("users", user -> (index, intended) -> CompletableFuture.completedFuture(true))
+				.get(10, TimeUnit.SECONDS);
+
+		// The duration, not the iteration count, ends the run
+		Assertions.assertTrue(result.getIterationsStarted() > 2, "started " + result.getIterationsStarted());
+		Assertions.assertTrue(result.getIterationsStarted() <= 2 * 16, "started " + result.getIterationsStarted());
+		Assertions.assertEquals(result.getIterationsStarted(), result.getIterationsCompleted());
+	}
+
+	@Test
+	void testVirtualUsersStopOnShutdown() throws Exception {
+		CompletableFuture<Boolean> never = new CompletableFuture<>();
+		CompletableFuture<ExecutionResult> run = this.generator(SchedulingConfig.builder()
+				.virtualUsers(3)
+				.iterations(1_000_000)
+				.build()).runUsers("users", user -> (index, intended) -> never);
+
+		Thread.sleep(100);
+		Assertions.assertFalse(run.isDone());
+
+		this.engine.shutdown();
+		ExecutionResult result = run.get(5, TimeUnit.SECONDS);
+		Assertions.assertEquals(3, result.getIterationsStarted());
+		Assertions.assertEquals(0, result.getIterationsCompleted());
+	}
+}
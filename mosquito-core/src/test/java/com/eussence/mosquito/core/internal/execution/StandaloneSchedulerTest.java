@@ -0,0 +1,230 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.core.internal.execution;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.eussence.mosquito.api.data.Dataset;
+import com.eussence.mosquito.api.execution.ExecutionResult;
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.api.http.RequestTemplate;
+import com.eussence.mosquito.command.wrapper.Ether;
+import com.eussence.mosquito.core.api.ExecutionEngine;
+import com.eussence.mosquito.core.api.RejectionPolicy;
+import com.eussence.mosquito.core.api.SchedulingConfig;
+import com.eussence.mosquito.http.driver.StandardHttpDriverFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+
+public class StandaloneSchedulerTest {
+
+	private static final Queue<String> paths = new ConcurrentLinkedQueue<>();
+
+	private static Vertx vertx;
+	private static String base;
+
+	@BeforeAll
+	static void startServer() {
+		vertx = Vertx.vertx();
+
+		CompletableFuture<HttpServer> started = new CompletableFuture<>();
+		vertx.createHttpServer()
+				.requestHandler(req -> {
+					paths.add(req.path());
+					req.response()
+							.putHeader("Content-Type", "text/plain")
+							.end("ok");
+				})
+				.listen(0, ar -> {
+					if (ar.succeeded()) {
+						started.complete(ar.result());
+					} else {
+						started.completeExceptionally(ar.cause());
+					}
+				});
+
+		base = "http://localhost:" + started.join()
+				.actualPort();
+	}
+
+	@AfterAll
+	static void stopServer() {
+		vertx.close();
+	}
+
+	@BeforeEach
+	void clearPaths() {
+		paths.clear();
+	}
+
+	private static SchedulingConfig loadConfig(int iterations) {
+		return SchedulingConfig.builder()
+				.httpDriverId(StandardHttpDriverFactory.STANDARD_DRIVER_ID)
+				.parallel(true)
+				.nodeThreadCount(4)
+				.iterations(iterations)
+				.build();
+	}
+
+	@Test
+	void testLoadRendersEachIteration() {
+		StandaloneScheduler scheduler = StandaloneScheduler.forRuntime(null);
+		try {
+			ExecutionResult result = scheduler.load(RequestTemplate.builder()
+					.get()
+					.uri(base + "/items/${iteration}")
+					.build(), new Ether(), loadConfig(20))
+					.join();
+
+			Assertions.assertEquals(20, result.getIterationsCompleted());
+			Assertions.assertEquals(0, result.getIterationsFailed());
+			Assertions.assertEquals(IntStream.range(0, 20)
+					.mapToObj(i -> "/items/" + i)
+					.collect(Collectors.toSet()), Set.copyOf(paths));
+			Assertions.assertEquals(20, paths.size());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	void testLoadCyclesDatasetRecords(@TempDir Path dir) throws Exception {
+		Path records = dir.resolve("records.csv");
+		Files.write(records, List.of("id", "a", "b", "c"));
+
+		Ether ether = new Ether();
+		ether.getDataSets()
+				.put("records", Dataset.builder()
+						.id("records")
+						.uri(records.toString())
+						.build());
+
+		StandaloneScheduler scheduler = StandaloneScheduler.forRuntime(null);
+		try {
+			ExecutionResult result = scheduler.load(RequestTemplate.builder()
+					.get()
+					.uri(base + "/records/${id}/${iteration}")
+					.dataSet("records")
+					.build(), ether, loadConfig(6)
+							.toBuilder()
+							.parallel(false)
+							.build())
+					.join();
+
+			Assertions.assertEquals(6, result.getIterationsCompleted());
+			Assertions.assertEquals(List.of("/records/a/0", "/records/b/1", "/records/c/2", "/records/a/3",
+					"/records/b/4", "/records/c/5"), List.copyOf(paths));
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	void testLoadDeletesBodyFiles(@TempDir Path dir) throws Exception {
+		StandaloneScheduler scheduler = StandaloneScheduler.forRuntime(null);
+		try {
+			ExecutionResult result = scheduler.load(RequestTemplate.builder()
+					.get()
+					.uri(base + "/files/${iteration}")
+					.build(), new Ether(), loadConfig(10).toBuilder()
+							.bodyHandling(BodyHandling.file(1)
+									.toBuilder()
+									.directory(dir)
+									.build())
+							.build())
+					.join();
+
+			Assertions.assertEquals(10, result.getIterationsCompleted());
+			Assertions.assertEquals(10, paths.size());
+			try (Stream<Path> files = Files.list(dir)) {
+				Assertions.assertEquals(0, files.count());
+			}
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	void testEnginePerConfig() throws Exception {
+		StandaloneScheduler scheduler = StandaloneScheduler.forRuntime(null);
+		SchedulingConfig config = SchedulingConfig.builder()
+				.nodeThreadCount(2)
+				.build();
+		SchedulingConfig otherQueue = config.toBuilder()
+				.queueCapacity(1)
+				.rejectionPolicy(RejectionPolicy.ABORT)
+				.build();
+		SchedulingConfig otherThreads = config.toBuilder()
+				.nodeThreadCount(1)
+				.build();
+
+		try {
+			ExecutionEngine engine = scheduler.executionEngine(config);
+			CountDownLatch release = new CountDownLatch(1);
+			CompletableFuture<Boolean> running = engine.submit(() -> {
+				try {
+					return release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return false;
+				}
+			});
+
+			ExecutionEngine queueEngine = scheduler.executionEngine(otherQueue);
+			ExecutionEngine threadEngine = scheduler.executionEngine(otherThreads);
+			Assertions.assertNotSame(engine, queueEngine);
+			Assertions.assertNotSame(engine, threadEngine);
+			Assertions.assertSame(engine, scheduler.executionEngine(config.toBuilder()
+					.build()));
+			Assertions.assertEquals(Set.of(engine, queueEngine, threadEngine), Set.copyOf(scheduler
+					.getExecutionEngines()));
+
+			Assertions.assertFalse(engine.isShutdown());
+			Assertions.assertEquals(2, engine.getConcurrency());
+			Assertions.assertEquals(1, threadEngine.getConcurrency());
+			Assertions.assertEquals(RejectionPolicy.ABORT, queueEngine.getRejectionPolicy());
+			Assertions.assertEquals(1, queueEngine.getQueueCapacity());
+
+			Assertions.assertEquals("other", queueEngine.submit(() -> "other")
+					.get(5, TimeUnit.SECONDS));
+			release.countDown();
+			Assertions.assertTrue(running.get(5, TimeUnit.SECONDS));
+		} finally {
+			scheduler.shutdown();
+		}
+
+		Assertions.assertTrue(scheduler.getExecutionEngines()
+				.isEmpty());
+	}
+}
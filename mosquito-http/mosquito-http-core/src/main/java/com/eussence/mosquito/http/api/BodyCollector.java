@@ -0,0 +1,288 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.http.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.http.Body;
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.common.ReponseContentHandler;
+
+/**
+ * Reads a response body in chunks, as set by a request's
+ * {@link BodyHandling body handling}. A collector reads one body, and is not
+ * thread-safe; drivers feed it chunks in order, then
+ * {@link #complete(Response.ResponseBuilder, String, Map) complete} the
+ * response with it.
+ * 
+ * @author Ernest Kiwele
+ */
+public class BodyCollector {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final BodyHandling handling;
+	private final MessageDigest digest;
+	private ByteArrayOutputStream kept;
+	private Path file;
+	private OutputStream fileStream;
+	private long count;
+	private boolean truncated;
+
+	private BodyCollector(BodyHandling handling) {
+		this.handling = handling;
+		this.digest = StringUtils.isBlank(handling.getDigestAlgorithm()) ? null
+				: messageDigest(handling.getDigestAlgorithm());
+
+		if (handling.getMode() == BodyHandling.Mode.CAP || handling.getMode() == BodyHandling.Mode.FILE) {
+			this.kept = new ByteArrayOutputStream((int) Math.min(handling.getMaxBytes(), BUFFER_SIZE));
+		}
+	}
+
+	/**
+	 * Create a collector for the given handling.
+	 * 
+	 * @return The collector, or an empty optional if bodies are buffered.
+	 */
+	public static Optional<BodyCollector> of(BodyHandling handling) {
+		if (null == handling || handling.isBuffered()) {
+			return Optional.empty();
+		}
+		if (handling.getMode() == BodyHandling.Mode.CONSUMER && null == handling.getConsumer()) {
+			throw new MosquitoException("A consumer is needed to stream response bodies");
+		}
+
+		return Optional.of(new BodyCollector(handling));
+	}
+
+	private static MessageDigest messageDigest(String algorithm) {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new MosquitoException("Unknown digest algorithm: " + algorithm, e);
+		}
+	}
+
+	public void accept(ByteBuffer chunk) {
+		if (chunk.hasArray()) {
+			this.accept(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+			chunk.position(chunk.limit());
+		} else {
+			byte[] bytes = new byte[chunk.remaining()];
+			chunk.get(bytes);
+			this.accept(bytes, 0, bytes.length);
+		}
+	}
+
+	public void accept(byte[] bytes, int offset, int length) {
+		if (length <= 0) {
+			return;
+		}
+
+		this.count += length;
+		if (null != this.digest) {
+			this.digest.update(bytes, offset, length);
+		}
+
+		switch (this.handling.getMode()) {
+			case CAP: {
+				int room = (int) Math.max(0, Math.min(length, this.handling.getMaxBytes() - this.kept.size()));
+				this.kept.write(bytes, offset, room);
+				this.truncated |= room < length;
+				break;
+			}
+			case FILE: {
+				this.writeOrSpill(bytes, offset, length);
+				break;
+			}
+			case CONSUMER: {
+				this.handling.getConsumer()
+						.accept(ByteBuffer.wrap(bytes, offset, length)
+								.asReadOnlyBuffer());
+				break;
+			}
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Read the whole stream, without closing it.
+	 */
+	public void accept(InputStream stream) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int read;
+		while ((read = stream.read(buffer)) >= 0) {
+			this.accept(buffer, 0, read);
+		}
+	}
+
+	/**
+	 * Whether accepting a chunk of the given length writes to the body's file, or,
+	 * with a length of 0, whether completing closes one: callers on an event loop
+	 * hand those calls to a worker thread.
+	 */
+	public boolean writesToFile(int length) {
+		return BodyHandling.Mode.FILE == this.handling.getMode()
+				&& (null != this.fileStream || this.kept.size() + length > this.handling.getMaxBytes());
+	}
+
+	private void writeOrSpill(byte[] bytes, int offset, int length) {
+		try {
+			if (null == this.fileStream && this.kept.size() + length > this.handling.getMaxBytes()) {
+				this.file = null == this.handling.getDirectory() ? Files.createTempFile("mosquito-body-", ".tmp")
+						: Files.createTempFile(Files.createDirectories(this.handling.getDirectory()), "mosquito-body-",
+								".tmp");
+				this.fileStream = Files.newOutputStream(this.file);
+				this.kept.writeTo(this.fileStream);
+				this.kept = null;
+			}
+
+			if (null != this.fileStream) {
+				this.fileStream.write(bytes, offset, length);
+			} else {
+				this.kept.write(bytes, offset, length);
+			}
+		} catch (IOException e) {
+			this.abort();
+			throw new MosquitoException("Could not write response body to file: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Release the collector's file after a failure, deleting it.
+	 */
+	public void abort() {
+		try {
+			if (null != this.fileStream) {
+				this.fileStream.close();
+			}
+			if (null != this.file) {
+				Files.deleteIfExists(this.file);
+			}
+		} catch (IOException e) {
+			// Nothing else to release
+		}
+	}
+
+	/**
+	 * Set the body, length, digest and file of the response once the whole body
+	 * has been read. Bodies kept whole in FILE mode are parsed as buffered ones
+	 * are.
+	 * 
+	 * @param builder           The response.
+	 * @param contentTypeHeader The response's content type, possibly null.
+	 * @param headers           The response's headers, with lower-case names.
+	 * @return The builder.
+	 */
+	public Response.ResponseBuilder complete(Response.ResponseBuilder builder, String contentTypeHeader,
+			Map<String, List<String>> headers) {
+		try {
+			if (null != this.fileStream) {
+				this.fileStream.close();
+			}
+		} catch (IOException e) {
+			this.abort();
+			throw new MosquitoException("Could not write response body to file: " + e.getMessage(), e);
+		}
+
+		String mediaType = StringUtils.isBlank(contentTypeHeader) ? null
+				: ContentTypeHandler.extractMediaType(contentTypeHeader);
+		String charSet = this.charSet(contentTypeHeader);
+
+		Body body;
+		if (null != this.file) {
+			body = Body.builder()
+					.entity(this.file.toString())
+					.mediaType(mediaType)
+					.charSet(charSet)
+					.build();
+			builder.bodyFile(this.file.toString());
+		} else if (null != this.kept) {
+			body = this.keptBody(mediaType, charSet, headers);
+		} else {
+			body = Body.builder()
+					.mediaType(mediaType)
+					.charSet(charSet)
+					.build();
+		}
+
+		return builder.body(body)
+				.length(this.count)
+				.truncated(this.truncated)
+				.digest(null == this.digest ? null : hex(this.digest.digest()));
+	}
+
+	private Body keptBody(String mediaType, String charSet, Map<String, List<String>> headers) {
+		byte[] bytes = this.kept.toByteArray();
+		boolean text = null != mediaType && ContentTypeHandler.isTextContentType(mediaType);
+		Object entity = text ? new String(bytes, null == charSet ? StandardCharsets.UTF_8 : Charset.forName(charSet))
+				: bytes;
+
+		ReponseContentHandler handler = null == mediaType ? null : ReponseContentHandler.standardHandler(mediaType);
+		if (text && !this.truncated && null != handler && bytes.length > 0) {
+			return handler.process(entity, headers);
+		}
+
+		return Body.builder()
+				.entity(entity)
+				.mediaType(mediaType)
+				.charSet(charSet)
+				.build();
+	}
+
+	private String charSet(String contentTypeHeader) {
+		if (StringUtils.isBlank(contentTypeHeader)) {
+			return null;
+		}
+
+		for (String part : contentTypeHeader.split(";")) {
+			if (part.trim()
+					.startsWith("charset=")) {
+				return part.split("=")[1].trim();
+			}
+		}
+
+		return null;
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+					.append(Character.forDigit(b & 0xF, 16));
+		}
+
+		return hex.toString();
+	}
+}
@@ -19,10 +19,10 @@ import com.eussence.mosquito.api.http.RequestMapper;
 import com.eussence.mosquito.api.http.ResponseMapper;
 import com.eussence.mosquito.http.api.mapping.DefaultRequestMapper;
 import com.eussence.mosquito.http.api.mapping.DefaultResponseMapper;
+import com.eussence.mosquito.http.driver.vertx.VertxHttpDriver;
 
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpClient;
-import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.http.HttpClientRequest;
 import io.vertx.core.http.HttpClientResponse;
 
@@ -60,11 +60,31 @@ public class DefaultClientBuilder {
 		}
 
 		if (null == this.client) {
-			HttpClientOptions o = new HttpClientOptions().setTryUseCompression(true);
-			this.client = Vertx.vertx().createHttpClient(o);
+			this.client = VertxHttpDriver.getInstance()
+					.getClient();
 		}
 	}
 
+	/**
+	 * Use the given client. By default, clients share the pooled client of the
+	 * default {@link VertxHttpDriver Vert.x driver}.
+	 */
+	public DefaultClientBuilder client(HttpClient client) {
+		this.client = client;
+
+		return this;
+	}
+
+	/**
+	 * Use a client running on the given Vert.x instance, such as the runtime's.
+	 */
+	public DefaultClientBuilder vertx(Vertx vertx) {
+		this.client = VertxHttpDriver.create(vertx)
+				.getClient();
+
+		return this;
+	}
+
 	public DefaultClientBuilder requestMapper(RequestMapper<HttpClientRequest> requestMapper) {
 		this.requestMapper = requestMapper;
 
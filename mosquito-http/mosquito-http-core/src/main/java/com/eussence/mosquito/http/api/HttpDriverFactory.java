@@ -15,6 +15,8 @@
 
 package com.eussence.mosquito.http.api;
 
+import io.vertx.core.Vertx;
+
 /**
  * An HTTP driver factory is used to discover and expose HTTP drivers. HTTP
  * drivers are pluggable implementations of {@link HttpDriver HttpDriver} that
@@ -38,4 +40,15 @@ public interface HttpDriverFactory {
 	String getFeaturesDescription();
 
 	HttpDriver getDriver();
+
+	/**
+	 * Get a driver that runs on the given Vert.x instance, for runtimes that
+	 * already have one. Drivers that don't use Vert.x ignore it.
+	 * 
+	 * @param vertx The runtime's Vert.x instance, possibly null.
+	 * @return The driver.
+	 */
+	default HttpDriver getDriver(Vertx vertx) {
+		return this.getDriver();
+	}
 }
@@ -15,22 +15,56 @@
 
 package com.eussence.mosquito.http.driver;
 
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.eussence.mosquito.api.http.ConnectionConfig;
 import com.eussence.mosquito.api.http.Request;
 import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.api.utils.LruCache;
+import com.eussence.mosquito.http.api.BodyCollector;
 import com.eussence.mosquito.http.api.HttpDriver;
 
 /**
  * Driver for the java.net.http-based implementation of the HTTP client
- * machinery.
+ * machinery. Requests are sent with HTTP/2 where the server supports it, so
+ * concurrent requests to one host are multiplexed on a single connection, and
+ * asynchronous requests do not hold a thread while waiting for responses.
  * 
  * @author Ernest Kiwele
  */
 public class StandardHttpDriver implements HttpDriver {
 
+	/**
+	 * The number of clients with distinct connection settings that are kept.
+	 */
+	public static final int DEFAULT_CLIENT_CAPACITY = 32;
+
 	private static final StandardHttpDriver instance = new StandardHttpDriver();
 
+	private final StandardRequestFactory requestFactory = StandardRequestFactory.instance();
+	private final StandardResponseFactory responseFactory = StandardResponseFactory.instance();
+
+	private final LruCache<ClientKey, HttpClient> clients = new LruCache<>(DEFAULT_CLIENT_CAPACITY);
+	private volatile Executor executor = defaultExecutor();
+
 	private StandardHttpDriver() {
 	}
 
@@ -38,15 +72,189 @@ public class StandardHttpDriver implements HttpDriver {
 		return instance;
 	}
 
+	private static ExecutorService defaultExecutor() {
+		AtomicInteger threads = new AtomicInteger();
+
+		return Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "mosquito-http-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Set the executor that clients use to run their asynchronous tasks and
+	 * dependent stages. Clients created before the change are discarded, so the
+	 * executor only applies to requests sent after this call.
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = Objects.requireNonNull(executor, "Executor may not be null");
+		this.clients.clear();
+	}
+
 	@Override
 	public Response http(Request request) {
-		// TODO implement call
-		return null;
+		try {
+			HttpRequest httpRequest = this.requestFactory.createRequest(request);
+			Optional<BodyCollector> collector = BodyCollector.of(request.getBodyHandling());
+			long start = System.nanoTime();
+
+			if (collector.isPresent()) {
+				HttpResponse<BodyCollector> response = this.getClient(request)
+						.send(httpRequest, collecting(collector.get()));
+
+				return this.responseFactory.createStreamed(response,
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			}
+
+			HttpResponse<String> response = this.getClient(request)
+					.send(httpRequest, BodyHandlers.ofString());
+
+			return this.responseFactory.create(response, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (InterruptedException ex) {
+			Thread.currentThread()
+					.interrupt();
+			return this.responseFactory.create(ex);
+		} catch (Exception ex) {
+			return this.responseFactory.create(ex);
+		}
 	}
 
+	/**
+	 * Send the request with {@link HttpClient#sendAsync}. No thread waits for the
+	 * response; the returned future completes on the client's executor.
+	 */
 	@Override
 	public CompletableFuture<Response> asyncHttp(Request request) {
-		// TODO implement call
-		return null;
+		try {
+			HttpRequest httpRequest = this.requestFactory.createRequest(request);
+			Optional<BodyCollector> collector = BodyCollector.of(request.getBodyHandling());
+			long start = System.nanoTime();
+
+			CompletableFuture<Response> response = collector.isPresent() ? this.getClient(request)
+					.sendAsync(httpRequest, collecting(collector.get()))
+					.thenApply(r -> this.responseFactory.createStreamed(r,
+							TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)))
+					: this.getClient(request)
+							.sendAsync(httpRequest, BodyHandlers.ofString())
+							.thenApply(r -> this.responseFactory.create(r,
+									TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+			return response.exceptionally(ex -> this.responseFactory.create(
+							ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex));
+		} catch (Exception ex) {
+			return CompletableFuture.completedFuture(this.responseFactory.create(ex));
+		}
+	}
+
+	/**
+	 * A body handler feeding the body's chunks to the collector as they arrive.
+	 */
+	private static BodyHandler<BodyCollector> collecting(BodyCollector collector) {
+		return info -> BodySubscribers.fromSubscriber(new CollectingSubscriber(collector), s -> s.result());
+	}
+
+	/**
+	 * The client for the request's connect timeout and redirect policy. Clients
+	 * are cached by these settings, so requests sharing them reuse connections;
+	 * the least recently used ones are dropped once more than
+	 * {@link #DEFAULT_CLIENT_CAPACITY} are cached.
+	 */
+	HttpClient getClient(Request request) {
+		return this.clients.computeIfAbsent(new ClientKey(request.getConnectionConfig()), this::newClient);
+	}
+
+	private HttpClient newClient(ClientKey key) {
+		HttpClient.Builder builder = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.executor(this.executor)
+				.followRedirects(key.followRedirects ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+		if (key.connectionTimeout > 0) {
+			builder.connectTimeout(Duration.ofMillis(key.connectionTimeout));
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * The client settings of a connection config. Read timeouts are set on each
+	 * request instead. Host name verification can only be disabled for the whole
+	 * JVM, with the <code>jdk.internal.httpclient.disableHostnameVerification</code>
+	 * system property.
+	 */
+	private static final class ClientKey {
+		private final long connectionTimeout;
+		private final boolean followRedirects;
+
+		private ClientKey(ConnectionConfig config) {
+			this.connectionTimeout = null == config ? 0 : config.getConnectionTimeout();
+			this.followRedirects = null == config || config.isFollowRedirects();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ClientKey)) {
+				return false;
+			}
+
+			ClientKey other = (ClientKey) o;
+			return this.connectionTimeout == other.connectionTimeout && this.followRedirects == other.followRedirects;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(connectionTimeout, followRedirects);
+		}
+	}
+
+	private static final class CollectingSubscriber implements Flow.Subscriber<List<ByteBuffer>> {
+		private final BodyCollector collector;
+		private Flow.Subscription subscription;
+		private RuntimeException failure;
+
+		private CollectingSubscriber(BodyCollector collector) {
+			this.collector = collector;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> chunks) {
+			if (null != this.failure) {
+				return;
+			}
+
+			try {
+				chunks.forEach(this.collector::accept);
+			} catch (RuntimeException ex) {
+				this.failure = ex;
+				this.collector.abort();
+				this.subscription.cancel();
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			this.collector.abort();
+		}
+
+		@Override
+		public void onComplete() {
+		}
+
+		private BodyCollector result() {
+			if (null != this.failure) {
+				throw this.failure;
+			}
+
+			return this.collector;
+		}
 	}
 }
@@ -28,6 +28,7 @@ public class StandardHttpDriverFactory implements HttpDriverFactory {
 	public static final String PROVIDER_NAME = "com.eussence";
 	public static final String STANDARD_DRIVER_ID = "com.eussence.std";
 	public static final String OKHTTP_DRIVER_ID = "com.eussence.okhttp";
+	public static final String VERTX_DRIVER_ID = "com.eussence.vertx";
 
 	@Override
 	public String getProvider() {
@@ -51,7 +52,8 @@ public class StandardHttpDriverFactory implements HttpDriverFactory {
 
 	@Override
 	public String getFeaturesDescription() {
-		return "Supports all methods and content types, but does not support multipart requests";
+		return "Supports all methods and content types, HTTP/2 and asynchronous requests, but does not support "
+				+ "multipart requests";
 	}
 
 	@Override
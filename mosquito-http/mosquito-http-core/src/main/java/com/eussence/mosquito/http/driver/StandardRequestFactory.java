@@ -19,12 +19,18 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Base64;
 
 import javax.ws.rs.core.MediaType;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.eussence.mosquito.api.AuthType;
+import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.http.AuthData;
 import com.eussence.mosquito.api.http.Body;
+import com.eussence.mosquito.api.http.ConnectionConfig;
 import com.eussence.mosquito.api.http.HttpMethod;
 import com.eussence.mosquito.api.http.Request;
 import com.eussence.mosquito.api.utils.JsonMapper;
@@ -66,17 +72,62 @@ public class StandardRequestFactory {
 
 	private HttpRequest emptyRequest(Request request, HttpMethod method) {
 
+		HttpRequest.Builder builder = this.newBuilder(request);
+		builder.method(method.name(), BodyPublishers.noBody());
+
+		return builder.build();
+	}
+
+	/**
+	 * A builder with the request's URI, headers and credentials. The read timeout
+	 * of the request's connection settings applies to each request, as the client
+	 * only holds the connect timeout.
+	 */
+	private HttpRequest.Builder newBuilder(Request request) {
 		HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri());
 
-		request.applyHeaders(builder::header);
-		builder.method(request.getMethod()
-				.name(), BodyPublishers.noBody());
+		this.setAuthData(builder, request.getAuthType(), request.getAuthData());
+		request.applyHeaders(builder::setHeader);
 
-		return builder.build();
+		ConnectionConfig config = request.getConnectionConfig();
+		if (null != config && config.getReadTimeout() > 0) {
+			builder.timeout(Duration.ofMillis(config.getReadTimeout()));
+		}
+
+		return builder;
+	}
+
+	private void setAuthData(HttpRequest.Builder builder, AuthType authType, AuthData authData) {
+		if (null == authType) {
+			return;
+		}
+
+		switch (authType) {
+			case BASIC_AUTH:
+				builder.setHeader("Authorization", "Basic " + Base64.getEncoder()
+						.encodeToString((authData.getUsername() + ":" + new String(authData.getCredentials())).getBytes()));
+				break;
+			case BEARER_TOKEN:
+				if (StringUtils.isNotBlank(authData.getHeaderName())) {
+					builder.setHeader(authData.getHeaderName(), new String(authData.getCredentials()));
+				} else {
+					builder.setHeader("Authorization", "Bearer " + new String(authData.getCredentials()));
+				}
+				break;
+			default:
+				throw new MosquitoException("Unsupported auth type: " + authType);
+		}
 	}
 
 	private BodyPublisher bodyPublisherFor(Body body) {
-		switch (body.getMediaType()) {
+		if (null == body || null == body.getEntity()) {
+			return BodyPublishers.noBody();
+		}
+		if (body.isMultipart()) {
+			throw new MosquitoException("Multipart requests are not supported by the standard HTTP driver");
+		}
+
+		switch (StringUtils.defaultString(body.getMediaType(), MediaType.APPLICATION_JSON)) {
 			case MediaType.APPLICATION_JSON: {
 				if (body.isString()) {
 					return BodyPublishers.ofString(body.textEntity());
@@ -99,11 +150,17 @@ public class StandardRequestFactory {
 
 	private HttpRequest bodiedRequest(Request request, HttpMethod method) {
 
-		HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri());
-
-		request.applyHeaders(builder::header);
-		builder.method(request.getMethod()
-				.name(), this.bodyPublisherFor(request.getBody()));
+		HttpRequest.Builder builder = this.newBuilder(request);
+		Body body = request.getBody();
+		if (null != body && null != body.getEntity() && StringUtils.isNotBlank(body.getMediaType())
+				&& (null == request.getHeaders() || request.getHeaders()
+						.keySet()
+						.stream()
+						.noneMatch("Content-Type"::equalsIgnoreCase))) {
+			builder.setHeader("Content-Type", StringUtils.isBlank(body.getCharSet()) ? body.getMediaType()
+					: body.getMediaType() + "; charset=" + body.getCharSet());
+		}
+		builder.method(method.name(), this.bodyPublisherFor(body));
 
 		return builder.build();
 	}
@@ -16,16 +16,23 @@
 package com.eussence.mosquito.http.driver;
 
 import java.net.http.HttpResponse;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javax.ws.rs.core.Response.Status;
+
 import org.apache.commons.lang3.StringUtils;
 
 import com.eussence.mosquito.api.http.Body;
 import com.eussence.mosquito.api.http.HttpCookie;
 import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.BodyCollector;
+import com.eussence.mosquito.http.api.ContentTypeHandler;
 import com.eussence.mosquito.http.api.StandardResponseHeaders;
+import com.eussence.mosquito.http.api.common.ReponseContentHandler;
 
 /**
  * Converts java.net.http response objects into Mosquito's response data.
@@ -34,67 +41,99 @@ import com.eussence.mosquito.http.api.StandardResponseHeaders;
  */
 public class StandardResponseFactory {
 
-	public Response create(HttpResponse<?> response) {
+	private static final StandardResponseFactory instance = new StandardResponseFactory();
 
-		return Response.builder()
-				.status(response.statusCode())
-				.headers(response.headers()
-						.map())
-				.length(Integer.parseInt(response.headers()
-						.firstValue(StandardResponseHeaders.CONTENT_LENGTH.getHeaderName())
-						.orElse("-1")))
-				.cookies(this.readCookies(response))
-				.failed(false)
-				.uri(response.uri()
-						.toASCIIString())
-				.build();
+	private StandardResponseFactory() {
 	}
 
-	private Body readBody(HttpResponse<?> resp) {
+	public static StandardResponseFactory instance() {
+		return instance;
+	}
 
-		String contentType = resp.headers()
-				.firstValue(StandardResponseHeaders.CONTENT_TYPE.getHeaderName())
-				.orElse(null);
-		if (StringUtils.isBlank(contentType)) {
-			return Body.builder()
-					.build();
-		}
+	/**
+	 * Convert a response whose body was read as text.
+	 * 
+	 * @param response       The response.
+	 * @param durationMillis The time from sending the request to reading the body.
+	 * @return The API response.
+	 */
+	public Response create(HttpResponse<String> response, long durationMillis) {
+		Map<String, List<String>> headers = this.readHeaders(response);
+		String payload = response.body();
+
+		return this.builder(response, headers, durationMillis)
+				.body(this.readBody(payload, headers))
+				.length(response.headers()
+						.firstValueAsLong(StandardResponseHeaders.CONTENT_LENGTH.getHeaderName())
+						.orElse(null == payload ? 0 : payload.length()))
+				.build();
+	}
 
-		Body.BodyBuilder builder = Body.builder();
-		if (contentType.indexOf(";") >= 0) {
-			builder.mediaType(contentType.substring(0, contentType.indexOf(";")));
-		} else {
-			builder.mediaType(contentType);
-		}
+	/**
+	 * Convert a response whose body was read by a collector.
+	 * 
+	 * @param response       The response.
+	 * @param durationMillis The time from sending the request to reading the body.
+	 * @return The API response.
+	 */
+	public Response createStreamed(HttpResponse<BodyCollector> response, long durationMillis) {
+		Map<String, List<String>> headers = this.readHeaders(response);
+
+		return response.body()
+				.complete(this.builder(response, headers, durationMillis), response.headers()
+						.firstValue(StandardResponseHeaders.CONTENT_TYPE.getHeaderName())
+						.orElse(null), headers)
+				.build();
+	}
 
-		builder.charSet(this.extractCharSet(contentType));
-		builder.entity(resp.body());
+	private Map<String, List<String>> readHeaders(HttpResponse<?> response) {
+		return response.headers()
+				.map()
+				.entrySet()
+				.stream()
+				.collect(Collectors.toMap(e -> e.getKey()
+						.toLowerCase(), Map.Entry::getValue, (a, b) -> a));
+	}
 
-		return builder.build();
+	private Response.ResponseBuilder builder(HttpResponse<?> response, Map<String, List<String>> headers,
+			long durationMillis) {
+		return Response.builder()
+				.status(response.statusCode())
+				.statusReason(Optional.ofNullable(Status.fromStatusCode(response.statusCode()))
+						.map(Status::getReasonPhrase)
+						.orElse(null))
+				.uri(response.uri()
+						.toString())
+				.headers(headers)
+				.cookies(this.readCookies(headers))
+				.failed(false)
+				.duration(durationMillis);
 	}
 
-	private String extractCharSet(String contentTypeHeader) {
-		if (StringUtils.isBlank(contentTypeHeader)) {
-			return null;
-		}
+	private Body readBody(String payload, Map<String, List<String>> headers) {
+		String contentType = Optional.ofNullable(headers.get(StandardResponseHeaders.CONTENT_TYPE.getHeaderName()))
+				.flatMap(values -> values.stream()
+						.findFirst())
+				.map(ContentTypeHandler::extractMediaType)
+				.orElse(null);
 
-		String[] parts = contentTypeHeader.split(";");
-		for (String part : parts) {
-			if (part.trim()
-					.startsWith("charset=")) {
-				return part.split("=")[1];
-			}
+		ReponseContentHandler handler = null == contentType ? null : ReponseContentHandler.standardHandler(contentType);
+		if (null == handler || StringUtils.isEmpty(payload)) {
+			return Body.builder()
+					.entity(payload)
+					.mediaType(contentType)
+					.build();
 		}
 
-		return null;
+		return handler.process(payload, headers);
 	}
 
-	private Map<String, HttpCookie> readCookies(HttpResponse<?> resp) {
-		return resp.headers()
-				.allValues(StandardResponseHeaders.COOKIE.getHeaderName())
+	private Map<String, HttpCookie> readCookies(Map<String, List<String>> headers) {
+		return Optional.ofNullable(headers.get(StandardResponseHeaders.COOKIE.getHeaderName()))
 				.stream()
+				.flatMap(List::stream)
 				.map(HttpCookie::forHeader)
-				.collect(Collectors.toMap(HttpCookie::getName, Function.identity()));
+				.collect(Collectors.toMap(HttpCookie::getName, Function.identity(), (a, b) -> b));
 	}
 
 	public Response create(Throwable exception) {
@@ -16,11 +16,12 @@
 package com.eussence.mosquito.http.driver.vertx;
 
 import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -28,12 +29,19 @@ import javax.ws.rs.core.MediaType;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.eussence.mosquito.api.exception.MosquitoException;
 import com.eussence.mosquito.api.http.Body;
+import com.eussence.mosquito.api.http.ConnectionConfig;
 import com.eussence.mosquito.api.http.HttpCookie;
+import com.eussence.mosquito.api.http.HttpMethod;
 import com.eussence.mosquito.api.http.Request;
 import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.BodyCollector;
+import com.eussence.mosquito.http.api.common.ReponseContentHandler;
 
+import io.vertx.core.Context;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientRequest;
@@ -59,17 +67,15 @@ public class VertxHttpBridge {
 		return instance;
 	}
 
-	private RequestOptions uriRequestOptions(String uri) {
-		URI u;
-		try {
-			u = new URI(uri);
-		} catch (URISyntaxException e) {
-			throw new RuntimeException("Could not parse URI: " + e.getMessage(), e);
+	private RequestOptions uriRequestOptions(URI u) {
+		if (null == u || null == u.getHost()) {
+			throw new MosquitoException("Request URI must be absolute: " + u);
 		}
 
+		String path = StringUtils.defaultIfEmpty(u.getRawPath(), "/");
 		RequestOptions options = new RequestOptions().setHost(u.getHost())
 				.setSsl("https".equalsIgnoreCase(u.getScheme()))
-				.setURI(u.getPath() + "/?" + u.getQuery());
+				.setURI(StringUtils.isEmpty(u.getRawQuery()) ? path : path + "?" + u.getRawQuery());
 
 		if (0 > u.getPort()) {
 			if ("http".equalsIgnoreCase(u.getScheme())) {
@@ -84,125 +90,174 @@ public class VertxHttpBridge {
 		return options;
 	}
 
+	/**
+	 * Create the request, with its headers and connection settings. The body is
+	 * written when the request is {@link #send(HttpClient, Request) sent}.
+	 */
 	public HttpClientRequest mapRequest(Handler<HttpClientResponse> responsehandler,
 			Handler<Throwable> exceptionHandler, HttpClient client, Request request) {
 
-		HttpClientRequest req;
+		HttpMethod method = null == request.getMethod() ? HttpMethod.GET : request.getMethod();
+		HttpClientRequest req = client
+				.request(io.vertx.core.http.HttpMethod.valueOf(method.name()), this.uriRequestOptions(request.uri()))
+				.handler(responsehandler)
+				.exceptionHandler(exceptionHandler);
 
-		switch (request.getMethod()) {
-			case GET: {
-				req = client.get(this.uriRequestOptions(request.getUri()))
-						.handler(responsehandler)
-						.exceptionHandler(exceptionHandler);
-				break;
-			}
-			case POST: {
-				req = client.post(this.uriRequestOptions(request.getUri()))
-						.setChunked(true)
-						.handler(responsehandler)
-						.putHeader("Content-Type", request.getBody()
-								.getMediaType())
-						.exceptionHandler(exceptionHandler)
-						.write(Buffer.buffer(request.getBody()
-								.bytes()));
-				break;
-			}
-			case PUT: {
-				req = client.put(this.uriRequestOptions(request.getUri()))
-						.setChunked(true)
-						.handler(responsehandler)
-						.putHeader("Content-Type", request.getBody()
-								.getMediaType())
-						.exceptionHandler(exceptionHandler)
-						.write(Buffer.buffer(request.getBody()
-								.bytes()));
-				break;
-			}
-			case DELETE: {
-				req = client.delete(this.uriRequestOptions(request.getUri()))
-						.handler(responsehandler)
-						.exceptionHandler(exceptionHandler);
-				break;
-			}
-			case HEAD: {
-				req = client.head(this.uriRequestOptions(request.getUri()))
-						.handler(responsehandler)
-						.exceptionHandler(exceptionHandler);
-				break;
-			}
-			case OPTIONS: {
-				req = client.options(this.uriRequestOptions(request.getUri()))
-						.handler(responsehandler)
-						.exceptionHandler(exceptionHandler);
-				break;
-			}
-			case PATCH: {
-				req = client.post(this.uriRequestOptions(request.getUri()))
-						.setRawMethod("PATCH")
-						.handler(responsehandler)
-						.exceptionHandler(exceptionHandler);
-				break;
-			}
-			default: {
-				throw new IllegalArgumentException("Method not supported: " + request.getMethod());
+		req.putHeader("User-Agent", "ernest.kiwele");
+		if (this.hasBody(request)) {
+			req.putHeader("Content-Type", request.getBody()
+					.getMediaType());
+		}
+		request.applyHeaders(req::putHeader);
+
+		ConnectionConfig config = request.getConnectionConfig();
+		if (null != config) {
+			if (config.getReadTimeout() > 0) {
+				req.setTimeout(config.getReadTimeout());
 			}
+			req.setFollowRedirects(config.isFollowRedirects());
 		}
 
-		request.getHeaders()
-				.forEach(req::putHeader);
+		return req;
+	}
 
-		req.putHeader("User-Agent", "ernest.kiwele");
-		return req.setTimeout(request.getConnectionConfig()
-				.getConnectionTimeout())
-				.setFollowRedirects(request.getConnectionConfig()
-						.isFollowRedirects());
+	private boolean hasBody(Request request) {
+		Body body = request.getBody();
+		if (null == body || null == body.getEntity()) {
+			return false;
+		}
+		if (body.isMultipart()) {
+			throw new MosquitoException("Multipart requests are not supported by the Vert.x HTTP driver");
+		}
+
+		return request.getMethod() == HttpMethod.POST || request.getMethod() == HttpMethod.PUT
+				|| request.getMethod() == HttpMethod.PATCH;
 	}
 
 	public void fillResponseFuture(HttpClientResponse response, CompletableFuture<Response> future) {
+		this.fillResponseFuture(response, future, null);
+	}
+
+	/**
+	 * Complete the future with the response, reading the body with the collector
+	 * chunk by chunk if there is one, or buffering it otherwise.
+	 */
+	public void fillResponseFuture(HttpClientResponse response, CompletableFuture<Response> future,
+			BodyCollector collector) {
 
 		Map<String, List<String>> headers = response.headers()
 				.entries()
 				.stream()
-				.collect(Collectors.groupingBy(Map.Entry::getKey,
-						Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+				.collect(Collectors.groupingBy(e -> e.getKey()
+						.toLowerCase(), Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
 
 		Map<String, HttpCookie> cookies = response.cookies()
 				.stream()
 				.map(HttpCookie::forHeader)
-				.collect(Collectors.toMap(HttpCookie::getName, Function.identity()));
+				.collect(Collectors.toMap(HttpCookie::getName, Function.identity(), (a, b) -> b));
 
 		Response.ResponseBuilder builder = Response.builder()
 				.status(response.statusCode())
 				.headers(headers)
 				.statusReason(response.statusMessage())
-				.cookies(cookies);
+				.cookies(cookies)
+				.failed(false);
+
+		if (null != collector) {
+			response.exceptionHandler(ex -> {
+				collector.abort();
+				future.completeExceptionally(ex);
+			});
+			response.handler(chunk -> {
+				if (future.isDone()) {
+					return;
+				}
+
+				byte[] bytes = chunk.getBytes();
+				Runnable accept = () -> {
+					try {
+						collector.accept(bytes, 0, bytes.length);
+					} catch (RuntimeException ex) {
+						collector.abort();
+						future.completeExceptionally(ex);
+					}
+				};
+
+				Context context = Vertx.currentContext();
+				if (null == context || !collector.writesToFile(bytes.length)) {
+					accept.run();
+					return;
+				}
+
+				// File writes block: keep them off the event loop, and keep the
+				// chunks in order by pausing the response until each is written
+				response.pause();
+				context.executeBlocking(promise -> {
+					accept.run();
+					promise.complete();
+				}, true, done -> response.resume());
+			});
+			response.endHandler(v -> {
+				if (future.isDone()) {
+					return;
+				}
+
+				Runnable complete = () -> {
+					try {
+						future.complete(collector.complete(builder, response.getHeader("Content-Type"), headers)
+								.build());
+					} catch (RuntimeException ex) {
+						future.completeExceptionally(ex);
+					}
+				};
+
+				Context context = Vertx.currentContext();
+				if (null == context || !collector.writesToFile(0)) {
+					complete.run();
+					return;
+				}
+
+				context.executeBlocking(promise -> {
+					complete.run();
+					promise.complete();
+				}, true, done -> {
+				});
+			});
+
+			return;
+		}
 
+		response.exceptionHandler(future::completeExceptionally);
 		response.bodyHandler(body -> {
+			try {
+				builder.length(body.length());
+				builder.body(this.readBody(response.getHeader("Content-Type"), body, headers));
 
-			// System.out.println("Body handler invoked...: " + new
-			// String(body.getBytes()));
+				future.complete(builder.build());
+			} catch (RuntimeException ex) {
+				future.completeExceptionally(ex);
+			}
+		});
+	}
 
-			builder.length(body.length());
-			String contentTypeHeader = response.getHeader("Content-Type");
-			String mediaType = extractMediaType(contentTypeHeader);
-			String charSet = extractCharSet(contentTypeHeader);
+	private Body readBody(String contentTypeHeader, Buffer body, Map<String, List<String>> headers) {
+		String mediaType = extractMediaType(contentTypeHeader);
+		ReponseContentHandler handler = null == mediaType ? null : ReponseContentHandler.standardHandler(mediaType);
 
-			if (isTextContentType(response.getHeader("Content-Type"))) {
-				builder.body(Body.builder()
-						.entity(body.getString(0, body.length()))
-						.mediaType(mediaType)
-						.charSet(charSet)
-						.build());
-			} else {
-				builder.body(Body.builder()
-						.entity(body.getBytes())
-						.mediaType(mediaType)
-						.charSet(charSet)
-						.build());
-			}
+		if (null != handler && body.length() > 0) {
+			return handler.process(body.toString(Optional.ofNullable(extractCharSet(contentTypeHeader))
+					.orElse("UTF-8")), headers);
+		}
 
-			future.complete(builder.build());
-		});
+		String charSet = extractCharSet(contentTypeHeader);
+		return Body.builder()
+				.entity(isTextContentType(contentTypeHeader)
+						? body.toString(Optional.ofNullable(charSet)
+								.orElse("UTF-8"))
+						: body.getBytes())
+				.mediaType(mediaType)
+				.charSet(charSet)
+				.build();
 	}
 
 	private String extractCharSet(String contentTypeHeader) {
@@ -234,26 +289,45 @@ public class VertxHttpBridge {
 				MediaType.TEXT_HTML, MediaType.TEXT_PLAIN);
 	}
 
-	public Response sendNow(HttpClient client, Request request) {
+	/**
+	 * The response of a request that could not be sent or answered.
+	 */
+	public Response failed(Throwable exception) {
+		return new Response(
+				exception instanceof CompletionException && null != exception.getCause() ? exception.getCause()
+						: exception);
+	}
 
-		return send(client, request).exceptionally(exception -> Response.builder()
-				.exception(exception)
-				.build())
-				.join();
+	public Response sendNow(HttpClient client, Request request) {
+		try {
+			return this.send(client, request)
+					.exceptionally(this::failed)
+					.join();
+		} catch (Exception ex) {
+			return this.failed(ex);
+		}
 	}
 
 	public CompletableFuture<Response> send(HttpClient client, Request request) {
 
 		CompletableFuture<Response> responseFuture = new CompletableFuture<>();
+		BodyCollector collector = BodyCollector.of(request.getBodyHandling())
+				.orElse(null);
 
-		HttpClientRequest req = this.mapRequest(resp -> fillResponseFuture(resp, responseFuture),
-				th -> responseFuture.completeExceptionally(th), client, request);
+		HttpClientRequest req = this.mapRequest(resp -> fillResponseFuture(resp, responseFuture, collector),
+				responseFuture::completeExceptionally, client, request);
 
-		Date start = new Date();
-		req.end();
+		long start = System.nanoTime();
+		if (this.hasBody(request)) {
+			req.end(Buffer.buffer(request.getBody()
+					.bytes()));
+		} else {
+			req.end();
+		}
 
 		return responseFuture.thenApply(resp -> {
-			resp.setDuration(new Date().getTime() - start.getTime());
+			resp.setDuration(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			resp.setUri(request.getUri());
 			return resp;
 		});
 	}
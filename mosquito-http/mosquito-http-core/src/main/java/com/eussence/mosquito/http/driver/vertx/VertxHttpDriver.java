@@ -0,0 +1,108 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.http.driver.vertx;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.HttpDriver;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
+
+/**
+ * Driver sending requests with Vert.x's event-loop HTTP client. Requests and
+ * responses are handled by the event loops without blocking, so a few threads
+ * can keep many requests in flight.
+ * 
+ * <p>
+ * The default client options are read from system properties:
+ * <code>mosquito.vertx.maxPoolSize</code> sets the number of connections per
+ * host, <code>mosquito.vertx.pipelining</code> enables HTTP/1.1 pipelining and
+ * <code>mosquito.vertx.http2</code> makes the client use HTTP/2, over ALPN or
+ * clear-text upgrades.
+ * </p>
+ * 
+ * @author Ernest Kiwele
+ */
+public class VertxHttpDriver implements HttpDriver {
+
+	public static final int DEFAULT_MAX_POOL_SIZE = 64;
+
+	private static VertxHttpDriver instance;
+
+	private final VertxHttpBridge bridge = VertxHttpBridge.getInstance();
+	private final HttpClient client;
+
+	/**
+	 * Create a driver whose client runs on the given Vert.x instance. The client
+	 * is closed with it.
+	 */
+	public VertxHttpDriver(Vertx vertx, HttpClientOptions options) {
+		this.client = Objects.requireNonNull(vertx, "Vertx may not be null")
+				.createHttpClient(options);
+	}
+
+	public static VertxHttpDriver create(Vertx vertx) {
+		return new VertxHttpDriver(vertx, defaultOptions());
+	}
+
+	/**
+	 * Get the driver used outside of runtimes, which runs on its own Vert.x
+	 * instance, created on first use.
+	 */
+	public static synchronized VertxHttpDriver getInstance() {
+		if (null == instance) {
+			instance = create(Vertx.vertx());
+		}
+
+		return instance;
+	}
+
+	public static HttpClientOptions defaultOptions() {
+		boolean http2 = Boolean.getBoolean("mosquito.vertx.http2");
+
+		return new HttpClientOptions().setTryUseCompression(true)
+				.setKeepAlive(true)
+				.setMaxPoolSize(Integer.getInteger("mosquito.vertx.maxPoolSize", DEFAULT_MAX_POOL_SIZE))
+				.setPipelining(Boolean.getBoolean("mosquito.vertx.pipelining"))
+				.setProtocolVersion(http2 ? HttpVersion.HTTP_2 : HttpVersion.HTTP_1_1)
+				.setUseAlpn(http2);
+	}
+
+	public HttpClient getClient() {
+		return client;
+	}
+
+	@Override
+	public Response http(Request request) {
+		return this.bridge.sendNow(this.client, request);
+	}
+
+	@Override
+	public CompletableFuture<Response> asyncHttp(Request request) {
+		try {
+			return this.bridge.send(this.client, request)
+					.exceptionally(this.bridge::failed);
+		} catch (Exception ex) {
+			return CompletableFuture.completedFuture(new Response(ex));
+		}
+	}
+}
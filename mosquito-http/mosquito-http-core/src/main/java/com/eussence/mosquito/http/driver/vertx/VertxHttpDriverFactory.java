@@ -0,0 +1,70 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.http.driver.vertx;
+
+import com.eussence.mosquito.http.api.HttpDriver;
+import com.eussence.mosquito.http.api.HttpDriverFactory;
+import com.eussence.mosquito.http.driver.StandardHttpDriverFactory;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Factory for the driver based on Vert.x's HTTP client.
+ * 
+ * @author Ernest Kiwele
+ */
+public class VertxHttpDriverFactory implements HttpDriverFactory {
+
+	@Override
+	public String getProvider() {
+		return StandardHttpDriverFactory.PROVIDER_NAME;
+	}
+
+	@Override
+	public String getName() {
+		return "Vert.x HTTP Driver";
+	}
+
+	@Override
+	public String getId() {
+		return StandardHttpDriverFactory.VERTX_DRIVER_ID;
+	}
+
+	@Override
+	public String getDescription() {
+		return "Non-blocking driver implemented using the Vert.x HTTP client";
+	}
+
+	@Override
+	public String getFeaturesDescription() {
+		return "Supports all methods, connection pooling, pipelining and HTTP/2, but does not support multipart "
+				+ "requests";
+	}
+
+	@Override
+	public HttpDriver getDriver() {
+		return VertxHttpDriver.getInstance();
+	}
+
+	/**
+	 * Create a driver on the given Vert.x instance, so that its client shares the
+	 * runtime's event loops.
+	 */
+	@Override
+	public HttpDriver getDriver(Vertx vertx) {
+		return null == vertx ? this.getDriver() : VertxHttpDriver.create(vertx);
+	}
+}
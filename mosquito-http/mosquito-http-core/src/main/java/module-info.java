@@ -23,6 +23,7 @@ open module com.eussence.mosquito.http {
 	exports com.eussence.mosquito.http.api.common;
 	exports com.eussence.mosquito.http.api.mapping;
 	exports com.eussence.mosquito.http.driver;
+	exports com.eussence.mosquito.http.driver.vertx;
 
 	requires transitive com.eussence.mosquito.api;
 	requires com.fasterxml.jackson.core;
@@ -36,5 +37,6 @@ open module com.eussence.mosquito.http {
 	uses com.eussence.mosquito.http.api.HttpDriverFactory;
 
 	provides com.eussence.mosquito.http.api.HttpDriverFactory
-			with com.eussence.mosquito.http.driver.StandardHttpDriverFactory;
+			with com.eussence.mosquito.http.driver.StandardHttpDriverFactory,
+			com.eussence.mosquito.http.driver.vertx.VertxHttpDriverFactory;
 }
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.http.api;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.api.http.Response;
+
+/**
+ * 
+ * @author Ernest Kiwele
+ */
+public class BodyCollectorTest {
+
+	private final byte[] payload = "{\"a\":\"0123456789\"}".getBytes(StandardCharsets.UTF_8);
+	private final Map<String, List<String>> headers = Map.of("content-type", List.of("application/json"));
+
+	private Response collect(BodyHandling handling) throws Exception {
+		BodyCollector collector = BodyCollector.of(handling)
+				.orElseThrow();
+		collector.accept(this.payload, 0, 5);
+		collector.accept(ByteBuffer.wrap(this.payload, 5, 5));
+		collector.accept(new ByteArrayInputStream(this.payload, 10, this.payload.length - 10));
+
+		return collector.complete(Response.builder(), "application/json; charset=UTF-8", this.headers)
+				.build();
+	}
+
+	@Test
+	void testBuffered() {
+		Assertions.assertTrue(BodyCollector.of(null)
+				.isEmpty());
+		Assertions.assertTrue(BodyCollector.of(BodyHandling.BUFFER)
+				.isEmpty());
+	}
+
+	@Test
+	void testDiscard() throws Exception {
+		Response response = this.collect(BodyHandling.discard());
+
+		Assertions.assertEquals(this.payload.length, response.getLength());
+		Assertions.assertNull(response.getBody()
+				.getEntity());
+		Assertions.assertEquals("application/json", response.getBody()
+				.getMediaType());
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-256")
+				.digest(this.payload)) {
+			hex.append(String.format("%02x", b));
+		}
+		Assertions.assertEquals(hex.toString(), response.getDigest());
+	}
+
+	@Test
+	void testCap() throws Exception {
+		Response capped = this.collect(BodyHandling.cap(7));
+		Assertions.assertTrue(capped.isTruncated());
+		Assertions.assertEquals("{\"a\":\"0", capped.getBody()
+				.getEntity());
+		Assertions.assertEquals(this.payload.length, capped.getLength());
+
+		Response whole = this.collect(BodyHandling.cap(1024));
+		Assertions.assertFalse(whole.isTruncated());
+		Assertions.assertEquals(Map.of("a", "0123456789"), whole.getBody()
+				.getEntity());
+	}
+
+	@Test
+	void testFile() throws Exception {
+		Response small = this.collect(BodyHandling.file(1024));
+		Assertions.assertNull(small.getBodyFile());
+		Assertions.assertEquals(Map.of("a", "0123456789"), small.getBody()
+				.getEntity());
+
+		Response large = this.collect(BodyHandling.file(8));
+		Path file = Path.of(large.getBodyFile());
+		try {
+			Assertions.assertArrayEquals(this.payload, Files.readAllBytes(file));
+			Assertions.assertEquals(large.getBodyFile(), large.getBody()
+					.getEntity());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testWritesToFile() {
+		BodyCollector collector = BodyCollector.of(BodyHandling.file(8))
+				.orElseThrow();
+		Assertions.assertFalse(collector.writesToFile(8));
+		Assertions.assertTrue(collector.writesToFile(9));
+		Assertions.assertFalse(collector.writesToFile(0));
+
+		collector.accept(this.payload, 0, this.payload.length);
+		try {
+			Assertions.assertTrue(collector.writesToFile(0));
+		} finally {
+			collector.abort();
+		}
+
+		Assertions.assertFalse(BodyCollector.of(BodyHandling.cap(8))
+				.orElseThrow()
+				.writesToFile(9));
+	}
+
+	@Test
+	void testConsumer() throws Exception {
+		StringBuilder chunks = new StringBuilder();
+		Response response = this
+				.collect(BodyHandling.consumer(chunk -> chunks.append(StandardCharsets.UTF_8.decode(chunk))));
+
+		Assertions.assertEquals(new String(this.payload, StandardCharsets.UTF_8), chunks.toString());
+		Assertions.assertNull(response.getBody()
+				.getEntity());
+		Assertions.assertThrows(RuntimeException.class, () -> BodyCollector.of(BodyHandling.builder()
+				.mode(BodyHandling.Mode.CONSUMER)
+				.build()));
+	}
+}
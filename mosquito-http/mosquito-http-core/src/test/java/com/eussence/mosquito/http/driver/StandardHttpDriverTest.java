@@ -0,0 +1,234 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.http.driver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.AuthType;
+import com.eussence.mosquito.api.http.AuthData;
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.api.http.ConnectionConfig;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+
+/**
+ * 
+ * @author Ernest Kiwele
+ */
+public class StandardHttpDriverTest {
+
+	private static final int LARGE = 1 << 20;
+
+	private static Vertx vertx;
+	private static HttpServer server;
+	private static String base;
+
+	private final StandardHttpDriver driver = StandardHttpDriver.getInstance();
+
+	@BeforeAll
+	static void startServer() throws Exception {
+		vertx = Vertx.vertx();
+
+		CompletableFuture<HttpServer> started = new CompletableFuture<>();
+		vertx.createHttpServer()
+				.requestHandler(req -> {
+					if (req.path()
+							.equals("/redirect")) {
+						req.response()
+								.setStatusCode(302)
+								.putHeader("Location", "/echo")
+								.end();
+						return;
+					}
+					if (req.path()
+							.equals("/large")) {
+						req.response()
+								.putHeader("Content-Type", "application/octet-stream")
+								.end(io.vertx.core.buffer.Buffer.buffer(new byte[LARGE]));
+						return;
+					}
+					if (req.path()
+							.equals("/slow")) {
+						vertx.setTimer(2000, t -> req.response()
+								.end());
+						return;
+					}
+
+					req.bodyHandler(body -> req.response()
+							.putHeader("Content-Type", "application/json")
+							.putHeader("Set-Cookie", "session=abc")
+							.end(new io.vertx.core.json.JsonObject()
+									.put("method", req.method()
+											.name())
+									.put("query", req.query())
+									.put("authorization", req.getHeader("Authorization"))
+									.put("contentType", req.getHeader("Content-Type"))
+									.put("body", body.toString())
+									.encode()));
+				})
+				.listen(0, ar -> {
+					if (ar.succeeded()) {
+						started.complete(ar.result());
+					} else {
+						started.completeExceptionally(ar.cause());
+					}
+				});
+
+		server = started.get(10, TimeUnit.SECONDS);
+		base = "http://localhost:" + server.actualPort();
+	}
+
+	@AfterAll
+	static void stopServer() {
+		vertx.close();
+	}
+
+	@Test
+	void testGet() {
+		Response response = this.driver.http(Request.builder()
+				.get()
+				.uri(base + "/echo")
+				.parameters(Map.of("q", "1"))
+				.authType(AuthType.BEARER_TOKEN)
+				.authData(AuthData.builder()
+						.credentials("token".toCharArray())
+						.build())
+				.build());
+
+		Assertions.assertFalse(response.isFailed(), response.getErrorMessage());
+		Assertions.assertEquals(200, response.getStatus());
+		Assertions.assertEquals("OK", response.getStatusReason());
+		Assertions.assertEquals("application/json", response.getBody()
+				.getMediaType());
+		Assertions.assertNotNull(response.getCookies()
+				.get("session"));
+
+		Map<?, ?> entity = (Map<?, ?>) response.getBody()
+				.getEntity();
+		Assertions.assertEquals("GET", entity.get("method"));
+		Assertions.assertEquals("q=1", entity.get("query"));
+		Assertions.assertEquals("Bearer token", entity.get("authorization"));
+	}
+
+	@Test
+	void testAsyncPost() {
+		List<Response> responses = IntStream.range(0, 20)
+				.mapToObj(i -> this.driver.asyncHttp(Request.builder()
+						.post()
+						.uri(base + "/echo")
+						.entity(Map.of("i", i))
+						.build()))
+				.collect(Collectors.toList())
+				.stream()
+				.map(CompletableFuture::join)
+				.collect(Collectors.toList());
+
+		for (int i = 0; i < responses.size(); i++) {
+			Response response = responses.get(i);
+			Assertions.assertFalse(response.isFailed(), response.getErrorMessage());
+
+			Map<?, ?> entity = (Map<?, ?>) response.getBody()
+					.getEntity();
+			Assertions.assertEquals("POST", entity.get("method"));
+			Assertions.assertEquals("application/json", entity.get("contentType"));
+			Assertions.assertEquals("{\"i\":" + i + "}", entity.get("body"));
+		}
+	}
+
+	@Test
+	void testConnectionConfig() {
+		Request.RequestBuilder redirect = Request.builder()
+				.get()
+				.uri(base + "/redirect");
+
+		Assertions.assertEquals(302, this.driver.http(redirect.connectionConfig(this.config(false, 0))
+				.build())
+				.getStatus());
+		Assertions.assertEquals(200, this.driver.http(redirect.connectionConfig(this.config(true, 0))
+				.build())
+				.getStatus());
+
+		Request slow = Request.builder()
+				.get()
+				.uri(base + "/slow")
+				.connectionConfig(this.config(false, 200))
+				.build();
+		Assertions.assertTrue(this.driver.http(slow)
+				.isFailed());
+		Assertions.assertTrue(this.driver.asyncHttp(slow)
+				.join()
+				.isFailed());
+
+		Assertions.assertSame(this.driver.getClient(redirect.connectionConfig(this.config(false, 0))
+				.build()),
+				this.driver.getClient(slow));
+	}
+
+	@Test
+	void testStreamedBody() {
+		Request.RequestBuilder large = Request.builder()
+				.get()
+				.uri(base + "/large");
+
+		Response discarded = this.driver.http(large.bodyHandling(BodyHandling.discard())
+				.build());
+		Assertions.assertFalse(discarded.isFailed(), discarded.getErrorMessage());
+		Assertions.assertEquals(LARGE, discarded.getLength());
+		Assertions.assertNull(discarded.getBody()
+				.getEntity());
+		Assertions.assertNotNull(discarded.getDigest());
+
+		Response capped = this.driver.asyncHttp(large.bodyHandling(BodyHandling.cap(10))
+				.build())
+				.join();
+		Assertions.assertTrue(capped.isTruncated());
+		Assertions.assertEquals(10, ((byte[]) capped.getBody()
+				.getEntity()).length);
+		Assertions.assertEquals(discarded.getDigest(), capped.getDigest());
+	}
+
+	@Test
+	void testFailure() {
+		Response response = this.driver.asyncHttp(Request.builder()
+				.get()
+				.uri("http://localhost:1/")
+				.build())
+				.join();
+
+		Assertions.assertTrue(response.isFailed());
+		Assertions.assertNotNull(response.getException());
+	}
+
+	private ConnectionConfig config(boolean followRedirects, long readTimeout) {
+		return ConnectionConfig.builder()
+				.followRedirects(followRedirects)
+				.readTimeout(readTimeout)
+				.build();
+	}
+}
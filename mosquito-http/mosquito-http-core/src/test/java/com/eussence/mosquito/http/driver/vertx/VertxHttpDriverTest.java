@@ -0,0 +1,229 @@
+/**
+ * Copyright 2018 eussence.com and contributors
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.eussence.mosquito.http.driver.vertx;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.eussence.mosquito.api.http.BodyHandling;
+import com.eussence.mosquito.api.http.ConnectionConfig;
+import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.driver.HttpDriverFactoryLocator;
+import com.eussence.mosquito.http.driver.StandardHttpDriverFactory;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * 
+ * @author Ernest Kiwele
+ */
+public class VertxHttpDriverTest {
+
+	private static final int LARGE = 1 << 20;
+
+	private static Vertx vertx;
+	private static String base;
+	private static VertxHttpDriver driver;
+
+	@BeforeAll
+	static void startServer() throws Exception {
+		vertx = Vertx.vertx();
+		driver = (VertxHttpDriver) HttpDriverFactoryLocator.getInstance()
+				.findById(StandardHttpDriverFactory.VERTX_DRIVER_ID)
+				.orElseThrow()
+				.getDriver(vertx);
+
+		CompletableFuture<HttpServer> started = new CompletableFuture<>();
+		vertx.createHttpServer()
+				.requestHandler(req -> {
+					if (req.path()
+							.equals("/large")) {
+						req.response()
+								.putHeader("Content-Type", "application/octet-stream")
+								.end(io.vertx.core.buffer.Buffer.buffer(new byte[LARGE]));
+						return;
+					}
+					if (req.path()
+							.equals("/redirect")) {
+						req.response()
+								.setStatusCode(302)
+								.putHeader("Location", "/echo")
+								.end();
+						return;
+					}
+
+					req.bodyHandler(body -> req.response()
+							.putHeader("Content-Type", "application/json")
+							.end(new JsonObject().put("method", req.method()
+									.name())
+									.put("uri", req.uri())
+									.put("contentType", req.getHeader("Content-Type"))
+									.put("body", body.toString())
+									.encode()));
+				})
+				.listen(0, ar -> {
+					if (ar.succeeded()) {
+						started.complete(ar.result());
+					} else {
+						started.completeExceptionally(ar.cause());
+					}
+				});
+
+		base = "http://localhost:" + started.get(10, TimeUnit.SECONDS)
+				.actualPort();
+	}
+
+	@AfterAll
+	static void stopServer() {
+		vertx.close();
+	}
+
+	@Test
+	void testGet() {
+		Response response = driver.http(Request.builder()
+				.get()
+				.uri(base + "/echo")
+				.parameters(Map.of("q", "1"))
+				.build());
+
+		Assertions.assertFalse(response.isFailed(), response.getErrorMessage());
+		Assertions.assertEquals(200, response.getStatus());
+		Assertions.assertEquals("application/json", response.getBody()
+				.getMediaType());
+
+		Map<?, ?> entity = (Map<?, ?>) response.getBody()
+				.getEntity();
+		Assertions.assertEquals("GET", entity.get("method"));
+		Assertions.assertEquals("/echo?q=1", entity.get("uri"));
+	}
+
+	@Test
+	void testAsyncMethods() {
+		List<Response> responses = IntStream.range(0, 20)
+				.mapToObj(i -> driver.asyncHttp(Request.builder()
+						.method(i % 2 == 0 ? "PATCH" : "PUT")
+						.uri(base + "/echo")
+						.entity(Map.of("i", i))
+						.build()))
+				.collect(Collectors.toList())
+				.stream()
+				.map(CompletableFuture::join)
+				.collect(Collectors.toList());
+
+		for (int i = 0; i < responses.size(); i++) {
+			Response response = responses.get(i);
+			Assertions.assertFalse(response.isFailed(), response.getErrorMessage());
+
+			Map<?, ?> entity = (Map<?, ?>) response.getBody()
+					.getEntity();
+			Assertions.assertEquals(i % 2 == 0 ? "PATCH" : "PUT", entity.get("method"));
+			Assertions.assertEquals("application/json", entity.get("contentType"));
+			Assertions.assertEquals("{\"i\":" + i + "}", entity.get("body"));
+		}
+	}
+
+	@Test
+	void testRedirects() {
+		Request.RequestBuilder redirect = Request.builder()
+				.get()
+				.uri(base + "/redirect");
+
+		Assertions.assertEquals(302, driver.http(redirect.connectionConfig(ConnectionConfig.builder()
+				.followRedirects(false)
+				.build())
+				.build())
+				.getStatus());
+		Assertions.assertEquals(200, driver.http(redirect.connectionConfig(ConnectionConfig.builder()
+				.followRedirects(true)
+				.build())
+				.build())
+				.getStatus());
+	}
+
+	@Test
+	void testStreamedBody() {
+		Request.RequestBuilder large = Request.builder()
+				.get()
+				.uri(base + "/large");
+
+		AtomicLong streamed = new AtomicLong();
+		Response consumed = driver
+				.asyncHttp(large.bodyHandling(BodyHandling.consumer(chunk -> streamed.addAndGet(chunk.remaining())))
+						.build())
+				.join();
+		Assertions.assertFalse(consumed.isFailed(), consumed.getErrorMessage());
+		Assertions.assertEquals(LARGE, streamed.get());
+		Assertions.assertEquals(LARGE, consumed.getLength());
+
+		Response capped = driver.http(large.bodyHandling(BodyHandling.cap(10))
+				.build());
+		Assertions.assertTrue(capped.isTruncated());
+		Assertions.assertEquals(10, ((byte[]) capped.getBody()
+				.getEntity()).length);
+		Assertions.assertEquals(consumed.getDigest(), capped.getDigest());
+	}
+
+	@Test
+	void testFileBody() throws Exception {
+		Response response = driver.asyncHttp(Request.builder()
+				.get()
+				.uri(base + "/large")
+				.bodyHandling(BodyHandling.file(1024))
+				.build())
+				.join();
+		Assertions.assertFalse(response.isFailed(), response.getErrorMessage());
+		Assertions.assertEquals(LARGE, response.getLength());
+
+		Path file = Path.of(response.getBodyFile());
+		try {
+			Assertions.assertEquals(LARGE, Files.size(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testFailure() {
+		Response response = driver.asyncHttp(Request.builder()
+				.get()
+				.uri("http://localhost:1/")
+				.build())
+				.join();
+
+		Assertions.assertTrue(response.isFailed());
+		Assertions.assertNotNull(response.getException());
+		Assertions.assertTrue(driver.http(Request.builder()
+				.get()
+				.uri("not a uri")
+				.build())
+				.isFailed());
+	}
+}
@@ -16,11 +16,15 @@
 package com.eussence.mosquito.http.okhttp;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -33,9 +37,15 @@ import com.eussence.mosquito.api.exception.MosquitoException;
 import com.eussence.mosquito.api.http.AuthData;
 import com.eussence.mosquito.api.http.Body;
 import com.eussence.mosquito.api.http.BodyPart;
+import com.eussence.mosquito.api.http.ConnectionConfig;
 import com.eussence.mosquito.api.http.HttpMethod;
 import com.eussence.mosquito.api.http.Request;
+import com.eussence.mosquito.api.utils.LruCache;
 
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
@@ -51,14 +61,119 @@ import okhttp3.ResponseBody;
  */
 public class ClientManager {
 
-	private static final ClientManager instance = new ClientManager();
-	private OkHttpClient defaultClient = new OkHttpClient();
+	/**
+	 * The default number of requests the client runs at once, in total and per
+	 * host, unless set by the <code>mosquito.okhttp.maxRequests</code> and
+	 * <code>mosquito.okhttp.maxRequestsPerHost</code> system properties. Load
+	 * runs usually target a single host, so both default to the same value.
+	 */
+	public static final int DEFAULT_MAX_REQUESTS = 256;
+	/**
+	 * The number of clients with distinct connection settings that are kept.
+	 */
+	public static final int DEFAULT_CLIENT_CAPACITY = 32;
+
+	private static final ClientManager instance = new ClientManager(newClient(
+			Integer.getInteger("mosquito.okhttp.maxRequests", DEFAULT_MAX_REQUESTS),
+			Integer.getInteger("mosquito.okhttp.maxRequestsPerHost", DEFAULT_MAX_REQUESTS)), DEFAULT_CLIENT_CAPACITY);
+
+	private OkHttpClient defaultClient;
+	private final LruCache<ClientKey, OkHttpClient> clients;
+
+	ClientManager(OkHttpClient defaultClient, int clientCapacity) {
+		this.defaultClient = defaultClient;
+		this.clients = new LruCache<>(Math.max(1, clientCapacity));
+	}
 
 	public static ClientManager instance() {
 		return instance;
 	}
 
+	/**
+	 * Create a client whose dispatcher runs the given numbers of asynchronous
+	 * calls at once, and whose pool keeps as many idle connections per host.
+	 */
+	static OkHttpClient newClient(int maxRequests, int maxRequestsPerHost) {
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequests(maxRequests);
+		dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+		return new OkHttpClient.Builder().dispatcher(dispatcher)
+				.connectionPool(new ConnectionPool(maxRequestsPerHost, 5, TimeUnit.MINUTES))
+				.build();
+	}
+
+	/**
+	 * Set the maximum number of asynchronous calls run at once. Further calls
+	 * wait in the dispatcher's queue.
+	 */
+	public void setMaxRequests(int maxRequests) {
+		this.defaultClient.dispatcher()
+				.setMaxRequests(maxRequests);
+	}
+
+	/**
+	 * Set the maximum number of asynchronous calls run at once for each host.
+	 */
+	public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+		this.defaultClient.dispatcher()
+				.setMaxRequestsPerHost(maxRequestsPerHost);
+	}
+
 	public <T> ResponseHolder<T> http(Request request, Function<ResponseBody, T> bodyExtractor) {
+		okhttp3.Request okHttpRequest = this.toOkHttpRequest(request);
+
+		try (Response response = this.getClient(request)
+				.newCall(okHttpRequest)
+				.execute()) {
+			return ResponseHolder.<T>builder()
+					.response(response)
+					.payload(bodyExtractor.apply(response.body()))
+					.build();
+		} catch (Exception e) {
+			throw new MosquitoException(e);
+		}
+	}
+
+	/**
+	 * Send the request through the client's dispatcher, without blocking the
+	 * calling thread. The body is extracted on the dispatcher's thread once the
+	 * response arrives, and the call is cancelled if the returned future is.
+	 */
+	public <T> CompletableFuture<ResponseHolder<T>> asyncHttp(Request request,
+			Function<ResponseBody, T> bodyExtractor) {
+		CompletableFuture<ResponseHolder<T>> future = new CompletableFuture<>();
+		Call call = this.getClient(request)
+				.newCall(this.toOkHttpRequest(request));
+
+		call.enqueue(new Callback() {
+			@Override
+			public void onResponse(Call c, Response response) {
+				try (response) {
+					future.complete(ResponseHolder.<T>builder()
+							.response(response)
+							.payload(bodyExtractor.apply(response.body()))
+							.build());
+				} catch (Exception e) {
+					future.completeExceptionally(new MosquitoException(e));
+				}
+			}
+
+			@Override
+			public void onFailure(Call c, IOException e) {
+				future.completeExceptionally(new MosquitoException(e));
+			}
+		});
+		future.whenComplete((response, error) -> {
+			if (future.isCancelled()) {
+				call.cancel();
+			}
+		});
+
+		return future;
+	}
+
+	private okhttp3.Request toOkHttpRequest(Request request) {
 		switch (Objects.requireNonNull(request.getMethod(), "Request method may not be null")) {
 			case GET:
 			case CONNECT:
@@ -66,47 +181,73 @@ public class ClientManager {
 			case OPTIONS:
 			case TRACE:
 			case HEAD:
-				return this.bodyLessRequest(this.getClient(request), request.getUri(), request.getHeaders(),
-						request.getParameters(), request.getAuthType(), request.getAuthData(), request.getMethod(),
-						bodyExtractor);
+				return this.bodyLessRequest(request.getUri(), request.getHeaders(), request.getParameters(),
+						request.getAuthType(), request.getAuthData(), request.getMethod());
 			case POST:
 			case PUT:
 			case PATCH:
-				return this.bodiedRequest(this.getClient(request), request, bodyExtractor);
+				return this.bodiedRequest(request);
 			default:
 				throw new MosquitoException("Unsupported request method: " + request.getMethod());
 
 		}
 	}
 
+	/**
+	 * The client for the request's connection settings. Clients are derived from
+	 * the default client, whose connection pool and dispatcher they share, and
+	 * cached by settings; the least recently used ones are dropped once more than
+	 * the capacity are cached. Requests without settings use the default client.
+	 */
 	protected OkHttpClient getClient(Request request) {
-		// TODO: Implement client selection based on request connection settings
-		return this.defaultClient;
+		ConnectionConfig config = request.getConnectionConfig();
+		if (null == config) {
+			return this.defaultClient;
+		}
+
+		return this.clients.computeIfAbsent(new ClientKey(config), this::deriveClient);
 	}
 
-	protected <T> ResponseHolder<T> bodyLessRequest(OkHttpClient client, String uri, Map<String, String> headers,
-			Map<String, String> query, AuthType authType, AuthData authData, HttpMethod method,
-			Function<ResponseBody, T> bodyExtractor) {
+	/**
+	 * Derive a client for the settings. Unset (non-positive) timeouts keep those
+	 * of the default client.
+	 */
+	private OkHttpClient deriveClient(ClientKey key) {
+		OkHttpClient.Builder builder = this.defaultClient.newBuilder()
+				.followRedirects(key.followRedirects)
+				.followSslRedirects(key.followRedirects);
+		if (key.connectionTimeout > 0) {
+			builder.connectTimeout(Duration.ofMillis(key.connectionTimeout));
+		}
+		if (key.readTimeout > 0) {
+			builder.readTimeout(Duration.ofMillis(key.readTimeout));
+		}
+		if (!key.validateHostNames) {
+			builder.hostnameVerifier((hostname, session) -> true);
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * The number of clients currently cached for distinct connection settings.
+	 */
+	public int getCachedClients() {
+		return this.clients.size();
+	}
+
+	protected okhttp3.Request bodyLessRequest(String uri, Map<String, String> headers, Map<String, String> query,
+			AuthType authType, AuthData authData, HttpMethod method) {
 		var request = new okhttp3.Request.Builder().url(this.appendQuery(uri, query));
 		request = this.setBodyLessMethod(method, request);
 		request = this.setAuthData(request, authType, authData);
 
 		this.applyHeaders(headers, request);
 
-		try (Response response = client.newCall(request.build())
-				.execute()) {
-			return ResponseHolder.<T>builder()
-					.response(response)
-					.payload(bodyExtractor.apply(response.body()))
-					.build();
-		} catch (Exception e) {
-			throw new MosquitoException(e);
-		}
+		return request.build();
 	}
 
-	protected <T> ResponseHolder<T> bodiedRequest(OkHttpClient client, Request req,
-			Function<ResponseBody, T> bodyExtractor) {
-
+	protected okhttp3.Request bodiedRequest(Request req) {
 		var request = new okhttp3.Request.Builder().url(this.appendQuery(req.getUri(), req.getParameters()));
 		request = this.setBodiedMethod(req.getBody(), req.getMethod(), request);
 		request = this.setAuthData(request, req.getAuthType(), req.getAuthData());
@@ -114,15 +255,7 @@ public class ClientManager {
 		req.applyParameters(request::header);
 		req.applyHeaders(request::header);
 
-		try (Response response = client.newCall(request.build())
-				.execute()) {
-			return ResponseHolder.<T>builder()
-					.response(response)
-					.payload(bodyExtractor.apply(response.body()))
-					.build();
-		} catch (Exception e) {
-			throw new MosquitoException(e);
-		}
+		return request.build();
 	}
 
 	private okhttp3.Request.Builder setAuthData(okhttp3.Request.Builder request, AuthType authType, AuthData authData) {
@@ -215,6 +348,43 @@ public class ClientManager {
 				.ifPresent(m -> m.forEach(request::header));
 	}
 
+	/**
+	 * The connection settings a client is derived for.
+	 */
+	private static final class ClientKey {
+		private final boolean validateHostNames;
+		private final long connectionTimeout;
+		private final long readTimeout;
+		private final boolean followRedirects;
+
+		private ClientKey(ConnectionConfig config) {
+			this.validateHostNames = config.isValidateHostNames();
+			this.connectionTimeout = config.getConnectionTimeout();
+			this.readTimeout = config.getReadTimeout();
+			this.followRedirects = config.isFollowRedirects();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ClientKey)) {
+				return false;
+			}
+
+			ClientKey other = (ClientKey) o;
+			return this.validateHostNames == other.validateHostNames
+					&& this.connectionTimeout == other.connectionTimeout && this.readTimeout == other.readTimeout
+					&& this.followRedirects == other.followRedirects;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(validateHostNames, connectionTimeout, readTimeout, followRedirects);
+		}
+	}
+
 	private String appendQuery(String uri, Map<String, String> query) {
 		return uri + "?" + Optional.ofNullable(query)
 				.stream()
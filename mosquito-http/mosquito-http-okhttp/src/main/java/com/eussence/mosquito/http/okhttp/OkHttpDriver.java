@@ -15,12 +15,17 @@
 
 package com.eussence.mosquito.http.okhttp;
 
+import java.io.InputStream;
 import java.time.Instant;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 import com.eussence.mosquito.api.exception.CheckedFunction;
 import com.eussence.mosquito.api.http.Request;
 import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.BodyCollector;
 import com.eussence.mosquito.http.api.HttpDriver;
 import com.eussence.mosquito.http.okhttp.factory.ResponseFactory;
 
@@ -45,17 +50,64 @@ public class OkHttpDriver implements HttpDriver {
 	}
 
 	public Response http(Request request) {
+		Optional<BodyCollector> collector = Optional.empty();
 		try {
+			collector = BodyCollector.of(request.getBodyHandling());
+			if (collector.isPresent()) {
+				return this.responseFactory
+						.fromStreamedResponse(this.clientManager.http(request, collecting(collector.get())));
+			}
+
 			Instant startTime = Instant.now();
 			ResponseHolder<String> response = this.clientManager.http(request,
 					CheckedFunction.wrap(ResponseBody::string));
 			return this.responseFactory.fromHttpResponse(response, startTime);
 		} catch (Exception ex) {
+			collector.ifPresent(BodyCollector::abort);
 			return this.responseFactory.fromException(ex);
 		}
 	}
 
+	/**
+	 * A body extractor reading the body's stream into the collector, so that the
+	 * body is never held whole in memory.
+	 */
+	private static Function<ResponseBody, BodyCollector> collecting(BodyCollector collector) {
+		return CheckedFunction.wrap(body -> {
+			try (InputStream stream = body.byteStream()) {
+				collector.accept(stream);
+			}
+
+			return collector;
+		});
+	}
+
+	/**
+	 * Send the request through OkHttp's dispatcher. No thread waits for the
+	 * response, so the number of requests in flight is only bounded by the
+	 * dispatcher's limits.
+	 */
 	public CompletableFuture<Response> asyncHttp(Request request) {
-		return CompletableFuture.supplyAsync(() -> this.http(request));
+		Instant startTime = Instant.now();
+		try {
+			Optional<BodyCollector> collector = BodyCollector.of(request.getBodyHandling());
+			if (collector.isPresent()) {
+				return this.clientManager.asyncHttp(request, collecting(collector.get()))
+						.thenApply(this.responseFactory::fromStreamedResponse)
+						.exceptionally(ex -> {
+							collector.get()
+									.abort();
+							return this.responseFactory.fromException(
+									ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex);
+						});
+			}
+
+			return this.clientManager.asyncHttp(request, CheckedFunction.wrap(ResponseBody::string))
+					.thenApply(response -> this.responseFactory.fromHttpResponse(response, startTime))
+					.exceptionally(ex -> this.responseFactory.fromException(
+							ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex));
+		} catch (Exception ex) {
+			return CompletableFuture.completedFuture(this.responseFactory.fromException(ex));
+		}
 	}
 }
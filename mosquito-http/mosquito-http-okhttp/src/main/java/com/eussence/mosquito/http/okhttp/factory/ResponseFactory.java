@@ -27,6 +27,7 @@ import javax.ws.rs.core.Response.Status;
 import com.eussence.mosquito.api.exception.CheckedExecutable;
 import com.eussence.mosquito.api.http.HttpCookie;
 import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.BodyCollector;
 import com.eussence.mosquito.http.api.ContentTypeHandler;
 import com.eussence.mosquito.http.api.StandardResponseHeaders;
 import com.eussence.mosquito.http.api.common.ReponseContentHandler;
@@ -50,13 +51,7 @@ public class ResponseFactory {
 	public Response fromHttpResponse(ResponseHolder<String> httpResponseHolder, Instant durationStartDate) {
 		var httpResponse = httpResponseHolder.getResponse();
 
-		Map<String, List<String>> headers = httpResponse.headers()
-				.toMultimap()
-				.entrySet()
-				.stream()
-				.map(m -> Map.entry(m.getKey()
-						.toLowerCase(), m.getValue()))
-				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+		Map<String, List<String>> headers = this.readHeaders(httpResponse);
 
 		String contentType = ContentTypeHandler
 				.extractMediaType(httpResponse.header(StandardResponseHeaders.CONTENT_TYPE.getHeaderName()));
@@ -83,6 +78,40 @@ public class ResponseFactory {
 				.build();
 	}
 
+	/**
+	 * Convert a response whose body was read by a collector.
+	 */
+	public Response fromStreamedResponse(ResponseHolder<BodyCollector> httpResponseHolder) {
+		var httpResponse = httpResponseHolder.getResponse();
+		Map<String, List<String>> headers = this.readHeaders(httpResponse);
+
+		return httpResponseHolder.getPayload()
+				.complete(Response.builder()
+						.status(httpResponse.code())
+						.statusReason(Optional.ofNullable(Status.fromStatusCode(httpResponse.code()))
+								.map(Status::getReasonPhrase)
+								.orElse(null))
+						.uri(httpResponse.request()
+								.url()
+								.toString())
+						.headers(headers)
+						.cookies(this.readCookies(headers))
+						.failed(false)
+						.duration(httpResponse.receivedResponseAtMillis() - httpResponse.sentRequestAtMillis()),
+						httpResponse.header(StandardResponseHeaders.CONTENT_TYPE.getHeaderName()), headers)
+				.build();
+	}
+
+	private Map<String, List<String>> readHeaders(okhttp3.Response httpResponse) {
+		return httpResponse.headers()
+				.toMultimap()
+				.entrySet()
+				.stream()
+				.map(m -> Map.entry(m.getKey()
+						.toLowerCase(), m.getValue()))
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+	}
+
 	public Response fromException(Throwable exception) {
 		return new Response(exception);
 	}
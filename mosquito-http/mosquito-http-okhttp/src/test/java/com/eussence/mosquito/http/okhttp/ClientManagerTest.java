@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 import javax.ws.rs.core.MediaType;
 
@@ -36,10 +37,12 @@ import com.eussence.mosquito.api.exception.CheckedExecutable;
 import com.eussence.mosquito.api.exception.MosquitoException;
 import com.eussence.mosquito.api.http.AuthData;
 import com.eussence.mosquito.api.http.BodyPart;
+import com.eussence.mosquito.api.http.ConnectionConfig;
 import com.eussence.mosquito.api.http.HttpMethod;
 import com.eussence.mosquito.api.http.Request;
 import com.eussence.mosquito.api.utils.JsonMapper;
 
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.Protocol;
 import okhttp3.ResponseBody;
@@ -74,6 +77,7 @@ public class ClientManagerTest {
 	private Request get = Request.builder()
 			.get()
 			.uri("http://localhost/")
+			.connectionConfig(null)
 			.build();
 
 	private Request post = Request.builder()
@@ -81,6 +85,7 @@ public class ClientManagerTest {
 			.entity(responseBody)
 			.mediaType(MediaType.APPLICATION_JSON)
 			.uri("http://localhost/1/")
+			.connectionConfig(null)
 			.build();
 
 	@BeforeEach
@@ -118,6 +123,50 @@ public class ClientManagerTest {
 		Assertions.assertEquals(this.responseBody, response.getPayload());
 	}
 
+	@Test
+	void testAsyncGet() throws IOException {
+		Mockito.doAnswer(context -> {
+			((Callback) context.getArgument(0)).onResponse(this.mockCall, this.okhttpResponse);
+			return null;
+		})
+				.when(this.mockCall)
+				.enqueue(Mockito.isA(Callback.class));
+
+		var response = this.clientManager
+				.asyncHttp(this.get, b -> JsonMapper.fromJson(CheckedExecutable.wrap(b::string), Map.class))
+				.join();
+
+		Assertions.assertEquals(this.responseBody, response.getPayload());
+		Mockito.verify(this.mockCall, Mockito.never())
+				.execute();
+	}
+
+	@Test
+	void testFailedAsyncGet() {
+		Mockito.doAnswer(context -> {
+			((Callback) context.getArgument(0)).onFailure(this.mockCall, new IOException("Connection reset"));
+			return null;
+		})
+				.when(this.mockCall)
+				.enqueue(Mockito.isA(Callback.class));
+
+		var response = this.clientManager.asyncHttp(this.get, ResponseBody::contentLength);
+
+		var error = Assertions.assertThrows(CompletionException.class, response::join);
+		Assertions.assertTrue(error.getCause() instanceof MosquitoException);
+		Assertions.assertTrue(error.getCause()
+				.getCause() instanceof IOException);
+	}
+
+	@Test
+	void testCancelledAsyncGet() {
+		var response = this.clientManager.asyncHttp(this.get, ResponseBody::contentLength);
+		response.cancel(false);
+
+		Mockito.verify(this.mockCall)
+				.cancel();
+	}
+
 	@Test
 	void testFailedGet() {
 		Assertions.assertThrows(MosquitoException.class,
@@ -247,6 +296,76 @@ public class ClientManagerTest {
 				b -> JsonMapper.fromJson(CheckedExecutable.wrap(b::string), Map.class)));
 	}
 
+	@Test
+	void testClientPerConnectionConfig() {
+		OkHttpClient client = ClientManager.newClient(8, 4);
+		ClientManager manager = new ClientManager(client, 2);
+
+		Assertions.assertSame(client, manager.getClient(Request.builder()
+				.connectionConfig(null)
+				.build()));
+		Assertions.assertTrue(manager.getClient(Request.builder()
+				.get()
+				.uri("http://localhost/")
+				.build())
+				.followRedirects());
+
+		OkHttpClient fast = manager.getClient(this.connectionRequest(1000L, 2000L, false));
+		Assertions.assertSame(fast, manager.getClient(this.connectionRequest(1000L, 2000L, false)));
+		Assertions.assertNotSame(client, fast);
+		Assertions.assertEquals(1000, fast.connectTimeoutMillis());
+		Assertions.assertEquals(2000, fast.readTimeoutMillis());
+		Assertions.assertFalse(fast.followRedirects());
+		Assertions.assertSame(client.connectionPool(), fast.connectionPool());
+		Assertions.assertSame(client.dispatcher(), fast.dispatcher());
+
+		OkHttpClient redirecting = manager.getClient(this.connectionRequest(1000L, 2000L, true));
+		Assertions.assertNotSame(fast, redirecting);
+		Assertions.assertTrue(redirecting.followRedirects());
+		Assertions.assertEquals(2, manager.getCachedClients());
+
+		manager.getClient(this.connectionRequest(1000L, 2000L, false));
+		manager.getClient(this.connectionRequest(3000L, 2000L, false));
+		Assertions.assertEquals(2, manager.getCachedClients());
+		Assertions.assertSame(fast, manager.getClient(this.connectionRequest(1000L, 2000L, false)));
+		Assertions.assertNotSame(redirecting, manager.getClient(this.connectionRequest(1000L, 2000L, true)));
+	}
+
+	@Test
+	void testUnsetConnectionConfig() {
+		OkHttpClient client = ClientManager.newClient(8, 4);
+		ClientManager manager = new ClientManager(client, 2);
+
+		OkHttpClient derived = manager.getClient(Request.builder()
+				.get()
+				.uri("http://localhost/")
+				.connectionConfig(ConnectionConfig.builder()
+						.connectionTimeout(0)
+						.build())
+				.build());
+
+		Assertions.assertTrue(ConnectionConfig.builder()
+				.build()
+				.isValidateHostNames());
+		Assertions.assertTrue(new ConnectionConfig().isValidateHostNames());
+		Assertions.assertEquals(client.connectTimeoutMillis(), derived.connectTimeoutMillis());
+		Assertions.assertEquals(client.readTimeoutMillis(), derived.readTimeoutMillis());
+		Assertions.assertSame(client.hostnameVerifier(), derived.hostnameVerifier());
+	}
+
+	private Request connectionRequest(long connectionTimeout, long readTimeout, boolean followRedirects) {
+		return Request.builder()
+				.get()
+				.uri("http://localhost/")
+				.connectionConfig(ConnectionConfig.builder()
+						.validateHostNames(true)
+						.connectionTimeout(connectionTimeout)
+						.readTimeout(readTimeout)
+						.followRedirects(followRedirects)
+						.build())
+				.build();
+	}
+
 	@Test
 	void testBadMethod() throws IOException {
 		Assertions.assertThrows(NullPointerException.class, () -> this.clientManager.http(Request.builder()
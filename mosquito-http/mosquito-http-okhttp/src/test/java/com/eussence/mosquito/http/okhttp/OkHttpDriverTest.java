@@ -16,6 +16,7 @@
 package com.eussence.mosquito.http.okhttp;
 
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -26,11 +27,15 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.http.BodyHandling;
 import com.eussence.mosquito.api.http.Request;
 import com.eussence.mosquito.api.http.Response;
+import com.eussence.mosquito.http.api.BodyCollector;
 import com.eussence.mosquito.http.okhttp.factory.ResponseFactory;
 
+import okhttp3.MediaType;
 import okhttp3.Protocol;
+import okhttp3.ResponseBody;
 
 /**
  * 
@@ -60,6 +65,10 @@ public class OkHttpDriverTest {
 				.thenReturn(ResponseHolder.builder()
 						.response(response)
 						.build());
+		Mockito.when(this.clientManager.asyncHttp(Mockito.isA(Request.class), Mockito.isA(Function.class)))
+				.thenReturn(CompletableFuture.completedFuture(ResponseHolder.builder()
+						.response(response)
+						.build()));
 
 //		Mockito.when(this.responseFactory.fromHttpResponse(Mockito.isA(ResponseHolder.class), Mockito.isA(Instant.class))).thenAnswer((context) -> ((ResponseHolder)context.getArgument(0)).getre )
 	}
@@ -113,10 +122,49 @@ public class OkHttpDriverTest {
 				.join();
 
 		Mockito.verify(this.clientManager)
-				.http(Mockito.eq(mrq), Mockito.isA(Function.class));
+				.asyncHttp(Mockito.eq(mrq), Mockito.isA(Function.class));
+		Mockito.verify(this.clientManager, Mockito.never())
+				.http(Mockito.any(), Mockito.any());
 		Mockito.verify(this.responseFactory)
 				.fromHttpResponse(Mockito.isA(ResponseHolder.class), Mockito.isA(Instant.class));
 		Mockito.verify(this.responseFactory)
 				.fromException(Mockito.isA(MosquitoException.class));
 	}
+
+	@Test
+	void testStreamedHttpCall() {
+		Mockito.when(this.clientManager.http(Mockito.isA(Request.class), Mockito.isA(Function.class)))
+				.thenAnswer(context -> ResponseHolder.builder()
+						.response(response)
+						.payload(((Function<ResponseBody, ?>) context.getArgument(1))
+								.apply(ResponseBody.create(MediaType.get("text/plain"), "large body")))
+						.build());
+		var mrq = Request.builder()
+				.bodyHandling(BodyHandling.discard())
+				.build();
+
+		this.driver.http(mrq);
+
+		Mockito.verify(this.responseFactory)
+				.fromStreamedResponse(Mockito.argThat(holder -> holder.getPayload() instanceof BodyCollector));
+		Mockito.verify(this.responseFactory, Mockito.never())
+				.fromHttpResponse(Mockito.any(), Mockito.any());
+	}
+
+	@Test
+	void testAsyncHttpFailure() {
+		var failure = new MosquitoException("Connection refused");
+		Mockito.when(this.clientManager.asyncHttp(Mockito.isA(Request.class), Mockito.isA(Function.class)))
+				.thenReturn(CompletableFuture.failedFuture(failure));
+		var mrq = Request.builder()
+				.build();
+
+		this.driver.asyncHttp(mrq)
+				.join();
+
+		Mockito.verify(this.responseFactory, Mockito.never())
+				.fromHttpResponse(Mockito.any(), Mockito.any());
+		Mockito.verify(this.responseFactory)
+				.fromException(Mockito.same(failure));
+	}
 }
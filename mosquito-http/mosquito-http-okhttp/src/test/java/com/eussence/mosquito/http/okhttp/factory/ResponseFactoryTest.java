@@ -25,8 +25,10 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import com.eussence.mosquito.api.exception.MosquitoException;
+import com.eussence.mosquito.api.http.BodyHandling;
 import com.eussence.mosquito.api.http.Response;
 import com.eussence.mosquito.api.utils.JsonMapper;
+import com.eussence.mosquito.http.api.BodyCollector;
 import com.eussence.mosquito.http.okhttp.ResponseHolder;
 
 import okhttp3.Protocol;
@@ -79,6 +81,31 @@ public class ResponseFactoryTest {
 				.size());
 	}
 
+	@Test
+	void testStreamedResponse() throws Exception {
+		BodyCollector collector = BodyCollector.of(BodyHandling.cap(4))
+				.orElseThrow();
+		collector.accept(okhttpResponse.body()
+				.byteStream());
+
+		Response rsp = ResponseFactory.instance()
+				.fromStreamedResponse(ResponseHolder.<BodyCollector>builder()
+						.response(okhttpResponse)
+						.payload(collector)
+						.build());
+
+		Assertions.assertFalse(rsp.isFailed());
+		Assertions.assertEquals(201, rsp.getStatus());
+		Assertions.assertEquals(JsonMapper.json(responseBody)
+				.length(), rsp.getLength());
+		Assertions.assertTrue(rsp.isTruncated());
+		Assertions.assertEquals("{\"a\"", rsp.getBody()
+				.getEntity());
+		Assertions.assertNotNull(rsp.getDigest());
+		Assertions.assertEquals(1, rsp.getCookies()
+				.size());
+	}
+
 	@Test
 	void testResponseFromError() {
 		Response rsp = ResponseFactory.instance()